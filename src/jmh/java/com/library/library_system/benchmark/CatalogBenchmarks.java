@@ -0,0 +1,76 @@
+package com.library.library_system.benchmark;
+
+import com.library.library_system.entity.Book;
+import com.library.library_system.repository.BookRepository;
+import com.library.library_system.repository.LoanStatusCounts;
+import com.library.library_system.service.BookLoanService;
+import com.library.library_system.service.BookService;
+import com.library.library_system.service.LoanStatisticsService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Чтение каталога: поиск книг и статистика выдач для страниц списков
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CatalogBenchmarks {
+
+	private static final String[] KEYWORDS = {"Толстой", "мир", "Маргарита", "Чехов", "преступ", "том 3"};
+	private static final int PAGE_SIZE = 50;
+
+	private BookService bookService;
+	private BookLoanService bookLoanService;
+	private LoanStatisticsService loanStatisticsService;
+	private List<Book> page;
+	private LibraryState library;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUp(LibraryState library) {
+		this.library = library;
+		bookService = library.bean(BookService.class);
+		bookLoanService = library.bean(BookLoanService.class);
+		loanStatisticsService = library.bean(LoanStatisticsService.class);
+		List<Long> ids = library.catalogBookIds();
+		page = library.bean(BookRepository.class).findAllById(ids.subList(ids.size() / 2, ids.size() / 2 + PAGE_SIZE));
+	}
+
+	@Benchmark
+	public List<Book> searchBooks() {
+		return bookService.searchBooks(KEYWORDS[next++ % KEYWORDS.length]);
+	}
+
+	/**
+	 * Количество активных и всех выдач для страницы из {@value #PAGE_SIZE} книг
+	 */
+	@Benchmark
+	public List<Book> bookPageStatistics() {
+		loanStatisticsService.fillBookStatistics(page);
+		return page;
+	}
+
+	/**
+	 * Итоги по статусам выдач над списком выдач
+	 */
+	@Benchmark
+	public LoanStatusCounts loanStatusCounts() {
+		return bookLoanService.getLoanStatusCounts("all", library.today());
+	}
+}
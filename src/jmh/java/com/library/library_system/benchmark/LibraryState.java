@@ -0,0 +1,206 @@
+package com.library.library_system.benchmark;
+
+import com.library.library_system.LibrarySystemApplication;
+import com.library.library_system.config.CacheConfig;
+import com.library.library_system.entity.Book;
+import com.library.library_system.entity.Librarian;
+import com.library.library_system.entity.Reader;
+import com.library.library_system.service.SyntheticDataGenerator;
+import com.library.library_system.service.SyntheticDataset;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Приложение на встроенной базе H2 (настройки из src/test/resources), заполненное
+ * выдачами в заданном масштабе. Создается один раз на запуск бенчмарка.
+ *
+ * <p>Каталог, читатели, библиотекари и история выдач создаются {@link SyntheticDataGenerator}
+ * по набору {@link SyntheticDataset#ofLoans}: популярность книг по закону Ципфа, история за три года.
+ * Отдельно заводятся книги, читатели и библиотекарь "стойки выдачи": на них бенчмарки
+ * выдают и возвращают книги, не меняя остальные данные (см. {@link #resetDesk()}).
+ * На каждого читателя стойки приходится {@value #DESK_LOANS_PER_READER} выдач, как у обычного читателя.</p>
+ *
+ * <p>Для 1 млн выдач и больше увеличьте память форка: {@code -jvmArgsAppend -Xmx4g}.</p>
+ */
+@State(Scope.Benchmark)
+public class LibraryState {
+
+	private static final int CHUNK_SIZE = 10_000;
+	private static final long DESK_LOAN_IDS = 1_000_000_000L;
+	private static final int DESK_LOANS_PER_READER = 10;
+
+	/**
+	 * Количество выдач в истории
+	 */
+	@Param({"1000"})
+	public int loans;
+
+	/**
+	 * Начальное значение генератора данных
+	 */
+	@Param({"1"})
+	public long seed;
+
+	/**
+	 * Количество книг стойки выдачи; ограничивает число выдач за одну итерацию
+	 */
+	@Param({"20000"})
+	public int deskBooks;
+
+	private ConfigurableApplicationContext context;
+	private JdbcTemplate jdbcTemplate;
+	private final LocalDate today = LocalDate.now();
+
+	private List<Long> catalogBookIds;
+	private long firstDeskBookId;
+	private long lastDeskBookId;
+	private long firstDeskReaderId;
+	private long lastDeskReaderId;
+	private Long deskLibrarianId;
+	private long nextDeskLoanId = DESK_LOAN_IDS;
+
+	@Setup(Level.Trial)
+	public void start() {
+		context = new SpringApplicationBuilder(LibrarySystemApplication.class)
+				.web(WebApplicationType.NONE)
+				.properties("logging.level.root=WARN")
+				.run();
+		jdbcTemplate = bean(JdbcTemplate.class);
+		seed();
+	}
+
+	@TearDown(Level.Trial)
+	public void stop() {
+		context.close();
+	}
+
+	public <T> T bean(Class<T> type) {
+		return context.getBean(type);
+	}
+
+	public LocalDate today() {
+		return today;
+	}
+
+	/**
+	 * @return идентификаторы книг каталога (без книг стойки)
+	 */
+	public List<Long> catalogBookIds() {
+		return catalogBookIds;
+	}
+
+	public Book deskBook(int index) {
+		if (index >= deskBooks) {
+			throw new IllegalStateException("Книги стойки выдачи закончились, увеличьте параметр deskBooks");
+		}
+		Book book = new Book();
+		book.setBookId(firstDeskBookId + index);
+		return book;
+	}
+
+	public Reader deskReader(int index) {
+		Reader reader = new Reader();
+		reader.setReaderId(firstDeskReaderId + index / DESK_LOANS_PER_READER);
+		return reader;
+	}
+
+	public Librarian deskLibrarian() {
+		Librarian librarian = new Librarian();
+		librarian.setLibrarianId(deskLibrarianId);
+		return librarian;
+	}
+
+	/**
+	 * Удалить выдачи книг стойки и обнулить их счетчики, сбросив кэши
+	 */
+	public void resetDesk() {
+		jdbcTemplate.update("delete from book_loans where book_id between ? and ?", firstDeskBookId, lastDeskBookId);
+		jdbcTemplate.update("update books set active_loans_count = 0, total_loans_count = 0 "
+				+ "where book_id between ? and ?", firstDeskBookId, lastDeskBookId);
+		jdbcTemplate.update("update readers set active_loans_count = 0, total_loans_count = 0 "
+				+ "where reader_id between ? and ?", firstDeskReaderId, lastDeskReaderId);
+		jdbcTemplate.update("update librarians set loans_count = 0 where librarian_id = ?", deskLibrarianId);
+		bean(EntityManagerFactory.class).getCache().evictAll();
+		CacheManager cacheManager = bean(CacheManager.class);
+		CacheConfig.CACHE_NAMES.forEach(name -> cacheManager.getCache(name).clear());
+	}
+
+	/**
+	 * Выдать каждую книгу стойки читателям стойки в обход сервисов
+	 *
+	 * @return идентификаторы открытых выдач в порядке книг
+	 */
+	public List<Long> openDeskLoans() {
+		resetDesk();
+		long firstLoanId = nextDeskLoanId;
+		nextDeskLoanId += deskBooks;
+		insert("insert into book_loans (loan_id, book_id, reader_id, librarian_id, loan_date, due_date, version) "
+				+ "values (?, ?, ?, ?, ?, ?, 0)", deskBooks, i -> new Object[] {firstLoanId + i, firstDeskBookId + i,
+				firstDeskReaderId + i / DESK_LOANS_PER_READER, deskLibrarianId,
+				Date.valueOf(today), Date.valueOf(today.plusDays(14))});
+		jdbcTemplate.update("update books set active_loans_count = 1, total_loans_count = 1 "
+				+ "where book_id between ? and ?", firstDeskBookId, lastDeskBookId);
+		jdbcTemplate.update("update readers set "
+				+ "active_loans_count = (select count(*) from book_loans l where l.reader_id = readers.reader_id), "
+				+ "total_loans_count = (select count(*) from book_loans l where l.reader_id = readers.reader_id) "
+				+ "where reader_id between ? and ?", firstDeskReaderId, lastDeskReaderId);
+		jdbcTemplate.update("update librarians set loans_count = ? where librarian_id = ?", deskBooks, deskLibrarianId);
+		List<Long> loanIds = new ArrayList<>(deskBooks);
+		for (int i = 0; i < deskBooks; i++) {
+			loanIds.add(firstLoanId + i);
+		}
+		return loanIds;
+	}
+
+	private void seed() {
+		bean(SyntheticDataGenerator.class).generate(SyntheticDataset.ofLoans(loans, seed), today);
+		catalogBookIds = jdbcTemplate.queryForList(
+				"select book_id from books where book_number like 'SB-%' order by book_id", Long.class);
+
+		int deskReaders = (deskBooks + DESK_LOANS_PER_READER - 1) / DESK_LOANS_PER_READER;
+		insert("insert into books (book_number, title, author, publication_year, active_loans_count, "
+				+ "total_loans_count, version) values (?, ?, ?, 2020, 0, 0, 0)", deskBooks, i -> new Object[] {
+				"D-" + i, "Книга стойки " + i, "Автор стойки"});
+		insert("insert into readers (ticket_number, full_name, phone_number, registration_date, "
+				+ "active_loans_count, total_loans_count, version) values (?, ?, ?, ?, 0, 0, 0)", deskReaders,
+				i -> new Object[] {"DR-" + i, "Читатель стойки " + i, String.format("+7 %010d", i), Date.valueOf(today)});
+		jdbcTemplate.update("insert into librarians (librarian_number, full_name, position, loans_count, version) "
+				+ "values ('DL-0', 'Библиотекарь стойки', 'Библиотекарь', 0, 0)");
+
+		firstDeskBookId = jdbcTemplate.queryForObject(
+				"select min(book_id) from books where book_number like 'D-%'", Long.class);
+		lastDeskBookId = firstDeskBookId + deskBooks - 1;
+		firstDeskReaderId = jdbcTemplate.queryForObject(
+				"select min(reader_id) from readers where ticket_number like 'DR-%'", Long.class);
+		lastDeskReaderId = firstDeskReaderId + deskReaders - 1;
+		deskLibrarianId = jdbcTemplate.queryForObject(
+				"select librarian_id from librarians where librarian_number = 'DL-0'", Long.class);
+		jdbcTemplate.execute("analyze");
+	}
+
+	private void insert(String sql, int count, IntFunction<Object[]> row) {
+		for (int from = 0; from < count; from += CHUNK_SIZE) {
+			List<Object[]> rows = new ArrayList<>(CHUNK_SIZE);
+			for (int i = from; i < Math.min(count, from + CHUNK_SIZE); i++) {
+				rows.add(row.apply(i));
+			}
+			jdbcTemplate.batchUpdate(sql, rows);
+		}
+	}
+}
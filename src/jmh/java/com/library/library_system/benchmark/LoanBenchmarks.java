@@ -0,0 +1,86 @@
+package com.library.library_system.benchmark;
+
+import com.library.library_system.entity.BookLoan;
+import com.library.library_system.service.BookLoanService;
+import com.library.library_system.service.ReturnResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Выдача и возврат книг на стойке выдачи. Перед каждой итерацией книги стойки
+ * возвращаются в исходное состояние, поэтому объем данных от итерации к итерации не растет.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class LoanBenchmarks {
+
+	/**
+	 * Все книги стойки свободны
+	 */
+	@State(Scope.Thread)
+	public static class FreeDesk {
+
+		private LibraryState library;
+		private BookLoanService bookLoanService;
+		private int next;
+
+		@Setup(Level.Iteration)
+		public void setUp(LibraryState library) {
+			this.library = library;
+			bookLoanService = library.bean(BookLoanService.class);
+			library.resetDesk();
+			next = 0;
+		}
+	}
+
+	/**
+	 * Все книги стойки выданы
+	 */
+	@State(Scope.Thread)
+	public static class OpenDesk {
+
+		private BookLoanService bookLoanService;
+		private List<Long> loanIds;
+		private int next;
+
+		@Setup(Level.Iteration)
+		public void setUp(LibraryState library) {
+			bookLoanService = library.bean(BookLoanService.class);
+			loanIds = library.openDeskLoans();
+			next = 0;
+		}
+	}
+
+	@Benchmark
+	public BookLoan saveLoan(FreeDesk desk) {
+		LibraryState library = desk.library;
+		int index = desk.next++;
+		BookLoan loan = new BookLoan(library.deskBook(index), library.deskReader(index), library.deskLibrarian(),
+				library.today(), library.today().plusDays(14));
+		desk.bookLoanService.saveLoan(loan);
+		return loan;
+	}
+
+	@Benchmark
+	public ReturnResult returnBook(OpenDesk desk) {
+		if (desk.next >= desk.loanIds.size()) {
+			throw new IllegalStateException("Открытые выдачи стойки закончились, увеличьте параметр deskBooks");
+		}
+		return desk.bookLoanService.returnBook(desk.loanIds.get(desk.next++));
+	}
+}
@@ -0,0 +1,54 @@
+package com.library.library_system.benchmark;
+
+import com.library.library_system.entity.Reader;
+import com.library.library_system.service.ReaderService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Регистрация читателя с проверкой уникальности номера билета и телефона
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ReaderBenchmarks {
+
+	private ReaderService readerService;
+	private JdbcTemplate jdbcTemplate;
+	private long next;
+
+	@Setup(Level.Trial)
+	public void setUp(LibraryState library) {
+		readerService = library.bean(ReaderService.class);
+		jdbcTemplate = library.bean(JdbcTemplate.class);
+	}
+
+	@TearDown(Level.Iteration)
+	public void deleteReaders() {
+		jdbcTemplate.update("delete from readers where ticket_number like 'JMH-%'");
+	}
+
+	@Benchmark
+	public Reader saveReader() {
+		long number = next++;
+		Reader reader = new Reader("JMH-" + number, "Новиков Петр", String.format("+7 (999) %09d", number));
+		readerService.saveReader(reader);
+		return reader;
+	}
+}
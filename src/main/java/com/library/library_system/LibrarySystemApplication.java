@@ -2,12 +2,14 @@ package com.library.library_system;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Главный класс приложения Library System.
  * Используется для запуска Spring Boot приложения.
  */
 @SpringBootApplication
+@EnableScheduling
 public class LibrarySystemApplication {
 
     /**
@@ -0,0 +1,71 @@
+package com.library.library_system.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Настройка кэша поиска книг, читателей и библиотекарей по натуральному ключу.
+ *
+ * <p>Кэши ограничены по размеру и времени жизни записи. Менеджер кэшей обернут в
+ * {@link TransactionAwareCacheManagerProxy}: запись и удаление из кэша внутри транзакции
+ * выполняются только после ее фиксации, поэтому откаченные изменения не попадают в кэш,
+ * а параллельный читатель не может вернуть в кэш данные до фиксации изменения.</p>
+ *
+ * <p>Кэши хранят только найденный идентификатор записи: изменение счетчиков выдач их
+ * не затрагивает, а отсутствие записи не кэшируется, чтобы запись, созданная в обход
+ * сервисов (например, импортом), находилась сразу. Сами сущности по идентификатору
+ * кэшируются только кэшем второго уровня Hibernate (регионы описаны в ehcache.xml),
+ * который отдает каждому персистентному контексту собственный экземпляр.</p>
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    /** Книги по инвентарному номеру */
+    public static final String BOOKS_BY_NUMBER = "booksByNumber";
+    /** Читатели по номеру читательского билета */
+    public static final String READERS_BY_TICKET = "readersByTicket";
+    /** Библиотекари по табельному номеру */
+    public static final String LIBRARIANS_BY_NUMBER = "librariansByNumber";
+
+    /**
+     * Пространство запросов, в котором выполняются обновления счетчиков выдач.
+     * Hibernate сбрасывает кэш второго уровня только для таблиц из этого пространства,
+     * то есть ни для одной сущности: измененные строки удаляются из кэша точечно.
+     */
+    public static final String LOAN_COUNTERS_QUERY_SPACE = "loan_counters";
+
+    /**
+     * Все кэши приложения
+     */
+    public static final List<String> CACHE_NAMES = List.of(
+            BOOKS_BY_NUMBER, READERS_BY_TICKET, LIBRARIANS_BY_NUMBER);
+
+    /**
+     * Создать менеджер кэшей Caffeine с учетом транзакций
+     *
+     * @param maximumSize максимальное количество записей в каждом кэше
+     * @param expireAfterWrite время жизни записи
+     * @return менеджер кэшей
+     */
+    @Bean
+    public CacheManager cacheManager(@Value("${library.cache.maximum-size:10000}") long maximumSize,
+                                     @Value("${library.cache.expire-after-write:PT10M}") Duration expireAfterWrite) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats());
+        cacheManager.setCacheNames(CACHE_NAMES);
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
\ No newline at end of file
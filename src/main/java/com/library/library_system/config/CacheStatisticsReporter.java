@@ -0,0 +1,84 @@
+package com.library.library_system.config;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Сбор статистики попаданий и промахов кэшей справочных данных и регионов кэша второго уровня Hibernate.
+ * Статистика Hibernate собирается только при hibernate.generate_statistics=true.
+ */
+@Component
+public class CacheStatisticsReporter {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheStatisticsReporter.class);
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Получить статистику всех кэшей
+     *
+     * @return статистика по имени кэша
+     */
+    public Map<String, CacheStats> getStatistics() {
+        Map<String, CacheStats> statistics = new LinkedHashMap<>();
+        for (String name : CacheConfig.CACHE_NAMES) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null && cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> caffeine) {
+                statistics.put(name, caffeine.stats());
+            }
+        }
+        return statistics;
+    }
+
+    /**
+     * Получить статистику регионов кэша второго уровня
+     *
+     * @return статистика по имени региона (пусто, если сбор статистики Hibernate выключен)
+     */
+    public Map<String, CacheRegionStatistics> getSecondLevelCacheStatistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Map<String, CacheRegionStatistics> regions = new LinkedHashMap<>();
+        if (statistics.isStatisticsEnabled()) {
+            for (String region : statistics.getSecondLevelCacheRegionNames()) {
+                CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+                if (regionStatistics != null) {
+                    regions.put(region, regionStatistics);
+                }
+            }
+        }
+        return regions;
+    }
+
+    /**
+     * Периодически записать статистику кэшей в журнал
+     */
+    @Scheduled(initialDelayString = "${library.cache.stats-interval:PT15M}",
+            fixedDelayString = "${library.cache.stats-interval:PT15M}")
+    public void report() {
+        getStatistics().forEach((name, stats) -> log.info(
+                "Кэш {}: попаданий {}, промахов {}, доля попаданий {}%, вытеснено {}",
+                name, stats.hitCount(), stats.missCount(),
+                Math.round(stats.hitRate() * 100), stats.evictionCount()));
+        getSecondLevelCacheStatistics().forEach((region, stats) -> log.info(
+                "Регион {}: попаданий {}, промахов {}, записей {}, элементов в памяти {}",
+                region, stats.getHitCount(), stats.getMissCount(), stats.getPutCount(),
+                stats.getElementCountInMemory()));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,42 @@
+package com.library.library_system.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+
+/**
+ * База данных приложения для кода, который пишет отдельные запросы для PostgreSQL
+ * и переносимые для остальных баз (встроенной H2 в тестах).
+ * База определяется по метаданным соединения при первом обращении.
+ */
+@Component
+public class DatabasePlatform {
+
+    @Autowired
+    private DataSource dataSource;
+
+    private volatile Boolean postgres;
+
+    /**
+     * Определить, работает ли приложение с PostgreSQL
+     *
+     * @return true для PostgreSQL
+     */
+    public boolean isPostgres() {
+        Boolean result = postgres;
+        if (result == null) {
+            try {
+                String product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+                result = "PostgreSQL".equalsIgnoreCase(product);
+            } catch (MetaDataAccessException e) {
+                result = false;
+            }
+            postgres = result;
+        }
+        return result;
+    }
+}
\ No newline at end of file
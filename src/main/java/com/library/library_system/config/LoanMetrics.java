@@ -0,0 +1,58 @@
+package com.library.library_system.config;
+
+import com.library.library_system.repository.BookLoanRepository;
+import com.library.library_system.repository.LoanStatusCounts;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+/**
+ * Показатели library.loans.active (не возвращенные выдачи) и library.loans.overdue
+ * (не возвращенные выдачи с истекшим сроком возврата).
+ *
+ * <p>Значения считаются одним запросом по индексу открытых выдач при чтении показателей
+ * и запоминаются на library.metrics.loans-refresh, поэтому частый сбор метрик не нагружает базу,
+ * а выдача и возврат книг не затрагиваются совсем.</p>
+ */
+@Component
+public class LoanMetrics implements MeterBinder {
+
+    @Autowired
+    private BookLoanRepository bookLoanRepository;
+
+    @Value("${library.metrics.loans-refresh:PT1M}")
+    private Duration refreshInterval;
+
+    private long activeLoans;
+    private long overdueLoans;
+    private long refreshedAt;
+    private boolean refreshed;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("library.loans.active", this, metrics -> metrics.refresh().activeLoans)
+                .description("Не возвращенные выдачи")
+                .register(registry);
+        Gauge.builder("library.loans.overdue", this, metrics -> metrics.refresh().overdueLoans)
+                .description("Не возвращенные выдачи с истекшим сроком возврата")
+                .register(registry);
+    }
+
+    private synchronized LoanMetrics refresh() {
+        long now = System.nanoTime();
+        if (!refreshed || now - refreshedAt >= refreshInterval.toNanos()) {
+            LoanStatusCounts counts = bookLoanRepository.countLoansByStatus(LocalDate.now(), true, false);
+            activeLoans = counts.getActiveCount();
+            overdueLoans = counts.getOverdueCount();
+            refreshedAt = now;
+            refreshed = true;
+        }
+        return this;
+    }
+}
\ No newline at end of file
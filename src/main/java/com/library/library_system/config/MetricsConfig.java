@@ -0,0 +1,50 @@
+package com.library.library_system.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.StatisticsSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Настройка метрик приложения, которые отдаются в формате Prometheus по адресу /actuator/prometheus.
+ *
+ * <p>Метрики HTTP-запросов, пула соединений HikariCP и статистики Hibernate
+ * (hibernate.generate_statistics=true) регистрирует Spring Boot. Здесь добавляются
+ * таймеры методов сервисов, отмеченных {@code @Timed(SERVICE_TIMER)}, и счетчики Hibernate
+ * на каждый HTTP-запрос ({@link RequestStatistics}).</p>
+ *
+ * <p>Таймер сервиса считает и вызовы, и их длительность: количество вызовов по методу
+ * и исключению - это library_service_seconds_count. Гистограммы для таймеров сервисов
+ * не строятся, чтобы запись вызова оставалась одним обращением к счетчикам таймера.</p>
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Имя таймера методов сервисов (теги class, method и exception)
+     */
+    public static final String SERVICE_TIMER = "library.service";
+
+    /**
+     * Аспект, который измеряет методы, отмеченные {@code @Timed}
+     *
+     * @param meterRegistry реестр метрик
+     * @return аспект таймеров
+     */
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    /**
+     * Подключить статистику Hibernate, которая дополнительно считает работу текущего HTTP-запроса
+     *
+     * @return настройка свойств Hibernate
+     */
+    @Bean
+    public HibernatePropertiesCustomizer requestStatisticsCustomizer() {
+        return properties -> properties.put(StatisticsSettings.STATS_BUILDER, new RequestStatistics.Factory());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,34 @@
+package com.library.library_system.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Бюджет обращений к базе данных одного HTTP-запроса к обработчику (методу или всем методам контроллера).
+ * Проверяется при library.query-budget.enabled=true, см. {@link QueryBudgetInterceptor}.
+ * Незаданные (отрицательные) значения берутся из library.query-budget.statements,
+ * library.query-budget.rows и library.query-budget.hydrations.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface QueryBudget {
+
+    /**
+     * @return максимальное количество выполненных SQL-запросов (пакет считается одним запросом)
+     */
+    long statements() default -1;
+
+    /**
+     * @return максимальное количество прочитанных строк результатов
+     */
+    long rows() default -1;
+
+    /**
+     * @return максимальное количество загруженных из базы сущностей
+     */
+    long hydrations() default -1;
+}
\ No newline at end of file
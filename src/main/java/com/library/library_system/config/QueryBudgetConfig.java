@@ -0,0 +1,74 @@
+package com.library.library_system.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+
+/**
+ * Проверка бюджета обращений к базе данных HTTP-запросов ({@link QueryBudget}) для тестов и тестового стенда.
+ *
+ * <p>Включается свойством library.query-budget.enabled=true: источник данных оборачивается
+ * прокси {@link QueryCounter}, к Hibernate добавляется слушатель загрузки сущностей,
+ * а к обработчикам запросов - {@link QueryBudgetInterceptor}. В рабочем режиме ничего
+ * из этого не подключается.</p>
+ */
+@Configuration
+public class QueryBudgetConfig implements WebMvcConfigurer {
+
+    @Value("${library.query-budget.enabled:false}")
+    private boolean enabled;
+
+    @Autowired
+    private QueryBudgetInterceptor queryBudgetInterceptor;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Обернуть источник данных прокси, считающим SQL-запросы и строки результатов
+     *
+     * @param enabled включена ли проверка бюджета
+     * @return обработчик бинов
+     */
+    @Bean
+    public static BeanPostProcessor queryCountingDataSourcePostProcessor(
+            @Value("${library.query-budget.enabled:false}") boolean enabled) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (enabled && bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+                    return QueryCounter.wrap(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @PostConstruct
+    void registerHydrationListener() {
+        if (enabled) {
+            entityManagerFactory.unwrap(SessionFactoryImplementor.class).getServiceRegistry()
+                    .requireService(EventListenerRegistry.class)
+                    .appendListeners(EventType.POST_LOAD, new QueryCounter.HydrationListener());
+        }
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (enabled) {
+            registry.addInterceptor(queryBudgetInterceptor);
+        }
+    }
+}
\ No newline at end of file
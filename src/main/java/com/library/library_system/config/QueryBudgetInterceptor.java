@@ -0,0 +1,70 @@
+package com.library.library_system.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Подсчет обращений к базе данных каждого HTTP-запроса от вызова обработчика до конца отрисовки
+ * шаблона и предупреждение в журнал с местами вызова, если запрос превысил бюджет ({@link QueryBudget}).
+ * Счетчики записываются в атрибут запроса {@link QueryCounts#ATTRIBUTE}.
+ *
+ * <p>Асинхронная часть запроса (потоковая выгрузка) выполняется в другом потоке и не учитывается.</p>
+ */
+@Component
+public class QueryBudgetInterceptor implements AsyncHandlerInterceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryBudgetInterceptor.class);
+
+    @Value("${library.query-budget.statements:20}")
+    private long defaultStatements;
+
+    @Value("${library.query-budget.rows:5000}")
+    private long defaultRows;
+
+    @Value("${library.query-budget.hydrations:1000}")
+    private long defaultHydrations;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        QueryBudget budget = handler instanceof HandlerMethod handlerMethod ? budgetOf(handlerMethod) : null;
+        QueryCounts counts = budget == null
+                ? QueryCounter.start(defaultStatements, defaultRows, defaultHydrations)
+                : QueryCounter.start(limit(budget.statements(), defaultStatements), limit(budget.rows(), defaultRows),
+                        limit(budget.hydrations(), defaultHydrations));
+        request.setAttribute(QueryCounts.ATTRIBUTE, counts);
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        QueryCounter.stop();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        QueryCounter.stop();
+        if (request.getAttribute(QueryCounts.ATTRIBUTE) instanceof QueryCounts counts && counts.isOverBudget()) {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            log.warn("Запрос {} {} превысил бюджет обращений к базе данных: {}", request.getMethod(),
+                    pattern != null ? pattern : request.getRequestURI(), counts);
+        }
+    }
+
+    private static QueryBudget budgetOf(HandlerMethod handlerMethod) {
+        QueryBudget budget = handlerMethod.getMethodAnnotation(QueryBudget.class);
+        return budget != null ? budget
+                : AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getBeanType(), QueryBudget.class);
+    }
+
+    private static long limit(long value, long defaultValue) {
+        return value < 0 ? defaultValue : value;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,105 @@
+package com.library.library_system.config;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import net.ttddyy.dsproxy.listener.lifecycle.JdbcLifecycleEventListenerAdapter;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Подсчет обращений к базе данных текущего потока: SQL-запросов и прочитанных строк через прокси
+ * источника данных (datasource-proxy) и загруженных сущностей через событие Hibernate post-load.
+ *
+ * <p>Прокси перехватывает каждый вызов JDBC, включая ResultSet.next(), поэтому источник данных
+ * оборачивается только при library.query-budget.enabled=true (тесты и тестовый стенд).</p>
+ */
+public final class QueryCounter {
+
+    private static final ThreadLocal<QueryCounts> CURRENT = new ThreadLocal<>();
+
+    private QueryCounter() {
+    }
+
+    /**
+     * Подсчитать обращения к базе данных фрагмента кода без ограничения бюджета
+     *
+     * @param action фрагмент кода, выполняемый в текущем потоке
+     * @return счетчики (нулевые, если подсчет выключен)
+     */
+    public static QueryCounts measure(Runnable action) {
+        QueryCounts previous = CURRENT.get();
+        QueryCounts counts = new QueryCounts(Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE);
+        CURRENT.set(counts);
+        try {
+            action.run();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+        return counts;
+    }
+
+    static QueryCounts start(long statementLimit, long rowLimit, long hydrationLimit) {
+        QueryCounts counts = new QueryCounts(statementLimit, rowLimit, hydrationLimit);
+        CURRENT.set(counts);
+        return counts;
+    }
+
+    static void stop() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Обернуть источник данных прокси, который считает SQL-запросы и строки результатов
+     *
+     * @param dataSource источник данных
+     * @return прокси источника данных
+     */
+    static DataSource wrap(DataSource dataSource) {
+        return ProxyDataSourceBuilder.create("library", dataSource)
+                .listener(new StatementListener())
+                .proxyResultSet()
+                .build();
+    }
+
+    private static class StatementListener extends JdbcLifecycleEventListenerAdapter {
+
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            QueryCounts counts = CURRENT.get();
+            if (counts != null) {
+                counts.statementExecuted();
+            }
+        }
+
+        @Override
+        public void afterNext(MethodExecutionContext executionContext) {
+            QueryCounts counts = CURRENT.get();
+            if (counts != null && Boolean.TRUE.equals(executionContext.getResult())) {
+                counts.rowFetched();
+            }
+        }
+    }
+
+    /**
+     * Слушатель загрузки сущностей Hibernate
+     */
+    static class HydrationListener implements PostLoadEventListener {
+
+        @Override
+        public void onPostLoad(PostLoadEvent event) {
+            QueryCounts counts = CURRENT.get();
+            if (counts != null) {
+                counts.entityHydrated();
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,160 @@
+package com.library.library_system.config;
+
+import jakarta.servlet.ServletRequest;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Обращения к базе данных одного HTTP-запроса или фрагмента кода ({@link QueryCounter#measure(Runnable)})
+ * и их бюджет.
+ *
+ * <p>Для SQL-запросов сверх бюджета запоминаются места вызова: до {@value #CALL_SITE_DEPTH} ближайших
+ * методов приложения в стеке (без прокси и классов этого пакета) и количество запросов из этого места.
+ * Счетчики изменяются только потоком, который их собирает.</p>
+ */
+public final class QueryCounts {
+
+    /**
+     * Атрибут HTTP-запроса, в который записываются его счетчики
+     */
+    public static final String ATTRIBUTE = QueryCounts.class.getName();
+
+    static final int CALL_SITE_DEPTH = 3;
+
+    private static final int MAX_CALL_SITES = 20;
+    private static final String APPLICATION_PACKAGE = "com.library.library_system.";
+    private static final String OWN_PACKAGE = QueryCounts.class.getPackageName() + ".";
+
+    private final long statementLimit;
+    private final long rowLimit;
+    private final long hydrationLimit;
+
+    private long statements;
+    private long rows;
+    private long hydrations;
+    private final Map<String, Integer> callSites = new LinkedHashMap<>();
+
+    QueryCounts(long statementLimit, long rowLimit, long hydrationLimit) {
+        this.statementLimit = statementLimit;
+        this.rowLimit = rowLimit;
+        this.hydrationLimit = hydrationLimit;
+    }
+
+    /**
+     * Получить счетчики обработанного HTTP-запроса
+     *
+     * @param request HTTP-запрос
+     * @return счетчики запроса
+     * @throws IllegalStateException если счетчики не собирались (library.query-budget.enabled=false)
+     */
+    public static QueryCounts of(ServletRequest request) {
+        if (!(request.getAttribute(ATTRIBUTE) instanceof QueryCounts counts)) {
+            throw new IllegalStateException("Обращения к базе данных не подсчитаны, нужен library.query-budget.enabled=true");
+        }
+        return counts;
+    }
+
+    void statementExecuted() {
+        if (++statements > statementLimit && callSites.size() < MAX_CALL_SITES) {
+            callSites.merge(callSite(), 1, Integer::sum);
+        }
+    }
+
+    void rowFetched() {
+        rows++;
+    }
+
+    void entityHydrated() {
+        hydrations++;
+    }
+
+    /**
+     * @return количество выполненных SQL-запросов
+     */
+    public long getStatements() {
+        return statements;
+    }
+
+    /**
+     * @return количество прочитанных строк результатов
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * @return количество загруженных из базы сущностей
+     */
+    public long getHydrations() {
+        return hydrations;
+    }
+
+    public long getStatementLimit() {
+        return statementLimit;
+    }
+
+    public long getRowLimit() {
+        return rowLimit;
+    }
+
+    public long getHydrationLimit() {
+        return hydrationLimit;
+    }
+
+    /**
+     * @return места вызова SQL-запросов сверх бюджета и количество запросов из каждого места
+     */
+    public Map<String, Integer> getCallSites() {
+        return Collections.unmodifiableMap(callSites);
+    }
+
+    /**
+     * @return превышен ли хотя бы один из бюджетов
+     */
+    public boolean isOverBudget() {
+        return statements > statementLimit || rows > rowLimit || hydrations > hydrationLimit;
+    }
+
+    /**
+     * Проверить, что бюджет не превышен
+     *
+     * @throws IllegalStateException если бюджет превышен, с описанием счетчиков и мест вызова
+     */
+    public void assertWithinBudget() {
+        if (isOverBudget()) {
+            throw new IllegalStateException("Превышен бюджет обращений к базе данных: " + this);
+        }
+    }
+
+    @Override
+    public String toString() {
+        String summary = "SQL-запросов %d из %s, строк %d из %s, сущностей %d из %s".formatted(
+                statements, limit(statementLimit), rows, limit(rowLimit), hydrations, limit(hydrationLimit));
+        if (callSites.isEmpty()) {
+            return summary;
+        }
+        return summary + callSites.entrySet().stream()
+                .map(site -> site.getValue() + " x " + site.getKey())
+                .collect(Collectors.joining("\n  ", "; места вызова лишних запросов:\n  ", ""));
+    }
+
+    private static String limit(long limit) {
+        return limit == Long.MAX_VALUE ? "без ограничения" : String.valueOf(limit);
+    }
+
+    private static String callSite() {
+        List<String> frames = StackWalker.getInstance().walk(stack -> stack
+                .filter(frame -> frame.getClassName().startsWith(APPLICATION_PACKAGE)
+                        && !frame.getClassName().startsWith(OWN_PACKAGE)
+                        && !frame.getClassName().contains("$$"))
+                .limit(CALL_SITE_DEPTH)
+                .map(frame -> frame.getClassName().substring(frame.getClassName().lastIndexOf('.') + 1)
+                        + "." + frame.getMethodName() + "(" + frame.getFileName() + ":" + frame.getLineNumber() + ")")
+                .toList());
+        return frames.isEmpty() ? "вне кода приложения" : String.join(" <- ", frames);
+    }
+}
\ No newline at end of file
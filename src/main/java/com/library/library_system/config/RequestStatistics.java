@@ -0,0 +1,140 @@
+package com.library.library_system.config;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.internal.StatisticsImpl;
+import org.hibernate.stat.spi.StatisticsFactory;
+import org.hibernate.stat.spi.StatisticsImplementor;
+
+/**
+ * Счетчики работы Hibernate в пределах одного HTTP-запроса: выполненные JDBC-запросы,
+ * сущности, загруженные из результатов запросов, и отдельные загрузки сущностей
+ * и коллекций (признак проблемы N+1).
+ *
+ * <p>Счетчики привязаны к потоку, который обрабатывает запрос, и увеличиваются статистикой
+ * Hibernate вместе с ее общими счетчиками, поэтому считают только при
+ * hibernate.generate_statistics=true. Вне запроса и в асинхронной части запроса
+ * (потоковая выгрузка) счетчиков нет.</p>
+ */
+public final class RequestStatistics {
+
+    /**
+     * Атрибут HTTP-запроса, в который записываются его счетчики
+     */
+    public static final String ATTRIBUTE = Counts.class.getName();
+
+    private static final ThreadLocal<Counts> CURRENT = new ThreadLocal<>();
+
+    private RequestStatistics() {
+    }
+
+    /**
+     * Начать подсчет для текущего потока
+     *
+     * @return счетчики, которые будут увеличиваться до вызова {@link #stop()}
+     */
+    static Counts start() {
+        Counts counts = new Counts();
+        CURRENT.set(counts);
+        return counts;
+    }
+
+    /**
+     * Закончить подсчет для текущего потока
+     */
+    static void stop() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Счетчики одного запроса. Изменяются только потоком, который обрабатывает запрос.
+     */
+    public static final class Counts {
+
+        private long statements;
+        private long entityLoads;
+        private long entityFetches;
+        private long collectionFetches;
+
+        /**
+         * @return количество подготовленных JDBC-запросов
+         */
+        public long getStatements() {
+            return statements;
+        }
+
+        /**
+         * @return количество сущностей, прочитанных из результатов запросов
+         */
+        public long getEntityLoads() {
+            return entityLoads;
+        }
+
+        /**
+         * @return количество сущностей, загруженных отдельным запросом (ленивые связи, find)
+         */
+        public long getEntityFetches() {
+            return entityFetches;
+        }
+
+        /**
+         * @return количество коллекций, загруженных отдельным запросом
+         */
+        public long getCollectionFetches() {
+            return collectionFetches;
+        }
+    }
+
+    /**
+     * Фабрика статистики Hibernate для свойства hibernate.stats.factory
+     */
+    public static class Factory implements StatisticsFactory {
+
+        @Override
+        public StatisticsImplementor buildStatistics(SessionFactoryImplementor sessionFactory) {
+            return new CountingStatistics(sessionFactory);
+        }
+    }
+
+    private static class CountingStatistics extends StatisticsImpl {
+
+        CountingStatistics(SessionFactoryImplementor sessionFactory) {
+            super(sessionFactory);
+        }
+
+        @Override
+        public void prepareStatement() {
+            super.prepareStatement();
+            Counts counts = CURRENT.get();
+            if (counts != null) {
+                counts.statements++;
+            }
+        }
+
+        @Override
+        public void loadEntity(String entityName) {
+            super.loadEntity(entityName);
+            Counts counts = CURRENT.get();
+            if (counts != null) {
+                counts.entityLoads++;
+            }
+        }
+
+        @Override
+        public void fetchEntity(String entityName) {
+            super.fetchEntity(entityName);
+            Counts counts = CURRENT.get();
+            if (counts != null) {
+                counts.entityFetches++;
+            }
+        }
+
+        @Override
+        public void fetchCollection(String role) {
+            super.fetchCollection(role);
+            Counts counts = CURRENT.get();
+            if (counts != null) {
+                counts.collectionFetches++;
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,86 @@
+package com.library.library_system.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Запись счетчиков Hibernate каждого HTTP-запроса ({@link RequestStatistics}) в распределения
+ * library.request.statements, library.request.entity.loads, library.request.entity.fetches
+ * и library.request.collection.fetches с тегами method и uri (шаблон адреса обработчика).
+ *
+ * Счетчики также сохраняются в атрибуте {@link RequestStatistics#ATTRIBUTE} запроса.
+ *
+ * <p>Если статистика Hibernate выключена, запросы не учитываются.</p>
+ */
+@Component
+public class RequestStatisticsFilter extends OncePerRequestFilter {
+
+    private static final String UNKNOWN_URI = "UNKNOWN";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Meter.MeterProvider<DistributionSummary> statements;
+    private Meter.MeterProvider<DistributionSummary> entityLoads;
+    private Meter.MeterProvider<DistributionSummary> entityFetches;
+    private Meter.MeterProvider<DistributionSummary> collectionFetches;
+
+    @PostConstruct
+    void registerMeters() {
+        statements = DistributionSummary.builder("library.request.statements")
+                .description("JDBC-запросы на один HTTP-запрос")
+                .withRegistry(meterRegistry);
+        entityLoads = DistributionSummary.builder("library.request.entity.loads")
+                .description("Сущности, прочитанные из результатов запросов, на один HTTP-запрос")
+                .withRegistry(meterRegistry);
+        entityFetches = DistributionSummary.builder("library.request.entity.fetches")
+                .description("Сущности, загруженные отдельным запросом, на один HTTP-запрос")
+                .withRegistry(meterRegistry);
+        collectionFetches = DistributionSummary.builder("library.request.collection.fetches")
+                .description("Коллекции, загруженные отдельным запросом, на один HTTP-запрос")
+                .withRegistry(meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        if (!statistics.isStatisticsEnabled()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        RequestStatistics.Counts counts = RequestStatistics.start();
+        request.setAttribute(RequestStatistics.ATTRIBUTE, counts);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestStatistics.stop();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            Tags tags = Tags.of("method", request.getMethod(), "uri", pattern != null ? pattern.toString() : UNKNOWN_URI);
+            statements.withTags(tags).record(counts.getStatements());
+            entityLoads.withTags(tags).record(counts.getEntityLoads());
+            entityFetches.withTags(tags).record(counts.getEntityFetches());
+            collectionFetches.withTags(tags).record(counts.getCollectionFetches());
+        }
+    }
+}
\ No newline at end of file
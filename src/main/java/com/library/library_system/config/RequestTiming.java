@@ -0,0 +1,199 @@
+package com.library.library_system.config;
+
+import org.hibernate.BaseSessionEventListener;
+
+import java.util.Locale;
+
+/**
+ * Разбивка времени одного HTTP-запроса: JDBC (получение соединения, подготовка и выполнение запросов
+ * и пакетов Hibernate), методы сервисов и отрисовка шаблона без вложенного в них JDBC, остальное
+ * (контроллер и обработка запроса Spring MVC) и итог. Слагаемые в сумме дают итоговое время.
+ *
+ * <p>Разбивка привязана к потоку, который обрабатывает запрос. Чтение строк результата
+ * относится к тому, кто их читает (сервису или шаблону), запросы JdbcTemplate в JDBC не попадают.
+ * Вложенные вызовы сервисов считаются один раз.</p>
+ */
+public final class RequestTiming {
+
+    private static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<>();
+
+    private final long startedAt = System.nanoTime();
+    private long totalNanos;
+
+    private long jdbcNanos;
+    private long jdbcStartedAt;
+
+    private long serviceNanos;
+    private long serviceStartedAt;
+    private long serviceJdbcAtStart;
+    private int serviceDepth;
+
+    private long viewNanos;
+    private long viewStartedAt;
+    private long viewJdbcAtStart;
+    private boolean rendering;
+
+    private RequestTiming() {
+    }
+
+    /**
+     * Начать разбивку времени запроса в текущем потоке
+     *
+     * @return разбивка времени запроса
+     */
+    static RequestTiming start() {
+        RequestTiming timing = new RequestTiming();
+        CURRENT.set(timing);
+        return timing;
+    }
+
+    /**
+     * @return разбивка времени запроса текущего потока или null вне запроса
+     */
+    static RequestTiming current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Закончить разбивку времени запроса в текущем потоке
+     */
+    void finish() {
+        CURRENT.remove();
+        viewEnded();
+        totalNanos = System.nanoTime() - startedAt;
+    }
+
+    void jdbcStarted() {
+        jdbcStartedAt = System.nanoTime();
+    }
+
+    void jdbcEnded() {
+        jdbcNanos += System.nanoTime() - jdbcStartedAt;
+    }
+
+    void serviceEntered() {
+        if (serviceDepth++ == 0) {
+            serviceStartedAt = System.nanoTime();
+            serviceJdbcAtStart = jdbcNanos;
+        }
+    }
+
+    void serviceExited() {
+        if (--serviceDepth == 0) {
+            serviceNanos += System.nanoTime() - serviceStartedAt - (jdbcNanos - serviceJdbcAtStart);
+        }
+    }
+
+    void viewStarted() {
+        if (!rendering) {
+            rendering = true;
+            viewStartedAt = System.nanoTime();
+            viewJdbcAtStart = jdbcNanos;
+        }
+    }
+
+    void viewEnded() {
+        if (rendering) {
+            rendering = false;
+            viewNanos += System.nanoTime() - viewStartedAt - (jdbcNanos - viewJdbcAtStart);
+        }
+    }
+
+    public double getTotalMillis() {
+        return millis(totalNanos);
+    }
+
+    public double getJdbcMillis() {
+        return millis(jdbcNanos);
+    }
+
+    public double getServiceMillis() {
+        return millis(serviceNanos);
+    }
+
+    public double getViewMillis() {
+        return millis(viewNanos);
+    }
+
+    /**
+     * @return время контроллера и обработки запроса Spring MVC вне сервисов, JDBC и шаблона
+     */
+    public double getAppMillis() {
+        return millis(Math.max(0, totalNanos - jdbcNanos - serviceNanos - viewNanos));
+    }
+
+    /**
+     * @return значение заголовка Server-Timing
+     */
+    public String toServerTiming() {
+        return String.format(Locale.ROOT,
+                "db;desc=\"JDBC\";dur=%.1f, service;desc=\"Services\";dur=%.1f, view;desc=\"Template\";dur=%.1f, "
+                        + "app;desc=\"Controller\";dur=%.1f, total;dur=%.1f",
+                getJdbcMillis(), getServiceMillis(), getViewMillis(), getAppMillis(), getTotalMillis());
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    /**
+     * Слушатель событий JDBC сессии Hibernate для свойства hibernate.session.events.auto
+     * (создается на каждую сессию)
+     */
+    public static class JdbcListener extends BaseSessionEventListener {
+
+        @Override
+        public void jdbcConnectionAcquisitionStart() {
+            started();
+        }
+
+        @Override
+        public void jdbcConnectionAcquisitionEnd() {
+            ended();
+        }
+
+        @Override
+        public void jdbcPrepareStatementStart() {
+            started();
+        }
+
+        @Override
+        public void jdbcPrepareStatementEnd() {
+            ended();
+        }
+
+        @Override
+        public void jdbcExecuteStatementStart() {
+            started();
+        }
+
+        @Override
+        public void jdbcExecuteStatementEnd() {
+            ended();
+        }
+
+        @Override
+        public void jdbcExecuteBatchStart() {
+            started();
+        }
+
+        @Override
+        public void jdbcExecuteBatchEnd() {
+            ended();
+        }
+
+        private static void started() {
+            RequestTiming timing = CURRENT.get();
+            if (timing != null) {
+                timing.jdbcStarted();
+            }
+        }
+
+        private static void ended() {
+            RequestTiming timing = CURRENT.get();
+            if (timing != null) {
+                timing.jdbcEnded();
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,192 @@
+package com.library.library_system.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+
+/**
+ * Разбивка времени каждого HTTP-запроса ({@link RequestTiming}) в заголовке Server-Timing
+ * и в строке журнала вида {@code method=GET uri=/loans status=200 total_ms=... db_ms=... db_statements=...
+ * service_ms=... view_ms=... app_ms=...}. Количество запросов db_statements берется из счетчиков
+ * {@link RequestStatisticsFilter} и пишется, только если включена статистика Hibernate.
+ *
+ * <p>Заголовок можно добавить только до отправки начала ответа, поэтому буфер ответа увеличивается
+ * до library.server-timing.buffer-size, а сброс буфера откладывается до конца запроса.
+ * Для ответов больше буфера, перенаправлений и асинхронных запросов (потоковая выгрузка)
+ * заголовка нет, строка журнала пишется для всех синхронных запросов.</p>
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestTimingFilter extends OncePerRequestFilter {
+
+    /**
+     * Имя заголовка ответа
+     */
+    public static final String SERVER_TIMING = "Server-Timing";
+
+    private static final Logger log = LoggerFactory.getLogger(RequestTimingFilter.class);
+
+    @Value("${library.server-timing.enabled:true}")
+    private boolean enabled;
+
+    @Value("${library.server-timing.buffer-size:128KB}")
+    private DataSize bufferSize;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (response.getBufferSize() < bufferSize.toBytes()) {
+            response.setBufferSize((int) bufferSize.toBytes());
+        }
+        DeferredFlushResponse deferredResponse = new DeferredFlushResponse(request, response);
+        RequestTiming timing = RequestTiming.start();
+        try {
+            filterChain.doFilter(request, deferredResponse);
+        } finally {
+            timing.finish();
+            if (!request.isAsyncStarted()) {
+                if (!response.isCommitted()) {
+                    response.setHeader(SERVER_TIMING, timing.toServerTiming());
+                }
+                deferredResponse.release();
+                Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                RequestStatistics.Counts counts =
+                        (RequestStatistics.Counts) request.getAttribute(RequestStatistics.ATTRIBUTE);
+                log.info(String.format(Locale.ROOT,
+                        "method=%s uri=%s status=%d total_ms=%.1f db_ms=%.1f%s service_ms=%.1f view_ms=%.1f app_ms=%.1f",
+                        request.getMethod(), pattern != null ? pattern : request.getRequestURI(), response.getStatus(),
+                        timing.getTotalMillis(), timing.getJdbcMillis(),
+                        counts != null ? " db_statements=" + counts.getStatements() : "",
+                        timing.getServiceMillis(), timing.getViewMillis(), timing.getAppMillis()));
+            }
+        }
+    }
+
+    /**
+     * Ответ, который откладывает сброс буфера (шаблон сбрасывает его в конце отрисовки)
+     * до {@link #release()}, чтобы после отрисовки еще можно было добавить заголовок.
+     * После начала асинхронной обработки сброс не откладывается: ответ пишет другой поток.
+     */
+    private static final class DeferredFlushResponse extends HttpServletResponseWrapper {
+
+        private final HttpServletRequest request;
+        private boolean deferred = true;
+        private boolean flushRequested;
+        private PrintWriter writer;
+        private ServletOutputStream outputStream;
+
+        DeferredFlushResponse(HttpServletRequest request, HttpServletResponse response) {
+            super(response);
+            this.request = request;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (deferring()) {
+                flushRequested = true;
+            } else {
+                super.flushBuffer();
+            }
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                writer = new PrintWriter(new FilterWriter(super.getWriter()) {
+                    @Override
+                    public void flush() throws IOException {
+                        if (deferring()) {
+                            flushRequested = true;
+                        } else {
+                            out.flush();
+                        }
+                    }
+                });
+            }
+            return writer;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                ServletOutputStream target = super.getOutputStream();
+                outputStream = new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        target.write(b);
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        target.write(b, off, len);
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        if (deferring()) {
+                            flushRequested = true;
+                        } else {
+                            target.flush();
+                        }
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        target.close();
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return target.isReady();
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener writeListener) {
+                        target.setWriteListener(writeListener);
+                    }
+                };
+            }
+            return outputStream;
+        }
+
+        private boolean deferring() {
+            return deferred && !request.isAsyncStarted();
+        }
+
+        /**
+         * Больше не откладывать сброс буфера и выполнить отложенный сброс
+         */
+        void release() throws IOException {
+            deferred = false;
+            if (flushRequested) {
+                if (writer != null) {
+                    writer.flush();
+                }
+                super.flushBuffer();
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,55 @@
+package com.library.library_system.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.hibernate.cfg.SessionEventSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Источники разбивки времени HTTP-запроса ({@link RequestTiming}): события JDBC сессий Hibernate
+ * и границы отрисовки шаблона (между postHandle и afterCompletion обработчика).
+ * Время сервисов учитывает {@link ServiceTimingAspect}, заголовок и журнал - {@link RequestTimingFilter}.
+ */
+@Configuration
+public class ServerTimingConfig implements WebMvcConfigurer {
+
+    /**
+     * Подключить слушатель событий JDBC к каждой сессии Hibernate
+     *
+     * @return настройка свойств Hibernate
+     */
+    @Bean
+    public HibernatePropertiesCustomizer requestTimingCustomizer() {
+        return properties -> properties.put(SessionEventSettings.AUTO_SESSION_EVENTS_LISTENER,
+                RequestTiming.JdbcListener.class.getName());
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                   ModelAndView modelAndView) {
+                RequestTiming timing = RequestTiming.current();
+                if (timing != null) {
+                    timing.viewStarted();
+                }
+            }
+
+            @Override
+            public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                        Exception ex) {
+                RequestTiming timing = RequestTiming.current();
+                if (timing != null) {
+                    timing.viewEnded();
+                }
+            }
+        });
+    }
+}
\ No newline at end of file
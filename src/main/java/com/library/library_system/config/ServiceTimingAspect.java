@@ -0,0 +1,29 @@
+package com.library.library_system.config;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * Учет времени методов сервисов ({@code @Service}) в разбивке времени HTTP-запроса ({@link RequestTiming}).
+ * Вне HTTP-запроса метод вызывается без учета.
+ */
+@Aspect
+@Component
+public class ServiceTimingAspect {
+
+    @Around("@within(org.springframework.stereotype.Service)")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        RequestTiming timing = RequestTiming.current();
+        if (timing == null) {
+            return joinPoint.proceed();
+        }
+        timing.serviceEntered();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            timing.serviceExited();
+        }
+    }
+}
\ No newline at end of file
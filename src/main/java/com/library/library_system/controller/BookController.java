@@ -1,18 +1,18 @@
 package com.library.library_system.controller;
 
+import com.library.library_system.config.QueryBudget;
 import com.library.library_system.entity.Book;
-import com.library.library_system.entity.BookLoan;
 import com.library.library_system.service.BookService;
+import com.library.library_system.service.KeysetPage;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
-import java.util.List;
-
 /**
  * Контроллер для управления операциями с книгами.
  * Обрабатывает HTTP-запросы, связанные с созданием, чтением, обновлением и удалением книг.
@@ -36,33 +36,39 @@ public class BookController {
     @Autowired
     private BookService bookService;
 
+    @Value("${library.page-size:50}")
+    private int pageSize;
+
     /**
-     * Отображает список всех книг с возможностью поиска.
+     * Отображает страницу списка книг с возможностью поиска и сортировки.
      *
      * @param search Поисковый запрос для фильтрации книг (необязательный)
+     * @param sort Поле сортировки: "title" или "author"
+     * @param cursor Позиция страницы (необязательная, по умолчанию первая страница)
      * @param model Модель для передачи данных в представление
-     * @return Имя шаблона для отображения списка книг
+     * @return Имя шаблона для отображения списка книг или перенаправление на первую страницу
      */
     @GetMapping
+    @QueryBudget(statements = 3)
     public String listBooks(@RequestParam(required = false) String search,
+                            @RequestParam(required = false, defaultValue = "title") String sort,
+                            @RequestParam(required = false) String cursor,
                             Model model) {
-        List<Book> books;
-        if (search != null && !search.trim().isEmpty()) {
-            books = bookService.searchBooks(search);
-            model.addAttribute("search", search);
-        } else {
-            books = bookService.getAllBooks();
+        String sortBy = "author".equals(sort) ? "author" : "title";
+        KeysetPage<Book> page;
+        try {
+            page = bookService.getBooksPage(search, sortBy, cursor, pageSize);
+        } catch (IllegalArgumentException e) {
+            return "redirect:/books";
         }
 
-        for (Book book : books) {
-            List<BookLoan> activeLoans = bookService.getActiveBookLoans(book.getBookId());
-            List<BookLoan> allLoans = bookService.getAllBookLoans(book.getBookId());
-
-            book.setActiveLoansCount(activeLoans.size());
-            book.setTotalLoansCount(allLoans.size());
+        if (search != null && !search.trim().isEmpty()) {
+            model.addAttribute("search", search);
         }
-
-        model.addAttribute("books", books);
+        model.addAttribute("sort", sortBy);
+        model.addAttribute("page", page);
+        model.addAttribute("books", page.getContent());
+        model.addAttribute("totalBooks", bookService.countBooks());
         return "books/list";
     }
 
@@ -92,12 +98,6 @@ public class BookController {
     public String showEditForm(@PathVariable Long id, Model model) {
         try {
             Book book = bookService.getBookById(id);
-            List<BookLoan> activeLoans = bookService.getActiveBookLoans(id);
-            List<BookLoan> allLoans = bookService.getAllBookLoans(id);
-
-            book.setActiveLoansCount(activeLoans.size());
-            book.setTotalLoansCount(allLoans.size());
-
             model.addAttribute("book", book);
             return "books/form";
         } catch (IllegalArgumentException e) {
@@ -178,16 +178,8 @@ public class BookController {
     public String viewBook(@PathVariable Long id, Model model) {
         try {
             Book book = bookService.getBookById(id);
-            List<BookLoan> activeLoans = bookService.getActiveBookLoans(id);
-            List<BookLoan> allLoans = bookService.getAllBookLoans(id);
-
-            book.setActiveLoansCount(activeLoans.size());
-            book.setTotalLoansCount(allLoans.size());
-
             model.addAttribute("book", book);
-            model.addAttribute("canDelete", bookService.canDeleteBook(id));
-            model.addAttribute("activeLoans", activeLoans);
-            model.addAttribute("allLoans", allLoans);
+            model.addAttribute("canDelete", book.getTotalLoansCount() == 0);
             return "books/view";
         } catch (IllegalArgumentException e) {
             model.addAttribute("errorMessage", e.getMessage());
@@ -206,16 +198,13 @@ public class BookController {
     public String checkDelete(@PathVariable Long id) {
         try {
             Book book = bookService.getBookById(id);
-
-            if (bookService.canDeleteBook(id)) {
+            if (book.getTotalLoansCount() == 0) {
                 return "OK";
             } else {
-                List<BookLoan> activeLoans = bookService.getActiveBookLoans(id);
-                if (!activeLoans.isEmpty()) {
+                if (book.getActiveLoansCount() > 0) {
                     return "ERROR: Книга '" + book.getTitle() + "' выдана читателю. Сначала верните книгу.";
                 } else {
-                    List<BookLoan> allLoans = bookService.getAllBookLoans(id);
-                    if (!allLoans.isEmpty()) {
+                    if (book.getTotalLoansCount() > 0) {
                         return "ERROR: Книга '" + book.getTitle() + "' есть в истории выдач. Удалите сначала записи о выдаче.";
                     } else {
                         return "ERROR: Книгу '" + book.getTitle() + "' нельзя удалить по неизвестной причине.";
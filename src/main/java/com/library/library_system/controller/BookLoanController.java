@@ -1,9 +1,19 @@
 package com.library.library_system.controller;
 
+import com.library.library_system.config.QueryBudget;
 import com.library.library_system.entity.*;
 import com.library.library_system.service.BookLoanService;
+import com.library.library_system.service.KeysetPage;
+import com.library.library_system.service.LibrarianService;
+import com.library.library_system.service.ReaderService;
+import com.library.library_system.service.ReturnResult;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Slice;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -11,7 +21,11 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Controller
 @RequestMapping("/loans")
@@ -20,27 +34,99 @@ public class BookLoanController {
     @Autowired
     private BookLoanService bookLoanService;
 
+    @Autowired
+    private ReaderService readerService;
+
+    @Autowired
+    private LibrarianService librarianService;
+
+    @Value("${library.page-size:50}")
+    private int pageSize;
+
+    @Value("${library.lookup-page-size:20}")
+    private int lookupPageSize;
+
+    @Value("${library.checkout.max-books:20}")
+    private int maxCheckoutBooks;
+
     /**
-     * Обрабатывает GET-запрос для отображения списка выданных книг
+     * Вариант подсказки в форме выдачи
+     *
+     * @param id идентификатор книги, читателя или библиотекаря
+     * @param label текст подсказки
+     */
+    public record LookupOption(Long id, String label) {}
+
+    /**
+     * Страница подсказок в форме выдачи
+     *
+     * @param items варианты на странице
+     * @param page номер страницы, начиная с 0
+     * @param hasNext true если есть следующая страница
+     */
+    public record LookupPage(List<LookupOption> items, int page, boolean hasNext) {}
+
+    /**
+     * Запрос пакетного возврата: заполняется один из списков
+     *
+     * @param bookNumbers инвентарные номера возвращаемых книг
+     * @param loanIds идентификаторы закрываемых выдач
+     */
+    public record ReturnRequest(List<String> bookNumbers, List<Long> loanIds) {}
+
+    /**
+     * Запрос выдачи книги со сканера
+     *
+     * @param bookNumber инвентарный номер книги
+     * @param ticketNumber номер читательского билета
+     * @param librarianNumber табельный номер библиотекаря
+     * @param dueDate необязательный срок возврата
+     */
+    public record ScanCheckoutRequest(String bookNumber, String ticketNumber, String librarianNumber,
+                                      LocalDate dueDate) {}
+
+    /**
+     * Ответ на выдачу книги со сканера
+     *
+     * @param loanId идентификатор созданной выдачи
+     * @param bookNumber инвентарный номер книги
+     * @param ticketNumber номер читательского билета
+     * @param loanDate дата выдачи
+     * @param dueDate срок возврата
+     */
+    public record ScanCheckoutResponse(Long loanId, String bookNumber, String ticketNumber,
+                                       LocalDate loanDate, LocalDate dueDate) {}
+
+    /**
+     * Обрабатывает GET-запрос для отображения страницы списка выданных книг
      *
      * @param filter необязательный параметр фильтрации ("active" - активные, "overdue" - просроченные)
+     * @param cursor необязательная позиция страницы (по умолчанию первая страница)
      * @param model объект Model для передачи данных в представление
-     * @return имя представления для отображения списка выдач
+     * @return имя представления для отображения списка выдач или redirect на первую страницу
      */
     @GetMapping
-    public String listLoans(@RequestParam(required = false) String filter, Model model) {
-        List<BookLoan> loans;
-        if ("active".equals(filter)) {
-            loans = bookLoanService.getActiveLoans();
-            model.addAttribute("filter", "active");
-        } else if ("overdue".equals(filter)) {
-            loans = bookLoanService.getOverdueLoans();
-            model.addAttribute("filter", "overdue");
-        } else {
-            loans = bookLoanService.getAllLoans();
-        }
-        model.addAttribute("loans", loans);
-        model.addAttribute("today", LocalDate.now());
+    @QueryBudget(statements = 3)
+    public String listLoans(@RequestParam(required = false) String filter,
+                            @RequestParam(required = false) String cursor,
+                            Model model) {
+        if (!"active".equals(filter) && !"overdue".equals(filter)) {
+            filter = null;
+        }
+
+        KeysetPage<BookLoan> page;
+        try {
+            page = bookLoanService.getLoansPage(filter, cursor, pageSize);
+        } catch (IllegalArgumentException e) {
+            return filter == null ? "redirect:/loans" : "redirect:/loans?filter=" + filter;
+        }
+
+        LocalDate today = LocalDate.now();
+        model.addAttribute("filter", filter);
+        model.addAttribute("page", page);
+        model.addAttribute("loans", page.getContent());
+        model.addAttribute("counts", bookLoanService.getLoanStatusCounts(filter, today));
+        model.addAttribute("today", today);
         return "loans/list";
     }
 
@@ -57,9 +143,7 @@ public class BookLoanController {
         loan.setLoanDate(LocalDate.now());
 
         model.addAttribute("loan", loan);
-        model.addAttribute("books", bookLoanService.getAllBooks());
-        model.addAttribute("readers", bookLoanService.getAllReaders());
-        model.addAttribute("librarians", bookLoanService.getAllLibrarians());
+        addSelectedLabels(model, loan);
         return "loans/form";
     }
 
@@ -75,9 +159,7 @@ public class BookLoanController {
         try {
             BookLoan loan = bookLoanService.getLoanById(id);
             model.addAttribute("loan", loan);
-            model.addAttribute("books", bookLoanService.getAllBooks());
-            model.addAttribute("readers", bookLoanService.getAllReaders());
-            model.addAttribute("librarians", bookLoanService.getAllLibrarians());
+            addSelectedLabels(model, loan);
             return "loans/form";
         } catch (IllegalArgumentException e) {
             return "redirect:/loans";
@@ -94,14 +176,13 @@ public class BookLoanController {
      * @return имя представления с формой при ошибках или redirect на список выдач при успешном сохранении
      */
     @PostMapping("/save")
-    public String saveLoan(@Valid @ModelAttribute BookLoan loan,
+    public String saveLoan(@Valid @ModelAttribute("loan") BookLoan loan,
                            BindingResult result,
                            Model model,
                            RedirectAttributes redirectAttributes) {
         if (result.hasErrors()) {
-            model.addAttribute("books", bookLoanService.getAllBooks());
-            model.addAttribute("readers", bookLoanService.getAllReaders());
-            model.addAttribute("librarians", bookLoanService.getAllLibrarians());
+            bookLoanService.resolveParticipants(loan);
+            addSelectedLabels(model, loan);
             return "loans/form";
         }
 
@@ -113,22 +194,89 @@ public class BookLoanController {
                             "Данные выдачи успешно обновлены!");
         } catch (IllegalArgumentException | IllegalStateException e) {
             model.addAttribute("errorMessage", e.getMessage());
-            model.addAttribute("books", bookLoanService.getAllBooks());
-            model.addAttribute("readers", bookLoanService.getAllReaders());
-            model.addAttribute("librarians", bookLoanService.getAllLibrarians());
+            bookLoanService.resolveParticipants(loan);
+            addSelectedLabels(model, loan);
             return "loans/form";
         } catch (Exception e) {
             model.addAttribute("errorMessage",
                     "Произошла ошибка при сохранении выдачи: " + e.getMessage());
-            model.addAttribute("books", bookLoanService.getAllBooks());
-            model.addAttribute("readers", bookLoanService.getAllReaders());
-            model.addAttribute("librarians", bookLoanService.getAllLibrarians());
+            bookLoanService.resolveParticipants(loan);
+            addSelectedLabels(model, loan);
             return "loans/form";
         }
 
         return "redirect:/loans";
     }
 
+    /**
+     * Обрабатывает GET-запрос для отображения формы выдачи нескольких книг
+     *
+     * @param model объект Model для передачи данных в представление
+     * @return имя представления с формой выдачи нескольких книг
+     */
+    @GetMapping("/checkout")
+    public String showCheckoutForm(Model model) {
+        addCheckoutAttributes(model, null, null, List.of(), LocalDate.now().plusDays(14));
+        return "loans/checkout";
+    }
+
+    /**
+     * Обрабатывает POST-запрос для выдачи нескольких книг одному читателю
+     *
+     * @param readerId идентификатор читателя
+     * @param librarianId идентификатор библиотекаря
+     * @param bookIds идентификаторы выдаваемых книг
+     * @param dueDate срок возврата
+     * @param model объект Model для передачи данных в представление
+     * @param redirectAttributes атрибуты для передачи сообщений после redirect
+     * @return имя представления с формой при ошибках или redirect на список активных выдач
+     */
+    @PostMapping("/checkout")
+    public String checkout(@RequestParam(required = false) Long readerId,
+                           @RequestParam(required = false) Long librarianId,
+                           @RequestParam(required = false) List<Long> bookIds,
+                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dueDate,
+                           Model model,
+                           RedirectAttributes redirectAttributes) {
+        try {
+            List<BookLoan> loans = bookLoanService.checkout(readerId, librarianId, bookIds, dueDate);
+            redirectAttributes.addFlashAttribute("successMessage", "Выдано книг: " + loans.size());
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            model.addAttribute("errorMessage", e.getMessage());
+            addCheckoutAttributes(model, readerId, librarianId, bookIds, dueDate);
+            return "loans/checkout";
+        } catch (Exception e) {
+            model.addAttribute("errorMessage",
+                    "Произошла ошибка при выдаче книг: " + e.getMessage());
+            addCheckoutAttributes(model, readerId, librarianId, bookIds, dueDate);
+            return "loans/checkout";
+        }
+
+        return "redirect:/loans?filter=active";
+    }
+
+    /**
+     * Endpoint выдачи книги по инвентарному номеру, номеру читательского билета и табельному
+     * номеру библиотекаря для сканеров штрихкодов
+     *
+     * @param request номера со сканера и необязательный срок возврата
+     * @return созданная выдача в формате JSON, 400 при ошибке в данных или 409 если книга уже выдана
+     */
+    @PostMapping(value = "/scan", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public ResponseEntity<?> checkoutByScan(@RequestBody ScanCheckoutRequest request) {
+        try {
+            BookLoan loan = bookLoanService.checkoutByNumbers(request.bookNumber(), request.ticketNumber(),
+                    request.librarianNumber(), request.dueDate());
+            return ResponseEntity.ok(new ScanCheckoutResponse(loan.getLoanId(), request.bookNumber().trim(),
+                    request.ticketNumber().trim(), loan.getLoanDate(), loan.getDueDate()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).body(Map.of("error", e.getMessage()));
+        }
+    }
+
     /**
      * Обрабатывает GET-запрос для удаления выдачи по идентификатору
      *
@@ -140,7 +288,7 @@ public class BookLoanController {
     public String deleteLoan(@PathVariable Long id,
                              RedirectAttributes redirectAttributes) {
         try {
-            BookLoan loan = bookLoanService.getLoanById(id);
+            BookLoan loan = bookLoanService.getLoanWithBook(id);
             bookLoanService.deleteLoanById(id);
             redirectAttributes.addFlashAttribute("successMessage",
                     "Запись о выдаче книги '" + loan.getBook().getTitle() +
@@ -185,10 +333,9 @@ public class BookLoanController {
     public String returnBook(@PathVariable Long id,
                              RedirectAttributes redirectAttributes) {
         try {
-            BookLoan loan = bookLoanService.getLoanById(id);
-            bookLoanService.returnBook(id);
+            ReturnResult result = bookLoanService.returnBook(id);
             redirectAttributes.addFlashAttribute("successMessage",
-                    "Книга '" + loan.getBook().getTitle() + "' успешно возвращена!");
+                    "Книга '" + result.title() + "' успешно возвращена!");
         } catch (IllegalArgumentException | IllegalStateException e) {
             redirectAttributes.addFlashAttribute("errorMessage", e.getMessage());
         } catch (Exception e) {
@@ -198,6 +345,78 @@ public class BookLoanController {
         return "redirect:/loans";
     }
 
+    /**
+     * Обрабатывает GET-запрос для отображения формы пакетного возврата
+     *
+     * @param model объект Model для передачи данных в представление
+     * @return имя представления с формой пакетного возврата
+     */
+    @GetMapping("/returns")
+    public String showReturnsForm(Model model) {
+        model.addAttribute("by", "bookNumber");
+        return "loans/returns";
+    }
+
+    /**
+     * Обрабатывает POST-запрос пакетного возврата из формы, например при разборе ящика для возврата книг
+     *
+     * @param items инвентарные номера или идентификаторы выдач с новой строки, через запятую или точку с запятой
+     * @param by что передано: "bookNumber" (по умолчанию) или "loanId"
+     * @param model объект Model для передачи данных в представление
+     * @return имя представления с формой и результатами возврата
+     */
+    @PostMapping(value = "/returns", consumes = MediaType.APPLICATION_FORM_URLENCODED_VALUE)
+    public String returnBooks(@RequestParam(defaultValue = "") String items,
+                              @RequestParam(defaultValue = "bookNumber") String by,
+                              Model model) {
+        model.addAttribute("by", by);
+        List<String> values = Arrays.stream(items.split("[\\r\\n\\t,;]+"))
+                .map(String::trim)
+                .filter(value -> !value.isEmpty())
+                .toList();
+        try {
+            List<ReturnResult> results = "loanId".equals(by)
+                    ? bookLoanService.returnLoans(values.stream().map(BookLoanController::parseLoanId).toList())
+                    : bookLoanService.returnBooks(values);
+            model.addAttribute("results", results);
+            model.addAttribute("counts", results.stream()
+                    .collect(Collectors.groupingBy(ReturnResult::status, Collectors.counting())));
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            model.addAttribute("items", items);
+            model.addAttribute("errorMessage", e.getMessage());
+        }
+        return "loans/returns";
+    }
+
+    /**
+     * Endpoint пакетного возврата для сканеров и других программ
+     *
+     * @param request инвентарные номера книг или идентификаторы выдач
+     * @return результат по каждой книге в формате JSON или 400 при ошибке в запросе
+     */
+    @PostMapping(value = "/returns", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public ResponseEntity<?> returnBooks(@RequestBody ReturnRequest request) {
+        try {
+            List<ReturnResult> results = request.loanIds() != null && !request.loanIds().isEmpty()
+                    ? bookLoanService.returnLoans(request.loanIds())
+                    : bookLoanService.returnBooks(request.bookNumbers());
+            return ResponseEntity.ok(results);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    private static Long parseLoanId(String value) {
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Идентификатор выдачи должен быть числом: " + value);
+        }
+    }
+
     /**
      * AJAX endpoint для проверки возможности удаления выдачи
      *
@@ -208,7 +427,7 @@ public class BookLoanController {
     @ResponseBody
     public String checkDelete(@PathVariable Long id) {
         try {
-            BookLoan loan = bookLoanService.getLoanById(id);
+            BookLoan loan = bookLoanService.getLoanWithBook(id);
 
             if (bookLoanService.canDeleteLoan(id)) {
                 return "OK";
@@ -220,4 +439,107 @@ public class BookLoanController {
             return "ERROR: " + e.getMessage();
         }
     }
+
+    /**
+     * AJAX endpoint подсказок книг для формы выдачи
+     *
+     * @param q начало инвентарного номера или часть названия
+     * @param availableOnly true чтобы показывать только книги, которые сейчас не выданы
+     * @param page номер страницы подсказок, начиная с 0
+     * @return страница подсказок в формате JSON
+     */
+    @GetMapping("/lookup/books")
+    @ResponseBody
+    public LookupPage lookupBooks(@RequestParam(defaultValue = "") String q,
+                                  @RequestParam(defaultValue = "false") boolean availableOnly,
+                                  @RequestParam(defaultValue = "0") int page) {
+        Slice<Book> books = bookLoanService.lookupBooks(q, availableOnly, Math.max(page, 0), lookupPageSize);
+        return toLookupPage(books, book -> new LookupOption(book.getBookId(), bookLabel(book)));
+    }
+
+    /**
+     * AJAX endpoint подсказок читателей для формы выдачи
+     *
+     * @param q начало номера читательского билета, часть ФИО или телефона
+     * @param page номер страницы подсказок, начиная с 0
+     * @return страница подсказок в формате JSON
+     */
+    @GetMapping("/lookup/readers")
+    @ResponseBody
+    public LookupPage lookupReaders(@RequestParam(defaultValue = "") String q,
+                                    @RequestParam(defaultValue = "0") int page) {
+        Slice<Reader> readers = bookLoanService.lookupReaders(q, Math.max(page, 0), lookupPageSize);
+        return toLookupPage(readers, reader -> new LookupOption(reader.getReaderId(), readerLabel(reader)));
+    }
+
+    /**
+     * AJAX endpoint подсказок библиотекарей для формы выдачи
+     *
+     * @param q начало табельного номера или часть ФИО
+     * @param page номер страницы подсказок, начиная с 0
+     * @return страница подсказок в формате JSON
+     */
+    @GetMapping("/lookup/librarians")
+    @ResponseBody
+    public LookupPage lookupLibrarians(@RequestParam(defaultValue = "") String q,
+                                       @RequestParam(defaultValue = "0") int page) {
+        Slice<Librarian> librarians = bookLoanService.lookupLibrarians(q, Math.max(page, 0), lookupPageSize);
+        return toLookupPage(librarians,
+                librarian -> new LookupOption(librarian.getLibrarianId(), librarianLabel(librarian)));
+    }
+
+    private static <T> LookupPage toLookupPage(Slice<T> slice, Function<T, LookupOption> mapper) {
+        return new LookupPage(slice.map(mapper).getContent(), slice.getNumber(), slice.hasNext());
+    }
+
+    private void addCheckoutAttributes(Model model, Long readerId, Long librarianId,
+                                       List<Long> bookIds, LocalDate dueDate) {
+        String readerLabel = "";
+        if (readerId != null) {
+            try {
+                readerLabel = readerLabel(readerService.getReaderById(readerId));
+            } catch (IllegalArgumentException e) {
+                readerId = null;
+            }
+        }
+        String librarianLabel = "";
+        if (librarianId != null) {
+            try {
+                librarianLabel = librarianLabel(librarianService.getLibrarianById(librarianId));
+            } catch (IllegalArgumentException e) {
+                librarianId = null;
+            }
+        }
+        model.addAttribute("readerId", readerId);
+        model.addAttribute("readerLabel", readerLabel);
+        model.addAttribute("librarianId", librarianId);
+        model.addAttribute("librarianLabel", librarianLabel);
+        model.addAttribute("books", bookLoanService.getBooksByIds(bookIds).stream()
+                .map(book -> new LookupOption(book.getBookId(), bookLabel(book)))
+                .toList());
+        model.addAttribute("dueDate", dueDate);
+        model.addAttribute("maxBooks", maxCheckoutBooks);
+    }
+
+    private static void addSelectedLabels(Model model, BookLoan loan) {
+        Book book = loan.getBook();
+        Reader reader = loan.getReader();
+        Librarian librarian = loan.getLibrarian();
+        model.addAttribute("bookLabel", book != null && book.getTitle() != null ? bookLabel(book) : "");
+        model.addAttribute("readerLabel", reader != null && reader.getFullName() != null ? readerLabel(reader) : "");
+        model.addAttribute("librarianLabel",
+                librarian != null && librarian.getFullName() != null ? librarianLabel(librarian) : "");
+    }
+
+    private static String bookLabel(Book book) {
+        return book.getBookNumber() + " — " + book.getTitle() + " (" + book.getAuthor() + ")";
+    }
+
+    private static String readerLabel(Reader reader) {
+        return reader.getFullName() + " (№" + reader.getTicketNumber() + ", " + reader.getPhoneNumber() + ")";
+    }
+
+    private static String librarianLabel(Librarian librarian) {
+        return librarian.getFullName() + " (" + librarian.getPosition() + ")";
+    }
 }
\ No newline at end of file
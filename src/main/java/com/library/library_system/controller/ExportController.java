@@ -0,0 +1,92 @@
+package com.library.library_system.controller;
+
+import com.library.library_system.service.ExportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/export")
+public class ExportController {
+
+    private static final MediaType TEXT_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    @Autowired
+    private ExportService exportService;
+
+    /**
+     * Выгрузка истории выдач. Данные записываются в ответ по мере чтения из базы
+     *
+     * @param format формат выгрузки: "csv" (по умолчанию) или "ndjson"
+     * @param from необязательная дата выдачи не раньше (ГГГГ-ММ-ДД)
+     * @param to необязательная дата выдачи не позже (ГГГГ-ММ-ДД)
+     * @param readerId необязательный идентификатор читателя
+     * @param librarianId необязательный идентификатор библиотекаря
+     * @return файл с выдачами
+     */
+    @GetMapping("/loans")
+    public ResponseEntity<StreamingResponseBody> exportLoans(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Long readerId,
+            @RequestParam(required = false) Long librarianId) {
+        if (from != null && to != null && from.isAfter(to)) {
+            return ResponseEntity.badRequest().build();
+        }
+        ExportService.Format exportFormat = format(format);
+        ExportService.LoanFilter filter = new ExportService.LoanFilter(from, to, readerId, librarianId);
+        return attachment("loans", exportFormat,
+                output -> exportService.exportLoans(filter, exportFormat, output));
+    }
+
+    /**
+     * Выгрузка каталога книг в формате, который принимает загрузка из файла
+     *
+     * @param format формат выгрузки: "csv" (по умолчанию) или "ndjson"
+     * @return файл с книгами
+     */
+    @GetMapping("/books")
+    public ResponseEntity<StreamingResponseBody> exportBooks(@RequestParam(defaultValue = "csv") String format) {
+        ExportService.Format exportFormat = format(format);
+        return attachment("books", exportFormat, output -> exportService.exportBooks(exportFormat, output));
+    }
+
+    /**
+     * Выгрузка читателей в формате, который принимает загрузка из файла
+     *
+     * @param format формат выгрузки: "csv" (по умолчанию) или "ndjson"
+     * @return файл с читателями
+     */
+    @GetMapping("/readers")
+    public ResponseEntity<StreamingResponseBody> exportReaders(@RequestParam(defaultValue = "csv") String format) {
+        ExportService.Format exportFormat = format(format);
+        return attachment("readers", exportFormat, output -> exportService.exportReaders(exportFormat, output));
+    }
+
+    private static ExportService.Format format(String format) {
+        return "ndjson".equalsIgnoreCase(format) ? ExportService.Format.NDJSON : ExportService.Format.CSV;
+    }
+
+    private static ResponseEntity<StreamingResponseBody> attachment(String name, ExportService.Format format,
+                                                                    StreamingResponseBody body) {
+        boolean csv = format == ExportService.Format.CSV;
+        String fileName = name + "-" + LocalDate.now() + (csv ? ".csv" : ".ndjson");
+        return ResponseEntity.ok()
+                .contentType(csv ? TEXT_CSV : APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName).build().toString())
+                .body(body);
+    }
+}
\ No newline at end of file
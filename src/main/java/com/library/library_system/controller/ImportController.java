@@ -0,0 +1,72 @@
+package com.library.library_system.controller;
+
+import com.library.library_system.service.ImportReport;
+import com.library.library_system.service.ImportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@Controller
+@RequestMapping("/import")
+public class ImportController {
+
+    @Autowired
+    private ImportService importService;
+
+    /**
+     * Обрабатывает GET-запрос для отображения страницы загрузки файлов
+     *
+     * @param model объект Model для передачи данных в представление
+     * @return имя представления со страницей загрузки
+     */
+    @GetMapping
+    public String showImportForm(Model model) {
+        model.addAttribute("type", "books");
+        model.addAttribute("format", "csv");
+        return "import/form";
+    }
+
+    /**
+     * Обрабатывает POST-запрос для загрузки файла с книгами, читателями или библиотекарями
+     *
+     * @param type что загружается: "books", "readers" или "librarians"
+     * @param format формат файла с книгами: "csv" или "marc"
+     * @param file загружаемый файл
+     * @param model объект Model для передачи данных в представление
+     * @return имя представления со страницей загрузки и итогами
+     */
+    @PostMapping
+    public String importFile(@RequestParam String type,
+                             @RequestParam(defaultValue = "csv") String format,
+                             @RequestParam("file") MultipartFile file,
+                             Model model) {
+        model.addAttribute("type", type);
+        model.addAttribute("format", format);
+        if (file.isEmpty()) {
+            model.addAttribute("errorMessage", "Выберите файл для загрузки");
+            return "import/form";
+        }
+
+        try (InputStream input = file.getInputStream()) {
+            ImportReport report = switch (type) {
+                case "books" -> importService.importBooks(input,
+                        "marc".equals(format) ? ImportService.BookFormat.MARC : ImportService.BookFormat.CSV);
+                case "readers" -> importService.importReaders(input);
+                case "librarians" -> importService.importLibrarians(input);
+                default -> throw new IllegalArgumentException("Неизвестный тип данных: " + type);
+            };
+            model.addAttribute("report", report);
+            model.addAttribute("fileName", file.getOriginalFilename());
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            model.addAttribute("errorMessage", e.getMessage());
+        } catch (IOException e) {
+            model.addAttribute("errorMessage", "Не удалось прочитать файл: " + e.getMessage());
+        }
+        return "import/form";
+    }
+}
\ No newline at end of file
@@ -1,18 +1,18 @@
 package com.library.library_system.controller;
 
+import com.library.library_system.config.QueryBudget;
 import com.library.library_system.entity.Librarian;
-import com.library.library_system.entity.BookLoan;
+import com.library.library_system.service.KeysetPage;
 import com.library.library_system.service.LibrarianService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
-import java.util.List;
-
 @Controller
 @RequestMapping("/librarians")
 public class LibrarianController {
@@ -20,29 +20,35 @@ public class LibrarianController {
     @Autowired
     private LibrarianService librarianService;
 
+    @Value("${library.page-size:50}")
+    private int pageSize;
+
     /**
-     * Обрабатывает GET-запрос для отображения списка библиотекарей
+     * Обрабатывает GET-запрос для отображения страницы списка библиотекарей
      *
      * @param search необязательный параметр для поиска библиотекарей
+     * @param cursor необязательная позиция страницы (по умолчанию первая страница)
      * @param model объект Model для передачи данных в представление
-     * @return имя представления для отображения списка библиотекарей
+     * @return имя представления для отображения списка библиотекарей или redirect на первую страницу
      */
     @GetMapping
-    public String listLibrarians(@RequestParam(required = false) String search, Model model) {
-        List<Librarian> librarians;
-        if (search != null && !search.trim().isEmpty()) {
-            librarians = librarianService.searchLibrarians(search);
-            model.addAttribute("search", search);
-        } else {
-            librarians = librarianService.getAllLibrarians();
+    @QueryBudget(statements = 3)
+    public String listLibrarians(@RequestParam(required = false) String search,
+                             @RequestParam(required = false) String cursor,
+                             Model model) {
+        KeysetPage<Librarian> page;
+        try {
+            page = librarianService.getLibrariansPage(search, cursor, pageSize);
+        } catch (IllegalArgumentException e) {
+            return "redirect:/librarians";
         }
 
-        for (Librarian librarian : librarians) {
-            List<BookLoan> loans = librarianService.getLibrarianLoans(librarian.getLibrarianId());
-            librarian.setLoansCount(loans.size());
+        if (search != null && !search.trim().isEmpty()) {
+            model.addAttribute("search", search);
         }
-
-        model.addAttribute("librarians", librarians);
+        model.addAttribute("page", page);
+        model.addAttribute("librarians", page.getContent());
+        model.addAttribute("totalLibrarians", librarianService.countLibrarians());
         return "librarians/list";
     }
 
@@ -71,10 +77,6 @@ public class LibrarianController {
     public String showEditForm(@PathVariable Long id, Model model) {
         try {
             Librarian librarian = librarianService.getLibrarianById(id);
-
-            List<BookLoan> loans = librarianService.getLibrarianLoans(id);
-            librarian.setLoansCount(loans.size());
-
             model.addAttribute("librarian", librarian);
             return "librarians/form";
         } catch (IllegalArgumentException e) {
@@ -155,13 +157,8 @@ public class LibrarianController {
     public String viewLibrarian(@PathVariable Long id, Model model) {
         try {
             Librarian librarian = librarianService.getLibrarianById(id);
-
-            List<BookLoan> librarianLoans = librarianService.getLibrarianLoans(id);
-            librarian.setLoansCount(librarianLoans.size());
-
             model.addAttribute("librarian", librarian);
-            model.addAttribute("canDelete", librarianService.canDeleteLibrarian(id));
-            model.addAttribute("librarianLoans", librarianLoans);
+            model.addAttribute("canDelete", !librarian.hasLoans());
             return "librarians/view";
         } catch (IllegalArgumentException e) {
             return "redirect:/librarians";
@@ -179,8 +176,7 @@ public class LibrarianController {
     public String checkDelete(@PathVariable Long id) {
         try {
             Librarian librarian = librarianService.getLibrarianById(id);
-
-            if (librarianService.canDeleteLibrarian(id)) {
+            if (!librarian.hasLoans()) {
                 return "OK";
             } else {
                 return "ERROR: Библиотекарь '" + librarian.getFullName() +
@@ -1,18 +1,18 @@
 package com.library.library_system.controller;
 
+import com.library.library_system.config.QueryBudget;
 import com.library.library_system.entity.Reader;
-import com.library.library_system.entity.BookLoan;
+import com.library.library_system.service.KeysetPage;
 import com.library.library_system.service.ReaderService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
-import java.util.List;
-
 @Controller
 @RequestMapping("/readers")
 public class ReaderController {
@@ -20,32 +20,35 @@ public class ReaderController {
     @Autowired
     private ReaderService readerService;
 
+    @Value("${library.page-size:50}")
+    private int pageSize;
+
     /**
-     * Обрабатывает GET-запрос для отображения списка читателей
+     * Обрабатывает GET-запрос для отображения страницы списка читателей
      *
      * @param search необязательный параметр для поиска читателей
+     * @param cursor необязательная позиция страницы (по умолчанию первая страница)
      * @param model объект Model для передачи данных в представление
-     * @return имя представления для отображения списка читателей
+     * @return имя представления для отображения списка читателей или redirect на первую страницу
      */
     @GetMapping
-    public String listReaders(@RequestParam(required = false) String search, Model model) {
-        List<Reader> readers;
-        if (search != null && !search.trim().isEmpty()) {
-            readers = readerService.searchReaders(search);
-            model.addAttribute("search", search);
-        } else {
-            readers = readerService.getAllReaders();
+    @QueryBudget(statements = 3)
+    public String listReaders(@RequestParam(required = false) String search,
+                             @RequestParam(required = false) String cursor,
+                             Model model) {
+        KeysetPage<Reader> page;
+        try {
+            page = readerService.getReadersPage(search, cursor, pageSize);
+        } catch (IllegalArgumentException e) {
+            return "redirect:/readers";
         }
 
-        for (Reader reader : readers) {
-            List<BookLoan> activeLoans = readerService.getActiveReaderLoans(reader.getReaderId());
-            List<BookLoan> allLoans = readerService.getAllReaderLoans(reader.getReaderId());
-
-            reader.setActiveLoansCount(activeLoans.size());
-            reader.setTotalLoansCount(allLoans.size());
+        if (search != null && !search.trim().isEmpty()) {
+            model.addAttribute("search", search);
         }
-
-        model.addAttribute("readers", readers);
+        model.addAttribute("page", page);
+        model.addAttribute("readers", page.getContent());
+        model.addAttribute("totalReaders", readerService.countReaders());
         return "readers/list";
     }
 
@@ -75,13 +78,6 @@ public class ReaderController {
     public String showEditForm(@PathVariable Long id, Model model) {
         try {
             Reader reader = readerService.getReaderById(id);
-
-            List<BookLoan> activeLoans = readerService.getActiveReaderLoans(id);
-            List<BookLoan> allLoans = readerService.getAllReaderLoans(id);
-
-            reader.setActiveLoansCount(activeLoans.size());
-            reader.setTotalLoansCount(allLoans.size());
-
             model.addAttribute("reader", reader);
             return "readers/form";
         } catch (IllegalArgumentException e) {
@@ -162,17 +158,8 @@ public class ReaderController {
     public String viewReader(@PathVariable Long id, Model model) {
         try {
             Reader reader = readerService.getReaderById(id);
-
-            List<BookLoan> activeLoans = readerService.getActiveReaderLoans(id);
-            List<BookLoan> allLoans = readerService.getAllReaderLoans(id);
-
-            reader.setActiveLoansCount(activeLoans.size());
-            reader.setTotalLoansCount(allLoans.size());
-
             model.addAttribute("reader", reader);
-            model.addAttribute("canDelete", readerService.canDeleteReader(id));
-            model.addAttribute("activeLoans", activeLoans);
-            model.addAttribute("allLoans", allLoans);
+            model.addAttribute("canDelete", reader.getTotalLoansCount() == 0);
             return "readers/view";
         } catch (IllegalArgumentException e) {
             return "redirect:/readers";
@@ -190,16 +177,13 @@ public class ReaderController {
     public String checkDelete(@PathVariable Long id) {
         try {
             Reader reader = readerService.getReaderById(id);
-
-            if (readerService.canDeleteReader(id)) {
+            if (reader.getTotalLoansCount() == 0) {
                 return "OK";
             } else {
-                List<BookLoan> activeLoans = readerService.getActiveReaderLoans(id);
-                if (!activeLoans.isEmpty()) {
+                if (reader.hasActiveLoans()) {
                     return "ERROR: У читателя '" + reader.getFullName() + "' есть активные выдачи книг. Сначала верните все книги.";
                 } else {
-                    List<BookLoan> allLoans = readerService.getAllReaderLoans(id);
-                    if (!allLoans.isEmpty()) {
+                    if (reader.getTotalLoansCount() > 0) {
                         return "ERROR: Читатель '" + reader.getFullName() + "' есть в истории выдач. Удалите сначала записи о выдаче.";
                     } else {
                         return "ERROR: Читателя '" + reader.getFullName() + "' нельзя удалить по неизвестной причине.";
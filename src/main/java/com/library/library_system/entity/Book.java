@@ -4,11 +4,20 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.Generated;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+import org.hibernate.generator.EventType;
 
 /**
  * Сущность, представляющая книгу в библиотеке
  */
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NaturalIdCache
 @Table(name = "books")
 public class Book {
 
@@ -16,6 +25,7 @@ public class Book {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long bookId;
 
+    @NaturalId(mutable = true)
     @Column(name = "book_number", unique = true, nullable = false)
     @NotBlank(message = "Инвентарный номер обязателен")
     private String bookNumber;
@@ -33,10 +43,18 @@ public class Book {
     @Min(value = 1500, message = "Год издания должен быть не менее 1500")
     private Integer publicationYear;
 
-    @Transient
+    @Version
+    @ColumnDefault("0")
+    private Long version;
+
+    @Column(name = "active_loans_count", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    @Generated(event = {EventType.INSERT, EventType.UPDATE})
     private Integer activeLoansCount = 0;
 
-    @Transient
+    @Column(name = "total_loans_count", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    @Generated(event = {EventType.INSERT, EventType.UPDATE})
     private Integer totalLoansCount = 0;
 
     public Book() {}
@@ -59,6 +77,9 @@ public class Book {
     public Long getBookId() { return bookId; }
     public void setBookId(Long bookId) { this.bookId = bookId; }
 
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
     public String getBookNumber() { return bookNumber; }
     public void setBookNumber(String bookNumber) { this.bookNumber = bookNumber; }
 
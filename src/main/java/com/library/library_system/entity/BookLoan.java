@@ -2,30 +2,59 @@ package com.library.library_system.entity;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.ColumnDefault;
 import java.time.LocalDate;
 
 /**
- * Сущность, представляющая выдачу книги читателю
+ * Сущность, представляющая выдачу книги читателю.
+ * Книга, читатель и библиотекарь загружаются лениво; запросы, данные которых выводятся
+ * на страницах, подгружают нужные связи через именованные графы сущности.
+ * Идентификатор выдается из последовательности блоками, чтобы Hibernate мог
+ * вставлять несколько выдач одним пакетом JDBC.
+ * Схему таблицы ведут миграции db/migration; индексы ниже повторяют их для схемы,
+ * которую Hibernate создает в тестах (частичные индексы PostgreSQL так описать нельзя).
  */
 @Entity
-@Table(name = "book_loans")
+@Table(name = "book_loans", indexes = {
+        @Index(name = "book_loans_book_idx", columnList = "book_id, return_date"),
+        @Index(name = "book_loans_reader_idx", columnList = "reader_id, return_date"),
+        @Index(name = "book_loans_librarian_idx", columnList = "librarian_id"),
+        @Index(name = "book_loans_loan_date_idx", columnList = "loan_date, loan_id")
+})
+@NamedEntityGraph(name = BookLoan.GRAPH_DETAILS, attributeNodes = {
+        @NamedAttributeNode("book"),
+        @NamedAttributeNode("reader"),
+        @NamedAttributeNode("librarian")
+})
+@NamedEntityGraph(name = BookLoan.GRAPH_BOOK, attributeNodes = @NamedAttributeNode("book"))
 public class BookLoan {
 
+    /**
+     * Граф для списка и карточки выдачи: книга, читатель и библиотекарь
+     */
+    public static final String GRAPH_DETAILS = "BookLoan.details";
+
+    /**
+     * Граф для операций, которым нужна только книга (возврат, удаление, сообщения)
+     */
+    public static final String GRAPH_BOOK = "BookLoan.book";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_loans_seq")
+    @SequenceGenerator(name = "book_loans_seq", sequenceName = "book_loans_seq", allocationSize = 50)
     private Long loanId;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "book_id", nullable = false)
     @NotNull(message = "Книга обязательна")
     private Book book;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "reader_id", nullable = false)
     @NotNull(message = "Читатель обязателен")
     private Reader reader;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "librarian_id", nullable = false)
     @NotNull(message = "Библиотекарь обязателен")
     private Librarian librarian;
@@ -41,6 +70,16 @@ public class BookLoan {
     @Column(name = "return_date")
     private LocalDate returnDate;
 
+    /**
+     * День последнего напоминания читателю о сроке возврата
+     */
+    @Column(name = "last_reminded_on")
+    private LocalDate lastRemindedOn;
+
+    @Version
+    @ColumnDefault("0")
+    private Long version;
+
     public BookLoan() {}
 
     /**
@@ -63,6 +102,9 @@ public class BookLoan {
     public Long getLoanId() { return loanId; }
     public void setLoanId(Long loanId) { this.loanId = loanId; }
 
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
     public Book getBook() { return book; }
     public void setBook(Book book) { this.book = book; }
 
@@ -81,6 +123,9 @@ public class BookLoan {
     public LocalDate getReturnDate() { return returnDate; }
     public void setReturnDate(LocalDate returnDate) { this.returnDate = returnDate; }
 
+    public LocalDate getLastRemindedOn() { return lastRemindedOn; }
+    public void setLastRemindedOn(LocalDate lastRemindedOn) { this.lastRemindedOn = lastRemindedOn; }
+
     /**
      * Проверяет, возвращена ли книга
      *
@@ -96,7 +141,17 @@ public class BookLoan {
      * @return true если книга не возвращена и срок возврата истек, иначе false
      */
     public boolean isOverdue() {
-        return !isReturned() && LocalDate.now().isAfter(dueDate);
+        return isOverdue(LocalDate.now());
+    }
+
+    /**
+     * Проверяет, просрочена ли выдача книги на указанный день
+     *
+     * @param today день, на который выполняется проверка
+     * @return true если книга не возвращена и срок возврата истек, иначе false
+     */
+    public boolean isOverdue(LocalDate today) {
+        return !isReturned() && today.isAfter(dueDate);
     }
 
     /**
@@ -105,10 +160,20 @@ public class BookLoan {
      * @return количество дней просрочки (0 если книга возвращена или не просрочена)
      */
     public long getDaysOverdue() {
-        if (isReturned() || !isOverdue()) {
+        return getDaysOverdue(LocalDate.now());
+    }
+
+    /**
+     * Вычисляет количество дней просрочки на указанный день
+     *
+     * @param today день, на который выполняется расчет
+     * @return количество дней просрочки (0 если книга возвращена или не просрочена)
+     */
+    public long getDaysOverdue(LocalDate today) {
+        if (!isOverdue(today)) {
             return 0;
         }
-        return LocalDate.now().toEpochDay() - dueDate.toEpochDay();
+        return today.toEpochDay() - dueDate.toEpochDay();
     }
 
     @Override
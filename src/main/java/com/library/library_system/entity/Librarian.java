@@ -2,11 +2,20 @@ package com.library.library_system.entity;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.Generated;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+import org.hibernate.generator.EventType;
 
 /**
  * Сущность, представляющая библиотекаря
  */
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NaturalIdCache
 @Table(name = "librarians")
 public class Librarian {
 
@@ -14,6 +23,7 @@ public class Librarian {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long librarianId;
 
+    @NaturalId(mutable = true)
     @Column(name = "librarian_number", unique = true, nullable = false)
     @NotBlank(message = "Табельный номер обязателен")
     private String librarianNumber;
@@ -25,7 +35,13 @@ public class Librarian {
     @Column(nullable = false)
     private String position = "Библиотекарь";
 
-    @Transient
+    @Version
+    @ColumnDefault("0")
+    private Long version;
+
+    @Column(name = "loans_count", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    @Generated(event = {EventType.INSERT, EventType.UPDATE})
     private Integer loansCount = 0;
 
     public Librarian() {}
@@ -46,6 +62,9 @@ public class Librarian {
     public Long getLibrarianId() { return librarianId; }
     public void setLibrarianId(Long librarianId) { this.librarianId = librarianId; }
 
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
     public String getLibrarianNumber() { return librarianNumber; }
     public void setLibrarianNumber(String librarianNumber) { this.librarianNumber = librarianNumber; }
 
@@ -3,12 +3,21 @@ package com.library.library_system.entity;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.Generated;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+import org.hibernate.generator.EventType;
 import java.time.LocalDate;
 
 /**
  * Сущность, представляющая читателя библиотеки
  */
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NaturalIdCache
 @Table(name = "readers")
 public class Reader {
 
@@ -16,6 +25,7 @@ public class Reader {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long readerId;
 
+    @NaturalId(mutable = true)
     @Column(name = "ticket_number", unique = true, nullable = false)
     @NotBlank(message = "Номер читательского билета обязателен")
     private String ticketNumber;
@@ -32,10 +42,18 @@ public class Reader {
     @Column(name = "registration_date")
     private LocalDate registrationDate = LocalDate.now();
 
-    @Transient
+    @Version
+    @ColumnDefault("0")
+    private Long version;
+
+    @Column(name = "active_loans_count", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    @Generated(event = {EventType.INSERT, EventType.UPDATE})
     private Integer activeLoansCount = 0;
 
-    @Transient
+    @Column(name = "total_loans_count", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    @Generated(event = {EventType.INSERT, EventType.UPDATE})
     private Integer totalLoansCount = 0;
 
     public Reader() {}
@@ -56,6 +74,9 @@ public class Reader {
     public Long getReaderId() { return readerId; }
     public void setReaderId(Long readerId) { this.readerId = readerId; }
 
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
     public String getTicketNumber() { return ticketNumber; }
     public void setTicketNumber(String ticketNumber) { this.ticketNumber = ticketNumber; }
 
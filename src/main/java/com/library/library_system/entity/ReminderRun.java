@@ -0,0 +1,77 @@
+package com.library.library_system.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Итоги рассылки напоминаний о сроке возврата за один день: сколько напоминаний
+ * отправлено всеми запусками за день и дошел ли последний запуск до конца.
+ * Какие выдачи уже получили напоминание, отмечается на самих выдачах.
+ */
+@Entity
+@Table(name = "reminder_runs")
+public class ReminderRun {
+
+    @Id
+    @Column(name = "run_date")
+    private LocalDate runDate;
+
+    @Column(name = "due_soon_sent", nullable = false)
+    private int dueSoonSent;
+
+    @Column(name = "overdue_sent", nullable = false)
+    private int overdueSent;
+
+    @Column(nullable = false)
+    private boolean completed;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Version
+    @ColumnDefault("0")
+    private Long version;
+
+    public ReminderRun() {}
+
+    /**
+     * Создает запуск рассылки за указанный день
+     *
+     * @param runDate день, за который рассылаются напоминания
+     */
+    public ReminderRun(LocalDate runDate) {
+        this.runDate = runDate;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public LocalDate getRunDate() { return runDate; }
+    public void setRunDate(LocalDate runDate) { this.runDate = runDate; }
+
+    public int getDueSoonSent() { return dueSoonSent; }
+    public void setDueSoonSent(int dueSoonSent) { this.dueSoonSent = dueSoonSent; }
+
+    public int getOverdueSent() { return overdueSent; }
+    public void setOverdueSent(int overdueSent) { this.overdueSent = overdueSent; }
+
+    public boolean isCompleted() { return completed; }
+    public void setCompleted(boolean completed) { this.completed = completed; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
+    @Override
+    public String toString() {
+        return "ReminderRun{" +
+                "runDate=" + runDate +
+                ", dueSoonSent=" + dueSoonSent +
+                ", overdueSent=" + overdueSent +
+                ", completed=" + completed +
+                '}';
+    }
+}
\ No newline at end of file
@@ -0,0 +1,39 @@
+package com.library.library_system.repository;
+
+import com.library.library_system.entity.BookLoan;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Window;
+
+import java.time.LocalDate;
+
+/**
+ * Страницы списка выдач от новых к старым (дата выдачи, идентификатор) с keyset-пагинацией.
+ * Выдачи страницы выбираются по индексу book_loans без соединений, книга, читатель
+ * и библиотекарь загружаются тем же запросом только для выбранных строк.
+ */
+public interface BookLoanPageRepository {
+
+    /**
+     * Выдачи, попадающие в список
+     */
+    enum LoanFilter {
+        /** Все выдачи */
+        ALL,
+        /** Не возвращенные */
+        ACTIVE,
+        /** Не возвращенные со сроком возврата раньше текущей даты */
+        OVERDUE
+    }
+
+    /**
+     * Найти страницу выдач
+     *
+     * @param filter выдачи, попадающие в список
+     * @param today текущая дата, относительно которой определяется просрочка
+     * @param position позиция с ключами loanDate и loanId (начальная для первой страницы)
+     * @param limit количество выдач на странице
+     * @return выдачи с книгой, читателем и библиотекарем по убыванию даты выдачи и идентификатора
+     * @throws IllegalArgumentException если в позиции нет ключей loanDate и loanId
+     */
+    Window<BookLoan> findLoansPage(LoanFilter filter, LocalDate today, KeysetScrollPosition position, int limit);
+}
\ No newline at end of file
@@ -0,0 +1,93 @@
+package com.library.library_system.repository;
+
+import com.library.library_system.entity.BookLoan;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Реализация страниц списка выдач.
+ *
+ * <p>Идентификаторы выдач страницы выбирает подзапрос по одной таблице book_loans с порядком
+ * индекса book_loans (loan_date, loan_id) и лимитом, а внешний запрос присоединяет книгу,
+ * читателя и библиотекаря к этим строкам по первичному ключу. Если соединение и сортировка
+ * стоят в одном запросе, планировщик может начать соединение с другой таблицы
+ * и отсортировать все выдачи ради одной страницы.</p>
+ *
+ * <p>Для перехода назад порядок и сравнение ключей обращаются, а результат разворачивается,
+ * как в keyset-запросах Spring Data.</p>
+ */
+public class BookLoanPageRepositoryImpl implements BookLoanPageRepository {
+
+    private static final String LOANS_PAGE =
+            "select l from BookLoan l join fetch l.book join fetch l.reader join fetch l.librarian " +
+            "where l.loanId in (select k.loanId from BookLoan k%s " +
+            "order by k.loanDate %2$s, k.loanId %2$s limit :limit) " +
+            "order by l.loanDate %2$s, l.loanId %2$s";
+
+    private static final String AFTER_KEYS =
+            "(k.loanDate %1$s :loanDate or (k.loanDate = :loanDate and k.loanId %1$s :loanId))";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Window<BookLoan> findLoansPage(LoanFilter filter, LocalDate today, KeysetScrollPosition position, int limit) {
+        boolean backward = position.scrollsBackward();
+        List<String> conditions = new ArrayList<>();
+        if (filter != LoanFilter.ALL) {
+            conditions.add("k.returnDate is null");
+        }
+        if (filter == LoanFilter.OVERDUE) {
+            conditions.add("k.dueDate < :today");
+        }
+        if (!position.isInitial()) {
+            conditions.add(AFTER_KEYS.formatted(backward ? ">" : "<"));
+        }
+
+        TypedQuery<BookLoan> query = entityManager.createQuery(
+                LOANS_PAGE.formatted(conditions.isEmpty() ? "" : " where " + String.join(" and ", conditions),
+                        backward ? "asc" : "desc"), BookLoan.class)
+                .setParameter("limit", limit + 1);
+        if (filter == LoanFilter.OVERDUE) {
+            query.setParameter("today", today);
+        }
+        if (!position.isInitial()) {
+            query.setParameter("loanDate", key(position, "loanDate", LocalDate.class))
+                    .setParameter("loanId", key(position, "loanId", Long.class));
+        }
+
+        List<BookLoan> rows = query.getResultList();
+        boolean hasNext = rows.size() > limit;
+        List<BookLoan> content = new ArrayList<>(hasNext ? rows.subList(0, limit) : rows);
+        if (backward) {
+            Collections.reverse(content);
+        }
+        return Window.from(content, index -> positionOf(content.get(index)), hasNext);
+    }
+
+    private static <T> T key(KeysetScrollPosition position, String name, Class<T> type) {
+        Object value = position.getKeys().get(name);
+        if (!type.isInstance(value)) {
+            throw new IllegalArgumentException("Некорректная позиция страницы");
+        }
+        return type.cast(value);
+    }
+
+    private static ScrollPosition positionOf(BookLoan loan) {
+        Map<String, Object> keys = new LinkedHashMap<>();
+        keys.put("loanDate", loan.getLoanDate());
+        keys.put("loanId", loan.getLoanId());
+        return ScrollPosition.forward(keys);
+    }
+}
\ No newline at end of file
@@ -1,24 +1,182 @@
 package com.library.library_system.repository;
 
 import com.library.library_system.entity.BookLoan;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Репозиторий для работы с сущностью BookLoan (выдачи книг)
  */
 @Repository
-public interface BookLoanRepository extends JpaRepository<BookLoan, Long> {
+public interface BookLoanRepository extends JpaRepository<BookLoan, Long>, BookLoanPageRepository {
 
+    @EntityGraph(BookLoan.GRAPH_DETAILS)
     List<BookLoan> findByReturnDateIsNull();
-    List<BookLoan> findByBookBookIdAndReturnDateIsNull(Long bookId);
-    List<BookLoan> findByBookBookId(Long bookId);
-    List<BookLoan> findByReaderReaderIdAndReturnDateIsNull(Long readerId);
-    List<BookLoan> findByReaderReaderId(Long readerId);
+
+    /*
+     * Запросы по книге, читателю и библиотекарю записаны явно: производные запросы Spring Data
+     * сравнивают идентификатор через соединение со связанной таблицей, и индекс по внешнему
+     * ключу book_loans не используется. Путь l.book.bookId Hibernate заменяет столбцом book_id.
+     */
+
+    @EntityGraph(BookLoan.GRAPH_DETAILS)
+    @Query("select l from BookLoan l where l.book.bookId = :bookId and l.returnDate is null")
+    List<BookLoan> findByBookBookIdAndReturnDateIsNull(@Param("bookId") Long bookId);
+    @EntityGraph(BookLoan.GRAPH_DETAILS)
+    @Query("select l from BookLoan l where l.book.bookId = :bookId")
+    List<BookLoan> findByBookBookId(@Param("bookId") Long bookId);
+    @EntityGraph(BookLoan.GRAPH_DETAILS)
+    @Query("select l from BookLoan l where l.reader.readerId = :readerId and l.returnDate is null")
+    List<BookLoan> findByReaderReaderIdAndReturnDateIsNull(@Param("readerId") Long readerId);
+    @EntityGraph(BookLoan.GRAPH_DETAILS)
+    @Query("select l from BookLoan l where l.reader.readerId = :readerId")
+    List<BookLoan> findByReaderReaderId(@Param("readerId") Long readerId);
+    @EntityGraph(BookLoan.GRAPH_DETAILS)
     List<BookLoan> findByReturnDateIsNullAndDueDateBefore(LocalDate date);
-    List<BookLoan> findByLibrarianLibrarianId(Long librarianId);
+    @EntityGraph(BookLoan.GRAPH_DETAILS)
+    @Query("select l from BookLoan l where l.librarian.librarianId = :librarianId")
+    List<BookLoan> findByLibrarianLibrarianId(@Param("librarianId") Long librarianId);
+    @EntityGraph(BookLoan.GRAPH_DETAILS)
     List<BookLoan> findByLoanDateBetween(LocalDate startDate, LocalDate endDate);
+
+    @EntityGraph(BookLoan.GRAPH_DETAILS)
+    Optional<BookLoan> findDetailedByLoanId(Long loanId);
+    @EntityGraph(BookLoan.GRAPH_BOOK)
+    Optional<BookLoan> findWithBookByLoanId(Long loanId);
+
+    @Query("select l.book.bookId as ownerId, " +
+            "sum(case when l.returnDate is null then 1 else 0 end) as activeCount, " +
+            "count(l) as totalCount " +
+            "from BookLoan l where l.book.bookId in :bookIds group by l.book.bookId")
+    List<LoanStatistics> countLoansByBookIds(@Param("bookIds") Collection<Long> bookIds);
+
+    @Query("select l.reader.readerId as ownerId, " +
+            "sum(case when l.returnDate is null then 1 else 0 end) as activeCount, " +
+            "count(l) as totalCount " +
+            "from BookLoan l where l.reader.readerId in :readerIds group by l.reader.readerId")
+    List<LoanStatistics> countLoansByReaderIds(@Param("readerIds") Collection<Long> readerIds);
+
+    @Query("select l.librarian.librarianId as ownerId, " +
+            "sum(case when l.returnDate is null then 1 else 0 end) as activeCount, " +
+            "count(l) as totalCount " +
+            "from BookLoan l where l.librarian.librarianId in :librarianIds group by l.librarian.librarianId")
+    List<LoanStatistics> countLoansByLibrarianIds(@Param("librarianIds") Collection<Long> librarianIds);
+
+    @Query("select count(l) as totalCount, " +
+            "coalesce(sum(case when l.returnDate is null then 1 else 0 end), 0) as activeCount, " +
+            "coalesce(sum(case when l.returnDate is null and l.dueDate < :today then 1 else 0 end), 0) as overdueCount, " +
+            "coalesce(sum(case when l.returnDate is null and l.dueDate = :today then 1 else 0 end), 0) as dueTodayCount " +
+            "from BookLoan l " +
+            "where (:activeOnly = false or l.returnDate is null) " +
+            "and (:overdueOnly = false or (l.returnDate is null and l.dueDate < :today))")
+    LoanStatusCounts countLoansByStatus(@Param("today") LocalDate today,
+                                        @Param("activeOnly") boolean activeOnly,
+                                        @Param("overdueOnly") boolean overdueOnly);
+
+    /**
+     * Выдачи с книгой, читателем и библиотекарем по возрастанию идентификатора для выгрузки.
+     * Строки читаются с сервера порциями, сущности не попадают в кэш второго уровня
+     * и не отслеживаются на изменения. Незаданные (null) условия не применяются.
+     */
+    @EntityGraph(BookLoan.GRAPH_DETAILS)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE")
+    })
+    @Query("select l from BookLoan l " +
+            "where (:from is null or l.loanDate >= :from) " +
+            "and (:to is null or l.loanDate <= :to) " +
+            "and (:readerId is null or l.reader.readerId = :readerId) " +
+            "and (:librarianId is null or l.librarian.librarianId = :librarianId) " +
+            "order by l.loanId")
+    Stream<BookLoan> streamForExport(@Param("from") LocalDate from,
+                                     @Param("to") LocalDate to,
+                                     @Param("readerId") Long readerId,
+                                     @Param("librarianId") Long librarianId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select l.loanId as loanId, l.book.bookId as bookId, l.book.bookNumber as bookNumber, " +
+            "l.book.title as title, l.reader.readerId as readerId, l.loanDate as loanDate " +
+            "from BookLoan l where l.loanId in :loanIds and l.returnDate is null order by l.loanId")
+    List<OpenLoan> findOpenForUpdateByLoanIds(@Param("loanIds") Collection<Long> loanIds);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select l.loanId as loanId, l.book.bookId as bookId, l.book.bookNumber as bookNumber, " +
+            "l.book.title as title, l.reader.readerId as readerId, l.loanDate as loanDate " +
+            "from BookLoan l where l.book.bookNumber in :bookNumbers and l.returnDate is null order by l.loanId")
+    List<OpenLoan> findOpenForUpdateByBookNumbers(@Param("bookNumbers") Collection<String> bookNumbers);
+
+    @Query("select l.loanId as loanId, l.book.bookId as bookId, l.book.bookNumber as bookNumber, " +
+            "l.book.title as title, l.reader.readerId as readerId, l.loanDate as loanDate " +
+            "from BookLoan l where l.loanId = :loanId")
+    Optional<OpenLoan> findSummaryByLoanId(@Param("loanId") Long loanId);
+
+    @Query("select l.loanId from BookLoan l where l.loanId in :loanIds")
+    List<Long> findExistingLoanIds(@Param("loanIds") Collection<Long> loanIds);
+
+    /**
+     * Закрыть активные выдачи одним запросом. Уже закрытые выдачи не изменяются
+     *
+     * @return количество закрытых выдач
+     */
+    @Modifying
+    @Query("update BookLoan l set l.returnDate = :returnDate, l.version = l.version + 1 " +
+            "where l.loanId in :loanIds and l.returnDate is null")
+    int returnLoans(@Param("loanIds") Collection<Long> loanIds, @Param("returnDate") LocalDate returnDate);
+
+    /**
+     * Закрыть одну активную выдачу, если дата выдачи не позже даты возврата
+     *
+     * @return 1 если выдача закрыта, 0 если она не найдена, уже закрыта или выдана позже даты возврата
+     */
+    @Modifying
+    @Query("update BookLoan l set l.returnDate = :returnDate, l.version = l.version + 1 " +
+            "where l.loanId = :loanId and l.returnDate is null and l.loanDate <= :returnDate")
+    int returnLoan(@Param("loanId") Long loanId, @Param("returnDate") LocalDate returnDate);
+
+    /**
+     * Активные выдачи со сроком возврата не позже заданного, которым пора отправить напоминание,
+     * следующие за позицией (срок возврата, идентификатор выдачи), по возрастанию этой пары.
+     * Напоминание пора отправить, если его еще не было, а по просроченной выдаче - если
+     * последнее напоминание было до истечения срока или не позже дня repeatBefore.
+     * Использует индекс book_loans (return_date, due_date, loan_id).
+     */
+    @Query("select l.loanId as loanId, l.dueDate as dueDate, r.fullName as readerName, " +
+            "r.phoneNumber as phoneNumber, b.title as title " +
+            "from BookLoan l join l.reader r join l.book b " +
+            "where l.returnDate is null and l.dueDate <= :until " +
+            "and (l.lastRemindedOn is null or (l.dueDate < :today " +
+            "and (l.lastRemindedOn <= l.dueDate or l.lastRemindedOn <= :repeatBefore))) " +
+            "and (l.dueDate > :afterDueDate or (l.dueDate = :afterDueDate and l.loanId > :afterLoanId)) " +
+            "order by l.dueDate, l.loanId")
+    List<ReminderCandidate> findReminderCandidates(@Param("today") LocalDate today,
+                                                   @Param("until") LocalDate until,
+                                                   @Param("repeatBefore") LocalDate repeatBefore,
+                                                   @Param("afterDueDate") LocalDate afterDueDate,
+                                                   @Param("afterLoanId") Long afterLoanId,
+                                                   Limit limit);
+
+    /**
+     * Отметить день последнего напоминания по выдачам
+     */
+    @Modifying
+    @Query("update BookLoan l set l.lastRemindedOn = :remindedOn where l.loanId in :loanIds")
+    int markReminded(@Param("loanIds") Collection<Long> loanIds, @Param("remindedOn") LocalDate remindedOn);
 }
\ No newline at end of file
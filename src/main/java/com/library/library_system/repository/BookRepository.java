@@ -1,19 +1,117 @@
 package com.library.library_system.repository;
 
+import com.library.library_system.config.CacheConfig;
 import com.library.library_system.entity.Book;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Репозиторий для работы с сущностью Book (книги)
  */
 @Repository
-public interface BookRepository extends JpaRepository<Book, Long> {
+public interface BookRepository extends JpaRepository<Book, Long>, BookSearchRepository {
 
     List<Book> findByTitleContainingIgnoreCase(String title);
     List<Book> findByAuthorContainingIgnoreCase(String author);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Book findByBookNumber(String bookNumber);
+
     List<Book> findByPublicationYear(Integer year);
+
+    @Cacheable(cacheNames = CacheConfig.BOOKS_BY_NUMBER, key = "#p0", unless = "#result == null")
+    @Query("select b.bookId from Book b where b.bookNumber = :bookNumber")
+    Long findIdByBookNumber(@Param("bookNumber") String bookNumber);
+
+    Window<Book> findAllBy(ScrollPosition position, Sort sort, Limit limit);
+
+    @Query("select b from Book b " +
+            "where (lower(b.bookNumber) like :prefix escape '\\' or lower(b.title) like :pattern escape '\\') " +
+            "and (:availableOnly = false or b.activeLoansCount = 0)")
+    Slice<Book> lookup(@Param("prefix") String prefix,
+                       @Param("pattern") String pattern,
+                       @Param("availableOnly") boolean availableOnly,
+                       Pageable pageable);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = CacheConfig.LOAN_COUNTERS_QUERY_SPACE))
+    @Query(value = "update books set active_loans_count = active_loans_count + :activeDelta, " +
+            "total_loans_count = total_loans_count + :totalDelta where book_id = :bookId", nativeQuery = true)
+    int adjustLoanCounters(@Param("bookId") Long bookId,
+                           @Param("activeDelta") int activeDelta,
+                           @Param("totalDelta") int totalDelta);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = CacheConfig.LOAN_COUNTERS_QUERY_SPACE))
+    @Query(value = "update books set active_loans_count = active_loans_count + 1, " +
+            "total_loans_count = total_loans_count + :totalDelta " +
+            "where book_id = :bookId and active_loans_count = 0", nativeQuery = true)
+    int checkOutBook(@Param("bookId") Long bookId, @Param("totalDelta") int totalDelta);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = CacheConfig.LOAN_COUNTERS_QUERY_SPACE))
+    @Query(value = "update books set active_loans_count = active_loans_count + 1, " +
+            "total_loans_count = total_loans_count + 1 " +
+            "where book_id in (:bookIds) and active_loans_count = 0", nativeQuery = true)
+    int checkOutBooks(@Param("bookIds") Collection<Long> bookIds);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = CacheConfig.LOAN_COUNTERS_QUERY_SPACE))
+    @Query(value = "update books set active_loans_count = active_loans_count - " +
+            "(select count(*) from book_loans l where l.book_id = books.book_id and l.loan_id in (:loanIds)) " +
+            "where book_id in (:bookIds)", nativeQuery = true)
+    int releaseLoans(@Param("bookIds") Collection<Long> bookIds, @Param("loanIds") Collection<Long> loanIds);
+
+    @Query("select b.bookNumber from Book b where b.bookNumber in :bookNumbers")
+    List<String> findExistingBookNumbers(@Param("bookNumbers") Collection<String> bookNumbers);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from Book b where b.bookId in :bookIds order by b.bookId")
+    List<Book> findAllForUpdate(@Param("bookIds") Collection<Long> bookIds);
+
+    @Query("select b.bookId as ownerId, b.activeLoansCount as activeCount, b.totalLoansCount as totalCount " +
+            "from Book b where b.bookId > :afterId order by b.bookId")
+    List<LoanStatistics> findLoanCountersAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = CacheConfig.LOAN_COUNTERS_QUERY_SPACE))
+    @Query(value = "update books set " +
+            "active_loans_count = (select count(*) from book_loans l " +
+            "where l.book_id = books.book_id and l.return_date is null), " +
+            "total_loans_count = (select count(*) from book_loans l where l.book_id = books.book_id) " +
+            "where book_id in (:bookIds)", nativeQuery = true)
+    int recalculateLoanCounters(@Param("bookIds") Collection<Long> bookIds);
+
+    /**
+     * Все книги по возрастанию идентификатора для выгрузки: строки читаются с сервера
+     * порциями, сущности не попадают в кэш второго уровня и не отслеживаются на изменения
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE")
+    })
+    @Query("select b from Book b order by b.bookId")
+    Stream<Book> streamAllForExport();
 }
\ No newline at end of file
@@ -0,0 +1,36 @@
+package com.library.library_system.repository;
+
+import com.library.library_system.entity.Book;
+
+import java.util.List;
+
+/**
+ * Полнотекстовый поиск по каталогу книг с ранжированием результатов.
+ * На PostgreSQL использует tsvector по названию и автору и триграммные индексы pg_trgm,
+ * на остальных базах данных - поиск подстроки без учета регистра.
+ */
+public interface BookSearchRepository {
+
+    /**
+     * Поля книги, по которым выполняется поиск
+     */
+    enum SearchField {
+        /** Название и автор */
+        ALL,
+        /** Только название */
+        TITLE,
+        /** Только автор */
+        AUTHOR
+    }
+
+    /**
+     * Найти книги по запросу, самые релевантные первыми
+     *
+     * @param query поисковый запрос
+     * @param field поля, по которым выполняется поиск
+     * @param offset количество пропускаемых результатов
+     * @param limit максимальное количество результатов
+     * @return найденные книги, упорядоченные по убыванию релевантности и идентификатору
+     */
+    List<Book> search(String query, SearchField field, long offset, int limit);
+}
\ No newline at end of file
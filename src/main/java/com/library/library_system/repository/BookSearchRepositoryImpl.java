@@ -0,0 +1,95 @@
+package com.library.library_system.repository;
+
+import com.library.library_system.config.DatabasePlatform;
+import com.library.library_system.entity.Book;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Реализация поиска по каталогу книг.
+ *
+ * <p>На PostgreSQL запрос сопоставляется со столбцом search_vector (русская и английская
+ * конфигурации, название с весом A, автор с весом B), а подстроки и опечатки ищутся
+ * по триграммным GIN-индексам на title и author. Ранг - сумма ts_rank и наибольшей
+ * триграммной схожести. Столбец и индексы создает миграция db/migration/V2__book_search.sql.</p>
+ */
+public class BookSearchRepositoryImpl implements BookSearchRepository {
+
+    private static final String POSTGRES_SEARCH =
+            "with q as (select websearch_to_tsquery('russian', :query) " +
+            "|| websearch_to_tsquery('english', :query) as ts) " +
+            "select b.* from books b, q where %s " +
+            "order by %s desc, b.book_id offset :offset limit :limit";
+
+    private static final String POSTGRES_ALL_CONDITION =
+            "b.search_vector @@ q.ts or b.title % :query or b.author % :query " +
+            "or b.title ilike :pattern or b.author ilike :pattern";
+    private static final String POSTGRES_ALL_RANK =
+            "ts_rank(b.search_vector, q.ts) + greatest(similarity(b.title, :query), similarity(b.author, :query))";
+
+    private static final String POSTGRES_FIELD_CONDITION = "b.%1$s %% :query or b.%1$s ilike :pattern";
+    private static final String POSTGRES_FIELD_RANK = "similarity(b.%1$s, :query)";
+
+    private static final String PORTABLE_SEARCH =
+            "select b from Book b where %s " +
+            "order by case when lower(%s) = :exact then 0 when lower(%2$s) like :prefix escape '\\' then 1 " +
+            "else 2 end, %2$s, b.bookId";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private DatabasePlatform databasePlatform;
+
+    @Override
+    public List<Book> search(String query, SearchField field, long offset, int limit) {
+        String normalized = query.trim();
+        Query search = databasePlatform.isPostgres()
+                ? postgresQuery(normalized, field, offset, limit)
+                : portableQuery(normalized, field, offset, limit);
+        @SuppressWarnings("unchecked")
+        List<Book> books = search.getResultList();
+        return books;
+    }
+
+    private Query postgresQuery(String query, SearchField field, long offset, int limit) {
+        String condition = field == SearchField.ALL ? POSTGRES_ALL_CONDITION
+                : POSTGRES_FIELD_CONDITION.formatted(column(field));
+        String rank = field == SearchField.ALL ? POSTGRES_ALL_RANK
+                : POSTGRES_FIELD_RANK.formatted(column(field));
+        return entityManager.createNativeQuery(POSTGRES_SEARCH.formatted(condition, rank), Book.class)
+                .setParameter("query", query)
+                .setParameter("pattern", "%" + escapeLike(query) + "%")
+                .setParameter("offset", offset)
+                .setParameter("limit", limit);
+    }
+
+    private Query portableQuery(String query, SearchField field, long offset, int limit) {
+        String lower = escapeLike(query.toLowerCase(Locale.ROOT));
+        String condition = switch (field) {
+            case ALL -> "lower(b.title) like :pattern escape '\\' or lower(b.author) like :pattern escape '\\'";
+            case TITLE -> "lower(b.title) like :pattern escape '\\'";
+            case AUTHOR -> "lower(b.author) like :pattern escape '\\'";
+        };
+        String ordered = field == SearchField.AUTHOR ? "b.author" : "b.title";
+        return entityManager.createQuery(PORTABLE_SEARCH.formatted(condition, ordered), Book.class)
+                .setParameter("pattern", "%" + lower + "%")
+                .setParameter("exact", query.toLowerCase(Locale.ROOT))
+                .setParameter("prefix", lower + "%")
+                .setFirstResult(Math.toIntExact(offset))
+                .setMaxResults(limit);
+    }
+
+    private static String column(SearchField field) {
+        return field == SearchField.AUTHOR ? "author" : "title";
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
\ No newline at end of file
@@ -1,9 +1,25 @@
 package com.library.library_system.repository;
 
+import com.library.library_system.config.CacheConfig;
 import com.library.library_system.entity.Librarian;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -13,6 +29,38 @@ import java.util.List;
 public interface LibrarianRepository extends JpaRepository<Librarian, Long> {
 
     List<Librarian> findByFullNameContainingIgnoreCase(String fullName);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Librarian findByLibrarianNumber(String librarianNumber);
+
     List<Librarian> findByPositionContainingIgnoreCase(String position);
+
+    @Cacheable(cacheNames = CacheConfig.LIBRARIANS_BY_NUMBER, key = "#p0", unless = "#result == null")
+    @Query("select l.librarianId from Librarian l where l.librarianNumber = :librarianNumber")
+    Long findIdByLibrarianNumber(@Param("librarianNumber") String librarianNumber);
+
+    Window<Librarian> findAllBy(ScrollPosition position, Sort sort, Limit limit);
+    Window<Librarian> findByFullNameContainingIgnoreCase(String fullName, ScrollPosition position, Sort sort, Limit limit);
+
+    @Query("select l from Librarian l " +
+            "where lower(l.librarianNumber) like :prefix escape '\\' or lower(l.fullName) like :pattern escape '\\'")
+    Slice<Librarian> lookup(@Param("prefix") String prefix, @Param("pattern") String pattern, Pageable pageable);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = CacheConfig.LOAN_COUNTERS_QUERY_SPACE))
+    @Query(value = "update librarians set loans_count = loans_count + :delta where librarian_id = :librarianId",
+            nativeQuery = true)
+    int adjustLoansCount(@Param("librarianId") Long librarianId, @Param("delta") int delta);
+
+    @Query("select l.librarianId as ownerId, 0 as activeCount, l.loansCount as totalCount " +
+            "from Librarian l where l.librarianId > :afterId order by l.librarianId")
+    List<LoanStatistics> findLoanCountersAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = CacheConfig.LOAN_COUNTERS_QUERY_SPACE))
+    @Query(value = "update librarians set " +
+            "loans_count = (select count(*) from book_loans l where l.librarian_id = librarians.librarian_id) " +
+            "where librarian_id in (:librarianIds)", nativeQuery = true)
+    int recalculateLoansCount(@Param("librarianIds") Collection<Long> librarianIds);
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package com.library.library_system.repository;
+
+/**
+ * Проекция со статистикой выдач для одной книги, читателя или библиотекаря
+ */
+public interface LoanStatistics {
+
+    /**
+     * @return идентификатор книги, читателя или библиотекаря, к которому относится статистика
+     */
+    Long getOwnerId();
+
+    /**
+     * @return количество активных (не возвращенных) выдач
+     */
+    Long getActiveCount();
+
+    /**
+     * @return общее количество выдач
+     */
+    Long getTotalCount();
+}
\ No newline at end of file
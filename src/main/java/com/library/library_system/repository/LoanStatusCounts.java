@@ -0,0 +1,27 @@
+package com.library.library_system.repository;
+
+/**
+ * Проекция с количеством выдач по статусам для панели статистики списка выдач
+ */
+public interface LoanStatusCounts {
+
+    /**
+     * @return общее количество выдач
+     */
+    Long getTotalCount();
+
+    /**
+     * @return количество активных (не возвращенных) выдач
+     */
+    Long getActiveCount();
+
+    /**
+     * @return количество просроченных выдач
+     */
+    Long getOverdueCount();
+
+    /**
+     * @return количество активных выдач, срок возврата которых наступает сегодня
+     */
+    Long getDueTodayCount();
+}
\ No newline at end of file
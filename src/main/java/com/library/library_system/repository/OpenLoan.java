@@ -0,0 +1,39 @@
+package com.library.library_system.repository;
+
+import java.time.LocalDate;
+
+/**
+ * Проекция с данными активной выдачи, достаточными для ее закрытия без загрузки сущностей
+ */
+public interface OpenLoan {
+
+    /**
+     * @return идентификатор выдачи
+     */
+    Long getLoanId();
+
+    /**
+     * @return идентификатор выданной книги
+     */
+    Long getBookId();
+
+    /**
+     * @return инвентарный номер выданной книги
+     */
+    String getBookNumber();
+
+    /**
+     * @return название выданной книги
+     */
+    String getTitle();
+
+    /**
+     * @return идентификатор читателя
+     */
+    Long getReaderId();
+
+    /**
+     * @return дата выдачи
+     */
+    LocalDate getLoanDate();
+}
\ No newline at end of file
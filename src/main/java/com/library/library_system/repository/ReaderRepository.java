@@ -1,11 +1,28 @@
 package com.library.library_system.repository;
 
+import com.library.library_system.config.CacheConfig;
 import com.library.library_system.entity.Reader;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Репозиторий для работы с сущностью Reader (читатели)
@@ -14,7 +31,63 @@ import java.util.List;
 public interface ReaderRepository extends JpaRepository<Reader, Long> {
 
     List<Reader> findByFullNameContainingIgnoreCase(String fullName);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Reader findByTicketNumber(String ticketNumber);
+
     Reader findByPhoneNumber(String phoneNumber);
     List<Reader> findByRegistrationDate(LocalDate registrationDate);
+
+    @Cacheable(cacheNames = CacheConfig.READERS_BY_TICKET, key = "#p0", unless = "#result == null")
+    @Query("select r.readerId from Reader r where r.ticketNumber = :ticketNumber")
+    Long findIdByTicketNumber(@Param("ticketNumber") String ticketNumber);
+
+    Window<Reader> findAllBy(ScrollPosition position, Sort sort, Limit limit);
+    Window<Reader> findByFullNameContainingIgnoreCase(String fullName, ScrollPosition position, Sort sort, Limit limit);
+
+    @Query("select r from Reader r " +
+            "where lower(r.ticketNumber) like :prefix escape '\\' or lower(r.fullName) like :pattern escape '\\' " +
+            "or r.phoneNumber like :pattern escape '\\'")
+    Slice<Reader> lookup(@Param("prefix") String prefix, @Param("pattern") String pattern, Pageable pageable);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = CacheConfig.LOAN_COUNTERS_QUERY_SPACE))
+    @Query(value = "update readers set active_loans_count = active_loans_count + :activeDelta, " +
+            "total_loans_count = total_loans_count + :totalDelta where reader_id = :readerId", nativeQuery = true)
+    int adjustLoanCounters(@Param("readerId") Long readerId,
+                           @Param("activeDelta") int activeDelta,
+                           @Param("totalDelta") int totalDelta);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = CacheConfig.LOAN_COUNTERS_QUERY_SPACE))
+    @Query(value = "update readers set active_loans_count = active_loans_count - " +
+            "(select count(*) from book_loans l where l.reader_id = readers.reader_id and l.loan_id in (:loanIds)) " +
+            "where reader_id in (:readerIds)", nativeQuery = true)
+    int releaseLoans(@Param("readerIds") Collection<Long> readerIds, @Param("loanIds") Collection<Long> loanIds);
+
+    @Query("select r.readerId as ownerId, r.activeLoansCount as activeCount, r.totalLoansCount as totalCount " +
+            "from Reader r where r.readerId > :afterId order by r.readerId")
+    List<LoanStatistics> findLoanCountersAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = CacheConfig.LOAN_COUNTERS_QUERY_SPACE))
+    @Query(value = "update readers set " +
+            "active_loans_count = (select count(*) from book_loans l " +
+            "where l.reader_id = readers.reader_id and l.return_date is null), " +
+            "total_loans_count = (select count(*) from book_loans l where l.reader_id = readers.reader_id) " +
+            "where reader_id in (:readerIds)", nativeQuery = true)
+    int recalculateLoanCounters(@Param("readerIds") Collection<Long> readerIds);
+
+    /**
+     * Все читатели по возрастанию идентификатора для выгрузки: строки читаются с сервера
+     * порциями, сущности не попадают в кэш второго уровня и не отслеживаются на изменения
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE")
+    })
+    @Query("select r from Reader r order by r.readerId")
+    Stream<Reader> streamAllForExport();
 }
\ No newline at end of file
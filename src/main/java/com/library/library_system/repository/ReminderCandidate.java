@@ -0,0 +1,34 @@
+package com.library.library_system.repository;
+
+import java.time.LocalDate;
+
+/**
+ * Проекция с данными активной выдачи, нужными для напоминания читателю
+ */
+public interface ReminderCandidate {
+
+    /**
+     * @return идентификатор выдачи
+     */
+    Long getLoanId();
+
+    /**
+     * @return срок возврата
+     */
+    LocalDate getDueDate();
+
+    /**
+     * @return ФИО читателя
+     */
+    String getReaderName();
+
+    /**
+     * @return номер телефона читателя
+     */
+    String getPhoneNumber();
+
+    /**
+     * @return название книги
+     */
+    String getTitle();
+}
\ No newline at end of file
@@ -0,0 +1,14 @@
+package com.library.library_system.repository;
+
+import com.library.library_system.entity.ReminderRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+
+/**
+ * Репозиторий для работы с сущностью ReminderRun (запуски рассылки напоминаний)
+ */
+@Repository
+public interface ReminderRunRepository extends JpaRepository<ReminderRun, LocalDate> {
+}
\ No newline at end of file
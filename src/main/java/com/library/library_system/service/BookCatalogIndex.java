@@ -0,0 +1,534 @@
+package com.library.library_system.service;
+
+import com.library.library_system.entity.Book;
+import com.library.library_system.repository.BookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Инвертированный индекс каталога книг в памяти приложения для поиска по префиксам слов
+ * названия и автора без обращения к базе данных.
+ *
+ * <p>Слова приводятся к нижнему регистру (ё заменяется на е) и хранятся в упорядоченном словаре,
+ * поэтому все слова с заданным префиксом образуют один непрерывный диапазон. Каждому слову
+ * соответствует отсортированный массив идентификаторов книг типа long. Запрос из нескольких слов
+ * возвращает книги, в которых каждое слово запроса является префиксом какого-либо слова книги;
+ * книги с полными совпадениями слов идут первыми.</p>
+ *
+ * <p>Индекс строится один раз после запуска приложения и затем обновляется из {@link BookService}
+ * после фиксации транзакции. Если оценка занимаемой памяти превышает
+ * {@code library.catalog-index.memory-budget}, индекс отключается и поиск выполняется в базе данных.</p>
+ */
+@Component
+public class BookCatalogIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(BookCatalogIndex.class);
+
+    private static final Pattern SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    /**
+     * Оценка накладных расходов на одно слово словаря: узел TreeMap, объект String
+     * с массивом символов и объект списка идентификаторов
+     */
+    private static final int TERM_OVERHEAD = 40 + 40 + 32;
+
+    /**
+     * Оценка накладных расходов на одну книгу: узел HashMap, Long и массив ссылок на слова
+     */
+    private static final int DOCUMENT_OVERHEAD = 32 + 16 + 16 + 8;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Value("${library.catalog-index.enabled:true}")
+    private volatile boolean enabled = true;
+
+    @Value("${library.catalog-index.memory-budget:64MB}")
+    private DataSize memoryBudget = DataSize.ofMegabytes(64);
+
+    @Value("${library.catalog-index.build-chunk-size:1000}")
+    private int chunkSize = 1000;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, Postings> terms = new TreeMap<>();
+    private final Map<Long, String[]> documents = new HashMap<>();
+    private long termChars;
+    private long postingsCount;
+    private volatile boolean ready;
+
+    /**
+     * Книги, удаленные во время построения индекса: построение пропускает их, даже если прочитало
+     * до удаления. Равно null, когда индекс не строится
+     */
+    private Set<Long> removedWhileBuilding;
+
+    /**
+     * Построить индекс по всем книгам каталога после запуска приложения
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        if (!enabled) {
+            log.info("Индекс каталога книг отключен, поиск выполняется в базе данных");
+            return;
+        }
+
+        long started = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            removedWhileBuilding = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            Sort sort = Sort.by("bookId");
+            KeysetScrollPosition position = ScrollPosition.keyset();
+            Window<Book> window;
+            do {
+                window = bookRepository.findAllBy(position, sort, Limit.of(chunkSize));
+                lock.writeLock().lock();
+                try {
+                    if (!enabled) {
+                        return;
+                    }
+                    for (Book book : window) {
+                        // Книгу, измененную или удаленную после чтения порции, не перезаписываем прочитанной версией
+                        if (!documents.containsKey(book.getBookId())
+                                && !removedWhileBuilding.contains(book.getBookId())) {
+                            add(book.getBookId(), book.getTitle(), book.getAuthor());
+                        }
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                if (!checkBudget()) {
+                    return;
+                }
+                if (!window.isEmpty()) {
+                    position = (KeysetScrollPosition) window.positionAt(window.size() - 1);
+                }
+            } while (window.hasNext());
+        } finally {
+            lock.writeLock().lock();
+            try {
+                removedWhileBuilding = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        ready = enabled;
+        log.info("Индекс каталога построен: {} книг, {} слов, около {} КБ, {} мс",
+                size(), termCount(), estimatedBytes() / 1024, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * @return true если индекс построен и может отвечать на запросы
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Добавить или обновить книгу в индексе после фиксации текущей транзакции
+     *
+     * @param book сохраненная книга
+     */
+    public void putAfterCommit(Book book) {
+        Long id = book.getBookId();
+        String title = book.getTitle();
+        String author = book.getAuthor();
+        afterCommit(() -> put(id, title, author));
+    }
+
+    /**
+     * Удалить книгу из индекса после фиксации текущей транзакции
+     *
+     * @param bookId идентификатор удаленной книги
+     */
+    public void removeAfterCommit(Long bookId) {
+        afterCommit(() -> remove(bookId));
+    }
+
+    /**
+     * Добавить или обновить книгу в индексе
+     *
+     * @param bookId идентификатор книги
+     * @param title название книги
+     * @param author автор книги
+     */
+    public void put(Long bookId, String title, String author) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            // Индекс мог быть отключен по бюджету памяти, пока поток ждал блокировку
+            if (!enabled) {
+                return;
+            }
+            delete(bookId);
+            add(bookId, title, author);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        checkBudget();
+    }
+
+    /**
+     * Удалить книгу из индекса
+     *
+     * @param bookId идентификатор книги
+     */
+    public void remove(Long bookId) {
+        lock.writeLock().lock();
+        try {
+            delete(bookId);
+            if (removedWhileBuilding != null) {
+                removedWhileBuilding.add(bookId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Найти книги, в которых каждое слово запроса является префиксом слова названия или автора
+     *
+     * @param query поисковый запрос
+     * @param offset количество пропускаемых результатов
+     * @param limit максимальное количество результатов
+     * @return идентификаторы книг: сначала с наибольшим числом полных совпадений слов, затем по возрастанию
+     */
+    public long[] search(String query, long offset, int limit) {
+        String[] tokens = tokenize(query);
+        if (tokens.length == 0 || limit <= 0) {
+            return new long[0];
+        }
+
+        lock.readLock().lock();
+        try {
+            long[][] matches = new long[tokens.length][];
+            for (int i = 0; i < tokens.length; i++) {
+                matches[i] = prefixMatches(tokens[i]);
+                if (matches[i].length == 0) {
+                    return new long[0];
+                }
+            }
+            Arrays.sort(matches, (a, b) -> Integer.compare(a.length, b.length));
+            long[] candidates = matches[0];
+            for (int i = 1; i < matches.length && candidates.length > 0; i++) {
+                candidates = intersect(candidates, matches[i]);
+            }
+            return rank(candidates, tokens, offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return количество книг в индексе
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return количество различных слов в индексе
+     */
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return terms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Оценить объем памяти, занимаемой индексом
+     *
+     * @return приблизительный размер индекса в байтах
+     */
+    public long estimatedBytes() {
+        lock.readLock().lock();
+        try {
+            return (long) terms.size() * TERM_OVERHEAD + termChars
+                    + postingsCount * Long.BYTES * 3 / 2
+                    + (long) documents.size() * DOCUMENT_OVERHEAD
+                    + postingsCount * 4;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Разбить текст на слова для индексации и поиска
+     *
+     * @param text исходный текст
+     * @return различные слова в нижнем регистре в порядке появления
+     */
+    static String[] tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return new String[0];
+        }
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String token : SEPARATOR.split(text.toLowerCase(Locale.ROOT).replace('ё', 'е'))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens.toArray(new String[0]);
+    }
+
+    private void add(Long bookId, String title, String author) {
+        Set<String> tokens = new LinkedHashSet<>(Arrays.asList(tokenize(title)));
+        tokens.addAll(Arrays.asList(tokenize(author)));
+        String[] documentTerms = new String[tokens.size()];
+        int i = 0;
+        for (String token : tokens) {
+            Map.Entry<String, Postings> entry = terms.ceilingEntry(token);
+            Postings postings;
+            if (entry != null && entry.getKey().equals(token)) {
+                postings = entry.getValue();
+                token = entry.getKey();
+            } else {
+                postings = new Postings();
+                terms.put(token, postings);
+                termChars += token.length() * 2L;
+            }
+            postings.add(bookId);
+            postingsCount++;
+            documentTerms[i++] = token;
+        }
+        documents.put(bookId, documentTerms);
+    }
+
+    private void delete(Long bookId) {
+        String[] documentTerms = documents.remove(bookId);
+        if (documentTerms == null) {
+            return;
+        }
+        for (String token : documentTerms) {
+            Postings postings = terms.get(token);
+            if (postings != null && postings.remove(bookId)) {
+                postingsCount--;
+                if (postings.size == 0) {
+                    terms.remove(token);
+                    termChars -= token.length() * 2L;
+                }
+            }
+        }
+    }
+
+    private long[] prefixMatches(String prefix) {
+        Collection<Postings> matching = terms.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values();
+        if (matching.size() == 1) {
+            return matching.iterator().next().toArray();
+        }
+        List<long[]> runs = new ArrayList<>(matching.size());
+        for (Postings postings : matching) {
+            runs.add(postings.toArray());
+        }
+        while (runs.size() > 1) {
+            List<long[]> merged = new ArrayList<>((runs.size() + 1) / 2);
+            for (int i = 0; i < runs.size(); i += 2) {
+                merged.add(i + 1 < runs.size() ? union(runs.get(i), runs.get(i + 1)) : runs.get(i));
+            }
+            runs = merged;
+        }
+        return runs.isEmpty() ? new long[0] : runs.get(0);
+    }
+
+    private long[] rank(long[] candidates, String[] tokens, long offset, int limit) {
+        if (offset >= candidates.length) {
+            return new long[0];
+        }
+        List<Postings> exact = new ArrayList<>(tokens.length);
+        for (String token : tokens) {
+            Postings postings = terms.get(token);
+            if (postings != null) {
+                exact.add(postings);
+            }
+        }
+
+        int[] misses = new int[candidates.length];
+        for (int i = 0; i < candidates.length; i++) {
+            misses[i] = tokens.length;
+            for (Postings postings : exact) {
+                if (postings.contains(candidates[i])) {
+                    misses[i]--;
+                }
+            }
+        }
+
+        int wanted = (int) Math.min(candidates.length - offset, limit);
+        long[] result = new long[wanted];
+        long skip = offset;
+        int length = 0;
+        for (int level = 0; level <= tokens.length && length < wanted; level++) {
+            for (int i = 0; i < candidates.length && length < wanted; i++) {
+                if (misses[i] != level) {
+                    continue;
+                }
+                if (skip > 0) {
+                    skip--;
+                } else {
+                    result[length++] = candidates[i];
+                }
+            }
+        }
+        return result;
+    }
+
+    private boolean checkBudget() {
+        long bytes = estimatedBytes();
+        if (bytes <= memoryBudget.toBytes()) {
+            return true;
+        }
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            enabled = false;
+            terms.clear();
+            documents.clear();
+            termChars = 0;
+            postingsCount = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.warn("Индекс каталога превысил бюджет памяти ({} КБ > {} КБ) и отключен, " +
+                "поиск выполняется в базе данных", bytes / 1024, memoryBudget.toKilobytes());
+        return false;
+    }
+
+    private static long[] intersect(long[] a, long[] b) {
+        long[] result = new long[Math.min(a.length, b.length)];
+        int i = 0;
+        int j = 0;
+        int length = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[length++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, length);
+    }
+
+    private static long[] union(long[] a, long[] b) {
+        long[] result = new long[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int length = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                result[length++] = a[i++];
+            } else if (a[i] > b[j]) {
+                result[length++] = b[j++];
+            } else {
+                result[length++] = a[i++];
+                j++;
+            }
+        }
+        while (i < a.length) {
+            result[length++] = a[i++];
+        }
+        while (j < b.length) {
+            result[length++] = b[j++];
+        }
+        return length == result.length ? result : Arrays.copyOf(result, length);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Отсортированный список идентификаторов книг, содержащих слово
+     */
+    private static final class Postings {
+
+        private long[] ids = new long[2];
+        private int size;
+
+        void add(long id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                return;
+            }
+            index = -index - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            }
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            ids[index] = id;
+            size++;
+        }
+
+        boolean remove(long id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            size--;
+            return true;
+        }
+
+        boolean contains(long id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(ids, size);
+        }
+    }
+}
\ No newline at end of file
@@ -1,20 +1,47 @@
 package com.library.library_system.service;
 
+import com.library.library_system.config.MetricsConfig;
 import com.library.library_system.entity.*;
 import com.library.library_system.repository.*;
+import io.micrometer.core.annotation.Timed;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Сервис для работы с выдачами книг
  */
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 public class BookLoanService {
 
+    /**
+     * Частичный уникальный индекс "не больше одной невозвращенной выдачи на книгу" (миграция V3)
+     */
+    private static final String OPEN_BOOK_INDEX = "book_loans_open_book_uidx";
+
     @Autowired
     private BookLoanRepository bookLoanRepository;
 
@@ -27,6 +54,18 @@ public class BookLoanService {
     @Autowired
     private LibrarianRepository librarianRepository;
 
+    @Autowired
+    private LoanCounterService loanCounterService;
+
+    @Value("${library.checkout.max-books:20}")
+    private int maxCheckoutBooks;
+
+    @Value("${library.checkout.loan-days:14}")
+    private int loanDays;
+
+    @Value("${library.return.max-items:1000}")
+    private int maxReturnItems;
+
     /**
      * Получить все выдачи книг
      *
@@ -55,11 +94,50 @@ public class BookLoanService {
     }
 
     /**
-     * Сохранить выдачу книги (создание или обновление)
+     * Получить страницу выдач с keyset-пагинацией, от новых к старым
+     *
+     * @param filter фильтр выдач: "active" - активные, "overdue" - просроченные, иначе все
+     * @param cursor позиция страницы (null для первой страницы)
+     * @param size количество выдач на странице
+     * @return страница выдач, упорядоченная по дате выдачи и идентификатору
+     * @throws IllegalArgumentException если позиция страницы повреждена
+     */
+    public KeysetPage<BookLoan> getLoansPage(String filter, String cursor, int size) {
+        Sort sort = Sort.by(Sort.Direction.DESC, "loanDate", "loanId");
+        KeysetScrollPosition position = KeysetCursor.decode(cursor, sort);
+        BookLoanPageRepository.LoanFilter loanFilter = switch (String.valueOf(filter)) {
+            case "active" -> BookLoanPageRepository.LoanFilter.ACTIVE;
+            case "overdue" -> BookLoanPageRepository.LoanFilter.OVERDUE;
+            default -> BookLoanPageRepository.LoanFilter.ALL;
+        };
+        Window<BookLoan> window = bookLoanRepository.findLoansPage(loanFilter, LocalDate.now(), position, size);
+        return KeysetPage.of(window, position);
+    }
+
+    /**
+     * Посчитать выдачи по статусам одним агрегирующим запросом
+     *
+     * @param filter фильтр выдач: "active" - активные, "overdue" - просроченные, иначе все
+     * @param today текущая дата, относительно которой определяется просрочка
+     * @return количество всех, активных, просроченных выдач и выдач со сроком возврата сегодня
+     */
+    public LoanStatusCounts getLoanStatusCounts(String filter, LocalDate today) {
+        return bookLoanRepository.countLoansByStatus(today, "active".equals(filter), "overdue".equals(filter));
+    }
+
+    /**
+     * Сохранить выдачу книги (создание или обновление).
+     *
+     * <p>Проверка доступности книги по счетчику - только быстрый путь для понятного сообщения.
+     * Гарантию "не больше одной открытой выдачи на книгу" дает условное увеличение счетчика
+     * активных выдач (строка книги блокируется, и второй параллельный запрос не находит ее
+     * свободной), а на PostgreSQL дополнительно частичный уникальный индекс по book_loans.
+     * Параллельное изменение той же выдачи обнаруживается по версии.</p>
      *
      * @param loan выдача книги для сохранения
      * @throws IllegalArgumentException если найдены ошибки в данных
      * @throws IllegalStateException если книга уже выдана другому читателю
+     *         или выдача была изменена другим пользователем
      */
     @Transactional
     public void saveLoan(BookLoan loan) {
@@ -72,6 +150,11 @@ public class BookLoanService {
         Librarian librarian = librarianRepository.findById(loan.getLibrarian().getLibrarianId())
                 .orElseThrow(() -> new IllegalArgumentException("Библиотекарь не найден"));
 
+        // Из формы приходят связи только с идентификаторами; сохраняем выдачу с загруженными сущностями
+        loan.setBook(book);
+        loan.setReader(reader);
+        loan.setLibrarian(librarian);
+
         if (loan.getLoanDate() == null) {
             throw new IllegalArgumentException("Дата выдачи обязательна");
         }
@@ -88,26 +171,186 @@ public class BookLoanService {
             throw new IllegalArgumentException("Дата возврата не может быть раньше даты выдачи");
         }
 
+        LoanCounterService.LoanState before = null;
         if (loan.getLoanId() == null) {
-            List<BookLoan> activeLoans = bookLoanRepository.findByBookBookIdAndReturnDateIsNull(book.getBookId());
-            if (!activeLoans.isEmpty()) {
-                throw new IllegalStateException("Книга '" + book.getTitle() +
-                        "' уже выдана другому читателю. Сначала верните книгу.");
+            if (!book.isAvailable()) {
+                throw bookAlreadyLoaned(book);
             }
         }
         else {
-            BookLoan existingLoan = getLoanById(loan.getLoanId());
+            BookLoan existingLoan = findLoan(loan.getLoanId());
+            before = LoanCounterService.LoanState.of(existingLoan);
+            // Отметка о напоминании не приходит из формы; при новом сроке возврата напоминания начинаются заново
+            loan.setLastRemindedOn(existingLoan.getDueDate().equals(loan.getDueDate())
+                    ? existingLoan.getLastRemindedOn() : null);
             if (!existingLoan.getBook().getBookId().equals(book.getBookId()) &&
                     !existingLoan.isReturned()) {
-                List<BookLoan> activeLoans = bookLoanRepository.findByBookBookIdAndReturnDateIsNull(book.getBookId());
-                if (!activeLoans.isEmpty()) {
-                    throw new IllegalStateException("Книга '" + book.getTitle() +
-                            "' уже выдана другому читателю. Сначала верните книгу.");
+                if (!book.isAvailable()) {
+                    throw bookAlreadyLoaned(book);
                 }
             }
         }
 
-        bookLoanRepository.save(loan);
+        try {
+            bookLoanRepository.saveAndFlush(loan);
+        } catch (OptimisticLockingFailureException e) {
+            throw new IllegalStateException("Выдача была изменена другим пользователем. " +
+                    "Обновите страницу и повторите изменения.");
+        } catch (DataIntegrityViolationException e) {
+            if (!isOpenLoanConflict(e)) {
+                throw e;
+            }
+            throw bookAlreadyLoaned(book);
+        }
+        if (!loanCounterService.applyChange(before, LoanCounterService.LoanState.of(loan))) {
+            throw bookAlreadyLoaned(book);
+        }
+    }
+
+    /**
+     * Выдать читателю сразу несколько книг в одной транзакции.
+     *
+     * <p>Книги загружаются и блокируются одним запросом в порядке идентификаторов, поэтому
+     * параллельные выдачи с пересекающимися наборами книг не взаимоблокируются. Все выдачи
+     * вставляются одним пакетом JDBC, а счетчики каждой таблицы обновляются одним запросом.
+     * Если хотя бы одну книгу выдать нельзя, не выдается ни одна.</p>
+     *
+     * @param readerId идентификатор читателя
+     * @param librarianId идентификатор библиотекаря
+     * @param bookIds идентификаторы выдаваемых книг (повторы игнорируются)
+     * @param dueDate срок возврата
+     * @return созданные выдачи в порядке книг в запросе
+     * @throws IllegalArgumentException если найдены ошибки в данных
+     * @throws IllegalStateException если какая-либо из книг уже выдана другому читателю
+     */
+    @Transactional
+    public List<BookLoan> checkout(Long readerId, Long librarianId, Collection<Long> bookIds, LocalDate dueDate) {
+        Set<Long> ids = bookIds == null ? Set.of() : new LinkedHashSet<>(bookIds);
+        ids.remove(null);
+        if (ids.isEmpty()) {
+            throw new IllegalArgumentException("Выберите хотя бы одну книгу");
+        }
+        if (ids.size() > maxCheckoutBooks) {
+            throw new IllegalArgumentException("За один раз можно выдать не больше " + maxCheckoutBooks + " книг");
+        }
+
+        LocalDate loanDate = LocalDate.now();
+        if (dueDate == null) {
+            throw new IllegalArgumentException("Срок возврата обязателен");
+        }
+        if (dueDate.isBefore(loanDate)) {
+            throw new IllegalArgumentException("Срок возврата не может быть раньше даты выдачи");
+        }
+
+        Reader reader = readerId == null ? null : readerRepository.findById(readerId).orElse(null);
+        if (reader == null) {
+            throw new IllegalArgumentException("Читатель не найден");
+        }
+        Librarian librarian = librarianId == null ? null : librarianRepository.findById(librarianId).orElse(null);
+        if (librarian == null) {
+            throw new IllegalArgumentException("Библиотекарь не найден");
+        }
+
+        Map<Long, Book> books = bookRepository.findAllForUpdate(ids).stream()
+                .collect(Collectors.toMap(Book::getBookId, Function.identity()));
+        if (books.size() != ids.size()) {
+            throw new IllegalArgumentException("Книга не найдена");
+        }
+        List<String> loaned = books.values().stream()
+                .filter(book -> !book.isAvailable())
+                .map(book -> "'" + book.getTitle() + "'")
+                .toList();
+        if (loaned.size() == 1) {
+            throw new IllegalStateException("Книга " + loaned.get(0) +
+                    " уже выдана другому читателю. Сначала верните книгу.");
+        }
+        if (!loaned.isEmpty()) {
+            throw new IllegalStateException("Книги " + String.join(", ", loaned) +
+                    " уже выданы другим читателям. Сначала верните книги.");
+        }
+
+        if (!loanCounterService.applyCheckout(reader.getReaderId(), librarian.getLibrarianId(), ids)) {
+            throw new IllegalStateException("Одна из книг уже выдана другому читателю. Сначала верните книгу.");
+        }
+        List<BookLoan> loans = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            loans.add(new BookLoan(books.get(id), reader, librarian, loanDate, dueDate));
+        }
+        return bookLoanRepository.saveAllAndFlush(loans);
+    }
+
+    /**
+     * Выдать книгу по данным со сканера: инвентарному номеру книги, номеру читательского билета
+     * и табельному номеру библиотекаря.
+     *
+     * <p>Номера переводятся в идентификаторы через кэши по натуральному ключу, а сами книга,
+     * читатель и библиотекарь не загружаются: выдача ссылается на них через прокси. Свободность
+     * книги проверяется и фиксируется одним условным обновлением счетчика, поэтому при
+     * заполненных кэшах выдача - это три обновления счетчиков и вставка выдачи.</p>
+     *
+     * @param bookNumber инвентарный номер книги
+     * @param ticketNumber номер читательского билета
+     * @param librarianNumber табельный номер библиотекаря
+     * @param dueDate срок возврата (null - стандартный срок выдачи от сегодняшнего дня)
+     * @return созданная выдача
+     * @throws IllegalArgumentException если книга, читатель или библиотекарь не найдены или срок возврата неверен
+     * @throws IllegalStateException если книга уже выдана другому читателю
+     */
+    @Transactional
+    public BookLoan checkoutByNumbers(String bookNumber, String ticketNumber, String librarianNumber,
+                                      LocalDate dueDate) {
+        LocalDate loanDate = LocalDate.now();
+        LocalDate due = dueDate == null ? loanDate.plusDays(loanDays) : dueDate;
+        if (due.isBefore(loanDate)) {
+            throw new IllegalArgumentException("Срок возврата не может быть раньше даты выдачи");
+        }
+
+        Long bookId = bookNumber == null ? null : bookRepository.findIdByBookNumber(bookNumber.trim());
+        if (bookId == null) {
+            throw new IllegalArgumentException("Книга не найдена");
+        }
+        Long readerId = ticketNumber == null ? null : readerRepository.findIdByTicketNumber(ticketNumber.trim());
+        if (readerId == null) {
+            throw new IllegalArgumentException("Читатель не найден");
+        }
+        Long librarianId = librarianNumber == null ? null
+                : librarianRepository.findIdByLibrarianNumber(librarianNumber.trim());
+        if (librarianId == null) {
+            throw new IllegalArgumentException("Библиотекарь не найден");
+        }
+
+        if (!loanCounterService.applyCheckout(readerId, librarianId, List.of(bookId))) {
+            throw new IllegalStateException("Книга " + bookNumber.trim() +
+                    " уже выдана другому читателю. Сначала верните книгу.");
+        }
+        BookLoan loan = new BookLoan(bookRepository.getReferenceById(bookId),
+                readerRepository.getReferenceById(readerId),
+                librarianRepository.getReferenceById(librarianId),
+                loanDate, due);
+        try {
+            return bookLoanRepository.saveAndFlush(loan);
+        } catch (DataIntegrityViolationException e) {
+            if (!isOpenLoanConflict(e)) {
+                throw e;
+            }
+            throw new IllegalStateException("Книга " + bookNumber.trim() +
+                    " уже выдана другому читателю. Сначала верните книгу.");
+        }
+    }
+
+    /**
+     * Получить книги по идентификаторам в заданном порядке
+     *
+     * @param bookIds идентификаторы книг
+     * @return найденные книги в порядке идентификаторов, несуществующие пропускаются
+     */
+    public List<Book> getBooksByIds(Collection<Long> bookIds) {
+        if (bookIds == null || bookIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Book> books = bookRepository.findAllById(bookIds).stream()
+                .collect(Collectors.toMap(Book::getBookId, Function.identity()));
+        return bookIds.stream().distinct().map(books::get).filter(Objects::nonNull).toList();
     }
 
     /**
@@ -118,8 +361,18 @@ public class BookLoanService {
      * @throws IllegalArgumentException если выдача не найдена
      */
     public BookLoan getLoanById(Long id) {
-        return bookLoanRepository.findById(id).orElseThrow(() ->
-                new IllegalArgumentException("Выдача с ID " + id + " не найдена"));
+        return bookLoanRepository.findDetailedByLoanId(id).orElseThrow(() -> loanNotFound(id));
+    }
+
+    /**
+     * Найти выдачу по идентификатору вместе с книгой, без читателя и библиотекаря
+     *
+     * @param id идентификатор выдачи
+     * @return найденная выдача
+     * @throws IllegalArgumentException если выдача не найдена
+     */
+    public BookLoan getLoanWithBook(Long id) {
+        return bookLoanRepository.findWithBookByLoanId(id).orElseThrow(() -> loanNotFound(id));
     }
 
     /**
@@ -130,7 +383,7 @@ public class BookLoanService {
      */
     @Transactional
     public void deleteLoanById(Long id) {
-        BookLoan loan = getLoanById(id);
+        BookLoan loan = findLoan(id);
 
         if (!loan.isReturned()) {
             throw new IllegalStateException("Невозможно удалить активную выдачу. " +
@@ -138,22 +391,198 @@ public class BookLoanService {
         }
 
         bookLoanRepository.deleteById(id);
+        loanCounterService.applyChange(LoanCounterService.LoanState.of(loan), null);
     }
 
     /**
-     * Отметить книгу как возвращенную
+     * Отметить книгу как возвращенную.
+     * Выдача закрывается одним условным запросом без загрузки сущностей; то, что книга уже
+     * возвращена, определяется по количеству измененных строк. После закрытия выдачи
+     * читаются только идентификаторы книги и читателя для обновления счетчиков.
      *
      * @param loanId идентификатор выдачи
+     * @return результат возврата с названием книги
+     * @throws IllegalArgumentException если выдача не найдена или дата возврата раньше даты выдачи
      * @throws IllegalStateException если книга уже возвращена
      */
     @Transactional
-    public void returnBook(Long loanId) {
-        BookLoan loan = getLoanById(loanId);
-        if (loan.isReturned()) {
-            throw new IllegalStateException("Книга уже возвращена");
+    public ReturnResult returnBook(Long loanId) {
+        if (bookLoanRepository.returnLoan(loanId, LocalDate.now()) == 0) {
+            BookLoan loan = findLoan(loanId);
+            if (loan.isReturned()) {
+                throw new IllegalStateException("Книга уже возвращена");
+            }
+            throw new IllegalArgumentException("Дата возврата не может быть раньше даты выдачи");
+        }
+
+        OpenLoan loan = bookLoanRepository.findSummaryByLoanId(loanId).orElseThrow(() -> loanNotFound(loanId));
+        loanCounterService.applyReturns(List.of(loanId), List.of(loan.getBookId()), List.of(loan.getReaderId()));
+        return new ReturnResult(String.valueOf(loanId), ReturnResult.Status.RETURNED, loanId, loan.getTitle());
+    }
+
+    /**
+     * Вернуть несколько книг по инвентарным номерам, например при разборе ящика для возврата.
+     * Активные выдачи всех найденных книг закрываются одним запросом, счетчики обновляются
+     * одним запросом на таблицу независимо от количества книг.
+     *
+     * @param bookNumbers инвентарные номера возвращаемых книг (пустые строки и повторы игнорируются)
+     * @return результат по каждому номеру в порядке передачи
+     * @throws IllegalArgumentException если номера не переданы или их слишком много
+     */
+    @Transactional
+    public List<ReturnResult> returnBooks(Collection<String> bookNumbers) {
+        Set<String> numbers = new LinkedHashSet<>();
+        if (bookNumbers != null) {
+            bookNumbers.stream()
+                    .filter(Objects::nonNull)
+                    .map(String::trim)
+                    .filter(number -> !number.isEmpty())
+                    .forEach(numbers::add);
+        }
+        checkReturnSize(numbers.size());
+
+        List<OpenLoan> open = bookLoanRepository.findOpenForUpdateByBookNumbers(numbers);
+        Map<String, OpenLoan> loans = open.stream()
+                .collect(Collectors.toMap(OpenLoan::getBookNumber, Function.identity(), (first, second) -> first));
+        Set<String> known = new HashSet<>(loans.keySet());
+        if (known.size() < numbers.size()) {
+            known.addAll(bookRepository.findExistingBookNumbers(
+                    numbers.stream().filter(number -> !loans.containsKey(number)).toList()));
+        }
+        Set<Long> returned = closeLoans(open);
+
+        return numbers.stream()
+                .map(number -> result(number, loans.get(number), known.contains(number), returned))
+                .toList();
+    }
+
+    /**
+     * Вернуть книги по нескольким выдачам.
+     * Активные выдачи закрываются одним запросом, счетчики обновляются одним запросом на таблицу.
+     *
+     * @param loanIds идентификаторы выдач (повторы игнорируются)
+     * @return результат по каждой выдаче в порядке передачи
+     * @throws IllegalArgumentException если идентификаторы не переданы или их слишком много
+     */
+    @Transactional
+    public List<ReturnResult> returnLoans(Collection<Long> loanIds) {
+        Set<Long> ids = loanIds == null ? new LinkedHashSet<>() : new LinkedHashSet<>(loanIds);
+        ids.remove(null);
+        checkReturnSize(ids.size());
+
+        List<OpenLoan> open = bookLoanRepository.findOpenForUpdateByLoanIds(ids);
+        Map<Long, OpenLoan> loans = open.stream()
+                .collect(Collectors.toMap(OpenLoan::getLoanId, Function.identity()));
+        Set<Long> known = new HashSet<>(loans.keySet());
+        if (known.size() < ids.size()) {
+            known.addAll(bookLoanRepository.findExistingLoanIds(
+                    ids.stream().filter(id -> !loans.containsKey(id)).toList()));
+        }
+        Set<Long> returned = closeLoans(open);
+
+        return ids.stream()
+                .map(id -> result(String.valueOf(id), loans.get(id), known.contains(id), returned))
+                .toList();
+    }
+
+    private void checkReturnSize(int size) {
+        if (size == 0) {
+            throw new IllegalArgumentException("Укажите хотя бы одну книгу");
+        }
+        if (size > maxReturnItems) {
+            throw new IllegalArgumentException("За один раз можно вернуть не больше " + maxReturnItems + " книг");
+        }
+    }
+
+    /**
+     * Закрыть заблокированные активные выдачи сегодняшней датой и обновить счетчики
+     *
+     * @param open активные выдачи, заблокированные в текущей транзакции
+     * @return идентификаторы закрытых выдач; выдачи с датой выдачи позже сегодняшней не закрываются
+     */
+    private Set<Long> closeLoans(List<OpenLoan> open) {
+        LocalDate today = LocalDate.now();
+        List<OpenLoan> closing = open.stream().filter(loan -> !today.isBefore(loan.getLoanDate())).toList();
+        if (closing.isEmpty()) {
+            return Set.of();
+        }
+
+        Set<Long> loanIds = closing.stream().map(OpenLoan::getLoanId).collect(Collectors.toSet());
+        if (bookLoanRepository.returnLoans(loanIds, today) != loanIds.size()) {
+            throw new IllegalStateException("Одна из выдач изменена другим пользователем. Повторите возврат.");
+        }
+        loanCounterService.applyReturns(loanIds,
+                closing.stream().map(OpenLoan::getBookId).collect(Collectors.toSet()),
+                closing.stream().map(OpenLoan::getReaderId).collect(Collectors.toSet()));
+        return loanIds;
+    }
+
+    private static ReturnResult result(String item, OpenLoan loan, boolean known, Set<Long> returned) {
+        if (loan == null) {
+            return new ReturnResult(item, known ? ReturnResult.Status.ALREADY_RETURNED : ReturnResult.Status.UNKNOWN,
+                    null, null);
+        }
+        ReturnResult.Status status = returned.contains(loan.getLoanId())
+                ? ReturnResult.Status.RETURNED : ReturnResult.Status.REJECTED;
+        return new ReturnResult(item, status, loan.getLoanId(), loan.getTitle());
+    }
+
+    /**
+     * Найти книги для подсказок в форме выдачи по началу инвентарного номера или части названия
+     *
+     * @param query строка поиска (пустая строка - все книги)
+     * @param availableOnly true чтобы вернуть только книги, которые сейчас не выданы
+     * @param page номер страницы подсказок, начиная с 0
+     * @param size количество подсказок на странице
+     * @return страница книг, упорядоченная по названию
+     */
+    public Slice<Book> lookupBooks(String query, boolean availableOnly, int page, int size) {
+        return bookRepository.lookup(prefixPattern(query), containsPattern(query), availableOnly,
+                PageRequest.of(page, size, Sort.by("title", "bookId")));
+    }
+
+    /**
+     * Найти читателей для подсказок в форме выдачи по началу номера билета, части имени или телефона
+     *
+     * @param query строка поиска (пустая строка - все читатели)
+     * @param page номер страницы подсказок, начиная с 0
+     * @param size количество подсказок на странице
+     * @return страница читателей, упорядоченная по ФИО
+     */
+    public Slice<Reader> lookupReaders(String query, int page, int size) {
+        return readerRepository.lookup(prefixPattern(query), containsPattern(query),
+                PageRequest.of(page, size, Sort.by("fullName", "readerId")));
+    }
+
+    /**
+     * Найти библиотекарей для подсказок в форме выдачи по началу табельного номера или части имени
+     *
+     * @param query строка поиска (пустая строка - все библиотекари)
+     * @param page номер страницы подсказок, начиная с 0
+     * @param size количество подсказок на странице
+     * @return страница библиотекарей, упорядоченная по ФИО
+     */
+    public Slice<Librarian> lookupLibrarians(String query, int page, int size) {
+        return librarianRepository.lookup(prefixPattern(query), containsPattern(query),
+                PageRequest.of(page, size, Sort.by("fullName", "librarianId")));
+    }
+
+    /**
+     * Подставить в выдачу полные данные выбранных книги, читателя и библиотекаря,
+     * чтобы при повторном показе формы отобразить их названия
+     *
+     * @param loan выдача с данными из формы, где у связей заполнены только идентификаторы
+     */
+    public void resolveParticipants(BookLoan loan) {
+        if (loan.getBook() != null && loan.getBook().getBookId() != null) {
+            bookRepository.findById(loan.getBook().getBookId()).ifPresent(loan::setBook);
+        }
+        if (loan.getReader() != null && loan.getReader().getReaderId() != null) {
+            readerRepository.findById(loan.getReader().getReaderId()).ifPresent(loan::setReader);
+        }
+        if (loan.getLibrarian() != null && loan.getLibrarian().getLibrarianId() != null) {
+            librarianRepository.findById(loan.getLibrarian().getLibrarianId()).ifPresent(loan::setLibrarian);
         }
-        loan.setReturnDate(LocalDate.now());
-        saveLoan(loan);
     }
 
     /**
@@ -190,7 +619,51 @@ public class BookLoanService {
      * @return true если выдача возвращена и может быть удалена, false если активна
      */
     public boolean canDeleteLoan(Long id) {
-        BookLoan loan = getLoanById(id);
+        BookLoan loan = findLoan(id);
         return loan.isReturned();
     }
+
+    private BookLoan findLoan(Long id) {
+        return bookLoanRepository.findById(id).orElseThrow(() -> loanNotFound(id));
+    }
+
+    private static String prefixPattern(String query) {
+        return escapeLike(normalize(query)) + "%";
+    }
+
+    private static String containsPattern(String query) {
+        return "%" + escapeLike(normalize(query)) + "%";
+    }
+
+    private static String normalize(String query) {
+        return query == null ? "" : query.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private static IllegalStateException bookAlreadyLoaned(Book book) {
+        return new IllegalStateException("Книга '" + book.getTitle() +
+                "' уже выдана другому читателю. Сначала верните книгу.");
+    }
+
+    /**
+     * Проверить, что вставка или изменение выдачи нарушили уникальный индекс открытых выдач книги,
+     * а не другое ограничение (внешний ключ, обязательное поле)
+     */
+    private static boolean isOpenLoanConflict(DataIntegrityViolationException e) {
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                String constraintName = violation.getConstraintName();
+                return constraintName != null
+                        && constraintName.toLowerCase(Locale.ROOT).contains(OPEN_BOOK_INDEX);
+            }
+        }
+        return false;
+    }
+
+    private static IllegalArgumentException loanNotFound(Long id) {
+        return new IllegalArgumentException("Выдача с ID " + id + " не найдена");
+    }
 }
\ No newline at end of file
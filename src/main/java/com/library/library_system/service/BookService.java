@@ -1,27 +1,51 @@
 package com.library.library_system.service;
 
+import com.library.library_system.config.CacheConfig;
+import com.library.library_system.config.MetricsConfig;
 import com.library.library_system.entity.Book;
 import com.library.library_system.entity.BookLoan;
 import com.library.library_system.repository.BookRepository;
+import com.library.library_system.repository.BookSearchRepository;
 import com.library.library_system.repository.BookLoanRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Сервис для работы с книгами
  */
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 public class BookService {
 
+    /**
+     * Максимальное количество результатов поиска без пагинации
+     */
+    static final int SEARCH_LIMIT = 100;
+
     @Autowired
     private BookRepository bookRepository;
 
     @Autowired
     private BookLoanRepository bookLoanRepository;
 
+    @Autowired
+    private BookCatalogIndex bookCatalogIndex;
+
     /**
      * Получить все книги из базы данных
      *
@@ -31,28 +55,73 @@ public class BookService {
         return bookRepository.findAll();
     }
 
+    /**
+     * Получить страницу книг с keyset-пагинацией.
+     * При непустом запросе выполняется поиск по названию и автору: по префиксам слов в индексе
+     * каталога в памяти, а пока индекс не построен - полнотекстовый поиск в базе данных.
+     * Результаты упорядочены по релевантности, а параметр сортировки не учитывается.
+     *
+     * @param keyword поисковый запрос по названию и автору (необязательный)
+     * @param sortBy поле сортировки: "title" или "author"
+     * @param cursor позиция страницы (null для первой страницы)
+     * @param size количество книг на странице
+     * @return страница книг, упорядоченная по полю сортировки или релевантности и идентификатору
+     * @throws IllegalArgumentException если позиция страницы повреждена
+     */
+    public KeysetPage<Book> getBooksPage(String keyword, String sortBy, String cursor, int size) {
+        if (keyword != null && !keyword.trim().isEmpty()) {
+            long offset = KeysetCursor.decodeOffset(cursor);
+            List<Book> rows = bookCatalogIndex.isReady()
+                    ? findAllInOrder(bookCatalogIndex.search(keyword, offset, size + 1))
+                    : bookRepository.search(keyword, BookSearchRepository.SearchField.ALL, offset, size + 1);
+            return KeysetPage.ofOffset(rows, offset, size);
+        }
+
+        Sort sort = Sort.by("author".equals(sortBy) ? "author" : "title").and(Sort.by("bookId"));
+        KeysetScrollPosition position = KeysetCursor.decode(cursor, sort);
+        Window<Book> window = bookRepository.findAllBy(position, sort, Limit.of(size));
+        return KeysetPage.of(window, position);
+    }
+
+    /**
+     * Получить общее количество книг
+     *
+     * @return количество книг в каталоге
+     */
+    public long countBooks() {
+        return bookRepository.count();
+    }
+
     /**
      * Сохранить книгу в базе данных (создание или обновление)
      *
      * @param book книга для сохранения
      * @throws IllegalStateException если нарушена уникальность инвентарного номера
+     *         или книга была изменена другим пользователем
      */
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.BOOKS_BY_NUMBER, allEntries = true)
     public void saveBook(Book book) {
         if (book.getBookId() == null) {
-            Book existingBook = bookRepository.findByBookNumber(book.getBookNumber());
-            if (existingBook != null) {
+            Long existingBookId = bookRepository.findIdByBookNumber(book.getBookNumber());
+            if (existingBookId != null) {
                 throw new IllegalStateException("Книга с инвентарным номером '" + book.getBookNumber() + "' уже существует.");
             }
         }
         else {
-            Book existingBook = bookRepository.findByBookNumber(book.getBookNumber());
-            if (existingBook != null && !existingBook.getBookId().equals(book.getBookId())) {
+            Long existingBookId = bookRepository.findIdByBookNumber(book.getBookNumber());
+            if (existingBookId != null && !existingBookId.equals(book.getBookId())) {
                 throw new IllegalStateException("Книга с инвентарным номером '" + book.getBookNumber() + "' уже существует.");
             }
         }
 
-        bookRepository.save(book);
+        try {
+            bookRepository.saveAndFlush(book);
+        } catch (OptimisticLockingFailureException e) {
+            throw new IllegalStateException("Книга '" + book.getTitle() +
+                    "' была изменена другим пользователем. Обновите страницу и повторите изменения.");
+        }
+        bookCatalogIndex.putAfterCommit(book);
     }
 
     /**
@@ -74,39 +143,53 @@ public class BookService {
      * @throws IllegalStateException если книга имеет активные выдачи или находится в истории выдач
      */
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.BOOKS_BY_NUMBER, allEntries = true)
     public void deleteBookById(Long id) {
         Book book = getBookById(id);
 
-        List<BookLoan> activeLoans = bookLoanRepository.findByBookBookIdAndReturnDateIsNull(id);
-        if (!activeLoans.isEmpty()) {
+        if (book.getActiveLoansCount() > 0) {
             throw new IllegalStateException("Невозможно удалить книгу '" + book.getTitle() +
                     "', так как она в настоящее время выдана читателю. " +
                     "Сначала верните книгу или отмените выдачу.");
         }
 
-        List<BookLoan> allLoans = bookLoanRepository.findByBookBookId(id);
-        if (!allLoans.isEmpty()) {
+        if (book.getTotalLoansCount() > 0) {
             throw new IllegalStateException("Невозможно удалить книгу '" + book.getTitle() +
                     "', так как она есть в истории выдач. " +
                     "Для сохранения истории сначала удалите записи о выдаче.");
         }
 
         bookRepository.deleteById(id);
+        bookCatalogIndex.removeAfterCommit(id);
     }
 
     /**
-     * Поиск книг по ключевому слову в названии
+     * Поиск книг по ключевому слову в названии и авторе
      *
      * @param keyword ключевое слово для поиска
-     * @return список найденных книг или всех книг если ключевое слово пустое
+     * @return до {@value #SEARCH_LIMIT} найденных книг по убыванию релевантности
+     *         или всех книг если ключевое слово пустое
      */
     public List<Book> searchBooks(String keyword) {
         if (keyword != null && !keyword.trim().isEmpty()) {
-            return bookRepository.findByTitleContainingIgnoreCase(keyword);
+            return bookRepository.search(keyword, BookSearchRepository.SearchField.ALL, 0, SEARCH_LIMIT);
         }
         return getAllBooks();
     }
 
+    /**
+     * Поиск книг по автору с учетом опечаток
+     *
+     * @param author имя автора или его часть
+     * @return до {@value #SEARCH_LIMIT} найденных книг по убыванию релевантности
+     */
+    public List<Book> searchBooksByAuthor(String author) {
+        if (author == null || author.trim().isEmpty()) {
+            return List.of();
+        }
+        return bookRepository.search(author, BookSearchRepository.SearchField.AUTHOR, 0, SEARCH_LIMIT);
+    }
+
     /**
      * Проверить возможность удаления книги
      *
@@ -114,9 +197,7 @@ public class BookService {
      * @return true если книгу можно удалить, false если есть активные или исторические выдачи
      */
     public boolean canDeleteBook(Long id) {
-        List<BookLoan> activeLoans = bookLoanRepository.findByBookBookIdAndReturnDateIsNull(id);
-        List<BookLoan> allLoans = bookLoanRepository.findByBookBookId(id);
-        return activeLoans.isEmpty() && allLoans.isEmpty();
+        return getBookById(id).getTotalLoansCount() == 0;
     }
 
     /**
@@ -146,6 +227,16 @@ public class BookService {
      * @return true если книга существует, false если нет
      */
     public boolean existsByBookNumber(String bookNumber) {
-        return bookRepository.findByBookNumber(bookNumber) != null;
+        return bookRepository.findIdByBookNumber(bookNumber) != null;
+    }
+
+    private List<Book> findAllInOrder(long[] ids) {
+        if (ids.length == 0) {
+            return List.of();
+        }
+        List<Long> boxed = Arrays.stream(ids).boxed().toList();
+        Map<Long, Book> books = bookRepository.findAllById(boxed).stream()
+                .collect(Collectors.toMap(Book::getBookId, Function.identity()));
+        return boxed.stream().map(books::get).filter(Objects::nonNull).toList();
     }
 }
\ No newline at end of file
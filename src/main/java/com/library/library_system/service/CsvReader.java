@@ -0,0 +1,148 @@
+package com.library.library_system.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Потоковое чтение CSV по RFC 4180: в памяти хранится только текущая запись.
+ *
+ * <p>Поля в кавычках могут содержать разделитель, перевод строки и удвоенные кавычки.
+ * Разделитель (запятая или точка с запятой) определяется по первой строке файла,
+ * метка порядка байтов UTF-8 в начале файла пропускается.</p>
+ */
+public class CsvReader implements Closeable {
+
+    private static final int EOF = -1;
+
+    private final Reader reader;
+    private char delimiter;
+    private int pushedBack = EOF - 1;
+    private long line = 1;
+    private long recordLine;
+    private boolean started;
+
+    /**
+     * @param reader источник символов; рекомендуется буферизованный
+     */
+    public CsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Прочитать следующую запись
+     *
+     * @return значения полей записи или null если файл закончился
+     * @throws IOException при ошибке чтения
+     * @throws IllegalArgumentException если кавычки в записи не закрыты
+     */
+    public List<String> next() throws IOException {
+        if (!started) {
+            start();
+        }
+
+        int c = read();
+        while (c == '\r' || c == '\n') {
+            c = read();
+        }
+        if (c == EOF) {
+            return null;
+        }
+
+        recordLine = line;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == EOF) {
+                    throw new IllegalArgumentException("Строка " + recordLine + ": не закрыты кавычки");
+                }
+                if (c == '"') {
+                    int following = read();
+                    if (following == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        unread(following);
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == delimiter) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\r' || c == '\n' || c == EOF) {
+                fields.add(field.toString());
+                if (c == '\r') {
+                    int following = read();
+                    if (following != '\n') {
+                        unread(following);
+                    }
+                }
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    /**
+     * @return номер строки файла, с которой началась последняя прочитанная запись
+     */
+    public long getRecordLine() {
+        return recordLine;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private void start() throws IOException {
+        started = true;
+        if (!reader.markSupported()) {
+            throw new IllegalStateException("Для определения разделителя нужен буферизованный поток");
+        }
+        reader.mark(1);
+        if (reader.read() != '\uFEFF') {
+            reader.reset();
+        }
+        reader.mark(8192);
+        int c;
+        int commas = 0;
+        int semicolons = 0;
+        for (int i = 0; i < 8192 && (c = reader.read()) != EOF && c != '\n' && c != '\r'; i++) {
+            if (c == ',') {
+                commas++;
+            } else if (c == ';') {
+                semicolons++;
+            }
+        }
+        reader.reset();
+        delimiter = semicolons > commas ? ';' : ',';
+    }
+
+    private int read() throws IOException {
+        int c;
+        if (pushedBack != EOF - 1) {
+            c = pushedBack;
+            pushedBack = EOF - 1;
+            return c;
+        }
+        c = reader.read();
+        if (c == '\n') {
+            line++;
+        }
+        return c;
+    }
+
+    private void unread(int c) {
+        pushedBack = c;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,56 @@
+package com.library.library_system.service;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Запись CSV по RFC 4180: значения с запятой, кавычками или переводом строки
+ * заключаются в кавычки, кавычки внутри значения удваиваются. Пустое значение
+ * записывается для null.
+ */
+public class CsvWriter {
+
+    private final Writer writer;
+
+    /**
+     * @param writer приемник символов; рекомендуется буферизованный
+     */
+    public CsvWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Записать одну строку
+     *
+     * @param values значения полей строки
+     * @throws IOException при ошибке записи
+     */
+    public void write(List<?> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            Object value = values.get(i);
+            if (value != null) {
+                writeValue(value.toString());
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    private void writeValue(String value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
\ No newline at end of file
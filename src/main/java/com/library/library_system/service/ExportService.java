@@ -0,0 +1,237 @@
+package com.library.library_system.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.library_system.entity.Book;
+import com.library.library_system.entity.BookLoan;
+import com.library.library_system.entity.Reader;
+import com.library.library_system.repository.BookLoanRepository;
+import com.library.library_system.repository.BookRepository;
+import com.library.library_system.repository.ReaderRepository;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Сервис выгрузки выдач, книг и читателей в CSV или NDJSON (один JSON-объект на строку).
+ *
+ * <p>Записи читаются из базы потоком через курсор на стороне сервера и сразу записываются
+ * в выходной поток. Каждые {@link #CLEAR_INTERVAL} записей контекст персистентности
+ * очищается, поэтому расход памяти не зависит от количества выгружаемых строк.</p>
+ */
+@Service
+public class ExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportService.class);
+
+    /**
+     * Через сколько записей очищать контекст персистентности; совпадает с размером
+     * порции, которую драйвер получает с сервера за один раз
+     */
+    private static final int CLEAR_INTERVAL = 1000;
+
+    private static final List<Column<BookLoan>> LOAN_COLUMNS = List.of(
+            new Column<>("loanId", BookLoan::getLoanId),
+            new Column<>("bookNumber", loan -> loan.getBook().getBookNumber()),
+            new Column<>("title", loan -> loan.getBook().getTitle()),
+            new Column<>("author", loan -> loan.getBook().getAuthor()),
+            new Column<>("ticketNumber", loan -> loan.getReader().getTicketNumber()),
+            new Column<>("readerName", loan -> loan.getReader().getFullName()),
+            new Column<>("librarianNumber", loan -> loan.getLibrarian().getLibrarianNumber()),
+            new Column<>("librarianName", loan -> loan.getLibrarian().getFullName()),
+            new Column<>("loanDate", BookLoan::getLoanDate),
+            new Column<>("dueDate", BookLoan::getDueDate),
+            new Column<>("returnDate", BookLoan::getReturnDate));
+
+    private static final List<Column<Book>> BOOK_COLUMNS = List.of(
+            new Column<>("bookNumber", Book::getBookNumber),
+            new Column<>("title", Book::getTitle),
+            new Column<>("author", Book::getAuthor),
+            new Column<>("publicationYear", Book::getPublicationYear),
+            new Column<>("activeLoansCount", Book::getActiveLoansCount),
+            new Column<>("totalLoansCount", Book::getTotalLoansCount));
+
+    private static final List<Column<Reader>> READER_COLUMNS = List.of(
+            new Column<>("ticketNumber", Reader::getTicketNumber),
+            new Column<>("fullName", Reader::getFullName),
+            new Column<>("phoneNumber", Reader::getPhoneNumber),
+            new Column<>("registrationDate", Reader::getRegistrationDate),
+            new Column<>("activeLoansCount", Reader::getActiveLoansCount),
+            new Column<>("totalLoansCount", Reader::getTotalLoansCount));
+
+    /**
+     * Формат выгрузки
+     */
+    public enum Format {
+        /** CSV с заголовком в кодировке UTF-8 */
+        CSV,
+        /** Один JSON-объект на строку */
+        NDJSON
+    }
+
+    /**
+     * Условия отбора выдач; незаданные (null) условия не применяются
+     *
+     * @param from дата выдачи не раньше
+     * @param to дата выдачи не позже
+     * @param readerId идентификатор читателя
+     * @param librarianId идентификатор библиотекаря
+     */
+    public record LoanFilter(LocalDate from, LocalDate to, Long readerId, Long librarianId) {}
+
+    @Autowired
+    private BookLoanRepository bookLoanRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private ReaderRepository readerRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Выгрузить историю выдач
+     *
+     * @param filter условия отбора
+     * @param format формат выгрузки
+     * @param output приемник данных; не закрывается
+     * @return количество выгруженных выдач
+     * @throws IOException при ошибке записи
+     * @throws IllegalArgumentException если начало периода позже конца
+     */
+    @Transactional(readOnly = true)
+    public long exportLoans(LoanFilter filter, Format format, OutputStream output) throws IOException {
+        if (filter.from() != null && filter.to() != null && filter.from().isAfter(filter.to())) {
+            throw new IllegalArgumentException("Начало периода не может быть позже его конца");
+        }
+        try (Stream<BookLoan> loans = bookLoanRepository.streamForExport(
+                filter.from(), filter.to(), filter.readerId(), filter.librarianId())) {
+            return export("выдачи", loans, LOAN_COLUMNS, format, output);
+        }
+    }
+
+    /**
+     * Выгрузить каталог книг
+     *
+     * @param format формат выгрузки
+     * @param output приемник данных; не закрывается
+     * @return количество выгруженных книг
+     * @throws IOException при ошибке записи
+     */
+    @Transactional(readOnly = true)
+    public long exportBooks(Format format, OutputStream output) throws IOException {
+        try (Stream<Book> books = bookRepository.streamAllForExport()) {
+            return export("книги", books, BOOK_COLUMNS, format, output);
+        }
+    }
+
+    /**
+     * Выгрузить читателей
+     *
+     * @param format формат выгрузки
+     * @param output приемник данных; не закрывается
+     * @return количество выгруженных читателей
+     * @throws IOException при ошибке записи
+     */
+    @Transactional(readOnly = true)
+    public long exportReaders(Format format, OutputStream output) throws IOException {
+        try (Stream<Reader> readers = readerRepository.streamAllForExport()) {
+            return export("читатели", readers, READER_COLUMNS, format, output);
+        }
+    }
+
+    private <T> long export(String entityName, Stream<T> rows, List<Column<T>> columns,
+                            Format format, OutputStream output) throws IOException {
+        long started = System.nanoTime();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), 64 * 1024);
+        RowWriter rowWriter = format == Format.NDJSON ? ndjson(writer) : csv(writer, columns);
+
+        long count = 0;
+        Iterator<T> iterator = rows.iterator();
+        while (iterator.hasNext()) {
+            T row = iterator.next();
+            Map<String, Object> values = new LinkedHashMap<>();
+            for (Column<T> column : columns) {
+                values.put(column.name(), column.value().apply(row));
+            }
+            rowWriter.write(values);
+            if (++count % CLEAR_INTERVAL == 0) {
+                entityManager.clear();
+            }
+        }
+        rowWriter.finish();
+
+        log.info("Выгрузка ({}, {}): {} строк за {} мс", entityName, format, count,
+                (System.nanoTime() - started) / 1_000_000);
+        return count;
+    }
+
+    private static <T> RowWriter csv(Writer writer, List<Column<T>> columns) throws IOException {
+        CsvWriter csv = new CsvWriter(writer);
+        csv.write(columns.stream().map(Column::name).toList());
+        return new RowWriter() {
+            @Override
+            public void write(Map<String, Object> values) throws IOException {
+                csv.write(new ArrayList<>(values.values()));
+            }
+
+            @Override
+            public void finish() throws IOException {
+                writer.flush();
+            }
+        };
+    }
+
+    private RowWriter ndjson(Writer writer) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(writer);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+        return new RowWriter() {
+            @Override
+            public void write(Map<String, Object> values) throws IOException {
+                generator.writeObject(values);
+                generator.writeRaw('\n');
+            }
+
+            @Override
+            public void finish() throws IOException {
+                generator.flush();
+            }
+        };
+    }
+
+    /**
+     * Столбец выгрузки: имя и значение для записи
+     */
+    private record Column<T>(String name, Function<T, Object> value) {}
+
+    private interface RowWriter {
+
+        void write(Map<String, Object> values) throws IOException;
+
+        void finish() throws IOException;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,94 @@
+package com.library.library_system.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Итоги загрузки файла: количество прочитанных, загруженных и отклоненных строк,
+ * скорость и причины отклонения (не больше заданного количества)
+ */
+public class ImportReport {
+
+    /**
+     * Отклоненная строка файла
+     *
+     * @param line номер строки, с которой начинается запись
+     * @param reason причина отклонения
+     */
+    public record Rejection(long line, String reason) {}
+
+    private final String entityName;
+    private final int maxRejections;
+    private final List<Rejection> rejections = new ArrayList<>();
+    private final long started = System.nanoTime();
+    private long rowsRead;
+    private long imported;
+    private long rejected;
+    private long elapsedMillis;
+
+    ImportReport(String entityName, int maxRejections) {
+        this.entityName = entityName;
+        this.maxRejections = maxRejections;
+    }
+
+    void rowRead() {
+        rowsRead++;
+    }
+
+    void imported(int count) {
+        imported += count;
+    }
+
+    void reject(long line, String reason) {
+        rejected++;
+        if (rejections.size() < maxRejections) {
+            rejections.add(new Rejection(line, reason));
+        }
+    }
+
+    void finish() {
+        elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+    }
+
+    public String getEntityName() {
+        return entityName;
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * @return первые причины отклонения в порядке строк файла
+     */
+    public List<Rejection> getRejections() {
+        return rejections.stream().sorted(Comparator.comparingLong(Rejection::line)).toList();
+    }
+
+    /**
+     * @return true если причин отклонения больше, чем сохранено в отчете
+     */
+    public boolean isRejectionsTruncated() {
+        return rejected > rejections.size();
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * @return скорость обработки файла в строках в минуту
+     */
+    public long getRowsPerMinute() {
+        return rowsRead * 60_000 / Math.max(1, elapsedMillis);
+    }
+}
\ No newline at end of file
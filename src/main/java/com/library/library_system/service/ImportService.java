@@ -0,0 +1,520 @@
+package com.library.library_system.service;
+
+import com.library.library_system.config.CacheConfig;
+import com.library.library_system.entity.Book;
+import com.library.library_system.entity.Librarian;
+import com.library.library_system.entity.Reader;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Сервис массовой загрузки книг, читателей и библиотекарей из файлов.
+ *
+ * <p>Файл читается потоком и обрабатывается пачками по {@code library.import.chunk-size} строк,
+ * поэтому расход памяти не зависит от размера файла. Каждая строка проверяется теми же
+ * ограничениями, что и форма редактирования; повторы уникальных номеров внутри пачки
+ * находятся по хэш-таблице, а совпадения с уже сохраненными записями одним запросом на пачку.
+ * Прошедшие проверку строки вставляются одним пакетом JDBC в отдельной транзакции, так что
+ * ошибка в одной строке не отменяет загрузку остальных. Следующие пачки проверяются уже
+ * после фиксации предыдущих, поэтому повтор номера в разных пачках тоже будет отклонен.</p>
+ */
+@Service
+public class ImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportService.class);
+
+    private static final int MAX_LENGTH = 255;
+
+    private static final Pattern YEAR = Pattern.compile("\\d{4}");
+
+    private static final String INSERT_BOOK =
+            "insert into books (book_number, title, author, publication_year, version, " +
+                    "active_loans_count, total_loans_count) values (?, ?, ?, ?, 0, 0, 0)";
+
+    private static final String INSERT_READER =
+            "insert into readers (ticket_number, full_name, phone_number, registration_date, version, " +
+                    "active_loans_count, total_loans_count) values (?, ?, ?, ?, 0, 0, 0)";
+
+    private static final String INSERT_LIBRARIAN =
+            "insert into librarians (librarian_number, full_name, position, version, loans_count) " +
+                    "values (?, ?, ?, 0, 0)";
+
+    private static final List<UniqueKey<Book>> BOOK_KEYS = List.of(
+            new UniqueKey<>(Book::getBookNumber, "Инвентарный номер",
+                    "select book_number from books where book_number in (:values)",
+                    "Книга с инвентарным номером '%s' уже существует"));
+
+    private static final List<UniqueKey<Reader>> READER_KEYS = List.of(
+            new UniqueKey<>(Reader::getTicketNumber, "Номер читательского билета",
+                    "select ticket_number from readers where ticket_number in (:values)",
+                    "Читатель с номером билета '%s' уже существует"),
+            new UniqueKey<>(Reader::getPhoneNumber, "Номер телефона",
+                    "select phone_number from readers where phone_number in (:values)",
+                    "Читатель с номером телефона '%s' уже существует"));
+
+    private static final List<UniqueKey<Librarian>> LIBRARIAN_KEYS = List.of(
+            new UniqueKey<>(Librarian::getLibrarianNumber, "Табельный номер",
+                    "select librarian_number from librarians where librarian_number in (:values)",
+                    "Библиотекарь с табельным номером '%s' уже существует"));
+
+    /**
+     * Формат файла с книгами
+     */
+    public enum BookFormat {
+        /** CSV со столбцами bookNumber, title, author, publicationYear */
+        CSV,
+        /** Текстовый MARC (.mrk): 001 - инвентарный номер, 100$a - автор, 245$a - название, 260$c или 264$c - год */
+        MARC
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private BookCatalogIndex bookCatalogIndex;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Value("${library.import.chunk-size:1000}")
+    private int chunkSize = 1000;
+
+    @Value("${library.import.max-rejections:1000}")
+    private int maxRejections = 1000;
+
+    /**
+     * Загрузить книги из файла
+     *
+     * @param input содержимое файла в кодировке UTF-8; закрывается вызывающим
+     * @param format формат файла
+     * @return итоги загрузки
+     * @throws IOException при ошибке чтения файла
+     * @throws IllegalArgumentException если в CSV нет обязательного столбца
+     */
+    public ImportReport importBooks(InputStream input, BookFormat format) throws IOException {
+        BufferedReader reader = open(input);
+        RowSource<Book> source;
+        if (format == BookFormat.MARC) {
+            MarcRecordReader marc = new MarcRecordReader(reader);
+            source = () -> {
+                Map<String, String> record = marc.next();
+                return record == null ? null : row(marc.getRecordLine(), () -> marcBook(record));
+            };
+        } else {
+            CsvRows csv = new CsvRows(new CsvReader(reader), List.of("bookNumber", "title", "author", "publicationYear"));
+            source = () -> csv.next(fields -> new Book(fields.text("bookNumber"), fields.text("title"),
+                    fields.text("author"), fields.integer("publicationYear")));
+        }
+        return run("книги", source, BOOK_KEYS, this::insertBooks, CacheConfig.BOOKS_BY_NUMBER);
+    }
+
+    /**
+     * Загрузить читателей из CSV со столбцами ticketNumber, fullName, phoneNumber
+     * и необязательным registrationDate (ГГГГ-ММ-ДД, по умолчанию сегодня)
+     *
+     * @param input содержимое файла в кодировке UTF-8; закрывается вызывающим
+     * @return итоги загрузки
+     * @throws IOException при ошибке чтения файла
+     * @throws IllegalArgumentException если в файле нет обязательного столбца
+     */
+    public ImportReport importReaders(InputStream input) throws IOException {
+        CsvRows csv = new CsvRows(new CsvReader(open(input)), List.of("ticketNumber", "fullName", "phoneNumber"));
+        RowSource<Reader> source = () -> csv.next(fields -> {
+            Reader reader = new Reader(fields.text("ticketNumber"), fields.text("fullName"), fields.text("phoneNumber"));
+            LocalDate registrationDate = fields.date("registrationDate");
+            if (registrationDate != null) {
+                reader.setRegistrationDate(registrationDate);
+            }
+            return reader;
+        });
+        return run("читатели", source, READER_KEYS, this::insertReaders, CacheConfig.READERS_BY_TICKET);
+    }
+
+    /**
+     * Загрузить библиотекарей из CSV со столбцами librarianNumber, fullName
+     * и необязательным position (по умолчанию "Библиотекарь")
+     *
+     * @param input содержимое файла в кодировке UTF-8; закрывается вызывающим
+     * @return итоги загрузки
+     * @throws IOException при ошибке чтения файла
+     * @throws IllegalArgumentException если в файле нет обязательного столбца
+     */
+    public ImportReport importLibrarians(InputStream input) throws IOException {
+        CsvRows csv = new CsvRows(new CsvReader(open(input)), List.of("librarianNumber", "fullName"));
+        RowSource<Librarian> source = () -> csv.next(fields -> {
+            String position = fields.text("position");
+            return new Librarian(fields.text("librarianNumber"), fields.text("fullName"),
+                    position == null ? "Библиотекарь" : position);
+        });
+        return run("библиотекари", source, LIBRARIAN_KEYS, this::insertLibrarians, CacheConfig.LIBRARIANS_BY_NUMBER);
+    }
+
+    private <T> ImportReport run(String entityName, RowSource<T> source, List<UniqueKey<T>> keys,
+                                 Function<List<T>, List<Long>> inserter, String naturalKeyCache) throws IOException {
+        ImportReport report = new ImportReport(entityName, maxRejections);
+        List<Row<T>> chunk = new ArrayList<>(chunkSize);
+        List<Map<String, Long>> chunkKeys = keys.stream().<Map<String, Long>>map(key -> new HashMap<>()).toList();
+
+        Row<T> row;
+        while ((row = source.next()) != null) {
+            report.rowRead();
+            String error = row.error() != null ? row.error() : validate(row.value());
+            for (int i = 0; error == null && i < keys.size(); i++) {
+                String value = keys.get(i).value().apply(row.value());
+                Long firstLine = chunkKeys.get(i).get(value);
+                if (firstLine != null) {
+                    error = keys.get(i).label() + " '" + value + "' повторяется в строке " + firstLine;
+                }
+            }
+            if (error != null) {
+                report.reject(row.line(), error);
+                continue;
+            }
+
+            for (int i = 0; i < keys.size(); i++) {
+                chunkKeys.get(i).put(keys.get(i).value().apply(row.value()), row.line());
+            }
+            chunk.add(row);
+            if (chunk.size() >= chunkSize) {
+                write(chunk, keys, inserter, naturalKeyCache, report);
+                chunk.clear();
+                chunkKeys.forEach(Map::clear);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            write(chunk, keys, inserter, naturalKeyCache, report);
+        }
+
+        report.finish();
+        log.info("Импорт ({}): прочитано {} строк, загружено {}, отклонено {}, {} мс ({} строк в минуту)",
+                entityName, report.getRowsRead(), report.getImported(), report.getRejected(),
+                report.getElapsedMillis(), report.getRowsPerMinute());
+        return report;
+    }
+
+    private <T> void write(List<Row<T>> chunk, List<UniqueKey<T>> keys, Function<List<T>, List<Long>> inserter,
+                           String naturalKeyCache, ImportReport report) {
+        List<ImportReport.Rejection> rejections = new ArrayList<>();
+        List<Row<T>> accepted = null;
+        for (int attempt = 1; accepted == null; attempt++) {
+            rejections.clear();
+            try {
+                accepted = transactionTemplate.execute(status -> insertNew(chunk, keys, inserter, rejections));
+            } catch (DuplicateKeyException e) {
+                // номер из пачки одновременно сохранили через форму: повторная проверка его отклонит
+                if (attempt == 2) {
+                    log.warn("Пачка строк {}-{} не загружена: {}", chunk.get(0).line(),
+                            chunk.get(chunk.size() - 1).line(), e.getMostSpecificCause().getMessage());
+                    chunk.forEach(row -> report.reject(row.line(), "Конфликт с одновременным изменением, повторите загрузку"));
+                    return;
+                }
+            }
+        }
+
+        rejections.forEach(rejection -> report.reject(rejection.line(), rejection.reason()));
+        report.imported(accepted.size());
+        evictNaturalKeys(naturalKeyCache);
+        log.debug("Импорт ({}): обработано {} строк, загружено {}, отклонено {}",
+                report.getEntityName(), report.getRowsRead(), report.getImported(), report.getRejected());
+    }
+
+    private <T> List<Row<T>> insertNew(List<Row<T>> chunk, List<UniqueKey<T>> keys,
+                                       Function<List<T>, List<Long>> inserter,
+                                       List<ImportReport.Rejection> rejections) {
+        List<Row<T>> rows = new ArrayList<>(chunk);
+        for (UniqueKey<T> key : keys) {
+            List<String> values = rows.stream().map(row -> key.value().apply(row.value())).toList();
+            if (values.isEmpty()) {
+                break;
+            }
+            Set<String> existing = new HashSet<>(namedParameterJdbcTemplate.queryForList(
+                    key.existingSql(), Map.of("values", values), String.class));
+            rows.removeIf(row -> {
+                String value = key.value().apply(row.value());
+                if (existing.contains(value)) {
+                    rejections.add(new ImportReport.Rejection(row.line(), String.format(key.existsMessage(), value)));
+                    return true;
+                }
+                return false;
+            });
+        }
+        if (!rows.isEmpty()) {
+            inserter.apply(rows.stream().map(Row::value).toList());
+        }
+        return rows;
+    }
+
+    private List<Long> insertBooks(List<Book> books) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_BOOK, new String[] {"book_id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Book book = books.get(i);
+                        ps.setString(1, book.getBookNumber());
+                        ps.setString(2, book.getTitle());
+                        ps.setString(3, book.getAuthor());
+                        ps.setInt(4, book.getPublicationYear());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return books.size();
+                    }
+                }, keyHolder);
+
+        List<Long> ids = keyHolder.getKeyList().stream()
+                .map(keys -> ((Number) keys.values().iterator().next()).longValue())
+                .toList();
+        for (int i = 0; i < ids.size(); i++) {
+            bookCatalogIndex.putAfterCommit(withId(books.get(i), ids.get(i)));
+        }
+        return ids;
+    }
+
+    private List<Long> insertReaders(List<Reader> readers) {
+        jdbcTemplate.batchUpdate(INSERT_READER, readers, readers.size(), (ps, reader) -> {
+            ps.setString(1, reader.getTicketNumber());
+            ps.setString(2, reader.getFullName());
+            ps.setString(3, reader.getPhoneNumber());
+            ps.setDate(4, reader.getRegistrationDate() == null ? null : Date.valueOf(reader.getRegistrationDate()));
+        });
+        return List.of();
+    }
+
+    private List<Long> insertLibrarians(List<Librarian> librarians) {
+        jdbcTemplate.batchUpdate(INSERT_LIBRARIAN, librarians, librarians.size(), (ps, librarian) -> {
+            ps.setString(1, librarian.getLibrarianNumber());
+            ps.setString(2, librarian.getFullName());
+            ps.setString(3, librarian.getPosition());
+        });
+        return List.of();
+    }
+
+    private static Book withId(Book book, Long id) {
+        book.setBookId(id);
+        return book;
+    }
+
+    /**
+     * Кэши "номер - идентификатор" хранят и отрицательные ответы, а записи вставляются
+     * в обход Hibernate, поэтому после каждой пачки сбрасываются кэш номеров и кэш запросов
+     */
+    private void evictNaturalKeys(String cacheName) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.clear();
+        }
+        entityManagerFactory.getCache().unwrap(org.hibernate.Cache.class).evictDefaultQueryRegion();
+    }
+
+    private String validate(Object value) {
+        Set<ConstraintViolation<Object>> violations = validator.validate(value);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private static Book marcBook(Map<String, String> record) {
+        String year = record.getOrDefault("260c", record.get("264c"));
+        Integer publicationYear = null;
+        if (year != null) {
+            Matcher matcher = YEAR.matcher(year);
+            if (matcher.find()) {
+                publicationYear = Integer.parseInt(matcher.group());
+            }
+        }
+        return new Book(check("001", record.get("001")), check("245$a", trimPunctuation(record.get("245a"))),
+                check("100$a", trimPunctuation(record.get("100a"))), publicationYear);
+    }
+
+    /**
+     * Убрать завершающие знаки препинания ISBD (" /", " :", ",", ".") из значения подполя
+     */
+    private static String trimPunctuation(String value) {
+        if (value == null) {
+            return null;
+        }
+        int end = value.length();
+        while (end > 0 && " /:;,.=".indexOf(value.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        return value.substring(0, end);
+    }
+
+    private static String check(String name, String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        if (value.length() > MAX_LENGTH) {
+            throw new IllegalArgumentException("Значение '" + name + "' длиннее " + MAX_LENGTH + " символов");
+        }
+        return value;
+    }
+
+    private static BufferedReader open(InputStream input) {
+        return new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    private static <T> Row<T> row(long line, RowMapper<T> mapper) {
+        try {
+            return new Row<>(line, mapper.map(), null);
+        } catch (IllegalArgumentException e) {
+            return new Row<>(line, null, e.getMessage());
+        }
+    }
+
+    private static String normalize(String column) {
+        return column.replaceAll("[\\s_\\-]", "").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Строка файла: разобранная запись или причина, по которой ее не удалось разобрать
+     */
+    private record Row<T>(long line, T value, String error) {}
+
+    /**
+     * Уникальное поле записи и запрос для поиска уже сохраненных значений
+     */
+    private record UniqueKey<T>(Function<T, String> value, String label, String existingSql, String existsMessage) {}
+
+    @FunctionalInterface
+    private interface RowSource<T> {
+        Row<T> next() throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface RowMapper<T> {
+        T map();
+    }
+
+    /**
+     * Значения полей одной строки CSV по именам столбцов
+     */
+    private interface Fields {
+
+        String text(String column);
+
+        default Integer integer(String column) {
+            String value = text(column);
+            if (value == null) {
+                return null;
+            }
+            try {
+                return Integer.valueOf(value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Столбец '" + column + "': '" + value + "' не является числом");
+            }
+        }
+
+        default LocalDate date(String column) {
+            String value = text(column);
+            if (value == null) {
+                return null;
+            }
+            try {
+                return LocalDate.parse(value);
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Столбец '" + column + "': '" + value +
+                        "' не является датой в формате ГГГГ-ММ-ДД");
+            }
+        }
+    }
+
+    /**
+     * Строки CSV-файла с заголовком; столбцы сопоставляются по имени без учета регистра,
+     * пробелов, дефисов и подчеркиваний (bookNumber, book_number)
+     */
+    private static final class CsvRows {
+
+        private final CsvReader reader;
+        private final Map<String, Integer> columns = new HashMap<>();
+        private final Map<String, Integer> resolved = new HashMap<>();
+        private final int width;
+
+        CsvRows(CsvReader reader, List<String> required) throws IOException {
+            this.reader = reader;
+            List<String> header = reader.next();
+            if (header == null) {
+                throw new IllegalArgumentException("Файл пуст");
+            }
+            for (int i = 0; i < header.size(); i++) {
+                columns.putIfAbsent(normalize(header.get(i)), i);
+            }
+            for (String column : required) {
+                if (!columns.containsKey(normalize(column))) {
+                    throw new IllegalArgumentException("В файле нет столбца '" + column + "'");
+                }
+            }
+            width = header.size();
+        }
+
+        <T> Row<T> next(Function<Fields, T> mapper) throws IOException {
+            List<String> values = reader.next();
+            if (values == null) {
+                return null;
+            }
+            if (values.size() != width) {
+                return new Row<>(reader.getRecordLine(), null,
+                        "Ожидалось полей: " + width + ", найдено: " + values.size());
+            }
+            return row(reader.getRecordLine(), () -> mapper.apply(column -> {
+                int index = resolved.computeIfAbsent(column, name -> columns.getOrDefault(normalize(name), -1));
+                return index < 0 ? null : check(column, values.get(index).trim());
+            }));
+        }
+    }
+}
\ No newline at end of file
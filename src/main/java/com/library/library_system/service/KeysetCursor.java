@@ -0,0 +1,166 @@
+package com.library.library_system.service;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Кодирование позиции keyset-пагинации в строку для передачи в URL.
+ *
+ * <p>Позиция хранит значения ключа сортировки и идентификатора последней (или первой) строки
+ * страницы, поэтому следующая страница выбирается условием по индексу, а не через OFFSET.
+ * Формат: направление, затем пары {@code ключ=тип:значение}, закодированные в Base64 URL.</p>
+ *
+ * <p>Для ранжированных результатов поиска, где ключ сортировки - вычисляемая релевантность,
+ * вместо ключа хранится смещение ({@code O|смещение}).</p>
+ */
+public final class KeysetCursor {
+
+    private static final char STRING = 's';
+    private static final char LONG = 'l';
+    private static final char INTEGER = 'i';
+    private static final char DATE = 'd';
+
+    private KeysetCursor() {
+    }
+
+    /**
+     * Закодировать позицию в строку
+     *
+     * @param position позиция keyset-пагинации
+     * @return строка, пригодная для параметра URL
+     */
+    public static String encode(KeysetScrollPosition position) {
+        StringJoiner joiner = new StringJoiner("&", position.scrollsForward() ? "F|" : "B|", "");
+        for (Map.Entry<String, Object> key : position.getKeys().entrySet()) {
+            joiner.add(key.getKey() + "=" + typeOf(key.getValue()) + ":" +
+                    URLEncoder.encode(String.valueOf(key.getValue()), StandardCharsets.UTF_8));
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(joiner.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Закодировать смещение в строку
+     *
+     * @param offset количество пропускаемых строк
+     * @return строка, пригодная для параметра URL
+     */
+    public static String encodeOffset(long offset) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(("O|" + offset).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Раскодировать строку в смещение
+     *
+     * @param cursor строка из параметра URL (null или пустая строка означают первую страницу)
+     * @return количество пропускаемых строк
+     * @throws IllegalArgumentException если строка повреждена
+     */
+    public static long decodeOffset(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!value.startsWith("O|")) {
+                throw new IllegalArgumentException("Некорректная позиция страницы");
+            }
+            long offset = Long.parseLong(value.substring(2));
+            if (offset < 0) {
+                throw new IllegalArgumentException("Некорректная позиция страницы");
+            }
+            return offset;
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Некорректная позиция страницы", e);
+        }
+    }
+
+    /**
+     * Раскодировать строку в позицию
+     *
+     * @param cursor строка из параметра URL (null или пустая строка означают первую страницу)
+     * @return позиция keyset-пагинации
+     * @throws IllegalArgumentException если строка повреждена
+     */
+    public static KeysetScrollPosition decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            boolean forward = value.startsWith("F|");
+            if (!forward && !value.startsWith("B|")) {
+                throw new IllegalArgumentException("Некорректная позиция страницы");
+            }
+
+            Map<String, Object> keys = new LinkedHashMap<>();
+            for (String pair : value.substring(2).split("&")) {
+                int eq = pair.indexOf('=');
+                String name = pair.substring(0, eq);
+                char type = pair.charAt(eq + 1);
+                String raw = URLDecoder.decode(pair.substring(eq + 3), StandardCharsets.UTF_8);
+                keys.put(name, parse(type, raw));
+            }
+            return forward ? ScrollPosition.forward(keys) : ScrollPosition.backward(keys);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Некорректная позиция страницы", e);
+        }
+    }
+
+    /**
+     * Раскодировать строку в позицию и проверить, что она построена для указанной сортировки
+     *
+     * @param cursor строка из параметра URL (null или пустая строка означают первую страницу)
+     * @param sort сортировка, для которой запрашивается страница
+     * @return позиция keyset-пагинации
+     * @throws IllegalArgumentException если строка повреждена или построена для другой сортировки
+     */
+    public static KeysetScrollPosition decode(String cursor, Sort sort) {
+        KeysetScrollPosition position = decode(cursor);
+        if (!position.isInitial()) {
+            for (Sort.Order order : sort) {
+                if (!position.getKeys().containsKey(order.getProperty())) {
+                    throw new IllegalArgumentException("Некорректная позиция страницы");
+                }
+            }
+        }
+        return position;
+    }
+
+    private static char typeOf(Object value) {
+        if (value instanceof Long) {
+            return LONG;
+        }
+        if (value instanceof Integer) {
+            return INTEGER;
+        }
+        if (value instanceof LocalDate) {
+            return DATE;
+        }
+        if (value instanceof String) {
+            return STRING;
+        }
+        throw new IllegalArgumentException("Неподдерживаемый тип ключа сортировки: " + value.getClass());
+    }
+
+    private static Object parse(char type, String raw) {
+        return switch (type) {
+            case LONG -> Long.valueOf(raw);
+            case INTEGER -> Integer.valueOf(raw);
+            case DATE -> LocalDate.parse(raw);
+            case STRING -> raw;
+            default -> throw new IllegalArgumentException("Неизвестный тип ключа сортировки: " + type);
+        };
+    }
+}
\ No newline at end of file
@@ -0,0 +1,90 @@
+package com.library.library_system.service;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Страница результатов keyset-пагинации со ссылками на соседние страницы
+ *
+ * @param <T> тип элементов страницы
+ */
+public class KeysetPage<T> {
+
+    private final List<T> content;
+    private final String nextCursor;
+    private final String previousCursor;
+
+    private KeysetPage(List<T> content, String nextCursor, String previousCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+        this.previousCursor = previousCursor;
+    }
+
+    /**
+     * Построить страницу по результату запроса Spring Data
+     *
+     * @param window результат запроса
+     * @param requested позиция, с которой был выполнен запрос
+     * @param <T> тип элементов страницы
+     * @return страница с позициями для перехода вперед и назад
+     */
+    public static <T> KeysetPage<T> of(Window<T> window, KeysetScrollPosition requested) {
+        List<T> content = window.getContent();
+        if (content.isEmpty()) {
+            String previous = requested.isInitial() ? null
+                    : KeysetCursor.encode(ScrollPosition.backward(requested.getKeys()));
+            return new KeysetPage<>(content, null, previous);
+        }
+
+        Map<String, Object> firstKeys = keysAt(window, 0);
+        Map<String, Object> lastKeys = keysAt(window, content.size() - 1);
+        boolean hasNext;
+        boolean hasPrevious;
+        if (requested.scrollsBackward()) {
+            hasPrevious = window.hasNext();
+            hasNext = true;
+        } else {
+            hasPrevious = !requested.isInitial();
+            hasNext = window.hasNext();
+        }
+
+        return new KeysetPage<>(content,
+                hasNext ? KeysetCursor.encode(ScrollPosition.forward(lastKeys)) : null,
+                hasPrevious ? KeysetCursor.encode(ScrollPosition.backward(firstKeys)) : null);
+    }
+
+    /**
+     * Построить страницу ранжированных результатов, выбранных по смещению
+     *
+     * @param rows результат запроса, выбранный с лимитом на одну строку больше размера страницы
+     * @param offset смещение, с которым был выполнен запрос
+     * @param size размер страницы
+     * @param <T> тип элементов страницы
+     * @return страница с позициями для перехода вперед и назад
+     */
+    public static <T> KeysetPage<T> ofOffset(List<T> rows, long offset, int size) {
+        boolean hasNext = rows.size() > size;
+        List<T> content = hasNext ? rows.subList(0, size) : rows;
+        return new KeysetPage<>(content,
+                hasNext ? KeysetCursor.encodeOffset(offset + size) : null,
+                offset > 0 ? KeysetCursor.encodeOffset(Math.max(0, offset - size)) : null);
+    }
+
+    private static Map<String, Object> keysAt(Window<?> window, int index) {
+        return ((KeysetScrollPosition) window.positionAt(index)).getKeys();
+    }
+
+    public List<T> getContent() { return content; }
+
+    public String getNextCursor() { return nextCursor; }
+
+    public String getPreviousCursor() { return previousCursor; }
+
+    public boolean hasNext() { return nextCursor != null; }
+
+    public boolean hasPrevious() { return previousCursor != null; }
+}
\ No newline at end of file
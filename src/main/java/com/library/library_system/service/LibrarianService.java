@@ -1,10 +1,19 @@
 package com.library.library_system.service;
 
+import com.library.library_system.config.CacheConfig;
+import com.library.library_system.config.MetricsConfig;
 import com.library.library_system.entity.Librarian;
 import com.library.library_system.entity.BookLoan;
 import com.library.library_system.repository.LibrarianRepository;
 import com.library.library_system.repository.BookLoanRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -14,6 +23,7 @@ import java.util.List;
  * Сервис для работы с библиотекарями
  */
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 public class LibrarianService {
 
     @Autowired
@@ -31,30 +41,64 @@ public class LibrarianService {
         return librarianRepository.findAll();
     }
 
+    /**
+     * Получить страницу библиотекарей с keyset-пагинацией, упорядоченную по ФИО
+     *
+     * @param keyword ключевое слово для поиска в ФИО (необязательное)
+     * @param cursor позиция страницы (null для первой страницы)
+     * @param size количество библиотекарей на странице
+     * @return страница библиотекарей
+     * @throws IllegalArgumentException если позиция страницы повреждена
+     */
+    public KeysetPage<Librarian> getLibrariansPage(String keyword, String cursor, int size) {
+        Sort sort = Sort.by("fullName", "librarianId");
+        KeysetScrollPosition position = KeysetCursor.decode(cursor, sort);
+        Window<Librarian> window = keyword != null && !keyword.trim().isEmpty()
+                ? librarianRepository.findByFullNameContainingIgnoreCase(keyword, position, sort, Limit.of(size))
+                : librarianRepository.findAllBy(position, sort, Limit.of(size));
+        return KeysetPage.of(window, position);
+    }
+
+    /**
+     * Получить общее количество библиотекарей
+     *
+     * @return количество библиотекарей
+     */
+    public long countLibrarians() {
+        return librarianRepository.count();
+    }
+
     /**
      * Сохранить библиотекаря в базе данных (создание или обновление)
      *
      * @param librarian библиотекарь для сохранения
      * @throws IllegalStateException если нарушена уникальность табельного номера
+     *         или библиотекарь был изменен другим пользователем
      */
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.LIBRARIANS_BY_NUMBER, allEntries = true)
     public void saveLibrarian(Librarian librarian) {
         if (librarian.getLibrarianId() == null) {
-            Librarian existingLibrarian = librarianRepository.findByLibrarianNumber(librarian.getLibrarianNumber());
-            if (existingLibrarian != null) {
+            Long existingLibrarianId = librarianRepository.findIdByLibrarianNumber(librarian.getLibrarianNumber());
+            if (existingLibrarianId != null) {
                 throw new IllegalStateException("Библиотекарь с табельным номером '" +
                         librarian.getLibrarianNumber() + "' уже существует.");
             }
         }
         else {
-            Librarian existingLibrarian = librarianRepository.findByLibrarianNumber(librarian.getLibrarianNumber());
-            if (existingLibrarian != null && !existingLibrarian.getLibrarianId().equals(librarian.getLibrarianId())) {
+            Long existingLibrarianId = librarianRepository.findIdByLibrarianNumber(librarian.getLibrarianNumber());
+            if (existingLibrarianId != null && !existingLibrarianId.equals(librarian.getLibrarianId())) {
                 throw new IllegalStateException("Библиотекарь с табельным номером '" +
                         librarian.getLibrarianNumber() + "' уже существует.");
             }
         }
 
-        librarianRepository.save(librarian);
+        try {
+            librarianRepository.saveAndFlush(librarian);
+        } catch (OptimisticLockingFailureException e) {
+            throw new IllegalStateException("Библиотекарь '" + librarian.getFullName() +
+                    "' был изменен другим пользователем. Обновите страницу и повторите изменения.");
+        }
     }
 
     /**
@@ -76,11 +120,11 @@ public class LibrarianService {
      * @throws IllegalStateException если библиотекарь оформлял выдачи книг
      */
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.LIBRARIANS_BY_NUMBER, allEntries = true)
     public void deleteLibrarianById(Long id) {
         Librarian librarian = getLibrarianById(id);
 
-        List<BookLoan> librarianLoans = bookLoanRepository.findByLibrarianLibrarianId(id);
-        if (!librarianLoans.isEmpty()) {
+        if (librarian.hasLoans()) {
             throw new IllegalStateException("Невозможно удалить библиотекаря '" + librarian.getFullName() +
                     "', так как он оформлял выдачи книг. " +
                     "Для сохранения истории сначала удалите или переоформите записи о выдаче.");
@@ -109,8 +153,7 @@ public class LibrarianService {
      * @return true если библиотекаря можно удалить, false если он оформлял выдачи
      */
     public boolean canDeleteLibrarian(Long id) {
-        List<BookLoan> librarianLoans = bookLoanRepository.findByLibrarianLibrarianId(id);
-        return librarianLoans.isEmpty();
+        return !getLibrarianById(id).hasLoans();
     }
 
     /**
@@ -130,6 +173,6 @@ public class LibrarianService {
      * @return true если библиотекарь существует, false если нет
      */
     public boolean existsByLibrarianNumber(String librarianNumber) {
-        return librarianRepository.findByLibrarianNumber(librarianNumber) != null;
+        return librarianRepository.findIdByLibrarianNumber(librarianNumber) != null;
     }
 }
\ No newline at end of file
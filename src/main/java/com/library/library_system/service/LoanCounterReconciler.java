@@ -0,0 +1,148 @@
+package com.library.library_system.service;
+
+import com.library.library_system.entity.Book;
+import com.library.library_system.entity.Librarian;
+import com.library.library_system.entity.Reader;
+import com.library.library_system.repository.BookRepository;
+import com.library.library_system.repository.LibrarianRepository;
+import com.library.library_system.repository.LoanStatistics;
+import com.library.library_system.repository.ReaderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Фоновая сверка счетчиков выдач с таблицей book_loans.
+ *
+ * <p>Таблицы обходятся пакетами по возрастанию идентификатора. Для каждого пакета сохраненные
+ * счетчики сравниваются с фактическими, и пересчитываются только расхождения, каждое в своей
+ * короткой транзакции. Таблицы целиком не блокируются, а пересчет выполняется одним
+ * UPDATE по текущим данным, поэтому параллельные выдачи не теряются.</p>
+ */
+@Component
+public class LoanCounterReconciler {
+
+    private static final Logger log = LoggerFactory.getLogger(LoanCounterReconciler.class);
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private ReaderRepository readerRepository;
+
+    @Autowired
+    private LibrarianRepository librarianRepository;
+
+    @Autowired
+    private LoanStatisticsService loanStatisticsService;
+
+    @Autowired
+    private LoanCounterService loanCounterService;
+
+    @Value("${library.loan-counters.reconcile-chunk-size:1000}")
+    private int chunkSize;
+
+    /**
+     * Сверить счетчики всех книг, читателей и библиотекарей
+     *
+     * @return количество исправленных строк
+     */
+    @Scheduled(initialDelayString = "${library.loan-counters.reconcile-initial-delay:PT30S}",
+            fixedDelayString = "${library.loan-counters.reconcile-interval:PT6H}")
+    public int reconcile() {
+        int fixed = reconcileBooks() + reconcileReaders() + reconcileLibrarians();
+        if (fixed > 0) {
+            log.warn("Исправлены расхождения счетчиков выдач: {} строк", fixed);
+        } else {
+            log.debug("Расхождений счетчиков выдач не найдено");
+        }
+        return fixed;
+    }
+
+    /**
+     * Сверить счетчики выдач книг
+     *
+     * @return количество исправленных книг
+     */
+    public int reconcileBooks() {
+        return reconcile(bookRepository::findLoanCountersAfter,
+                loanStatisticsService::getBookStatistics,
+                bookRepository::recalculateLoanCounters,
+                true, Book.class);
+    }
+
+    /**
+     * Сверить счетчики выдач читателей
+     *
+     * @return количество исправленных читателей
+     */
+    public int reconcileReaders() {
+        return reconcile(readerRepository::findLoanCountersAfter,
+                loanStatisticsService::getReaderStatistics,
+                readerRepository::recalculateLoanCounters,
+                true, Reader.class);
+    }
+
+    /**
+     * Сверить счетчики выдач библиотекарей
+     *
+     * @return количество исправленных библиотекарей
+     */
+    public int reconcileLibrarians() {
+        return reconcile(librarianRepository::findLoanCountersAfter,
+                loanStatisticsService::getLibrarianStatistics,
+                librarianRepository::recalculateLoansCount,
+                false, Librarian.class);
+    }
+
+    private int reconcile(BiFunction<Long, PageRequest, List<LoanStatistics>> storedCounters,
+                          Function<Collection<Long>, Map<Long, LoanStatistics>> actualCounters,
+                          Function<Collection<Long>, Integer> recalculate,
+                          boolean compareActive,
+                          Class<?> entityClass) {
+        int fixed = 0;
+        long afterId = 0L;
+        PageRequest chunk = PageRequest.ofSize(chunkSize);
+        while (true) {
+            List<LoanStatistics> stored = storedCounters.apply(afterId, chunk);
+            if (stored.isEmpty()) {
+                return fixed;
+            }
+
+            List<Long> ids = stored.stream().map(LoanStatistics::getOwnerId).toList();
+            Map<Long, LoanStatistics> actual = actualCounters.apply(ids);
+
+            List<Long> drifted = new ArrayList<>();
+            for (LoanStatistics counters : stored) {
+                LoanStatistics expected = actual.get(counters.getOwnerId());
+                long expectedTotal = expected == null ? 0 : expected.getTotalCount();
+                long expectedActive = expected == null ? 0 : expected.getActiveCount();
+                if (!Objects.equals(counters.getTotalCount(), expectedTotal)
+                        || (compareActive && !Objects.equals(counters.getActiveCount(), expectedActive))) {
+                    drifted.add(counters.getOwnerId());
+                }
+            }
+            if (!drifted.isEmpty()) {
+                fixed += recalculate.apply(drifted);
+                loanCounterService.evict(entityClass, drifted);
+            }
+
+            afterId = ids.get(ids.size() - 1);
+            if (stored.size() < chunkSize) {
+                return fixed;
+            }
+        }
+    }
+}
\ No newline at end of file
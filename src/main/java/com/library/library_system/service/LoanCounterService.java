@@ -0,0 +1,195 @@
+package com.library.library_system.service;
+
+import com.library.library_system.entity.Book;
+import com.library.library_system.entity.BookLoan;
+import com.library.library_system.entity.Librarian;
+import com.library.library_system.entity.Reader;
+import com.library.library_system.repository.BookRepository;
+import com.library.library_system.repository.LibrarianRepository;
+import com.library.library_system.repository.ReaderRepository;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Сервис для поддержания счетчиков выдач в таблицах книг, читателей и библиотекарей.
+ * Вызывается из {@link BookLoanService} в той же транзакции, что и изменение выдачи,
+ * и обновляет только те строки, счетчики которых действительно изменились.
+ * Измененные книги, читатели и библиотекари удаляются из кэша второго уровня Hibernate.
+ */
+@Service
+public class LoanCounterService {
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private ReaderRepository readerRepository;
+
+    @Autowired
+    private LibrarianRepository librarianRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Состояние выдачи, влияющее на счетчики: кому и кем выдана книга и активна ли выдача
+     *
+     * @param bookId идентификатор книги
+     * @param readerId идентификатор читателя
+     * @param librarianId идентификатор библиотекаря
+     * @param active true если книга еще не возвращена
+     */
+    public record LoanState(Long bookId, Long readerId, Long librarianId, boolean active) {
+
+        /**
+         * Снять состояние с выдачи
+         *
+         * @param loan выдача книги
+         * @return состояние выдачи для пересчета счетчиков
+         */
+        public static LoanState of(BookLoan loan) {
+            return new LoanState(loan.getBook().getBookId(), loan.getReader().getReaderId(),
+                    loan.getLibrarian().getLibrarianId(), !loan.isReturned());
+        }
+    }
+
+    /**
+     * Обновить счетчики после изменения выдачи.
+     * Счетчик активных выдач книги увеличивается только если книга сейчас свободна;
+     * иначе метод возвращает false, и вызывающий должен откатить транзакцию.
+     *
+     * @param before состояние выдачи до изменения (null для новой выдачи)
+     * @param after состояние выдачи после изменения (null для удаленной выдачи)
+     * @return false если выдаваемая книга уже выдана по другой выдаче
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean applyChange(LoanState before, LoanState after) {
+        Map<Long, int[]> books = new LinkedHashMap<>();
+        Map<Long, int[]> readers = new LinkedHashMap<>();
+        Map<Long, int[]> librarians = new LinkedHashMap<>();
+
+        if (before != null) {
+            collect(before, -1, books, readers, librarians);
+        }
+        if (after != null) {
+            collect(after, 1, books, readers, librarians);
+        }
+
+        for (Map.Entry<Long, int[]> book : books.entrySet()) {
+            int[] delta = book.getValue();
+            if (delta[0] > 0) {
+                if (bookRepository.checkOutBook(book.getKey(), delta[1]) == 0) {
+                    return false;
+                }
+            } else if (delta[0] != 0 || delta[1] != 0) {
+                bookRepository.adjustLoanCounters(book.getKey(), delta[0], delta[1]);
+            } else {
+                continue;
+            }
+            evict(Book.class, List.of(book.getKey()));
+        }
+        readers.forEach((id, delta) -> {
+            if (delta[0] != 0 || delta[1] != 0) {
+                readerRepository.adjustLoanCounters(id, delta[0], delta[1]);
+                evict(Reader.class, List.of(id));
+            }
+        });
+        librarians.forEach((id, delta) -> {
+            if (delta[1] != 0) {
+                librarianRepository.adjustLoansCount(id, delta[1]);
+                evict(Librarian.class, List.of(id));
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Удалить из кэша второго уровня записи, счетчики которых были изменены.
+     * Запись удаляется сразу и повторно после завершения транзакции,
+     * чтобы параллельное чтение не вернуло в кэш значение до фиксации изменения.
+     *
+     * @param entityClass класс сущности
+     * @param ids идентификаторы измененных записей
+     */
+    void evict(Class<?> entityClass, Collection<Long> ids) {
+        Cache secondLevelCache = entityManagerFactory.getCache();
+        ids.forEach(id -> secondLevelCache.evict(entityClass, id));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    ids.forEach(id -> secondLevelCache.evict(entityClass, id));
+                }
+            });
+        }
+    }
+
+    /**
+     * Обновить счетчики после выдачи нескольких книг одному читателю.
+     * Строки книг должны быть заблокированы вызывающим; счетчики каждой таблицы
+     * обновляются одним запросом независимо от количества книг.
+     *
+     * @param readerId идентификатор читателя
+     * @param librarianId идентификатор библиотекаря
+     * @param bookIds идентификаторы выдаваемых книг без повторов
+     * @return false если хотя бы одна из книг уже выдана по другой выдаче
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean applyCheckout(Long readerId, Long librarianId, Collection<Long> bookIds) {
+        if (bookRepository.checkOutBooks(bookIds) != bookIds.size()) {
+            return false;
+        }
+        readerRepository.adjustLoanCounters(readerId, bookIds.size(), bookIds.size());
+        librarianRepository.adjustLoansCount(librarianId, bookIds.size());
+
+        evict(Book.class, bookIds);
+        evict(Reader.class, List.of(readerId));
+        evict(Librarian.class, List.of(librarianId));
+        return true;
+    }
+
+    /**
+     * Обновить счетчики после закрытия нескольких выдач.
+     * Строки выдач должны быть заблокированы вызывающим; счетчик активных выдач каждой книги
+     * и каждого читателя уменьшается на количество закрытых им выдач одним запросом на таблицу.
+     *
+     * @param loanIds идентификаторы закрытых выдач
+     * @param bookIds идентификаторы книг этих выдач
+     * @param readerIds идентификаторы читателей этих выдач
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void applyReturns(Collection<Long> loanIds, Collection<Long> bookIds, Collection<Long> readerIds) {
+        bookRepository.releaseLoans(bookIds, loanIds);
+        readerRepository.releaseLoans(readerIds, loanIds);
+
+        evict(Book.class, bookIds);
+        evict(Reader.class, readerIds);
+    }
+
+    private static void collect(LoanState state, int sign,
+                                Map<Long, int[]> books,
+                                Map<Long, int[]> readers,
+                                Map<Long, int[]> librarians) {
+        int active = state.active() ? sign : 0;
+        add(books, state.bookId(), active, sign);
+        add(readers, state.readerId(), active, sign);
+        add(librarians, state.librarianId(), 0, sign);
+    }
+
+    private static void add(Map<Long, int[]> deltas, Long id, int active, int total) {
+        int[] delta = deltas.computeIfAbsent(id, key -> new int[2]);
+        delta[0] += active;
+        delta[1] += total;
+    }
+}
\ No newline at end of file
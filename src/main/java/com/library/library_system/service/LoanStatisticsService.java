@@ -0,0 +1,137 @@
+package com.library.library_system.service;
+
+import com.library.library_system.entity.Book;
+import com.library.library_system.entity.Librarian;
+import com.library.library_system.entity.Reader;
+import com.library.library_system.repository.BookLoanRepository;
+import com.library.library_system.repository.LoanStatistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Сервис для подсчета статистики выдач сразу для набора книг, читателей или библиотекарей.
+ * Количество запросов к базе данных не зависит от количества строк на странице:
+ * идентификаторы обрабатываются пакетами по {@value #CHUNK_SIZE} штук, на каждый пакет выполняется
+ * один сгруппированный запрос.
+ */
+@Service
+public class LoanStatisticsService {
+
+    /**
+     * Максимальное количество идентификаторов в одном запросе
+     */
+    static final int CHUNK_SIZE = 1000;
+
+    @Autowired
+    private BookLoanRepository bookLoanRepository;
+
+    /**
+     * Заполнить количество активных и всех выдач для списка книг
+     *
+     * @param books книги, для которых нужно посчитать выдачи
+     */
+    public void fillBookStatistics(Collection<Book> books) {
+        Map<Long, LoanStatistics> statistics = collect(books, Book::getBookId,
+                bookLoanRepository::countLoansByBookIds);
+        for (Book book : books) {
+            LoanStatistics stats = statistics.get(book.getBookId());
+            book.setActiveLoansCount(activeCount(stats));
+            book.setTotalLoansCount(totalCount(stats));
+        }
+    }
+
+    /**
+     * Заполнить количество активных и всех выдач для списка читателей
+     *
+     * @param readers читатели, для которых нужно посчитать выдачи
+     */
+    public void fillReaderStatistics(Collection<Reader> readers) {
+        Map<Long, LoanStatistics> statistics = collect(readers, Reader::getReaderId,
+                bookLoanRepository::countLoansByReaderIds);
+        for (Reader reader : readers) {
+            LoanStatistics stats = statistics.get(reader.getReaderId());
+            reader.setActiveLoansCount(activeCount(stats));
+            reader.setTotalLoansCount(totalCount(stats));
+        }
+    }
+
+    /**
+     * Заполнить количество оформленных выдач для списка библиотекарей
+     *
+     * @param librarians библиотекари, для которых нужно посчитать выдачи
+     */
+    public void fillLibrarianStatistics(Collection<Librarian> librarians) {
+        Map<Long, LoanStatistics> statistics = collect(librarians, Librarian::getLibrarianId,
+                bookLoanRepository::countLoansByLibrarianIds);
+        for (Librarian librarian : librarians) {
+            librarian.setLoansCount(totalCount(statistics.get(librarian.getLibrarianId())));
+        }
+    }
+
+    /**
+     * Получить статистику выдач для набора книг
+     *
+     * @param bookIds идентификаторы книг
+     * @return статистика по идентификатору книги (книги без выдач в результат не попадают)
+     */
+    public Map<Long, LoanStatistics> getBookStatistics(Collection<Long> bookIds) {
+        return collect(bookIds, Function.identity(), bookLoanRepository::countLoansByBookIds);
+    }
+
+    /**
+     * Получить статистику выдач для набора читателей
+     *
+     * @param readerIds идентификаторы читателей
+     * @return статистика по идентификатору читателя (читатели без выдач в результат не попадают)
+     */
+    public Map<Long, LoanStatistics> getReaderStatistics(Collection<Long> readerIds) {
+        return collect(readerIds, Function.identity(), bookLoanRepository::countLoansByReaderIds);
+    }
+
+    /**
+     * Получить статистику выдач для набора библиотекарей
+     *
+     * @param librarianIds идентификаторы библиотекарей
+     * @return статистика по идентификатору библиотекаря (библиотекари без выдач в результат не попадают)
+     */
+    public Map<Long, LoanStatistics> getLibrarianStatistics(Collection<Long> librarianIds) {
+        return collect(librarianIds, Function.identity(), bookLoanRepository::countLoansByLibrarianIds);
+    }
+
+    private <T> Map<Long, LoanStatistics> collect(Collection<T> items,
+                                                  Function<T, Long> idExtractor,
+                                                  Function<Collection<Long>, List<LoanStatistics>> query) {
+        Map<Long, LoanStatistics> result = new HashMap<>();
+        List<Long> chunk = new ArrayList<>(Math.min(items.size(), CHUNK_SIZE));
+        for (T item : items) {
+            Long id = idExtractor.apply(item);
+            if (id == null) {
+                continue;
+            }
+            chunk.add(id);
+            if (chunk.size() == CHUNK_SIZE) {
+                query.apply(chunk).forEach(stats -> result.put(stats.getOwnerId(), stats));
+                chunk = new ArrayList<>(CHUNK_SIZE);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            query.apply(chunk).forEach(stats -> result.put(stats.getOwnerId(), stats));
+        }
+        return result;
+    }
+
+    private static int activeCount(LoanStatistics stats) {
+        return stats == null ? 0 : stats.getActiveCount().intValue();
+    }
+
+    private static int totalCount(LoanStatistics stats) {
+        return stats == null ? 0 : stats.getTotalCount().intValue();
+    }
+}
\ No newline at end of file
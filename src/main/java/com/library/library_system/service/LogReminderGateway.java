@@ -0,0 +1,43 @@
+package com.library.library_system.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Заглушка канала доставки напоминаний: записывает напоминания в журнал приложения
+ * и, если задан library.reminders.outbox-file, дописывает их в файл по одному на строку
+ * в формате "телефон;вид;идентификатор выдачи;текст".
+ */
+@Component
+public class LogReminderGateway implements ReminderGateway {
+
+    private static final Logger log = LoggerFactory.getLogger(LogReminderGateway.class);
+
+    @Value("${library.reminders.outbox-file:}")
+    private String outboxFile;
+
+    @Override
+    public synchronized void send(Reminder reminder) {
+        log.info("Напоминание на {}: {}", reminder.phoneNumber(), reminder.text());
+        if (outboxFile.isBlank()) {
+            return;
+        }
+        String line = String.join(";", reminder.phoneNumber(), reminder.kind().name(),
+                String.valueOf(reminder.loanId()), reminder.text()) + System.lineSeparator();
+        try {
+            Files.writeString(Path.of(outboxFile), line, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось записать напоминание в " + outboxFile, e);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,110 @@
+package com.library.library_system.service;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Потоковое чтение библиографических записей в упрощенном текстовом формате MARC (.mrk).
+ *
+ * <p>Каждое поле записывается отдельной строкой вида {@code =245  10$aВойна и мир$cТолстой}:
+ * знак равенства, трехзначная метка, два пробела и данные. У полей с метками от 010 данные
+ * начинаются с двух символов индикаторов, за которыми идут подполя с разделителем {@code $};
+ * символ доллара внутри значения записывается как {@code {dollar}}. Записи разделяются пустой
+ * строкой или строкой {@code =LDR}. В памяти хранится только текущая запись.</p>
+ */
+public class MarcRecordReader implements Closeable {
+
+    private final BufferedReader reader;
+    private long line;
+    private long recordLine;
+    private String pending;
+
+    /**
+     * @param reader источник строк
+     */
+    public MarcRecordReader(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Прочитать следующую запись
+     *
+     * @return значения полей и подполей записи по ключам вида {@code 001} и {@code 245a}
+     * (повторное поле или подполе сохраняет первое значение) или null если файл закончился
+     * @throws IOException при ошибке чтения
+     */
+    public Map<String, String> next() throws IOException {
+        Map<String, String> record = new HashMap<>();
+        String text = pending != null ? pending : readLine();
+        pending = null;
+        while (text != null && text.isBlank()) {
+            text = readLine();
+        }
+        if (text == null) {
+            return null;
+        }
+
+        recordLine = line;
+        while (text != null && !text.isBlank()) {
+            if (text.startsWith("=LDR") && !record.isEmpty()) {
+                pending = text;
+                break;
+            }
+            addField(record, text);
+            text = readLine();
+        }
+        return record;
+    }
+
+    /**
+     * @return номер строки файла, с которой началась последняя прочитанная запись
+     */
+    public long getRecordLine() {
+        return recordLine;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private String readLine() throws IOException {
+        String text = reader.readLine();
+        if (text != null) {
+            line++;
+            if (line == 1 && text.startsWith("\uFEFF")) {
+                text = text.substring(1);
+            }
+        }
+        return text;
+    }
+
+    private static void addField(Map<String, String> record, String text) {
+        if (text.length() < 4 || text.charAt(0) != '=') {
+            return;
+        }
+        String tag = text.substring(1, 4);
+        String data = text.length() > 6 ? text.substring(6) : "";
+        if (tag.compareTo("010") < 0) {
+            record.putIfAbsent(tag, unescape(data).trim());
+            return;
+        }
+
+        int start = data.indexOf('$');
+        if (start < 0) {
+            return;
+        }
+        for (String subfield : data.substring(start + 1).split("\\$")) {
+            if (!subfield.isEmpty()) {
+                record.putIfAbsent(tag + subfield.charAt(0), unescape(subfield.substring(1)).trim());
+            }
+        }
+    }
+
+    private static String unescape(String value) {
+        return value.replace("{dollar}", "$");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,180 @@
+package com.library.library_system.service;
+
+import com.library.library_system.entity.BookLoan;
+import com.library.library_system.entity.ReminderRun;
+import com.library.library_system.repository.BookLoanRepository;
+import com.library.library_system.repository.ReminderCandidate;
+import com.library.library_system.repository.ReminderRunRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Рассылка напоминаний о приближающемся и пропущенном сроке возврата книг.
+ *
+ * <p>Активные выдачи со сроком возврата не позже чем через library.reminders.due-soon-days дней
+ * обходятся пакетами по возрастанию пары (срок возврата, идентификатор выдачи). Каждый пакет
+ * читается отдельным коротким запросом, напоминания отправляются вне транзакции через
+ * {@link ReminderGateway} не чаще library.reminders.rate-per-second в секунду.</p>
+ *
+ * <p>День напоминания отмечается на выдаче ({@link BookLoan#getLastRemindedOn()}). О скором
+ * сроке возврата читатель получает одно напоминание, о просрочке - на следующий день после
+ * срока и затем раз в library.reminders.overdue-repeat-days дней. Изменение срока возврата
+ * сбрасывает отметку. Поэтому каждый запуск по расписанию рассылает только недостающие
+ * напоминания: прерванная рассылка продолжается, а выдачи, срок которых подошел после
+ * предыдущего запуска, получают напоминание в тот же день.</p>
+ *
+ * <p>После каждого пакета и при ошибке отправки отметки отправленных напоминаний и итоги
+ * за день ({@link ReminderRun}) сохраняются в одной транзакции.</p>
+ */
+@Service
+public class OverdueReminderService {
+
+    private static final Logger log = LoggerFactory.getLogger(OverdueReminderService.class);
+
+    @Autowired
+    private BookLoanRepository bookLoanRepository;
+
+    @Autowired
+    private ReminderRunRepository reminderRunRepository;
+
+    @Autowired
+    private ReminderGateway reminderGateway;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${library.reminders.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${library.reminders.due-soon-days:2}")
+    private int dueSoonDays;
+
+    @Value("${library.reminders.overdue-repeat-days:7}")
+    private int overdueRepeatDays;
+
+    @Value("${library.reminders.rate-per-second:10}")
+    private double ratePerSecond;
+
+    private long nextPermitNanos;
+
+    /**
+     * Запуск рассылки по расписанию. Рассылка, прерванная ошибкой или остановкой приложения,
+     * продолжается при следующем запуске
+     */
+    @Scheduled(cron = "${library.reminders.cron:0 0 9-20 * * *}")
+    public void sendScheduled() {
+        try {
+            run(LocalDate.now());
+        } catch (RuntimeException e) {
+            log.error("Рассылка напоминаний остановлена и продолжится при следующем запуске", e);
+        }
+    }
+
+    /**
+     * Разослать напоминания, которые на указанный день еще не отправлены
+     *
+     * @param today день, на который вычисляются сроки возврата
+     * @return итоги рассылки за день
+     * @throws RuntimeException если канал доставки не смог отправить напоминание;
+     *         напоминания, отправленные до него, отмечаются на выдачах
+     */
+    public synchronized ReminderRun run(LocalDate today) {
+        ReminderRun run = reminderRunRepository.findById(today).orElseGet(() -> new ReminderRun(today));
+        run.setCompleted(false);
+
+        long started = System.nanoTime();
+        LocalDate until = today.plusDays(dueSoonDays);
+        LocalDate repeatBefore = today.minusDays(overdueRepeatDays);
+        Limit limit = Limit.of(chunkSize);
+        LocalDate afterDueDate = LocalDate.EPOCH;
+        long afterLoanId = 0L;
+        while (true) {
+            List<ReminderCandidate> chunk = bookLoanRepository.findReminderCandidates(
+                    today, until, repeatBefore, afterDueDate, afterLoanId, limit);
+            if (chunk.isEmpty()) {
+                break;
+            }
+            List<Long> sent = new ArrayList<>(chunk.size());
+            try {
+                for (ReminderCandidate candidate : chunk) {
+                    Reminder reminder = reminder(candidate, today);
+                    acquirePermit();
+                    reminderGateway.send(reminder);
+                    if (reminder.kind() == Reminder.Kind.OVERDUE) {
+                        run.setOverdueSent(run.getOverdueSent() + 1);
+                    } else {
+                        run.setDueSoonSent(run.getDueSoonSent() + 1);
+                    }
+                    sent.add(candidate.getLoanId());
+                }
+            } catch (RuntimeException e) {
+                try {
+                    checkpoint(run, sent, today);
+                } catch (RuntimeException checkpointError) {
+                    e.addSuppressed(checkpointError);
+                }
+                throw e;
+            }
+            run = checkpoint(run, sent, today);
+            if (chunk.size() < chunkSize) {
+                break;
+            }
+            ReminderCandidate last = chunk.get(chunk.size() - 1);
+            afterDueDate = last.getDueDate();
+            afterLoanId = last.getLoanId();
+        }
+
+        run.setCompleted(true);
+        run = checkpoint(run, List.of(), today);
+        log.info("Напоминания за {} разосланы: о скором сроке возврата {}, о просрочке {} ({} мс)",
+                today, run.getDueSoonSent(), run.getOverdueSent(), (System.nanoTime() - started) / 1_000_000);
+        return run;
+    }
+
+    private Reminder reminder(ReminderCandidate candidate, LocalDate today) {
+        long days = candidate.getDueDate().toEpochDay() - today.toEpochDay();
+        Reminder.Kind kind = days < 0 ? Reminder.Kind.OVERDUE : Reminder.Kind.DUE_SOON;
+        return new Reminder(candidate.getLoanId(), kind, candidate.getPhoneNumber(), candidate.getReaderName(),
+                candidate.getTitle(), candidate.getDueDate(), Math.abs(days));
+    }
+
+    /**
+     * Отметить отправленные напоминания на выдачах и сохранить итоги рассылки за день
+     */
+    private ReminderRun checkpoint(ReminderRun run, List<Long> sentLoanIds, LocalDate today) {
+        run.setUpdatedAt(LocalDateTime.now());
+        return transactionTemplate.execute(status -> {
+            if (!sentLoanIds.isEmpty()) {
+                bookLoanRepository.markReminded(sentLoanIds, today);
+            }
+            return reminderRunRepository.save(run);
+        });
+    }
+
+    /**
+     * Дождаться разрешения на отправку следующего напоминания: напоминания отправляются
+     * через равные промежутки времени, не чаще заданного количества в секунду
+     */
+    private void acquirePermit() {
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+        long now = System.nanoTime();
+        while (nextPermitNanos - now > 0) {
+            LockSupport.parkNanos(nextPermitNanos - now);
+            now = System.nanoTime();
+        }
+        nextPermitNanos = now + interval;
+    }
+}
\ No newline at end of file
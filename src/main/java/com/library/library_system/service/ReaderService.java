@@ -1,10 +1,19 @@
 package com.library.library_system.service;
 
+import com.library.library_system.config.CacheConfig;
+import com.library.library_system.config.MetricsConfig;
 import com.library.library_system.entity.Reader;
 import com.library.library_system.entity.BookLoan;
 import com.library.library_system.repository.ReaderRepository;
 import com.library.library_system.repository.BookLoanRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -14,6 +23,7 @@ import java.util.List;
  * Сервис для работы с читателями
  */
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 public class ReaderService {
 
     @Autowired
@@ -31,30 +41,58 @@ public class ReaderService {
         return readerRepository.findAll();
     }
 
+    /**
+     * Получить страницу читателей с keyset-пагинацией, упорядоченную по ФИО
+     *
+     * @param keyword ключевое слово для поиска в ФИО (необязательное)
+     * @param cursor позиция страницы (null для первой страницы)
+     * @param size количество читателей на странице
+     * @return страница читателей
+     * @throws IllegalArgumentException если позиция страницы повреждена
+     */
+    public KeysetPage<Reader> getReadersPage(String keyword, String cursor, int size) {
+        Sort sort = Sort.by("fullName", "readerId");
+        KeysetScrollPosition position = KeysetCursor.decode(cursor, sort);
+        Window<Reader> window = keyword != null && !keyword.trim().isEmpty()
+                ? readerRepository.findByFullNameContainingIgnoreCase(keyword, position, sort, Limit.of(size))
+                : readerRepository.findAllBy(position, sort, Limit.of(size));
+        return KeysetPage.of(window, position);
+    }
+
+    /**
+     * Получить общее количество читателей
+     *
+     * @return количество читателей
+     */
+    public long countReaders() {
+        return readerRepository.count();
+    }
+
     /**
      * Сохранить читателя в базе данных (создание или обновление)
      *
      * @param reader читатель для сохранения
      * @throws IllegalStateException если нарушена уникальность номера билета или телефона
+     *         или читатель был изменен другим пользователем
      */
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.READERS_BY_TICKET, allEntries = true)
     public void saveReader(Reader reader) {
         if (reader.getReaderId() == null) {
-            Reader existingReader = readerRepository.findByTicketNumber(reader.getTicketNumber());
-            if (existingReader != null) {
+            if (readerRepository.findIdByTicketNumber(reader.getTicketNumber()) != null) {
                 throw new IllegalStateException("Читатель с номером билета '" +
                         reader.getTicketNumber() + "' уже существует.");
             }
 
-            existingReader = readerRepository.findByPhoneNumber(reader.getPhoneNumber());
+            Reader existingReader = readerRepository.findByPhoneNumber(reader.getPhoneNumber());
             if (existingReader != null) {
                 throw new IllegalStateException("Читатель с номером телефона '" +
                         reader.getPhoneNumber() + "' уже существует.");
             }
         }
         else {
-            Reader existingTicket = readerRepository.findByTicketNumber(reader.getTicketNumber());
-            if (existingTicket != null && !existingTicket.getReaderId().equals(reader.getReaderId())) {
+            Long existingTicketId = readerRepository.findIdByTicketNumber(reader.getTicketNumber());
+            if (existingTicketId != null && !existingTicketId.equals(reader.getReaderId())) {
                 throw new IllegalStateException("Читатель с номером билета '" +
                         reader.getTicketNumber() + "' уже существует.");
             }
@@ -66,7 +104,12 @@ public class ReaderService {
             }
         }
 
-        readerRepository.save(reader);
+        try {
+            readerRepository.saveAndFlush(reader);
+        } catch (OptimisticLockingFailureException e) {
+            throw new IllegalStateException("Читатель '" + reader.getFullName() +
+                    "' был изменен другим пользователем. Обновите страницу и повторите изменения.");
+        }
     }
 
     /**
@@ -88,18 +131,17 @@ public class ReaderService {
      * @throws IllegalStateException если у читателя есть активные выдачи или он есть в истории выдач
      */
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.READERS_BY_TICKET, allEntries = true)
     public void deleteReaderById(Long id) {
         Reader reader = getReaderById(id);
 
-        List<BookLoan> activeLoans = bookLoanRepository.findByReaderReaderIdAndReturnDateIsNull(id);
-        if (!activeLoans.isEmpty()) {
+        if (reader.hasActiveLoans()) {
             throw new IllegalStateException("Невозможно удалить читателя '" + reader.getFullName() +
                     "', так как у него есть активные выдачи книг. " +
                     "Сначала верните все книги или отмените выдачи.");
         }
 
-        List<BookLoan> allLoans = bookLoanRepository.findByReaderReaderId(id);
-        if (!allLoans.isEmpty()) {
+        if (reader.getTotalLoansCount() > 0) {
             throw new IllegalStateException("Невозможно удалить читателя '" + reader.getFullName() +
                     "', так как он есть в истории выдач. " +
                     "Для сохранения истории сначала удалите записи о выдаче.");
@@ -128,9 +170,7 @@ public class ReaderService {
      * @return true если читателя можно удалить, false если у него есть активные выдачи или он в истории выдач
      */
     public boolean canDeleteReader(Long id) {
-        List<BookLoan> activeLoans = bookLoanRepository.findByReaderReaderIdAndReturnDateIsNull(id);
-        List<BookLoan> allLoans = bookLoanRepository.findByReaderReaderId(id);
-        return activeLoans.isEmpty() && allLoans.isEmpty();
+        return getReaderById(id).getTotalLoansCount() == 0;
     }
 
     /**
@@ -160,7 +200,7 @@ public class ReaderService {
      * @return true если читатель существует, false если нет
      */
     public boolean existsByTicketNumber(String ticketNumber) {
-        return readerRepository.findByTicketNumber(ticketNumber) != null;
+        return readerRepository.findIdByTicketNumber(ticketNumber) != null;
     }
 
     /**
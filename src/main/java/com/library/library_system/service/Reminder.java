@@ -0,0 +1,40 @@
+package com.library.library_system.service;
+
+import java.time.LocalDate;
+
+/**
+ * Напоминание читателю о сроке возврата книги
+ *
+ * @param loanId идентификатор выдачи
+ * @param kind вид напоминания
+ * @param phoneNumber номер телефона читателя, на который отправляется напоминание
+ * @param readerName ФИО читателя
+ * @param title название книги
+ * @param dueDate срок возврата
+ * @param days дней до срока возврата для {@link Kind#DUE_SOON} или дней просрочки для {@link Kind#OVERDUE}
+ */
+public record Reminder(Long loanId, Kind kind, String phoneNumber, String readerName, String title,
+                       LocalDate dueDate, long days) {
+
+    /**
+     * Вид напоминания
+     */
+    public enum Kind {
+        /** Срок возврата наступает в ближайшие дни */
+        DUE_SOON,
+        /** Срок возврата прошел */
+        OVERDUE
+    }
+
+    /**
+     * @return текст сообщения для читателя
+     */
+    public String text() {
+        if (kind == Kind.OVERDUE) {
+            return readerName + ", срок возврата книги «" + title + "» истек " + dueDate +
+                    " (просрочено дней: " + days + "). Пожалуйста, верните книгу в библиотеку.";
+        }
+        return readerName + ", книгу «" + title + "» нужно вернуть " +
+                (days == 0 ? "сегодня" : "до " + dueDate) + ".";
+    }
+}
\ No newline at end of file
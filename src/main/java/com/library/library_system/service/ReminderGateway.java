@@ -0,0 +1,18 @@
+package com.library.library_system.service;
+
+/**
+ * Канал доставки напоминаний читателям (SMS, мессенджер и т.п.).
+ * По умолчанию используется {@link LogReminderGateway}; другой канал подключается
+ * объявлением бина этого типа с аннотацией {@code @Primary}.
+ */
+public interface ReminderGateway {
+
+    /**
+     * Отправить напоминание. Ограничение частоты отправки обеспечивает вызывающий
+     *
+     * @param reminder напоминание
+     * @throws RuntimeException если напоминание не удалось отправить; рассылка
+     *         останавливается и при следующем запуске продолжается с этого напоминания
+     */
+    void send(Reminder reminder);
+}
\ No newline at end of file
@@ -0,0 +1,36 @@
+package com.library.library_system.service;
+
+/**
+ * Результат возврата одной книги при пакетном возврате
+ *
+ * @param item инвентарный номер книги или идентификатор выдачи, как он был передан
+ * @param status итог возврата
+ * @param loanId идентификатор найденной активной выдачи (null если выдача не найдена)
+ * @param title название книги найденной активной выдачи (null если выдача не найдена)
+ */
+public record ReturnResult(String item, Status status, Long loanId, String title) {
+
+    /**
+     * Итог возврата одной книги
+     */
+    public enum Status {
+        /** Выдача закрыта этим возвратом */
+        RETURNED("Возвращена"),
+        /** Книга или выдача существует, но активной выдачи нет */
+        ALREADY_RETURNED("Уже возвращена"),
+        /** Книга или выдача не найдена */
+        UNKNOWN("Не найдена"),
+        /** Дата выдачи позже сегодняшнего дня, выдача не закрыта */
+        REJECTED("Дата выдачи позже даты возврата");
+
+        private final String label;
+
+        Status(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,582 @@
+package com.library.library_system.service;
+
+import com.library.library_system.config.CacheConfig;
+import com.library.library_system.config.DatabasePlatform;
+import jakarta.persistence.EntityManagerFactory;
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Генератор синтетических книг, читателей, библиотекарей и истории выдач для нагрузочных
+ * тестов, бенчмарков и локального профилирования.
+ *
+ * <p>История строится по дням от старых выдач к новым. Популярность книг и активность
+ * читателей распределены по закону Ципфа, книга выдается, только если предыдущая выдача
+ * этой книги уже закрыта, читатель берет книги только после регистрации. Часть выдач
+ * возвращается позже срока, небольшая часть просроченных не возвращается совсем;
+ * выдачи, срок возврата которых еще не наступил, остаются открытыми.</p>
+ *
+ * <p>История моделируется дважды с одним и тем же начальным значением: первый проход только
+ * считает выдачи по книгам, читателям и библиотекарям, поэтому строки записываются сразу
+ * с итоговыми счетчиками, без последующего пересчета. На PostgreSQL строки загружаются
+ * через COPY, на остальных базах - пакетными INSERT. Для десятков миллионов выдач
+ * генератору нужно около 25 байт памяти на книгу и читателя.</p>
+ *
+ * <p>При запуске приложения с {@code library.dataset.loans} больше нуля набор
+ * {@link SyntheticDataset#ofLoans} создается в пустой базе (если выдач еще нет).</p>
+ */
+@Service
+public class SyntheticDataGenerator {
+
+    private static final Logger log = LoggerFactory.getLogger(SyntheticDataGenerator.class);
+
+    private static final int CHUNK_SIZE = 20_000;
+    private static final int PROGRESS_STEP = 1_000_000;
+    private static final int DAYS_PER_YEAR = 365;
+    private static final int PICK_ATTEMPTS = 16;
+    /** Доля просроченных выдач, которые так и не были возвращены */
+    private static final double LOST_SHARE = 0.02;
+    /** Средняя задержка просроченного возврата в днях */
+    private static final double MEAN_DELAY_DAYS = 14;
+    private static final int NEVER = Integer.MAX_VALUE;
+
+    private static final String[] MALE_SURNAMES = {"Иванов", "Смирнов", "Кузнецов", "Попов", "Васильев",
+            "Петров", "Соколов", "Михайлов", "Новиков", "Федоров", "Морозов", "Волков", "Алексеев", "Лебедев",
+            "Семенов", "Егоров", "Павлов", "Козлов", "Степанов", "Николаев", "Орлов", "Андреев", "Макаров",
+            "Никитин", "Захаров", "Зайцев", "Соловьев", "Борисов", "Яковлев", "Григорьев", "Романов",
+            "Воробьев", "Сергеев", "Фролов", "Белов", "Тихонов", "Богданов", "Комаров", "Киселев",
+            "Ковалевский", "Вишневский", "Белых", "Черных", "Шевченко", "Бондаренко"};
+    private static final String[] MALE_NAMES = {"Александр", "Сергей", "Дмитрий", "Андрей", "Алексей",
+            "Максим", "Евгений", "Иван", "Михаил", "Артем", "Николай", "Владимир", "Павел", "Роман", "Олег",
+            "Кирилл", "Игорь", "Юрий", "Константин", "Виктор", "Григорий", "Федор", "Степан", "Илья"};
+    private static final String[] FEMALE_NAMES = {"Елена", "Ольга", "Наталья", "Татьяна", "Анна", "Мария",
+            "Ирина", "Светлана", "Екатерина", "Юлия", "Анастасия", "Марина", "Людмила", "Дарья", "Галина",
+            "Виктория", "Ксения", "Полина", "Алина", "Валентина", "Софья", "Вера", "Надежда", "Любовь"};
+    private static final String[][] PATRONYMICS = {{"Александрович", "Александровна"},
+            {"Сергеевич", "Сергеевна"}, {"Дмитриевич", "Дмитриевна"}, {"Андреевич", "Андреевна"},
+            {"Алексеевич", "Алексеевна"}, {"Иванович", "Ивановна"}, {"Михайлович", "Михайловна"},
+            {"Николаевич", "Николаевна"}, {"Владимирович", "Владимировна"}, {"Павлович", "Павловна"},
+            {"Викторович", "Викторовна"}, {"Юрьевич", "Юрьевна"}, {"Олегович", "Олеговна"},
+            {"Петрович", "Петровна"}, {"Федорович", "Федоровна"}, {"Григорьевич", "Григорьевна"}};
+
+    private static final String[] CLASSIC_TITLES = {"Война и мир", "Преступление и наказание",
+            "Мастер и Маргарита", "Отцы и дети", "Вишневый сад", "Мертвые души", "Капитанская дочка", "Идиот",
+            "Анна Каренина", "Обломов", "Герой нашего времени", "Евгений Онегин", "Тихий Дон", "Белая гвардия",
+            "Собачье сердце", "Двенадцать стульев", "Доктор Живаго", "Горе от ума", "Палата номер шесть"};
+    private static final String[] CLASSIC_AUTHORS = {"Толстой Лев", "Достоевский Федор", "Булгаков Михаил",
+            "Тургенев Иван", "Чехов Антон", "Гоголь Николай", "Пушкин Александр", "Гончаров Иван",
+            "Лермонтов Михаил", "Шолохов Михаил", "Пастернак Борис", "Грибоедов Александр", "Куприн Александр",
+            "Бунин Иван", "Паустовский Константин"};
+    private static final String[] NOUNS = {"Война", "Мир", "Дом", "Сад", "Дорога", "Река", "Город", "Память",
+            "Тишина", "Ветер", "Море", "Остров", "Сердце", "Тень", "Свет", "Зима", "Весна", "Ночь", "Берег",
+            "Степь", "Песня", "Звезда", "Судьба", "Дочь", "Сын", "Мастер", "Гость", "Письмо", "Время", "Огонь"};
+    private static final String[] GENITIVES = {"севера", "детства", "ветра", "моря", "реки", "города",
+            "прошлого", "надежды", "времени", "мастера", "земли", "неба", "степи", "леса", "старого дома",
+            "одного лета", "последней зимы", "белой ночи", "дальних странствий", "маленького принца"};
+    private static final String[] POSITIONS = {"Библиотекарь", "Библиотекарь", "Библиотекарь",
+            "Старший библиотекарь", "Библиограф", "Заведующий отделом"};
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DatabasePlatform databasePlatform;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private BookCatalogIndex bookCatalogIndex;
+
+    @Value("${library.dataset.loans:0}")
+    private long startupLoans;
+
+    @Value("${library.dataset.seed:1}")
+    private long startupSeed;
+
+    @Value("${library.checkout.loan-days:14}")
+    private int loanDays = 14;
+
+    /**
+     * Итоги генерации
+     *
+     * @param books количество созданных книг
+     * @param readers количество созданных читателей
+     * @param librarians количество созданных библиотекарей
+     * @param loans количество созданных выдач
+     * @param openLoans из них не возвращено
+     * @param overdueLoans из них не возвращено после срока
+     * @param firstLoanId идентификатор первой (самой старой) выдачи
+     * @param millis время генерации в миллисекундах
+     */
+    public record Summary(int books, int readers, int librarians, long loans, long openLoans, long overdueLoans,
+                          long firstLoanId, long millis) {}
+
+    /**
+     * Создать набор при запуске приложения, если задан library.dataset.loans и выдач в базе еще нет
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void generateOnStartup() {
+        if (startupLoans <= 0) {
+            return;
+        }
+        Long existing = jdbcTemplate.queryForObject("select count(*) from book_loans", Long.class);
+        if (existing != null && existing > 0) {
+            log.info("Синтетические данные не созданы: в базе уже есть {} выдач", existing);
+            return;
+        }
+        generate(SyntheticDataset.ofLoans(startupLoans, startupSeed), LocalDate.now());
+    }
+
+    /**
+     * Создать набор данных. Номера книг, билетов и библиотекарей начинаются с префикса набора,
+     * идентификаторы выдач - после наибольшего занятого, последовательность выдач сдвигается за них.
+     * Кэши сущностей сбрасываются, новые книги добавляются в индекс каталога.
+     *
+     * @param dataset параметры набора
+     * @param today последний день истории выдач
+     * @return итоги генерации
+     * @throws IllegalStateException если набор с таким префиксом уже создан
+     * @throws IllegalArgumentException если книг не хватает, чтобы выдать их столько раз
+     */
+    public Summary generate(SyntheticDataset dataset, LocalDate today) {
+        long started = System.nanoTime();
+        Integer sameNumbers = jdbcTemplate.queryForObject(
+                "select count(*) from books where book_number like ?", Integer.class, dataset.prefix() + "B-%");
+        if (sameNumbers != null && sameNumbers > 0) {
+            throw new IllegalStateException("Набор с префиксом " + dataset.prefix() + " уже создан");
+        }
+        log.info("Генерация синтетических данных: {} выдач, {} книг, {} читателей, {} библиотекарей",
+                dataset.loans(), dataset.books(), dataset.readers(), dataset.librarians());
+
+        History history = new History(dataset, today, loanDays);
+        Counts counts = new Counts(dataset, today);
+        history.run(counts);
+
+        insertLibrarians(dataset, counts);
+        insertReaders(dataset, counts, history);
+        insertBooks(dataset, counts, today);
+        long[] librarianIds = idsByPrefix("librarian_id", "librarians", "librarian_number", dataset.prefix() + "L-",
+                dataset.librarians());
+        long[] readerIds = idsByPrefix("reader_id", "readers", "ticket_number", dataset.prefix() + "R-",
+                dataset.readers());
+        long[] bookIds = idsByPrefix("book_id", "books", "book_number", dataset.prefix() + "B-", dataset.books());
+
+        long firstLoanId = nextLoanId();
+        Rows loans = rows("book_loans", "loan_id", "book_id", "reader_id", "librarian_id", "loan_date", "due_date",
+                "return_date", "version");
+        new History(dataset, today, loanDays).run((index, book, reader, librarian, loanDay, dueDay, returnDay) -> {
+            loans.add(firstLoanId + index, bookIds[book], readerIds[reader], librarianIds[librarian],
+                    LocalDate.ofEpochDay(loanDay), LocalDate.ofEpochDay(dueDay),
+                    returnDay > today.toEpochDay() ? null : LocalDate.ofEpochDay(returnDay), 0);
+            if ((index + 1) % PROGRESS_STEP == 0) {
+                log.info("Записано {} из {} выдач", index + 1, dataset.loans());
+            }
+        });
+        loans.flush();
+        jdbcTemplate.execute("alter sequence book_loans_seq restart with " + (firstLoanId + dataset.loans() + 50));
+
+        jdbcTemplate.execute("analyze");
+        entityManagerFactory.getCache().evictAll();
+        CacheConfig.CACHE_NAMES.forEach(name -> cacheManager.getCache(name).clear());
+        bookCatalogIndex.build();
+
+        Summary summary = new Summary(dataset.books(), dataset.readers(), dataset.librarians(), dataset.loans(),
+                counts.openLoans, counts.overdueLoans, firstLoanId, (System.nanoTime() - started) / 1_000_000);
+        log.info("Синтетические данные созданы: {}", summary);
+        return summary;
+    }
+
+    private void insertLibrarians(SyntheticDataset dataset, Counts counts) {
+        SplittableRandom random = new SplittableRandom(dataset.seed() * 31 + 1);
+        Rows rows = rows("librarians", "librarian_number", "full_name", "position", "loans_count", "version");
+        for (int i = 0; i < dataset.librarians(); i++) {
+            rows.add(number(dataset.prefix() + "L-", i), personName(random),
+                    POSITIONS[random.nextInt(POSITIONS.length)], counts.librarianTotal[i], 0);
+        }
+        rows.flush();
+    }
+
+    private void insertReaders(SyntheticDataset dataset, Counts counts, History history) {
+        SplittableRandom random = new SplittableRandom(dataset.seed() * 31 + 2);
+        long phoneOffset = Math.floorMod(dataset.prefix().hashCode() * 7_919L, 1_000_000_000L);
+        Rows rows = rows("readers", "ticket_number", "full_name", "phone_number", "registration_date",
+                "active_loans_count", "total_loans_count", "version");
+        for (int i = 0; i < dataset.readers(); i++) {
+            rows.add(number(dataset.prefix() + "R-", i), personName(random), phone(i, phoneOffset),
+                    LocalDate.ofEpochDay(history.registrationDay(i, random)),
+                    counts.readerActive[i], counts.readerTotal[i], 0);
+        }
+        rows.flush();
+    }
+
+    private void insertBooks(SyntheticDataset dataset, Counts counts, LocalDate today) {
+        SplittableRandom random = new SplittableRandom(dataset.seed() * 31 + 3);
+        int lastYear = today.minusYears(dataset.years()).getYear();
+        Rows rows = rows("books", "book_number", "title", "author", "publication_year",
+                "active_loans_count", "total_loans_count", "version");
+        for (int i = 0; i < dataset.books(); i++) {
+            int age = (int) (-Math.log(1 - random.nextDouble()) * 30);
+            rows.add(number(dataset.prefix() + "B-", i), title(random), author(random),
+                    Math.max(1800, lastYear - age), counts.bookActive[i], counts.bookTotal[i], 0);
+        }
+        rows.flush();
+    }
+
+    private long[] idsByPrefix(String idColumn, String table, String numberColumn, String prefix, int expected) {
+        List<Long> ids = jdbcTemplate.queryForList("select " + idColumn + " from " + table + " where "
+                + numberColumn + " like ? order by " + idColumn, Long.class, prefix + "%");
+        if (ids.size() != expected) {
+            throw new IllegalStateException("Ожидалось " + expected + " строк " + table + " с номером " + prefix
+                    + ", найдено " + ids.size());
+        }
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * Первый свободный идентификатор выдачи: после занятых строками и выделенных последовательностью
+     */
+    private long nextLoanId() {
+        Long maxId = jdbcTemplate.queryForObject("select coalesce(max(loan_id), 0) from book_loans", Long.class);
+        Long sequence = jdbcTemplate.queryForObject("select nextval('book_loans_seq')", Long.class);
+        return Math.max(maxId, sequence) + 1;
+    }
+
+    private static String number(String prefix, int index) {
+        return String.format("%s%08d", prefix, index + 1);
+    }
+
+    /**
+     * Уникальный в пределах набора мобильный номер: умножение на число, взаимно простое
+     * с 10^9, переставляет номера без повторов
+     */
+    private static String phone(int index, long offset) {
+        long digits = Math.floorMod(index * 387_420_489L + offset, 1_000_000_000L);
+        String value = String.format("%09d", digits);
+        return "+7 (9" + value.substring(0, 2) + ") " + value.substring(2, 5) + "-"
+                + value.substring(5, 7) + "-" + value.substring(7);
+    }
+
+    private static String personName(SplittableRandom random) {
+        boolean female = random.nextBoolean();
+        String surname = MALE_SURNAMES[random.nextInt(MALE_SURNAMES.length)];
+        String[] patronymic = PATRONYMICS[random.nextInt(PATRONYMICS.length)];
+        if (!female) {
+            return surname + " " + MALE_NAMES[random.nextInt(MALE_NAMES.length)] + " " + patronymic[0];
+        }
+        return femaleSurname(surname) + " " + FEMALE_NAMES[random.nextInt(FEMALE_NAMES.length)] + " " + patronymic[1];
+    }
+
+    private static String femaleSurname(String surname) {
+        if (surname.endsWith("ский") || surname.endsWith("цкий")) {
+            return surname.substring(0, surname.length() - 2) + "ая";
+        }
+        if (surname.endsWith("ов") || surname.endsWith("ев") || surname.endsWith("ин")) {
+            return surname + "а";
+        }
+        return surname;
+    }
+
+    private static String title(SplittableRandom random) {
+        double kind = random.nextDouble();
+        String title;
+        if (kind < 0.2) {
+            title = CLASSIC_TITLES[random.nextInt(CLASSIC_TITLES.length)];
+        } else if (kind < 0.6) {
+            title = NOUNS[random.nextInt(NOUNS.length)] + " и " + NOUNS[random.nextInt(NOUNS.length)].toLowerCase();
+        } else {
+            title = NOUNS[random.nextInt(NOUNS.length)] + " " + GENITIVES[random.nextInt(GENITIVES.length)];
+        }
+        return random.nextInt(10) == 0 ? title + ", том " + (1 + random.nextInt(5)) : title;
+    }
+
+    private static String author(SplittableRandom random) {
+        if (random.nextInt(10) < 3) {
+            return CLASSIC_AUTHORS[random.nextInt(CLASSIC_AUTHORS.length)];
+        }
+        String surname = MALE_SURNAMES[random.nextInt(MALE_SURNAMES.length)];
+        return random.nextBoolean()
+                ? surname + " " + MALE_NAMES[random.nextInt(MALE_NAMES.length)]
+                : femaleSurname(surname) + " " + FEMALE_NAMES[random.nextInt(FEMALE_NAMES.length)];
+    }
+
+    private Rows rows(String table, String... columns) {
+        return databasePlatform.isPostgres() ? new CopyRows(table, columns) : new BatchRows(table, columns);
+    }
+
+    /**
+     * Получатель выдач моделируемой истории. Дни - номера дней от 1970-01-01
+     */
+    @FunctionalInterface
+    private interface LoanSink {
+        void loan(long index, int book, int reader, int librarian, int loanDay, int dueDay, int returnDay);
+    }
+
+    /**
+     * Моделирование истории выдач. Один экземпляр - один проход, каждый проход
+     * с теми же параметрами выдает ту же последовательность выдач.
+     */
+    private static final class History {
+
+        private final SyntheticDataset dataset;
+        private final int loanDays;
+        private final int today;
+        private final int firstDay;
+        private final int days;
+        private final int earlyReaders;
+        private final double[] bookWeights;
+        private final int[] bookByRank;
+        private final double[] readerWeights;
+        private final int[] busyUntil;
+        private final SplittableRandom random;
+
+        History(SyntheticDataset dataset, LocalDate today, int loanDays) {
+            this.dataset = dataset;
+            this.loanDays = loanDays;
+            this.today = (int) today.toEpochDay();
+            this.days = dataset.years() * DAYS_PER_YEAR;
+            this.firstDay = this.today - days + 1;
+            this.earlyReaders = dataset.readers() / 2;
+            this.bookWeights = cumulativeZipf(dataset.books(), dataset.bookSkew());
+            this.readerWeights = cumulativeZipf(dataset.readers(), dataset.readerSkew());
+            this.busyUntil = new int[dataset.books()];
+            this.random = new SplittableRandom(dataset.seed());
+
+            // Самые популярные книги разбросаны по каталогу, а не стоят первыми
+            this.bookByRank = new int[dataset.books()];
+            for (int i = 0; i < bookByRank.length; i++) {
+                bookByRank[i] = i;
+            }
+            SplittableRandom shuffle = new SplittableRandom(dataset.seed() * 31 + 4);
+            for (int i = bookByRank.length - 1; i > 0; i--) {
+                int j = shuffle.nextInt(i + 1);
+                int swap = bookByRank[i];
+                bookByRank[i] = bookByRank[j];
+                bookByRank[j] = swap;
+            }
+        }
+
+        void run(LoanSink sink) {
+            for (long i = 0; i < dataset.loans(); i++) {
+                int loanDay = firstDay + (int) (i * days / dataset.loans());
+                int book = pickBook(loanDay);
+                int reader = sample(readerWeights, registeredBy(loanDay));
+                int librarian = random.nextInt(dataset.librarians());
+                int dueDay = loanDay + loanDays;
+                int returnDay;
+                if (random.nextDouble() >= dataset.overdueRatio()) {
+                    returnDay = loanDay + 1 + random.nextInt(loanDays);
+                } else if (random.nextDouble() < LOST_SHARE) {
+                    returnDay = NEVER;
+                } else {
+                    returnDay = dueDay + 1 + (int) (-Math.log(1 - random.nextDouble()) * MEAN_DELAY_DAYS);
+                }
+                busyUntil[book] = returnDay;
+                sink.loan(i, book, reader, librarian, loanDay, dueDay, returnDay);
+            }
+        }
+
+        /**
+         * День регистрации читателя: первая половина читателей записалась до начала истории,
+         * остальные - равномерно в ее течение, в порядке номеров
+         */
+        int registrationDay(int reader, SplittableRandom random) {
+            if (reader < earlyReaders) {
+                return firstDay - 1 - random.nextInt(10 * DAYS_PER_YEAR);
+            }
+            return firstDay + (int) ((long) (reader - earlyReaders) * days / (dataset.readers() - earlyReaders));
+        }
+
+        private int registeredBy(int day) {
+            int late = dataset.readers() - earlyReaders;
+            return Math.min(dataset.readers(), earlyReaders + (int) ((long) (day - firstDay) * late / days) + 1);
+        }
+
+        private int pickBook(int day) {
+            int rank = 0;
+            for (int attempt = 0; attempt < PICK_ATTEMPTS; attempt++) {
+                rank = sample(bookWeights, bookWeights.length);
+                if (busyUntil[bookByRank[rank]] <= day) {
+                    return bookByRank[rank];
+                }
+            }
+            for (int step = 1; step < bookByRank.length; step++) {
+                int book = bookByRank[(rank + step) % bookByRank.length];
+                if (busyUntil[book] <= day) {
+                    return book;
+                }
+            }
+            throw new IllegalArgumentException("Книг (" + dataset.books() + ") не хватает, чтобы выдать "
+                    + dataset.loans() + " раз за " + dataset.years() + " г.");
+        }
+
+        private int sample(double[] cumulative, int size) {
+            double value = random.nextDouble() * cumulative[size - 1];
+            int index = Arrays.binarySearch(cumulative, 0, size, value);
+            return Math.min(size - 1, index >= 0 ? index + 1 : -index - 1);
+        }
+
+        private static double[] cumulativeZipf(int size, double skew) {
+            double[] cumulative = new double[size];
+            double sum = 0;
+            for (int rank = 0; rank < size; rank++) {
+                sum += 1 / Math.pow(rank + 1, skew);
+                cumulative[rank] = sum;
+            }
+            return cumulative;
+        }
+    }
+
+    /**
+     * Первый проход: количество выдач по книгам, читателям и библиотекарям
+     */
+    private static final class Counts implements LoanSink {
+
+        private final int today;
+        private final int[] bookActive;
+        private final int[] bookTotal;
+        private final int[] readerActive;
+        private final int[] readerTotal;
+        private final int[] librarianTotal;
+        private long openLoans;
+        private long overdueLoans;
+
+        Counts(SyntheticDataset dataset, LocalDate today) {
+            this.today = (int) today.toEpochDay();
+            bookActive = new int[dataset.books()];
+            bookTotal = new int[dataset.books()];
+            readerActive = new int[dataset.readers()];
+            readerTotal = new int[dataset.readers()];
+            librarianTotal = new int[dataset.librarians()];
+        }
+
+        @Override
+        public void loan(long index, int book, int reader, int librarian, int loanDay, int dueDay, int returnDay) {
+            bookTotal[book]++;
+            readerTotal[reader]++;
+            librarianTotal[librarian]++;
+            if (returnDay > today) {
+                bookActive[book]++;
+                readerActive[reader]++;
+                openLoans++;
+                if (dueDay < today) {
+                    overdueLoans++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Пакетная запись строк таблицы
+     */
+    private abstract static class Rows {
+
+        private int size;
+
+        void add(Object... values) {
+            append(values);
+            if (++size == CHUNK_SIZE) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (size > 0) {
+                write();
+                size = 0;
+            }
+        }
+
+        protected abstract void append(Object[] values);
+
+        protected abstract void write();
+    }
+
+    private final class BatchRows extends Rows {
+
+        private final String sql;
+        private final List<Object[]> batch = new ArrayList<>(CHUNK_SIZE);
+
+        BatchRows(String table, String[] columns) {
+            this.sql = "insert into " + table + " (" + String.join(", ", columns) + ") values ("
+                    + String.join(", ", Collections.nCopies(columns.length, "?")) + ")";
+        }
+
+        @Override
+        protected void append(Object[] values) {
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] instanceof LocalDate date) {
+                    values[i] = Date.valueOf(date);
+                }
+            }
+            batch.add(values);
+        }
+
+        @Override
+        protected void write() {
+            jdbcTemplate.batchUpdate(sql, batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Запись через COPY в текстовом формате PostgreSQL. Генерируемые значения не содержат
+     * табуляций, переводов строк и обратной косой черты, поэтому экранирование не нужно
+     */
+    private final class CopyRows extends Rows {
+
+        private final String sql;
+        private final StringBuilder buffer = new StringBuilder();
+
+        CopyRows(String table, String[] columns) {
+            this.sql = "copy " + table + " (" + String.join(", ", columns) + ") from stdin";
+        }
+
+        @Override
+        protected void append(Object[] values) {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    buffer.append('\t');
+                }
+                buffer.append(values[i] == null ? "\\N" : values[i]);
+            }
+            buffer.append('\n');
+        }
+
+        @Override
+        protected void write() {
+            String data = buffer.toString();
+            buffer.setLength(0);
+            jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+                try {
+                    return connection.unwrap(PGConnection.class).getCopyAPI().copyIn(sql, new StringReader(data));
+                } catch (IOException e) {
+                    throw new SQLException("Не удалось передать строки " + sql, e);
+                }
+            });
+        }
+    }
+}
\ No newline at end of file
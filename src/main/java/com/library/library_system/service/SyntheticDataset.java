@@ -0,0 +1,79 @@
+package com.library.library_system.service;
+
+/**
+ * Параметры синтетического набора данных для {@link SyntheticDataGenerator}.
+ * Один и тот же набор параметров всегда дает одни и те же строки.
+ *
+ * @param seed начальное значение генератора случайных чисел
+ * @param prefix префикс инвентарных номеров, читательских билетов и табельных номеров
+ * @param books количество книг
+ * @param readers количество читателей
+ * @param librarians количество библиотекарей
+ * @param loans количество выдач в истории
+ * @param years длина истории выдач в годах, история заканчивается текущим днем
+ * @param overdueRatio доля выдач, возвращенных позже срока или не возвращенных вовсе
+ * @param bookSkew показатель распределения Ципфа для популярности книг (0 - равномерно)
+ * @param readerSkew показатель распределения Ципфа для активности читателей (0 - равномерно)
+ */
+public record SyntheticDataset(long seed, String prefix, int books, int readers, int librarians, long loans,
+                               int years, double overdueRatio, double bookSkew, double readerSkew) {
+
+    public SyntheticDataset {
+        if (prefix == null || prefix.isBlank()) {
+            throw new IllegalArgumentException("Префикс номеров обязателен");
+        }
+        if (books <= 0 || readers <= 0 || librarians <= 0 || loans < 0 || years <= 0) {
+            throw new IllegalArgumentException("Количество строк и длина истории должны быть положительными");
+        }
+        if (overdueRatio < 0 || overdueRatio > 1) {
+            throw new IllegalArgumentException("Доля просроченных выдач должна быть от 0 до 1");
+        }
+        if (bookSkew < 0 || readerSkew < 0) {
+            throw new IllegalArgumentException("Показатель распределения Ципфа не может быть отрицательным");
+        }
+    }
+
+    /**
+     * Набор с пропорциями небольшой городской библиотеки: книга на 10 выдач, читатель
+     * на 25 выдач, библиотекарь на 100 000 выдач (от 10 до 200), история за три года,
+     * 12% выдач просрочены
+     *
+     * @param loans количество выдач в истории
+     * @param seed начальное значение генератора случайных чисел
+     * @return параметры набора
+     */
+    public static SyntheticDataset ofLoans(long loans, long seed) {
+        return new SyntheticDataset(seed, "S", (int) Math.max(1_000, loans / 10), (int) Math.max(500, loans / 25),
+                (int) Math.min(200, Math.max(10, loans / 100_000)), loans, 3, 0.12, 1.0, 0.8);
+    }
+
+    public SyntheticDataset withPrefix(String prefix) {
+        return new SyntheticDataset(seed, prefix, books, readers, librarians, loans, years, overdueRatio,
+                bookSkew, readerSkew);
+    }
+
+    public SyntheticDataset withBooks(int books) {
+        return new SyntheticDataset(seed, prefix, books, readers, librarians, loans, years, overdueRatio,
+                bookSkew, readerSkew);
+    }
+
+    public SyntheticDataset withReaders(int readers) {
+        return new SyntheticDataset(seed, prefix, books, readers, librarians, loans, years, overdueRatio,
+                bookSkew, readerSkew);
+    }
+
+    public SyntheticDataset withLibrarians(int librarians) {
+        return new SyntheticDataset(seed, prefix, books, readers, librarians, loans, years, overdueRatio,
+                bookSkew, readerSkew);
+    }
+
+    public SyntheticDataset withYears(int years) {
+        return new SyntheticDataset(seed, prefix, books, readers, librarians, loans, years, overdueRatio,
+                bookSkew, readerSkew);
+    }
+
+    public SyntheticDataset withOverdueRatio(double overdueRatio) {
+        return new SyntheticDataset(seed, prefix, books, readers, librarians, loans, years, overdueRatio,
+                bookSkew, readerSkew);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,87 @@
+-- Таблицы библиотеки в том виде, в каком их описывают сущности.
+-- Базы, созданные раньше через spring.jpa.hibernate.ddl-auto=update, уже содержат таблицы,
+-- поэтому таблицы и последовательность создаются с if not exists, а столбцы, которых в таких
+-- таблицах может не быть, добавляются отдельно.
+
+create sequence if not exists book_loans_seq start with 1 increment by 50;
+
+create table if not exists books (
+    book_id bigint generated by default as identity primary key,
+    book_number varchar(255) not null unique,
+    title varchar(255) not null,
+    author varchar(255) not null,
+    publication_year integer not null check (publication_year >= 1500),
+    active_loans_count integer default 0 not null,
+    total_loans_count integer default 0 not null,
+    version bigint default 0 not null
+);
+
+create table if not exists readers (
+    reader_id bigint generated by default as identity primary key,
+    ticket_number varchar(255) not null unique,
+    full_name varchar(255) not null,
+    phone_number varchar(255) not null unique,
+    registration_date date,
+    active_loans_count integer default 0 not null,
+    total_loans_count integer default 0 not null,
+    version bigint default 0 not null
+);
+
+create table if not exists librarians (
+    librarian_id bigint generated by default as identity primary key,
+    librarian_number varchar(255) not null unique,
+    full_name varchar(255) not null,
+    position varchar(255) not null,
+    loans_count integer default 0 not null,
+    version bigint default 0 not null
+);
+
+create table if not exists book_loans (
+    loan_id bigint primary key,
+    book_id bigint not null references books,
+    reader_id bigint not null references readers,
+    librarian_id bigint not null references librarians,
+    loan_date date not null,
+    due_date date not null,
+    return_date date,
+    version bigint default 0 not null
+);
+
+create table if not exists reminder_runs (
+    run_date date primary key,
+    last_due_date date,
+    last_loan_id bigint,
+    due_soon_sent integer not null,
+    overdue_sent integer not null,
+    completed boolean not null,
+    updated_at timestamp(6) not null,
+    version bigint default 0 not null
+);
+
+alter table books add column if not exists active_loans_count integer default 0 not null;
+alter table books add column if not exists total_loans_count integer default 0 not null;
+alter table books add column if not exists version bigint default 0 not null;
+alter table readers add column if not exists active_loans_count integer default 0 not null;
+alter table readers add column if not exists total_loans_count integer default 0 not null;
+alter table readers add column if not exists version bigint default 0 not null;
+alter table librarians add column if not exists loans_count integer default 0 not null;
+alter table librarians add column if not exists version bigint default 0 not null;
+alter table book_loans add column if not exists version bigint default 0 not null;
+alter table reminder_runs add column if not exists version bigint default 0 not null;
+
+-- Счетчики выдач в принятых базах заполняем по уже оформленным выдачам
+-- (так же их пересчитывают recalculateLoanCounters репозиториев).
+update books set
+    active_loans_count = (select count(*) from book_loans l where l.book_id = books.book_id and l.return_date is null),
+    total_loans_count = (select count(*) from book_loans l where l.book_id = books.book_id);
+update readers set
+    active_loans_count = (select count(*) from book_loans l where l.reader_id = readers.reader_id and l.return_date is null),
+    total_loans_count = (select count(*) from book_loans l where l.reader_id = readers.reader_id);
+update librarians set
+    loans_count = (select count(*) from book_loans l where l.librarian_id = librarians.librarian_id);
+
+-- Выдачи, созданные до перехода на последовательность, получали идентификаторы из identity.
+-- Сдвигаем последовательность за максимальный идентификатор с запасом на блок Hibernate (50).
+select setval('book_loans_seq', greatest(
+    (select coalesce(max(loan_id), 0) from book_loans) + 50,
+    (select last_value from book_loans_seq)));
\ No newline at end of file
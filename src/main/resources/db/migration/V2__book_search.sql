@@ -0,0 +1,16 @@
+-- Поиск по каталогу (BookSearchRepositoryImpl): вычисляемый tsvector по названию и автору
+-- в русской и английской конфигурациях и триграммные индексы для подстрок и опечаток.
+
+create extension if not exists pg_trgm;
+
+alter table books add column if not exists search_vector tsvector
+    generated always as (
+        setweight(to_tsvector('russian', coalesce(title, '')), 'A') ||
+        setweight(to_tsvector('english', coalesce(title, '')), 'A') ||
+        setweight(to_tsvector('russian', coalesce(author, '')), 'B') ||
+        setweight(to_tsvector('english', coalesce(author, '')), 'B')
+    ) stored;
+
+create index if not exists books_search_vector_idx on books using gin (search_vector);
+create index if not exists books_title_trgm_idx on books using gin (title gin_trgm_ops);
+create index if not exists books_author_trgm_idx on books using gin (author gin_trgm_ops);
\ No newline at end of file
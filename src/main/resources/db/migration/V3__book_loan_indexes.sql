@@ -0,0 +1,29 @@
+-- Индексы выдач под методы BookLoanRepository. Уникальные индексы книг, читателей
+-- и библиотекарей по номерам создаются вместе с таблицами.
+
+-- Не больше одной невозвращенной выдачи на книгу; обслуживает также
+-- findByBookBookIdAndReturnDateIsNull и findOpenForUpdateByBookNumbers.
+create unique index if not exists book_loans_open_book_uidx on book_loans (book_id) where return_date is null;
+
+-- findByBookBookId, countLoansByBookIds и проверка внешнего ключа при удалении книги.
+create index if not exists book_loans_book_idx on book_loans (book_id, return_date);
+
+-- findByReaderReaderId[AndReturnDateIsNull], countLoansByReaderIds, удаление читателя.
+create index if not exists book_loans_reader_idx on book_loans (reader_id, return_date);
+
+-- findByLibrarianLibrarianId, countLoansByLibrarianIds, удаление библиотекаря.
+create index if not exists book_loans_librarian_idx on book_loans (librarian_id);
+
+-- findByLoanDateBetween, выгрузка за период и страницы списка выдач (order by loan_date desc, loan_id desc).
+create index if not exists book_loans_loan_date_idx on book_loans (loan_date, loan_id);
+
+-- Страницы активных выдач: тот же порядок, но только по невозвращенным.
+create index if not exists book_loans_open_loan_date_idx on book_loans (loan_date, loan_id) where return_date is null;
+
+-- Просроченные выдачи и напоминания (findByReturnDateIsNullAndDueDateBefore, findReminderCandidates):
+-- ключевой набор (due_date, loan_id) среди невозвращенных.
+create index if not exists book_loans_open_due_idx on book_loans (due_date, loan_id) where return_date is null;
+
+-- Индекс, который ddl-auto=update создавал по прежнему описанию сущности; его заменяет
+-- частичный book_loans_open_due_idx.
+drop index if exists book_loans_return_due_idx;
\ No newline at end of file
@@ -0,0 +1,7 @@
+-- День последнего напоминания по выдаче: рассылка OverdueReminderService отправляет
+-- напоминание о скором сроке возврата один раз, а о просрочке - с заданным интервалом.
+alter table book_loans add column if not exists last_reminded_on date;
+
+-- Позиция рассылки за день больше не нужна: отправленные напоминания отмечаются на выдачах.
+alter table reminder_runs drop column if exists last_due_date;
+alter table reminder_runs drop column if exists last_loan_id;
\ No newline at end of file
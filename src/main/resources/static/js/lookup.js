@@ -0,0 +1,93 @@
+/**
+ * Подсказки с постраничной подгрузкой для полей выбора книги, читателя и библиотекаря.
+ * Поле .lookup-input с атрибутом data-target записывает идентификатор выбранного варианта
+ * в скрытое поле с этим id; для другого поведения вызовите attachLookup(input, onSelect).
+ */
+function attachLookup(input, onSelect) {
+    const results = input.parentElement.querySelector('.lookup-results');
+    const available = input.dataset.available ? document.getElementById(input.dataset.available) : null;
+    let timer = null;
+    let page = 0;
+    let request = 0;
+
+    function load(append) {
+        const url = new URL(input.dataset.url, window.location.origin);
+        url.searchParams.set('q', input.value.trim());
+        url.searchParams.set('page', page);
+        if (available) {
+            url.searchParams.set('availableOnly', available.checked);
+        }
+        const current = ++request;
+        fetch(url)
+            .then(function(response) { return response.json(); })
+            .then(function(data) {
+                if (current !== request) {
+                    return;
+                }
+                if (!append) {
+                    results.innerHTML = '';
+                }
+                const more = results.querySelector('.lookup-more');
+                if (more) {
+                    more.remove();
+                }
+                data.items.forEach(function(item) {
+                    const li = document.createElement('li');
+                    li.textContent = item.label;
+                    li.addEventListener('mousedown', function(e) {
+                        e.preventDefault();
+                        results.innerHTML = '';
+                        onSelect(item);
+                    });
+                    results.appendChild(li);
+                });
+                if (data.items.length === 0 && !append) {
+                    const li = document.createElement('li');
+                    li.className = 'lookup-empty';
+                    li.textContent = 'Ничего не найдено';
+                    results.appendChild(li);
+                }
+                if (data.hasNext) {
+                    const li = document.createElement('li');
+                    li.className = 'lookup-more';
+                    li.textContent = 'Показать еще...';
+                    li.addEventListener('mousedown', function(e) {
+                        e.preventDefault();
+                        page++;
+                        load(true);
+                    });
+                    results.appendChild(li);
+                }
+            });
+    }
+
+    function search() {
+        clearTimeout(timer);
+        timer = setTimeout(function() {
+            page = 0;
+            load(false);
+        }, 250);
+    }
+
+    input.addEventListener('input', search);
+    input.addEventListener('focus', search);
+    input.addEventListener('blur', function() {
+        clearTimeout(timer);
+        request++;
+        results.innerHTML = '';
+    });
+    if (available) {
+        available.addEventListener('change', search);
+    }
+}
+
+document.querySelectorAll('.lookup-input[data-target]').forEach(function(input) {
+    const target = document.getElementById(input.dataset.target);
+    input.addEventListener('input', function() {
+        target.value = '';
+    });
+    attachLookup(input, function(item) {
+        target.value = item.id;
+        input.value = item.label;
+    });
+});
\ No newline at end of file
@@ -0,0 +1,110 @@
+package com.library.library_system;
+
+import com.library.library_system.entity.Book;
+import com.library.library_system.entity.BookLoan;
+import com.library.library_system.entity.Librarian;
+import com.library.library_system.entity.Reader;
+import com.library.library_system.repository.BookLoanRepository;
+import com.library.library_system.repository.BookRepository;
+import com.library.library_system.repository.LibrarianRepository;
+import com.library.library_system.repository.ReaderRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestComponent;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * Тестовые данные библиотеки: книги, читатели, библиотекари и выдачи, а также очистка
+ * всех этих таблиц после теста. Подключается к тесту через {@code @Import(LibraryTestData.class)}.
+ */
+@TestComponent
+public class LibraryTestData {
+
+	@Autowired
+	private BookRepository bookRepository;
+
+	@Autowired
+	private ReaderRepository readerRepository;
+
+	@Autowired
+	private LibrarianRepository librarianRepository;
+
+	@Autowired
+	private BookLoanRepository bookLoanRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	public Book book(String bookNumber, String title, String author, int publicationYear) {
+		return bookRepository.save(new Book(bookNumber, title, author, publicationYear));
+	}
+
+	/**
+	 * Сохранить книги с номерами prefix0, prefix1, ... и названиями "Книга 0", "Книга 1", ...
+	 *
+	 * @param prefix начало инвентарного номера
+	 * @param count количество книг
+	 * @return сохраненные книги в порядке номеров
+	 */
+	public List<Book> books(String prefix, int count) {
+		List<Book> books = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			books.add(new Book(prefix + i, "Книга " + i, "Автор", 2000));
+		}
+		return bookRepository.saveAll(books);
+	}
+
+	public Reader reader(String ticketNumber, String fullName, String phoneNumber) {
+		return readerRepository.save(new Reader(ticketNumber, fullName, phoneNumber));
+	}
+
+	public Librarian librarian(String librarianNumber, String fullName) {
+		return librarianRepository.save(new Librarian(librarianNumber, fullName, "Библиотекарь"));
+	}
+
+	/**
+	 * Сохранить выдачи, каждую со своей книгой (B-i), читателем (R-i) и библиотекарем (L-i).
+	 * Выдача i оформлена i дней назад со сроком возврата через 7 - i дней.
+	 *
+	 * @param count количество выдач
+	 * @param returned какие выдачи возвращены сегодня
+	 * @return сохраненные выдачи в порядке номеров
+	 */
+	public List<BookLoan> loans(int count, IntPredicate returned) {
+		LocalDate today = LocalDate.now();
+		List<BookLoan> loans = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			Book book = book("B-" + i, "Книга " + i, "Автор " + i, 2000);
+			Reader reader = reader("R-" + i, "Читатель " + i, "+7 900 000-00-" + i);
+			Librarian librarian = librarian("L-" + i, "Библиотекарь " + i);
+			BookLoan loan = new BookLoan(book, reader, librarian, today.minusDays(i), today.plusDays(7 - i));
+			if (returned.test(i)) {
+				loan.setReturnDate(today);
+			}
+			loans.add(loan);
+		}
+		return bookLoanRepository.saveAll(loans);
+	}
+
+	/**
+	 * Удалить все выдачи, книги, читателей и библиотекарей. Массовое удаление через Hibernate
+	 * заодно очищает кэш второго уровня и кэш запросов по этим сущностям.
+	 */
+	public void deleteAll() {
+		transactionTemplate.executeWithoutResult(status -> {
+			entityManager.createQuery("delete from BookLoan").executeUpdate();
+			entityManager.createQuery("delete from Book").executeUpdate();
+			entityManager.createQuery("delete from Reader").executeUpdate();
+			entityManager.createQuery("delete from Librarian").executeUpdate();
+		});
+	}
+}
@@ -0,0 +1,100 @@
+package com.library.library_system;
+
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * PostgreSQL для тестов того, что не проверить на H2: миграций Flyway, поиска по search_vector
+ * и триграммам, частичных индексов и планов запросов к ним.
+ *
+ * <p>Сервер задается системными свойствами library.test.postgres.url (адрес любой существующей базы),
+ * library.test.postgres.username и library.test.postgres.password; пользователю нужно право создавать базы.
+ * Без них через Testcontainers запускается контейнер postgres:16. Если нет ни сервера, ни Docker,
+ * тесты с {@code @EnabledIf(PostgresTestDatabase.AVAILABLE)} пропускаются.
+ * Каждый тестовый класс работает в своей пустой базе.</p>
+ */
+public final class PostgresTestDatabase {
+
+	/**
+	 * Условие для {@code @EnabledIf}
+	 */
+	public static final String AVAILABLE = "com.library.library_system.PostgresTestDatabase#isAvailable";
+
+	private static final String URL = "library.test.postgres.url";
+	private static final String USERNAME = "library.test.postgres.username";
+	private static final String PASSWORD = "library.test.postgres.password";
+
+	private static final Map<String, String> DATABASES = new HashMap<>();
+	private static PostgreSQLContainer<?> container;
+
+	private PostgresTestDatabase() {
+	}
+
+	/**
+	 * @return true, если задан сервер PostgreSQL или доступен Docker
+	 */
+	public static boolean isAvailable() {
+		return System.getProperty(URL) != null || DockerClientFactory.instance().isDockerAvailable();
+	}
+
+	/**
+	 * Подключить контекст приложения к отдельной базе. Схему, как и в рабочей конфигурации,
+	 * создают миграции Flyway, а Hibernate только проверяет ее (ddl-auto=validate).
+	 *
+	 * @param registry свойства контекста теста
+	 * @param database имя базы
+	 */
+	public static void register(DynamicPropertyRegistry registry, String database) {
+		registry.add("spring.datasource.url", () -> url(database));
+		registry.add("spring.datasource.username", PostgresTestDatabase::username);
+		registry.add("spring.datasource.password", PostgresTestDatabase::password);
+		registry.add("spring.flyway.enabled", () -> "true");
+		registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+	}
+
+	/**
+	 * Адрес базы с заданным именем. При первом обращении база пересоздается пустой.
+	 *
+	 * @param database имя базы
+	 * @return JDBC URL базы
+	 */
+	public static synchronized String url(String database) {
+		return DATABASES.computeIfAbsent(database, PostgresTestDatabase::create);
+	}
+
+	public static String username() {
+		return System.getProperty(URL) != null ? System.getProperty(USERNAME, "postgres") : container().getUsername();
+	}
+
+	public static String password() {
+		return System.getProperty(URL) != null ? System.getProperty(PASSWORD, "") : container().getPassword();
+	}
+
+	private static String create(String database) {
+		String serverUrl = System.getProperty(URL) != null ? System.getProperty(URL) : container().getJdbcUrl();
+		try (Connection connection = DriverManager.getConnection(serverUrl, username(), password());
+			 Statement statement = connection.createStatement()) {
+			statement.execute("drop database if exists " + database + " with (force)");
+			statement.execute("create database " + database);
+		} catch (SQLException e) {
+			throw new IllegalStateException("Не удалось создать базу " + database, e);
+		}
+		return serverUrl.replaceFirst("/[^/?]*(?=\\?|$)", "/" + database);
+	}
+
+	private static synchronized PostgreSQLContainer<?> container() {
+		if (container == null) {
+			container = new PostgreSQLContainer<>("postgres:16");
+			container.start();
+		}
+		return container;
+	}
+}
@@ -0,0 +1,118 @@
+package com.library.library_system;
+
+import com.library.library_system.entity.Book;
+import com.library.library_system.entity.BookLoan;
+import com.library.library_system.repository.BookRepository;
+import com.library.library_system.service.BookLoanService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Миграции db/migration на PostgreSQL: приложение с рабочими настройками Flyway
+ * (baseline-on-migrate) и ddl-auto=validate запускается на пустой базе и на базе,
+ * созданной раньше через ddl-auto=update.
+ */
+@Tag("postgres")
+@EnabledIf(PostgresTestDatabase.AVAILABLE)
+class SchemaMigrationTests {
+
+	private static final List<String> MIGRATIONS = List.of("1", "2", "3", "4");
+
+	@Test
+	void migratesEmptyDatabase() {
+		String url = PostgresTestDatabase.url("library_migration");
+
+		try (ConfigurableApplicationContext context = start(url)) {
+			JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+			assertThat(appliedVersions(jdbcTemplate)).containsExactlyElementsOf(MIGRATIONS);
+			assertThat(indexes(jdbcTemplate)).contains("book_loans_open_book_uidx", "book_loans_open_due_idx")
+					.doesNotContain("book_loans_return_due_idx");
+
+			// Открытая выдача без счетчика: вторую выдачу книги останавливает уникальный индекс
+			jdbcTemplate.update("insert into books (book_id, book_number, title, author, publication_year) "
+					+ "values (1, 'B-1', 'Книга', 'Автор', 2000)");
+			jdbcTemplate.update("insert into readers (reader_id, ticket_number, full_name, phone_number, registration_date) "
+					+ "values (1, 'R-1', 'Читатель', '+7 900 000-00-01', current_date)");
+			jdbcTemplate.update("insert into librarians (librarian_id, librarian_number, full_name, position) "
+					+ "values (1, 'L-1', 'Библиотекарь', 'Библиотекарь')");
+			jdbcTemplate.update("insert into book_loans (loan_id, book_id, reader_id, librarian_id, loan_date, due_date) "
+					+ "values (1000000, 1, 1, 1, current_date, current_date + 14)");
+			assertThatThrownBy(() -> context.getBean(BookLoanService.class).checkoutByNumbers("B-1", "R-1", "L-1", null))
+					.isInstanceOf(IllegalStateException.class)
+					.hasMessageContaining("уже выдана");
+		}
+	}
+
+	@Test
+	void adoptsDatabaseCreatedByDdlAutoUpdate() {
+		String url = PostgresTestDatabase.url("library_legacy");
+		DriverManagerDataSource legacy = new DriverManagerDataSource(url,
+				PostgresTestDatabase.username(), PostgresTestDatabase.password());
+		new ResourceDatabasePopulator(new ClassPathResource("db/ddl-auto-update-schema.sql")).execute(legacy);
+
+		try (ConfigurableApplicationContext context = start(url)) {
+			JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+			assertThat(appliedVersions(jdbcTemplate)).containsExactlyElementsOf(MIGRATIONS);
+			assertThat(indexes(jdbcTemplate)).contains("book_loans_open_due_idx")
+					.doesNotContain("book_loans_return_due_idx");
+
+			// Счетчики заполнены по выдачам, оформленным до миграции
+			BookRepository bookRepository = context.getBean(BookRepository.class);
+			Book first = bookRepository.findByBookNumber("B-1");
+			assertThat(first.getActiveLoansCount()).isEqualTo(1);
+			assertThat(first.getTotalLoansCount()).isEqualTo(2);
+			assertThat(first.getVersion()).isZero();
+			assertThat(jdbcTemplate.queryForList("select active_loans_count || '/' || total_loans_count "
+					+ "from readers order by ticket_number", String.class)).containsExactly("0/2", "1/1");
+			assertThat(jdbcTemplate.queryForObject("select loans_count from librarians", Integer.class)).isEqualTo(3);
+
+			// Новые выдачи получают идентификаторы из последовательности после старых
+			BookLoanService bookLoanService = context.getBean(BookLoanService.class);
+			assertThatThrownBy(() -> bookLoanService.checkoutByNumbers("B-1", "R-1", "L-1", null))
+					.isInstanceOf(IllegalStateException.class);
+			BookLoan loan = bookLoanService.checkoutByNumbers("B-2", "R-2", "L-1", null);
+			assertThat(loan.getLoanId()).isGreaterThan(3L);
+			assertThat(bookRepository.findByBookNumber("B-2").getActiveLoansCount()).isEqualTo(1);
+		}
+	}
+
+	/**
+	 * Запустить приложение на базе. Кэш второго уровня Hibernate выключен: его менеджер
+	 * JCache общий с контекстами других тестов и закрылся бы вместе с этим приложением.
+	 */
+	private static ConfigurableApplicationContext start(String url) {
+		return new SpringApplicationBuilder(LibrarySystemApplication.class)
+				.web(WebApplicationType.NONE)
+				.run("--spring.datasource.url=" + url,
+						"--spring.datasource.username=" + PostgresTestDatabase.username(),
+						"--spring.datasource.password=" + PostgresTestDatabase.password(),
+						"--spring.flyway.enabled=true",
+						"--spring.flyway.baseline-on-migrate=true",
+						"--spring.flyway.baseline-version=0",
+						"--spring.jpa.hibernate.ddl-auto=validate",
+						"--spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+						"--spring.jpa.properties.hibernate.cache.use_query_cache=false");
+	}
+
+	private static List<String> appliedVersions(JdbcTemplate jdbcTemplate) {
+		return jdbcTemplate.queryForList("select version from flyway_schema_history "
+				+ "where type = 'SQL' and success order by installed_rank", String.class);
+	}
+
+	private static List<String> indexes(JdbcTemplate jdbcTemplate) {
+		return jdbcTemplate.queryForList("select indexname from pg_indexes where tablename = 'book_loans'", String.class);
+	}
+}
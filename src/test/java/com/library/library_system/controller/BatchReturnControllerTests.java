@@ -0,0 +1,93 @@
+package com.library.library_system.controller;
+
+import com.library.library_system.LibraryTestData;
+import com.library.library_system.entity.Book;
+import com.library.library_system.entity.Librarian;
+import com.library.library_system.entity.Reader;
+import com.library.library_system.repository.BookLoanRepository;
+import com.library.library_system.service.BookLoanService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(LibraryTestData.class)
+class BatchReturnControllerTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private BookLoanRepository bookLoanRepository;
+
+	@Autowired
+	private BookLoanService bookLoanService;
+
+	@Autowired
+	private LibraryTestData testData;
+
+	@BeforeEach
+	void setUp() {
+		Book first = testData.book("D-1", "Мастер и Маргарита", "Булгаков", 1967);
+		Book second = testData.book("D-2", "Белая гвардия", "Булгаков", 1925);
+		Reader reader = testData.reader("DR-1", "Лебедева Ирина", "+7 900 000-60-01");
+		Librarian librarian = testData.librarian("DL-1", "Новиков Андрей");
+		bookLoanService.checkout(reader.getReaderId(), librarian.getLibrarianId(),
+				List.of(first.getBookId(), second.getBookId()), LocalDate.now().plusDays(14));
+	}
+
+	@AfterEach
+	void tearDown() {
+		testData.deleteAll();
+	}
+
+	@Test
+	void formReturnsScannedBooksAndShowsResults() throws Exception {
+		mockMvc.perform(post("/loans/returns")
+						.contentType(MediaType.APPLICATION_FORM_URLENCODED)
+						.param("by", "bookNumber")
+						.param("items", "D-1\r\nD-404\r\n"))
+				.andExpect(status().isOk())
+				.andExpect(content().string(containsString("Мастер и Маргарита")))
+				.andExpect(content().string(containsString("Не найдена")));
+
+		assertThat(bookLoanRepository.findByReturnDateIsNull())
+				.extracting(loan -> loan.getBook().getBookNumber())
+				.containsExactly("D-2");
+	}
+
+	@Test
+	void jsonEndpointReturnsResultPerItem() throws Exception {
+		mockMvc.perform(post("/loans/returns")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"bookNumbers\": [\"D-2\", \"D-1\", \"D-2\"]}"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(2))
+				.andExpect(jsonPath("$[0].item").value("D-2"))
+				.andExpect(jsonPath("$[0].status").value("RETURNED"))
+				.andExpect(jsonPath("$[1].status").value("RETURNED"));
+
+		mockMvc.perform(post("/loans/returns")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"bookNumbers\": []}"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.error").exists());
+	}
+}
@@ -0,0 +1,146 @@
+package com.library.library_system.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.library_system.LibraryTestData;
+import com.library.library_system.entity.Book;
+import com.library.library_system.entity.BookLoan;
+import com.library.library_system.entity.Librarian;
+import com.library.library_system.entity.Reader;
+import com.library.library_system.repository.BookLoanRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(LibraryTestData.class)
+class ExportControllerTests {
+
+	private static final int LOANS = 1200;
+	private static final LocalDate START = LocalDate.of(2025, 1, 1);
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private BookLoanRepository bookLoanRepository;
+
+	@Autowired
+	private LibraryTestData testData;
+
+	private Reader first;
+	private Reader second;
+
+	@BeforeEach
+	void setUp() {
+		Book plain = testData.book("E-1", "Идиот", "Достоевский", 1869);
+		Book quoted = testData.book("E-2", "Повести \"Белкина\", сборник", "Пушкин", 1831);
+		first = testData.reader("ER-1", "Иванова Анна", "+7 900 000-60-01");
+		second = testData.reader("ER-2", "Петров Олег", "+7 900 000-60-02");
+		Librarian librarian = testData.librarian("EL-1", "Орлова Мария");
+
+		List<BookLoan> loans = new ArrayList<>();
+		for (int i = 0; i < LOANS; i++) {
+			LocalDate loanDate = START.plusDays(i % 100);
+			BookLoan loan = new BookLoan(i % 2 == 0 ? plain : quoted, i % 3 == 0 ? first : second, librarian,
+					loanDate, loanDate.plusDays(14));
+			loan.setReturnDate(loanDate.plusDays(7));
+			loans.add(loan);
+		}
+		bookLoanRepository.saveAll(loans);
+	}
+
+	@AfterEach
+	void tearDown() {
+		testData.deleteAll();
+	}
+
+	@Test
+	void streamsAllLoansAsCsv() throws Exception {
+		MvcResult result = stream(get("/export/loans"));
+
+		assertThat(result.getResponse().getContentType()).startsWith("text/csv");
+		assertThat(result.getResponse().getHeader("Content-Disposition"))
+				.isEqualTo("attachment; filename=\"loans-" + LocalDate.now() + ".csv\"");
+		String[] lines = result.getResponse().getContentAsString(StandardCharsets.UTF_8).split("\r\n");
+		assertThat(lines).hasSize(LOANS + 1);
+		assertThat(lines[0]).isEqualTo("loanId,bookNumber,title,author,ticketNumber,readerName," +
+				"librarianNumber,librarianName,loanDate,dueDate,returnDate");
+		assertThat(lines[2]).contains(",E-2,\"Повести \"\"Белкина\"\", сборник\",Пушкин,ER-2,Петров Олег,EL-1,")
+				.endsWith(",2025-01-02,2025-01-16,2025-01-09");
+	}
+
+	@Test
+	void filtersLoansByReaderAndPeriod() throws Exception {
+		MvcResult result = stream(get("/export/loans")
+				.param("readerId", first.getReaderId().toString())
+				.param("from", "2025-01-10")
+				.param("to", "2025-01-19")
+				.param("format", "ndjson"));
+
+		assertThat(result.getResponse().getContentType()).isEqualTo("application/x-ndjson");
+		List<JsonNode> rows = new ArrayList<>();
+		for (String line : result.getResponse().getContentAsString(StandardCharsets.UTF_8).split("\n")) {
+			rows.add(objectMapper.readTree(line));
+		}
+		// выдачи первому читателю (каждая третья) с 10-го по 19-й день каждой сотни
+		assertThat(rows).hasSize(40);
+		assertThat(rows).allSatisfy(row -> {
+			assertThat(row.get("ticketNumber").asText()).isEqualTo("ER-1");
+			assertThat(LocalDate.parse(row.get("loanDate").asText())).isBetween(START.plusDays(9), START.plusDays(18));
+		});
+	}
+
+	@Test
+	void exportsBooksAndReaders() throws Exception {
+		String books = stream(get("/export/books")).getResponse().getContentAsString(StandardCharsets.UTF_8);
+		assertThat(books.split("\r\n")).containsExactly(
+				"bookNumber,title,author,publicationYear,activeLoansCount,totalLoansCount",
+				"E-1,Идиот,Достоевский,1869,0,0",
+				"E-2,\"Повести \"\"Белкина\"\", сборник\",Пушкин,1831,0,0");
+
+		String readers = stream(get("/export/readers").param("format", "ndjson"))
+				.getResponse().getContentAsString(StandardCharsets.UTF_8);
+		assertThat(readers.split("\n")).hasSize(2);
+		assertThat(objectMapper.readTree(readers.split("\n")[1]).get("fullName").asText()).isEqualTo("Петров Олег");
+	}
+
+	@Test
+	void rejectsInvertedPeriod() throws Exception {
+		mockMvc.perform(get("/export/loans").param("from", "2025-02-01").param("to", "2025-01-01"))
+				.andExpect(status().isBadRequest());
+	}
+
+	private MvcResult stream(MockHttpServletRequestBuilder request) throws Exception {
+		MvcResult started = mockMvc.perform(request)
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		return mockMvc.perform(asyncDispatch(started))
+				.andExpect(status().isOk())
+				.andExpect(header().exists("Content-Disposition"))
+				.andReturn();
+	}
+}
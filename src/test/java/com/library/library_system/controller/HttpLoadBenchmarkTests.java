@@ -0,0 +1,341 @@
+package com.library.library_system.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.library_system.LibraryTestData;
+import com.library.library_system.service.SyntheticDataGenerator;
+import com.library.library_system.service.SyntheticDataset;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Нагрузка на страницы и формы выдачи через HTTP: несколько библиотекарей одновременно
+ * листают списки, выдают и возвращают книги. Приложение запускается целиком на случайном
+ * порту, база заполняется {@link SyntheticDataGenerator} историей выдач заданного объема
+ * (library.load.loans) с начальным значением library.load.seed.
+ *
+ * <p>Для каждой точки входа считаются p50/p95/p99 и пропускная способность; итоги пишутся
+ * в журнал и в target/load-report.json. Тест не проходит при ошибках или если p99 превышает
+ * бюджет. Запускается отдельно: {@code mvn test -Pbenchmark -Dtest=HttpLoadBenchmarkTests},
+ * параметры задаются системными свойствами, например {@code -Dlibrary.load.users=16
+ * -Dlibrary.load.loans=1000000 -Dlibrary.load.budget.read-p99=PT0.2S}.</p>
+ *
+ * <p>Значения по умолчанию рассчитаны на один процессор: четыре пользователя уже загружают
+ * его полностью, и дальше растет только очередь запросов, а не пропускная способность.</p>
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Import(LibraryTestData.class)
+class HttpLoadBenchmarkTests {
+
+	private static final Logger log = LoggerFactory.getLogger(HttpLoadBenchmarkTests.class);
+
+	private static final String[] KEYWORDS = {"мир", "Толстой", "Маргарита", "том 3"};
+
+	private static final String BOOKS = "GET /books";
+	private static final String READERS = "GET /readers";
+	private static final String LOANS = "GET /loans";
+	private static final String SAVE = "POST /loans/save";
+	private static final String RETURN = "GET /loans/return/{id}";
+
+	/**
+	 * Доли операций в смеси: списки читаются чаще, чем оформляются выдачи и возвраты
+	 */
+	private static final Map<String, Integer> MIX = new LinkedHashMap<>();
+
+	static {
+		MIX.put(BOOKS, 30);
+		MIX.put(READERS, 15);
+		MIX.put(LOANS, 25);
+		MIX.put(SAVE, 15);
+		MIX.put(RETURN, 15);
+	}
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private LibraryTestData testData;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private SyntheticDataGenerator generator;
+
+	@Value("${library.load.users:4}")
+	private int users;
+
+	@Value("${library.load.loans:50000}")
+	private int loans;
+
+	@Value("${library.load.seed:1}")
+	private long seed;
+
+	@Value("${library.load.warmup:PT10S}")
+	private Duration warmup;
+
+	@Value("${library.load.duration:PT30S}")
+	private Duration duration;
+
+	@Value("${library.load.think-time:PT0.05S}")
+	private Duration thinkTime;
+
+	@Value("${library.load.budget.read-p99:PT0.8S}")
+	private Duration readBudget;
+
+	@Value("${library.load.budget.write-p99:PT0.5S}")
+	private Duration writeBudget;
+
+	private final HttpClient client = HttpClient.newBuilder()
+			.followRedirects(HttpClient.Redirect.NEVER)
+			.connectTimeout(Duration.ofSeconds(5))
+			.build();
+	private final LocalDate today = LocalDate.now();
+
+	/** Свободные книги, которые можно выдать */
+	private final Queue<Long> freeBooks = new ConcurrentLinkedQueue<>();
+	/** Невозвращенные выдачи: идентификатор выдачи и книги */
+	private final Queue<long[]> openLoans = new ConcurrentLinkedQueue<>();
+	private List<Long> readerIds;
+	private List<Long> librarianIds;
+
+	private final Map<String, Queue<Long>> latencies = new ConcurrentHashMap<>();
+	private final Map<String, AtomicLong> errors = new ConcurrentHashMap<>();
+	private volatile boolean recording;
+
+	@BeforeEach
+	void setUp() {
+		seed();
+	}
+
+	@AfterEach
+	void tearDown() {
+		testData.deleteAll();
+	}
+
+	@Test
+	void mixedDeskTrafficStaysWithinLatencyBudget() throws Exception {
+		run(warmup);
+		latencies.clear();
+		errors.clear();
+		recording = true;
+		long started = System.nanoTime();
+		run(duration);
+		double seconds = (System.nanoTime() - started) / 1e9;
+		recording = false;
+
+		Map<String, Map<String, Object>> report = report(seconds);
+		new File("target").mkdirs();
+		objectMapper.writerWithDefaultPrettyPrinter().writeValue(new File("target/load-report.json"), Map.of(
+				"users", users, "loans", loans, "seconds", seconds, "endpoints", report));
+
+		List<String> violations = new ArrayList<>();
+		report.forEach((endpoint, stats) -> {
+			Duration budget = isWrite(endpoint) ? writeBudget : readBudget;
+			if ((double) stats.get("p99Ms") > budget.toMillis()) {
+				violations.add(endpoint + ": p99 " + stats.get("p99Ms") + " мс > " + budget.toMillis() + " мс");
+			}
+			if ((long) stats.get("errors") > 0) {
+				violations.add(endpoint + ": ошибок " + stats.get("errors"));
+			}
+		});
+		assertThat(report.keySet()).as("выполненные операции").containsAll(MIX.keySet());
+		assertThat(violations).as("нарушения бюджета").isEmpty();
+	}
+
+	private void run(Duration period) throws Exception {
+		long deadline = System.nanoTime() + period.toNanos();
+		ExecutorService desks = Executors.newFixedThreadPool(users);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int i = 0; i < users; i++) {
+				futures.add(desks.submit(() -> {
+					while (System.nanoTime() < deadline) {
+						step();
+						Thread.sleep(thinkTime.toMillis());
+					}
+					return null;
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			desks.shutdownNow();
+		}
+	}
+
+	private void step() throws IOException, InterruptedException {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		String operation = pick(random.nextInt(100));
+		switch (operation) {
+			case BOOKS -> get(BOOKS, random.nextBoolean() ? "/books"
+					: "/books?search=" + encode(KEYWORDS[random.nextInt(KEYWORDS.length)]));
+			case READERS -> get(READERS, "/readers");
+			case LOANS -> get(LOANS, random.nextBoolean() ? "/loans" : "/loans?filter=active");
+			case SAVE -> {
+				Long bookId = freeBooks.poll();
+				if (bookId == null) {
+					get(LOANS, "/loans");
+					return;
+				}
+				String form = "book.bookId=" + bookId
+						+ "&reader.readerId=" + readerIds.get(random.nextInt(readerIds.size()))
+						+ "&librarian.librarianId=" + librarianIds.get(random.nextInt(librarianIds.size()))
+						+ "&loanDate=" + today + "&dueDate=" + today.plusDays(14);
+				HttpRequest request = HttpRequest.newBuilder(uri("/loans/save"))
+						.header("Content-Type", "application/x-www-form-urlencoded")
+						.POST(HttpRequest.BodyPublishers.ofString(form))
+						.build();
+				// Успешная выдача перенаправляет на список, ошибка снова показывает форму
+				send(SAVE, request, 302);
+			}
+			case RETURN -> {
+				long[] loan = openLoans.poll();
+				if (loan == null) {
+					get(LOANS, "/loans");
+					return;
+				}
+				if (get(RETURN, "/loans/return/" + loan[0])) {
+					freeBooks.add(loan[1]);
+				}
+			}
+			default -> throw new IllegalStateException(operation);
+		}
+	}
+
+	private boolean get(String endpoint, String path) throws IOException, InterruptedException {
+		int expected = RETURN.equals(endpoint) ? 302 : 200;
+		return send(endpoint, HttpRequest.newBuilder(uri(path)).GET().build(), expected);
+	}
+
+	private boolean send(String endpoint, HttpRequest request, int expectedStatus)
+			throws IOException, InterruptedException {
+		long started = System.nanoTime();
+		HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+		long elapsed = System.nanoTime() - started;
+		boolean ok = response.statusCode() == expectedStatus;
+		if (recording) {
+			latencies.computeIfAbsent(endpoint, key -> new ConcurrentLinkedQueue<>()).add(elapsed);
+			if (!ok) {
+				errors.computeIfAbsent(endpoint, key -> new AtomicLong()).incrementAndGet();
+			}
+		}
+		return ok;
+	}
+
+	private Map<String, Map<String, Object>> report(double seconds) {
+		Map<String, Map<String, Object>> report = new LinkedHashMap<>();
+		log.info(String.format("%-24s %8s %9s %9s %9s %9s %7s", "endpoint", "count", "req/s", "p50 мс", "p95 мс",
+				"p99 мс", "errors"));
+		for (String endpoint : MIX.keySet()) {
+			Queue<Long> samples = latencies.get(endpoint);
+			if (samples == null || samples.isEmpty()) {
+				continue;
+			}
+			long[] sorted = samples.stream().mapToLong(Long::longValue).sorted().toArray();
+			Map<String, Object> stats = new LinkedHashMap<>();
+			stats.put("count", (long) sorted.length);
+			stats.put("throughput", round(sorted.length / seconds));
+			stats.put("p50Ms", percentile(sorted, 50));
+			stats.put("p95Ms", percentile(sorted, 95));
+			stats.put("p99Ms", percentile(sorted, 99));
+			stats.put("maxMs", round(sorted[sorted.length - 1] / 1e6));
+			stats.put("errors", errors.getOrDefault(endpoint, new AtomicLong()).get());
+			report.put(endpoint, stats);
+			log.info(String.format("%-24s %8d %9.1f %9.1f %9.1f %9.1f %7d", endpoint, sorted.length,
+					stats.get("throughput"), stats.get("p50Ms"), stats.get("p95Ms"), stats.get("p99Ms"),
+					stats.get("errors")));
+		}
+		return report;
+	}
+
+	private static double percentile(long[] sorted, int percentile) {
+		int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+		return round(sorted[Math.max(0, index)] / 1e6);
+	}
+
+	private static double round(double value) {
+		return Math.round(value * 10) / 10.0;
+	}
+
+	private static String pick(int roll) {
+		int bound = 0;
+		for (Map.Entry<String, Integer> entry : MIX.entrySet()) {
+			bound += entry.getValue();
+			if (roll < bound) {
+				return entry.getKey();
+			}
+		}
+		throw new IllegalStateException("Доли операций в сумме меньше 100");
+	}
+
+	private static boolean isWrite(String endpoint) {
+		return SAVE.equals(endpoint) || RETURN.equals(endpoint);
+	}
+
+	private URI uri(String path) {
+		return URI.create("http://localhost:" + port + path);
+	}
+
+	private static String encode(String value) {
+		return URLEncoder.encode(value, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Каталог из книги на 10 выдач (не меньше 2000 книг), читатель на 25 выдач, 20 библиотекарей.
+	 * Первая выдача каждой книги из первой половины каталога не возвращена - это выдачи
+	 * для возврата; вторая половина каталога свободна для новых выдач.
+	 */
+	private void seed() {
+		SyntheticDataGenerator.Summary summary = generator.generate(SyntheticDataset.ofLoans(loans, seed), today);
+		readerIds = jdbcTemplate.queryForList("select reader_id from readers order by reader_id", Long.class);
+		librarianIds = jdbcTemplate.queryForList("select librarian_id from librarians order by librarian_id", Long.class);
+		jdbcTemplate.query("select loan_id, book_id from book_loans where return_date is null order by loan_id",
+				rs -> {
+					openLoans.add(new long[] {rs.getLong(1), rs.getLong(2)});
+				});
+		freeBooks.addAll(jdbcTemplate.queryForList(
+				"select book_id from books where active_loans_count = 0 order by book_id", Long.class));
+		log.info("Нагрузка: {} выдач ({} не возвращено), {} книг, {} читателей, {} пользователей, длительность {}",
+				loans, summary.openLoans(), summary.books(), summary.readers(), users, duration);
+	}
+}
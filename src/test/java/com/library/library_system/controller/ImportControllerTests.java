@@ -0,0 +1,50 @@
+package com.library.library_system.controller;
+
+import com.library.library_system.LibraryTestData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(LibraryTestData.class)
+class ImportControllerTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private LibraryTestData testData;
+
+	@AfterEach
+	void tearDown() {
+		testData.deleteAll();
+	}
+
+	@Test
+	void showsReportWithRejectedRows() throws Exception {
+		mockMvc.perform(get("/import"))
+				.andExpect(status().isOk())
+				.andExpect(content().string(containsString("Загрузка из файла")));
+
+		MockMultipartFile file = new MockMultipartFile("file", "librarians.csv", "text/csv",
+				"librarianNumber,fullName\nLC-1,Орлова Мария\nLC-1,Кузнецов Иван\n".getBytes(StandardCharsets.UTF_8));
+		mockMvc.perform(multipart("/import").file(file).param("type", "librarians"))
+				.andExpect(status().isOk())
+				.andExpect(content().string(containsString("Файл librarians.csv обработан")))
+				.andExpect(content().string(containsString("Табельный номер &#39;LC-1&#39; повторяется в строке 2")));
+	}
+}
@@ -0,0 +1,131 @@
+package com.library.library_system.controller;
+
+import com.library.library_system.LibraryTestData;
+import com.library.library_system.entity.Book;
+import com.library.library_system.entity.BookLoan;
+import com.library.library_system.entity.Librarian;
+import com.library.library_system.entity.Reader;
+import com.library.library_system.repository.BookLoanRepository;
+import com.library.library_system.repository.BookRepository;
+import com.library.library_system.service.KeysetPage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "library.page-size=10")
+@AutoConfigureMockMvc
+@Import(LibraryTestData.class)
+class ListPaginationTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private BookRepository bookRepository;
+
+	@Autowired
+	private BookLoanRepository bookLoanRepository;
+
+	@Autowired
+	private LibraryTestData testData;
+
+	@BeforeEach
+	void setUp() {
+		List<Book> books = new ArrayList<>();
+		for (int i = 0; i < 25; i++) {
+			books.add(new Book("B-" + i, "Книга " + (char) ('А' + i % 5), "Автор " + i, 2000));
+		}
+		bookRepository.saveAll(books);
+
+		Reader reader = testData.reader("R-1", "Иванов Иван", "+7 900 000-00-01");
+		Librarian librarian = testData.librarian("L-1", "Петрова Анна");
+		List<BookLoan> loans = new ArrayList<>();
+		for (int i = 0; i < 15; i++) {
+			LocalDate loanDate = LocalDate.now().minusDays(i % 3);
+			BookLoan loan = new BookLoan(books.get(i), reader, librarian, loanDate, loanDate.plusDays(14));
+			loan.setReturnDate(loanDate);
+			loans.add(loan);
+		}
+		bookLoanRepository.saveAll(loans);
+	}
+
+	@AfterEach
+	void tearDown() {
+		testData.deleteAll();
+	}
+
+	@Test
+	void walksBooksForwardAndBackwardWithoutGapsOrDuplicates() throws Exception {
+		List<Long> seen = new ArrayList<>();
+		List<String> titles = new ArrayList<>();
+		KeysetPage<Book> page = bookPage(null);
+		assertThat(page.hasPrevious()).isFalse();
+		KeysetPage<Book> first = page;
+
+		while (true) {
+			page.getContent().forEach(book -> {
+				seen.add(book.getBookId());
+				titles.add(book.getTitle());
+			});
+			if (!page.hasNext()) {
+				break;
+			}
+			page = bookPage(page.getNextCursor());
+		}
+
+		assertThat(seen).hasSize(25).doesNotHaveDuplicates();
+		assertThat(titles).isSorted();
+
+		KeysetPage<Book> second = bookPage(first.getNextCursor());
+		KeysetPage<Book> back = bookPage(second.getPreviousCursor());
+		assertThat(back.getContent()).extracting(Book::getBookId)
+				.containsExactlyElementsOf(first.getContent().stream().map(Book::getBookId).toList());
+		assertThat(back.hasPrevious()).isFalse();
+	}
+
+	@Test
+	void pagesLoansNewestFirst() throws Exception {
+		MvcResult result = mockMvc.perform(get("/loans")).andExpect(status().isOk()).andReturn();
+		KeysetPage<BookLoan> page = page(result);
+		assertThat(page.getContent()).hasSize(10);
+		assertThat(page.getContent().get(0).getLoanDate()).isEqualTo(LocalDate.now());
+
+		KeysetPage<BookLoan> next = page(mockMvc.perform(get("/loans").param("cursor", page.getNextCursor()))
+				.andExpect(status().isOk()).andReturn());
+		assertThat(next.getContent()).hasSize(5);
+		assertThat(next.hasNext()).isFalse();
+	}
+
+	@Test
+	void redirectsToFirstPageOnBrokenCursor() throws Exception {
+		mockMvc.perform(get("/readers").param("cursor", "not-a-cursor"))
+				.andExpect(status().is3xxRedirection());
+	}
+
+	private KeysetPage<Book> bookPage(String cursor) throws Exception {
+		var request = get("/books");
+		if (cursor != null) {
+			request.param("cursor", cursor);
+		}
+		return page(mockMvc.perform(request).andExpect(status().isOk()).andReturn());
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> KeysetPage<T> page(MvcResult result) {
+		return (KeysetPage<T>) result.getModelAndView().getModel().get("page");
+	}
+}
@@ -0,0 +1,165 @@
+package com.library.library_system.controller;
+
+import com.library.library_system.LibraryTestData;
+import com.library.library_system.entity.Book;
+import com.library.library_system.entity.BookLoan;
+import com.library.library_system.entity.Librarian;
+import com.library.library_system.entity.Reader;
+import com.library.library_system.repository.BookLoanRepository;
+import com.library.library_system.repository.BookRepository;
+import com.library.library_system.service.BookLoanService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "library.lookup-page-size=2")
+@AutoConfigureMockMvc
+@Import(LibraryTestData.class)
+class LoanLookupTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private BookRepository bookRepository;
+
+	@Autowired
+	private BookLoanRepository bookLoanRepository;
+
+	@Autowired
+	private BookLoanService bookLoanService;
+
+	@Autowired
+	private LibraryTestData testData;
+
+	private Book loanedBook;
+	private Reader reader;
+	private Librarian librarian;
+
+	@BeforeEach
+	void setUp() {
+		loanedBook = testData.book("INV-001", "Война и мир", "Толстой", 1869);
+		testData.book("INV-002", "Анна Каренина", "Толстой", 1877);
+		testData.book("INV-003", "Мир_2", "Иванов", 1990);
+		testData.book("X-100", "Мирный атом", "Петров", 1960);
+		reader = testData.reader("T-777", "Иванов Иван", "+7 900 123-45-67");
+		testData.reader("T-778", "Петров Петр", "+7 911 000-00-00");
+		librarian = testData.librarian("L-1", "Орлова Мария");
+		bookLoanService.saveLoan(new BookLoan(loanedBook, reader, librarian,
+				LocalDate.now(), LocalDate.now().plusDays(14)));
+	}
+
+	@AfterEach
+	void tearDown() {
+		testData.deleteAll();
+	}
+
+	@Test
+	void searchesBooksByNumberPrefixOrTitleAndPages() throws Exception {
+		mockMvc.perform(get("/loans/lookup/books").param("q", "inv-00"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.items", hasSize(2)))
+				.andExpect(jsonPath("$.items[0].label").value("INV-002 — Анна Каренина (Толстой)"))
+				.andExpect(jsonPath("$.hasNext").value(true));
+
+		mockMvc.perform(get("/loans/lookup/books").param("q", "inv-00").param("page", "1"))
+				.andExpect(jsonPath("$.items", hasSize(1)))
+				.andExpect(jsonPath("$.hasNext").value(false));
+
+		mockMvc.perform(get("/loans/lookup/books").param("q", "мир"))
+				.andExpect(jsonPath("$.items", hasSize(2)))
+				.andExpect(jsonPath("$.hasNext").value(true));
+
+		mockMvc.perform(get("/loans/lookup/books").param("q", "_"))
+				.andExpect(jsonPath("$.items", hasSize(1)))
+				.andExpect(jsonPath("$.items[0].label", containsString("Мир_2")));
+	}
+
+	@Test
+	void excludesLoanedBooksWhenAvailableOnly() throws Exception {
+		mockMvc.perform(get("/loans/lookup/books").param("q", "война"))
+				.andExpect(jsonPath("$.items", hasSize(1)));
+		mockMvc.perform(get("/loans/lookup/books").param("q", "война").param("availableOnly", "true"))
+				.andExpect(jsonPath("$.items", hasSize(0)));
+	}
+
+	@Test
+	void searchesReadersByTicketNamePhoneAndLibrarians() throws Exception {
+		mockMvc.perform(get("/loans/lookup/readers").param("q", "t-777"))
+				.andExpect(jsonPath("$.items[0].id").value(reader.getReaderId()));
+		mockMvc.perform(get("/loans/lookup/readers").param("q", "123-45"))
+				.andExpect(jsonPath("$.items", hasSize(1)))
+				.andExpect(jsonPath("$.items[0].label").value("Иванов Иван (№T-777, +7 900 123-45-67)"));
+		mockMvc.perform(get("/loans/lookup/readers").param("q", "петр"))
+				.andExpect(jsonPath("$.items", hasSize(1)));
+		mockMvc.perform(get("/loans/lookup/librarians").param("q", "орлов"))
+				.andExpect(jsonPath("$.items[0].label").value("Орлова Мария (Библиотекарь)"));
+	}
+
+	@Test
+	void formShowsSelectedLabelsInsteadOfFullLists() throws Exception {
+		mockMvc.perform(post("/loans/save")
+						.param("book.bookId", loanedBook.getBookId().toString())
+						.param("reader.readerId", reader.getReaderId().toString())
+						.param("librarian.librarianId", librarian.getLibrarianId().toString())
+						.param("loanDate", LocalDate.now().toString())
+						.param("dueDate", LocalDate.now().plusDays(7).toString()))
+				.andExpect(status().isOk())
+				.andExpect(content().string(containsString("уже выдана")))
+				.andExpect(content().string(containsString("INV-001 — Война и мир (Толстой)")))
+				.andExpect(content().string(containsString("Иванов Иван (№T-777, +7 900 123-45-67)")))
+				.andExpect(content().string(org.hamcrest.Matchers.not(containsString("Анна Каренина"))));
+	}
+
+	@Test
+	void savesLoanFromFormWithIdentifiersOnly() throws Exception {
+		Book available = bookRepository.findByBookNumber("INV-002");
+		mockMvc.perform(post("/loans/save")
+						.param("book.bookId", available.getBookId().toString())
+						.param("reader.readerId", reader.getReaderId().toString())
+						.param("librarian.librarianId", librarian.getLibrarianId().toString())
+						.param("loanDate", LocalDate.now().toString())
+						.param("dueDate", LocalDate.now().plusDays(7).toString()))
+				.andExpect(status().is3xxRedirection());
+		assertThat(bookLoanRepository.findByBookBookIdAndReturnDateIsNull(available.getBookId())).hasSize(1);
+	}
+
+	@Test
+	void checkoutCartKeepsSelectionWhenRejected() throws Exception {
+		Book second = bookRepository.findByBookNumber("INV-002");
+		mockMvc.perform(post("/loans/checkout")
+						.param("readerId", reader.getReaderId().toString())
+						.param("librarianId", librarian.getLibrarianId().toString())
+						.param("bookIds", second.getBookId().toString(), loanedBook.getBookId().toString())
+						.param("dueDate", LocalDate.now().plusDays(7).toString()))
+				.andExpect(status().isOk())
+				.andExpect(content().string(containsString("уже выдана")))
+				.andExpect(content().string(containsString("INV-002 — Анна Каренина (Толстой)")))
+				.andExpect(content().string(containsString("INV-001 — Война и мир (Толстой)")))
+				.andExpect(content().string(containsString("Иванов Иван (№T-777, +7 900 123-45-67)")));
+
+		mockMvc.perform(post("/loans/checkout")
+						.param("readerId", reader.getReaderId().toString())
+						.param("librarianId", librarian.getLibrarianId().toString())
+						.param("bookIds", second.getBookId().toString())
+						.param("dueDate", LocalDate.now().plusDays(7).toString()))
+				.andExpect(status().is3xxRedirection());
+		assertThat(bookLoanRepository.count()).isEqualTo(2);
+	}
+}
@@ -0,0 +1,122 @@
+package com.library.library_system.controller;
+
+import com.library.library_system.LibraryTestData;
+import com.library.library_system.entity.Book;
+import com.library.library_system.entity.BookLoan;
+import com.library.library_system.entity.Librarian;
+import com.library.library_system.entity.Reader;
+import com.library.library_system.repository.BookLoanRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+		"spring.jpa.properties.hibernate.generate_statistics=true",
+		"management.endpoints.web.exposure.include=prometheus",
+		"library.metrics.loans-refresh=PT0S"
+})
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@Import(LibraryTestData.class)
+class MetricsEndpointTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private BookLoanRepository bookLoanRepository;
+
+	@Autowired
+	private LibraryTestData testData;
+
+	private BookLoan overdueLoan;
+
+	@BeforeEach
+	void setUp() {
+		LocalDate today = LocalDate.now();
+		Librarian librarian = testData.librarian("L-1", "Библиотекарь");
+		for (int i = 0; i < 3; i++) {
+			Book book = testData.book("B-" + i, "Книга " + i, "Автор " + i, 2000);
+			Reader reader = testData.reader("R-" + i, "Читатель " + i, "+7 900 000-00-0" + i);
+			BookLoan loan = new BookLoan(book, reader, librarian, today.minusDays(20), today.plusDays(i == 0 ? -6 : 7));
+			if (i == 2) {
+				loan.setReturnDate(today);
+			}
+			bookLoanRepository.save(loan);
+			if (i == 0) {
+				overdueLoan = loan;
+			}
+		}
+	}
+
+	@AfterEach
+	void tearDown() {
+		testData.deleteAll();
+	}
+
+	@Test
+	void requestStatisticsMatchHibernateStatistics() throws Exception {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		DistributionSummary before = meterRegistry.find("library.request.statements").tags("uri", "/loans/view/{id}").summary();
+		long requestsBefore = before == null ? 0 : before.count();
+		double statementsBefore = before == null ? 0 : before.totalAmount();
+
+		statistics.clear();
+		mockMvc.perform(get("/loans/view/" + overdueLoan.getLoanId())).andExpect(status().isOk());
+
+		DistributionSummary statements = meterRegistry.get("library.request.statements")
+				.tags("method", "GET", "uri", "/loans/view/{id}").summary();
+		assertThat(statistics.getPrepareStatementCount()).isPositive();
+		assertThat(statements.count()).isEqualTo(requestsBefore + 1);
+		assertThat(statements.totalAmount() - statementsBefore).isEqualTo(statistics.getPrepareStatementCount());
+		assertThat(meterRegistry.get("library.request.entity.loads").tags("uri", "/loans/view/{id}").summary().max())
+				.isEqualTo(statistics.getEntityLoadCount());
+	}
+
+	@Test
+	void prometheusExposesServiceHibernateLoanAndPoolMetrics() throws Exception {
+		mockMvc.perform(get("/loans")).andExpect(status().isOk());
+		mockMvc.perform(get("/books")).andExpect(status().isOk());
+
+		String body = mockMvc.perform(get("/actuator/prometheus"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+
+		assertThat(body)
+				.contains("library_service_seconds_count{class=\"com.library.library_system.service.BookLoanService\","
+						+ "exception=\"none\",method=\"getLoansPage\"")
+				.contains("library_service_seconds_count{class=\"com.library.library_system.service.BookService\","
+						+ "exception=\"none\",method=\"getBooksPage\"")
+				.contains("library_request_statements_count{method=\"GET\",uri=\"/loans\"}")
+				.contains("library_request_collection_fetches_count{method=\"GET\",uri=\"/books\"}")
+				.contains("hibernate_statements_total")
+				.contains("hibernate_entities_loads_total")
+				.contains("hikaricp_connections_active")
+				.contains("http_server_requests_seconds_count");
+		assertThat(meterRegistry.get("library.loans.active").gauge().value()).isEqualTo(2);
+		assertThat(meterRegistry.get("library.loans.overdue").gauge().value()).isEqualTo(1);
+	}
+}
@@ -0,0 +1,124 @@
+package com.library.library_system.controller;
+
+import com.library.library_system.LibraryTestData;
+import com.library.library_system.config.CacheConfig;
+import com.library.library_system.config.QueryCounter;
+import com.library.library_system.config.QueryCounts;
+import com.library.library_system.entity.Book;
+import com.library.library_system.entity.BookLoan;
+import com.library.library_system.service.BookLoanService;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Бюджет обращений к базе данных страниц. Страницы без {@code @QueryBudget} здесь
+ * ограничены нулем SQL-запросов, чтобы проверить предупреждение о превышении.
+ */
+@SpringBootTest(properties = {
+		"library.query-budget.enabled=true",
+		"library.query-budget.statements=0"
+})
+@AutoConfigureMockMvc
+@ExtendWith(OutputCaptureExtension.class)
+@Import(LibraryTestData.class)
+class QueryBudgetTests {
+
+	private static final int LOANS = 12;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@Autowired
+	private BookLoanService bookLoanService;
+
+	@Autowired
+	private LibraryTestData testData;
+
+	private List<Book> books;
+
+	@BeforeEach
+	void setUp() {
+		books = testData.loans(LOANS, i -> false).stream().map(BookLoan::getBook).toList();
+	}
+
+	@AfterEach
+	void tearDown() {
+		testData.deleteAll();
+	}
+
+	@Test
+	void listPagesStayWithinDeclaredBudget(CapturedOutput output) throws Exception {
+		for (String url : List.of("/books", "/readers", "/librarians", "/loans", "/loans?filter=active")) {
+			QueryCounts counts = request(url);
+
+			assertThat(counts.getStatements()).as(url).isLessThanOrEqualTo(3);
+			assertThat(counts.getStatementLimit()).as(url).isEqualTo(3);
+			assertThat(counts.getRows()).as(url).isGreaterThanOrEqualTo(LOANS);
+			assertThat(counts.getHydrations()).as(url).isGreaterThanOrEqualTo(LOANS);
+			counts.assertWithinBudget();
+		}
+		assertThat(output).doesNotContain("QueryBudgetInterceptor");
+	}
+
+	@Test
+	void overBudgetPageLogsCallSites(CapturedOutput output) throws Exception {
+		clearCaches();
+		QueryCounts counts = request("/books/view/" + books.get(0).getBookId());
+
+		assertThat(counts.getStatements()).isEqualTo(1);
+		assertThat(counts.isOverBudget()).isTrue();
+		assertThat(counts.getCallSites()).hasSize(1);
+		String callSite = counts.getCallSites().keySet().iterator().next();
+		assertThat(counts.getCallSites()).containsEntry(callSite, 1);
+		assertThat(callSite)
+				.startsWith("BookService.getBookById(BookService.java:")
+				.contains("<- BookController.viewBook(BookController.java:");
+		assertThatThrownBy(counts::assertWithinBudget)
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("BookService.getBookById");
+		assertThat(output).contains("QueryBudgetInterceptor", "GET /books/view/{id}", "BookController.viewBook");
+	}
+
+	@Test
+	void measuresCodeOutsideHttpRequests() {
+		QueryCounts counts = QueryCounter.measure(() -> bookLoanService.getLoansPage("all", null, 5));
+
+		assertThat(counts.getStatements()).isEqualTo(1);
+		assertThat(counts.getRows()).isEqualTo(6);
+		assertThat(counts.getHydrations()).isGreaterThanOrEqualTo(6);
+		assertThat(counts.isOverBudget()).isFalse();
+	}
+
+	private QueryCounts request(String url) throws Exception {
+		return QueryCounts.of(mockMvc.perform(get(url)).andExpect(status().isOk()).andReturn().getRequest());
+	}
+
+	private void clearCaches() {
+		CacheConfig.CACHE_NAMES.forEach(name -> cacheManager.getCache(name).clear());
+		entityManagerFactory.getCache().evictAll();
+	}
+}
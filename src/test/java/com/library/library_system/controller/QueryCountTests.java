@@ -0,0 +1,125 @@
+package com.library.library_system.controller;
+
+import com.library.library_system.LibraryTestData;
+import com.library.library_system.config.CacheConfig;
+import com.library.library_system.entity.Book;
+import com.library.library_system.entity.BookLoan;
+import com.library.library_system.entity.Librarian;
+import com.library.library_system.entity.Reader;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Количество SQL-запросов на каждую страницу не должно зависеть от количества выдач
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+@Import(LibraryTestData.class)
+class QueryCountTests {
+
+	private static final int LOANS = 12;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@Autowired
+	private LibraryTestData testData;
+
+	private Book book;
+	private Reader reader;
+	private Librarian librarian;
+	private BookLoan activeLoan;
+	private BookLoan returnedLoan;
+
+	@BeforeEach
+	void setUp() {
+		List<BookLoan> loans = testData.loans(LOANS, i -> i % 2 == 1);
+		activeLoan = loans.get(0);
+		returnedLoan = loans.get(1);
+		book = activeLoan.getBook();
+		reader = activeLoan.getReader();
+		librarian = activeLoan.getLibrarian();
+	}
+
+	@AfterEach
+	void tearDown() {
+		testData.deleteAll();
+	}
+
+	@Test
+	void loanPages() throws Exception {
+		assertQueries("/loans", 2);
+		assertQueries("/loans?filter=active", 2);
+		assertQueries("/loans?filter=overdue", 2);
+		assertQueries("/loans/view/" + activeLoan.getLoanId(), 1);
+		assertQueries("/loans/edit/" + activeLoan.getLoanId(), 1);
+		assertQueries("/loans/new", 0);
+		assertQueries("/loans/lookup/books?q=книга&availableOnly=true", 1);
+		assertQueries("/loans/lookup/readers?q=читатель", 1);
+		assertQueries("/loans/lookup/librarians", 1);
+		assertQueries("/loans/check-delete/" + activeLoan.getLoanId(), 1);
+		assertQueries("/loans/check-delete/" + returnedLoan.getLoanId(), 1);
+	}
+
+	/**
+	 * Без кэшей карточка загружает запись одним запросом и кладет ее в кэш справочных данных,
+	 * поэтому проверка удаления обходится без запросов
+	 */
+	@Test
+	void bookPages() throws Exception {
+		assertQueries("/books", 2);
+		clearCaches();
+		assertQueries("/books/view/" + book.getBookId(), 1);
+		assertQueries("/books/check-delete/" + book.getBookId(), 0);
+	}
+
+	@Test
+	void readerPages() throws Exception {
+		assertQueries("/readers", 2);
+		clearCaches();
+		assertQueries("/readers/view/" + reader.getReaderId(), 1);
+		assertQueries("/readers/check-delete/" + reader.getReaderId(), 0);
+	}
+
+	@Test
+	void librarianPages() throws Exception {
+		assertQueries("/librarians", 2);
+		clearCaches();
+		assertQueries("/librarians/view/" + librarian.getLibrarianId(), 1);
+		assertQueries("/librarians/check-delete/" + librarian.getLibrarianId(), 0);
+	}
+
+	private void clearCaches() {
+		CacheConfig.CACHE_NAMES.forEach(name -> cacheManager.getCache(name).clear());
+		entityManagerFactory.getCache().evictAll();
+	}
+
+	private void assertQueries(String url, long expected) throws Exception {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		mockMvc.perform(get(url)).andExpect(status().isOk());
+		assertThat(statistics.getPrepareStatementCount()).as(url).isEqualTo(expected);
+	}
+}
@@ -0,0 +1,86 @@
+package com.library.library_system.controller;
+
+import com.library.library_system.LibraryTestData;
+import com.library.library_system.config.RequestTimingFilter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+@ExtendWith(OutputCaptureExtension.class)
+@Import(LibraryTestData.class)
+class ServerTimingTests {
+
+	private static final Pattern METRIC = Pattern.compile("(\\w+);(?:desc=\"[^\"]*\";)?dur=([0-9.]+)");
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private LibraryTestData testData;
+
+	@BeforeEach
+	void setUp() {
+		testData.loans(12, i -> false);
+	}
+
+	@AfterEach
+	void tearDown() {
+		testData.deleteAll();
+	}
+
+	@Test
+	void splitsPageTimeIntoJdbcServiceViewAndController(CapturedOutput output) throws Exception {
+		String header = mockMvc.perform(get("/loans"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader(RequestTimingFilter.SERVER_TIMING);
+
+		assertThat(header).isNotNull();
+		Map<String, Double> durations = durations(header);
+		assertThat(durations).containsOnlyKeys("db", "service", "view", "app", "total");
+		assertThat(durations.get("db")).isPositive();
+		assertThat(durations.get("service")).isPositive();
+		assertThat(durations.get("view")).isPositive();
+		assertThat(durations.get("db") + durations.get("service") + durations.get("view") + durations.get("app"))
+				.isCloseTo(durations.get("total"), within(0.5));
+
+		assertThat(output).containsPattern("method=GET uri=/loans status=200 total_ms=[0-9.]+ db_ms=[0-9.]+ "
+				+ "db_statements=2 service_ms=[0-9.]+ view_ms=[0-9.]+ app_ms=[0-9.]+");
+	}
+
+	@Test
+	void logsRedirectsWithoutDatabaseWork(CapturedOutput output) throws Exception {
+		mockMvc.perform(get("/loans").param("cursor", "not-a-cursor"))
+				.andExpect(status().is3xxRedirection());
+
+		assertThat(output).containsPattern("method=GET uri=/loans status=302 total_ms=[0-9.]+ db_ms=0.0 db_statements=0 ");
+	}
+
+	private static Map<String, Double> durations(String header) {
+		Map<String, Double> durations = new LinkedHashMap<>();
+		Matcher matcher = METRIC.matcher(header);
+		while (matcher.find()) {
+			durations.put(matcher.group(1), Double.valueOf(matcher.group(2)));
+		}
+		return durations;
+	}
+}
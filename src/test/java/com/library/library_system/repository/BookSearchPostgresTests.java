@@ -0,0 +1,108 @@
+package com.library.library_system.repository;
+
+import com.library.library_system.PostgresTestDatabase;
+import com.library.library_system.config.DatabasePlatform;
+import com.library.library_system.entity.Book;
+import com.library.library_system.repository.BookSearchRepository.SearchField;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Поиск по каталогу на PostgreSQL: search_vector и триграммные индексы из миграций
+ * (BookSearchRepositoryTests проверяет переносимый поиск на H2)
+ */
+@Tag("postgres")
+@EnabledIf(PostgresTestDatabase.AVAILABLE)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(DatabasePlatform.class)
+class BookSearchPostgresTests {
+
+	@DynamicPropertySource
+	static void postgres(DynamicPropertyRegistry registry) {
+		PostgresTestDatabase.register(registry, "library_search");
+	}
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private BookRepository bookRepository;
+
+	@BeforeEach
+	void setUp() {
+		entityManager.persist(new Book("B-1", "Анна Каренина", "Толстой", 1877));
+		entityManager.persist(new Book("B-2", "Война и мир", "Толстой", 1869));
+		entityManager.persist(new Book("B-3", "Мир", "Достоевский", 1900));
+		entityManager.persist(new Book("B-4", "Мирный атом", "Иванов", 1950));
+		entityManager.persist(new Book("B-5", "100% Java", "Толстов", 2020));
+		entityManager.persist(new Book("B-6", "The Lord of the Rings", "Tolkien", 1954));
+		entityManager.persist(new Book("B-7", "Преступление и наказание", "Достоевский", 1866));
+		entityManager.flush();
+	}
+
+	@Test
+	void ranksWholeWordTitleMatchesFirst() {
+		assertThat(bookRepository.search("мир", SearchField.ALL, 0, 10))
+				.extracting(Book::getTitle)
+				.containsExactly("Мир", "Война и мир", "Мирный атом");
+	}
+
+	@Test
+	void matchesWordFormsInRussianAndEnglish() {
+		assertThat(bookRepository.search("войны", SearchField.ALL, 0, 10))
+				.extracting(Book::getTitle)
+				.containsExactly("Война и мир");
+		assertThat(bookRepository.search("наказания", SearchField.ALL, 0, 10))
+				.extracting(Book::getTitle)
+				.containsExactly("Преступление и наказание");
+		assertThat(bookRepository.search("rings", SearchField.ALL, 0, 10))
+				.extracting(Book::getTitle)
+				.containsExactly("The Lord of the Rings");
+	}
+
+	@Test
+	void toleratesTypos() {
+		assertThat(bookRepository.search("Каренена", SearchField.ALL, 0, 10))
+				.extracting(Book::getTitle)
+				.containsExactly("Анна Каренина");
+		assertThat(bookRepository.search("Толстй", SearchField.AUTHOR, 0, 10))
+				.extracting(Book::getAuthor)
+				.containsExactlyInAnyOrder("Толстой", "Толстой", "Толстов");
+		assertThat(bookRepository.search("Толстй", SearchField.TITLE, 0, 10)).isEmpty();
+	}
+
+	@Test
+	void pagesThroughRankedResults() {
+		List<Book> all = bookRepository.search("мир", SearchField.ALL, 0, 10);
+		List<Book> first = bookRepository.search("мир", SearchField.ALL, 0, 2);
+		List<Book> second = bookRepository.search("мир", SearchField.ALL, 2, 2);
+
+		assertThat(first).hasSize(2);
+		assertThat(second).hasSize(1);
+		assertThat(first).extracting(Book::getBookId)
+				.containsExactlyElementsOf(all.subList(0, 2).stream().map(Book::getBookId).toList());
+		assertThat(second).extracting(Book::getBookId).containsExactly(all.get(2).getBookId());
+	}
+
+	@Test
+	void treatsLikeWildcardsLiterally() {
+		assertThat(bookRepository.search("100%", SearchField.ALL, 0, 10))
+				.extracting(Book::getTitle)
+				.containsExactly("100% Java");
+		assertThat(bookRepository.search("_", SearchField.TITLE, 0, 10)).isEmpty();
+	}
+}
@@ -0,0 +1,67 @@
+package com.library.library_system.repository;
+
+import com.library.library_system.config.DatabasePlatform;
+import com.library.library_system.entity.Book;
+import com.library.library_system.repository.BookSearchRepository.SearchField;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import(DatabasePlatform.class)
+class BookSearchRepositoryTests {
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private BookRepository bookRepository;
+
+	@BeforeEach
+	void setUp() {
+		entityManager.persist(new Book("B-1", "Анна Каренина", "Толстой", 1877));
+		entityManager.persist(new Book("B-2", "Война и мир", "Толстой", 1869));
+		entityManager.persist(new Book("B-3", "Мир", "Достоевский", 1900));
+		entityManager.persist(new Book("B-4", "Мирный атом", "Иванов", 1950));
+		entityManager.persist(new Book("B-5", "100% Java", "Толстов", 2020));
+		entityManager.flush();
+	}
+
+	@Test
+	void ranksExactAndPrefixMatchesFirst() {
+		assertThat(bookRepository.search("мир", SearchField.ALL, 0, 10))
+				.extracting(Book::getTitle)
+				.containsExactly("Мир", "Мирный атом", "Война и мир");
+	}
+
+	@Test
+	void searchesTitleAndAuthorSeparately() {
+		assertThat(bookRepository.search("толст", SearchField.ALL, 0, 10)).hasSize(3);
+		assertThat(bookRepository.search("толст", SearchField.TITLE, 0, 10)).isEmpty();
+		assertThat(bookRepository.search("толст", SearchField.AUTHOR, 0, 10))
+				.extracting(Book::getAuthor)
+				.containsExactly("Толстов", "Толстой", "Толстой");
+	}
+
+	@Test
+	void pagesThroughRankedResults() {
+		assertThat(bookRepository.search("мир", SearchField.ALL, 0, 2)).hasSize(2);
+		assertThat(bookRepository.search("мир", SearchField.ALL, 2, 2))
+				.extracting(Book::getTitle)
+				.containsExactly("Война и мир");
+	}
+
+	@Test
+	void treatsLikeWildcardsLiterally() {
+		assertThat(bookRepository.search("100%", SearchField.ALL, 0, 10))
+				.extracting(Book::getTitle)
+				.containsExactly("100% Java");
+		assertThat(bookRepository.search("%", SearchField.TITLE, 0, 10)).hasSize(1);
+		assertThat(bookRepository.search("_", SearchField.TITLE, 0, 10)).isEmpty();
+	}
+}
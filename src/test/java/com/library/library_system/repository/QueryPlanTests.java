@@ -0,0 +1,269 @@
+package com.library.library_system.repository;
+
+import com.library.library_system.LibraryTestData;
+import com.library.library_system.PostgresTestDatabase;
+import com.library.library_system.config.CacheConfig;
+import com.library.library_system.repository.BookLoanPageRepository.LoanFilter;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.IntFunction;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Запросы методов репозитория выдач должны обслуживаться индексами, а не полным
+ * просмотром таблиц. На заполненной базе выполняются методы репозиториев, их SQL
+ * перехватывается и для каждого запроса проверяется план EXPLAIN.
+ *
+ * <p>Тесты работают на PostgreSQL со схемой из миграций, включая частичные индексы.
+ * Запросы перехватываются прокси источника данных вместе с параметрами, и план строится
+ * для тех же значений, с которыми запрос выполнялся.</p>
+ */
+@Tag("postgres")
+@EnabledIf(PostgresTestDatabase.AVAILABLE)
+@SpringBootTest
+@Import({LibraryTestData.class, QueryPlanTests.RecordingConfig.class})
+class QueryPlanTests {
+
+	private static final int BOOKS = 20_000;
+	private static final int READERS = 10_000;
+	private static final int LIBRARIANS = 20;
+	private static final int LOANS = 40_000;
+	private static final long FIRST_LOAN_ID = 1_000_000;
+
+	/**
+	 * Полный просмотр таблицы выдач. Книги и читателей к выборке выдач PostgreSQL может присоединить
+	 * хеш-соединением с их просмотром, если выборка велика относительно этих таблиц: это выбор
+	 * по стоимости, первичный ключ для соединения есть всегда
+	 */
+	private static final Pattern LOAN_SCAN = Pattern.compile("Seq Scan on book_loans ");
+
+	/**
+	 * Полный просмотр таблицы при поиске по номеру; таблица библиотекарей - десятки строк,
+	 * ее просмотр дешевле индекса и допустим
+	 */
+	private static final Pattern TABLE_SCAN = Pattern.compile("Seq Scan on (?!librarians )\\w+");
+
+	private static final Queue<QueryInfo> QUERIES = new ConcurrentLinkedQueue<>();
+
+	@DynamicPropertySource
+	static void postgres(DynamicPropertyRegistry registry) {
+		PostgresTestDatabase.register(registry, "library_plans");
+	}
+
+	@Autowired
+	private BookLoanRepository bookLoanRepository;
+
+	@Autowired
+	private BookRepository bookRepository;
+
+	@Autowired
+	private ReaderRepository readerRepository;
+
+	@Autowired
+	private LibrarianRepository librarianRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@Autowired
+	private LibraryTestData testData;
+
+	private final LocalDate today = LocalDate.now();
+	private List<Long> bookIds;
+	private List<Long> readerIds;
+	private List<Long> librarianIds;
+
+	@BeforeEach
+	void setUp() {
+		jdbcTemplate.batchUpdate("insert into books (book_number, title, author, publication_year, "
+				+ "active_loans_count, total_loans_count, version) values (?, ?, ?, 2000, 0, 0, 0)", rows(BOOKS, i ->
+				new Object[] {"B-" + i, "Книга " + i, "Автор " + i % 300}));
+		jdbcTemplate.batchUpdate("insert into readers (ticket_number, full_name, phone_number, registration_date, "
+				+ "active_loans_count, total_loans_count, version) values (?, ?, ?, ?, 0, 0, 0)", rows(READERS, i ->
+				new Object[] {"R-" + i, "Читатель " + i, "+7 900 " + (1_000_000 + i), Date.valueOf(today)}));
+		jdbcTemplate.batchUpdate("insert into librarians (librarian_number, full_name, position, loans_count, version) "
+				+ "values (?, ?, 'Библиотекарь', 0, 0)", rows(LIBRARIANS, i ->
+				new Object[] {"L-" + i, "Библиотекарь " + i}));
+		bookIds = jdbcTemplate.queryForList("select book_id from books order by book_id", Long.class);
+		readerIds = jdbcTemplate.queryForList("select reader_id from readers order by reader_id", Long.class);
+		librarianIds = jdbcTemplate.queryForList("select librarian_id from librarians order by librarian_id", Long.class);
+
+		// Выдачи распределены по последним 400 дням; у каждой десятой книги первая выдача
+		// не возвращена (невозвращенная выдача у книги может быть только одна)
+		jdbcTemplate.batchUpdate("insert into book_loans (loan_id, book_id, reader_id, librarian_id, "
+				+ "loan_date, due_date, return_date, version) values (?, ?, ?, ?, ?, ?, ?, 0)", rows(LOANS, i -> {
+			LocalDate loanDate = today.minusDays(i % 400);
+			return new Object[] {FIRST_LOAN_ID + i, bookIds.get(i % BOOKS), readerIds.get(i * 7 % READERS),
+					librarianIds.get(i % LIBRARIANS), Date.valueOf(loanDate), Date.valueOf(loanDate.plusDays(14)),
+					i < BOOKS && i % 10 == 0 ? null : Date.valueOf(loanDate.plusDays(7))};
+		}));
+		jdbcTemplate.execute("analyze");
+		CacheConfig.CACHE_NAMES.forEach(name -> cacheManager.getCache(name).clear());
+		QUERIES.clear();
+	}
+
+	@AfterEach
+	void tearDown() {
+		testData.deleteAll();
+	}
+
+	@Test
+	void loanQueriesUseIndexes() {
+		Long bookId = bookIds.get(10);
+		Long readerId = readerIds.get(10);
+		Long librarianId = librarianIds.get(3);
+		List<Long> loanIds = List.of(FIRST_LOAN_ID, FIRST_LOAN_ID + 10, FIRST_LOAN_ID + 20);
+		KeysetScrollPosition position = ScrollPosition.forward(Map.of(
+				"loanDate", today.minusDays(30), "loanId", FIRST_LOAN_ID + 30));
+
+		Map<String, Runnable> queries = new LinkedHashMap<>();
+		queries.put("findByBookBookIdAndReturnDateIsNull", () -> bookLoanRepository.findByBookBookIdAndReturnDateIsNull(bookId));
+		queries.put("findByBookBookId", () -> bookLoanRepository.findByBookBookId(bookId));
+		queries.put("findByReaderReaderIdAndReturnDateIsNull", () -> bookLoanRepository.findByReaderReaderIdAndReturnDateIsNull(readerId));
+		queries.put("findByReaderReaderId", () -> bookLoanRepository.findByReaderReaderId(readerId));
+		queries.put("findByLibrarianLibrarianId", () -> bookLoanRepository.findByLibrarianLibrarianId(librarianId));
+		queries.put("findByLoanDateBetween", () -> bookLoanRepository.findByLoanDateBetween(today.minusDays(3), today));
+		queries.put("findByReturnDateIsNullAndDueDateBefore", () -> bookLoanRepository.findByReturnDateIsNullAndDueDateBefore(today));
+		queries.put("findDetailedByLoanId", () -> bookLoanRepository.findDetailedByLoanId(FIRST_LOAN_ID));
+		queries.put("findWithBookByLoanId", () -> bookLoanRepository.findWithBookByLoanId(FIRST_LOAN_ID));
+		queries.put("findLoansPage(first page)", () -> bookLoanRepository.findLoansPage(LoanFilter.ALL, today,
+				ScrollPosition.keyset(), 50));
+		queries.put("findLoansPage(active, first page)", () -> bookLoanRepository.findLoansPage(LoanFilter.ACTIVE, today,
+				ScrollPosition.keyset(), 50));
+		queries.put("findLoansPage(window)", () -> bookLoanRepository.findLoansPage(LoanFilter.ALL, today, position, 50));
+		queries.put("findLoansPage(backward)", () -> bookLoanRepository.findLoansPage(LoanFilter.ALL, today,
+				ScrollPosition.backward(position.getKeys()), 50));
+		queries.put("findLoansPage(active, window)", () -> bookLoanRepository.findLoansPage(LoanFilter.ACTIVE, today,
+				position, 50));
+		queries.put("findLoansPage(overdue, window)", () -> bookLoanRepository.findLoansPage(LoanFilter.OVERDUE, today,
+				position, 50));
+		queries.put("countLoansByStatus(active)", () -> bookLoanRepository.countLoansByStatus(today, true, false));
+		queries.put("countLoansByBookIds", () -> bookLoanRepository.countLoansByBookIds(bookIds.subList(0, 50)));
+		queries.put("countLoansByReaderIds", () -> bookLoanRepository.countLoansByReaderIds(readerIds.subList(0, 50)));
+		queries.put("countLoansByLibrarianIds", () -> bookLoanRepository.countLoansByLibrarianIds(librarianIds.subList(0, 2)));
+		queries.put("findOpenForUpdateByLoanIds", () -> transactionTemplate.executeWithoutResult(status ->
+				bookLoanRepository.findOpenForUpdateByLoanIds(loanIds)));
+		queries.put("findOpenForUpdateByBookNumbers", () -> transactionTemplate.executeWithoutResult(status ->
+				bookLoanRepository.findOpenForUpdateByBookNumbers(List.of("B-10", "B-20"))));
+		queries.put("findSummaryByLoanId", () -> bookLoanRepository.findSummaryByLoanId(FIRST_LOAN_ID));
+		queries.put("findExistingLoanIds", () -> bookLoanRepository.findExistingLoanIds(loanIds));
+		queries.put("findReminderCandidates", () -> bookLoanRepository.findReminderCandidates(
+				today, today.plusDays(2), today.minusDays(7), today.minusDays(30), FIRST_LOAN_ID, Limit.of(500)));
+
+		Map<String, Runnable> lookups = new LinkedHashMap<>();
+		lookups.put("findIdByBookNumber", () -> bookRepository.findIdByBookNumber("B-10"));
+		lookups.put("findIdByTicketNumber", () -> readerRepository.findIdByTicketNumber("R-10"));
+		lookups.put("findIdByLibrarianNumber", () -> librarianRepository.findIdByLibrarianNumber("L-3"));
+
+		assertThat(scans(queries, LOAN_SCAN)).as("запросы с полным просмотром таблицы выдач").isEmpty();
+		assertThat(scans(lookups, TABLE_SCAN)).as("поиск по номеру с полным просмотром таблицы").isEmpty();
+	}
+
+	private List<String> scans(Map<String, Runnable> queries, Pattern scan) {
+		List<String> scans = new ArrayList<>();
+		queries.forEach((name, query) -> {
+			QUERIES.clear();
+			query.run();
+			List<QueryInfo> executed = new ArrayList<>(QUERIES);
+			assertThat(executed).as(name).isNotEmpty();
+			for (QueryInfo sql : executed) {
+				String plan = explain(sql);
+				if (scan.matcher(plan).find()) {
+					scans.add(name + ":\n" + plan);
+				}
+			}
+		});
+		return scans;
+	}
+
+	private String explain(QueryInfo query) {
+		return jdbcTemplate.execute((Connection connection) -> {
+			try (PreparedStatement statement = connection.prepareStatement("explain " + query.getQuery())) {
+				for (ParameterSetOperation parameter : query.getParametersList().get(0)) {
+					parameter.getMethod().invoke(statement, parameter.getArgs());
+				}
+				StringBuilder text = new StringBuilder();
+				try (ResultSet plan = statement.executeQuery()) {
+					while (plan.next()) {
+						text.append(plan.getString(1)).append('\n');
+					}
+				}
+				return text.toString();
+			} catch (ReflectiveOperationException e) {
+				throw new IllegalStateException("Не удалось передать параметры запроса " + query.getQuery(), e);
+			}
+		});
+	}
+
+	private static List<Object[]> rows(int count, IntFunction<Object[]> row) {
+		List<Object[]> rows = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			rows.add(row.apply(i));
+		}
+		return rows;
+	}
+
+	/**
+	 * Оборачивает источник данных прокси, который запоминает выполненные запросы с параметрами
+	 */
+	@TestConfiguration
+	static class RecordingConfig {
+
+		@Bean
+		static BeanPostProcessor recordingDataSourcePostProcessor() {
+			return new BeanPostProcessor() {
+				@Override
+				public Object postProcessAfterInitialization(Object bean, String beanName) {
+					if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+						return ProxyDataSourceBuilder.create(dataSource)
+								.afterQuery((execInfo, queries) -> QUERIES.addAll(queries))
+								.build();
+					}
+					return bean;
+				}
+			};
+		}
+	}
+}
@@ -0,0 +1,127 @@
+package com.library.library_system.repository;
+
+import com.library.library_system.LibraryTestData;
+import com.library.library_system.config.CacheStatisticsReporter;
+import com.library.library_system.entity.Book;
+import com.library.library_system.entity.BookLoan;
+import com.library.library_system.entity.Librarian;
+import com.library.library_system.entity.Reader;
+import com.library.library_system.service.BookLoanService;
+import com.library.library_system.service.BookService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import(LibraryTestData.class)
+class SecondLevelCacheTests {
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private BookRepository bookRepository;
+
+	@Autowired
+	private ReaderRepository readerRepository;
+
+	@Autowired
+	private BookService bookService;
+
+	@Autowired
+	private BookLoanService bookLoanService;
+
+	@Autowired
+	private CacheStatisticsReporter cacheStatisticsReporter;
+
+	@Autowired
+	private LibraryTestData testData;
+
+	private Statistics statistics;
+	private Book book;
+	private Book otherBook;
+	private Reader reader;
+	private Librarian librarian;
+
+	@BeforeEach
+	void setUp() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		book = testData.book("S-1", "Обломов", "Гончаров", 1859);
+		otherBook = testData.book("S-2", "Обрыв", "Гончаров", 1869);
+		reader = testData.reader("SR-1", "Зайцев Олег", "+7 900 000-20-01");
+		librarian = testData.librarian("SL-1", "Миронова Ольга");
+		entityManagerFactory.getCache().evictAll();
+	}
+
+	@AfterEach
+	void tearDown() {
+		testData.deleteAll();
+	}
+
+	@Test
+	void repeatedFindByIdIsServedFromSecondLevelCache() {
+		statistics.clear();
+		bookRepository.findById(book.getBookId());
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+		statistics.clear();
+		Book cached = bookRepository.findById(book.getBookId()).orElseThrow();
+		readerRepository.findById(reader.getReaderId());
+		readerRepository.findById(reader.getReaderId());
+
+		assertThat(cached.getTitle()).isEqualTo("Обломов");
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+		assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(2);
+		assertThat(cacheStatisticsReporter.getSecondLevelCacheStatistics())
+				.containsKeys(Book.class.getName(), Reader.class.getName(), Librarian.class.getName());
+	}
+
+	@Test
+	void naturalKeyLookupIsServedFromQueryCache() {
+		bookRepository.findByBookNumber("S-1");
+
+		statistics.clear();
+		Book found = bookRepository.findByBookNumber("S-1");
+
+		assertThat(found.getBookId()).isEqualTo(book.getBookId());
+		assertThat(statistics.getPrepareStatementCount()).isZero();
+		assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+	}
+
+	@Test
+	void loanCounterUpdateEvictsOnlyAffectedRows() {
+		bookRepository.findById(book.getBookId());
+		bookRepository.findById(otherBook.getBookId());
+
+		bookLoanService.saveLoan(new BookLoan(book, reader, librarian, LocalDate.now(), LocalDate.now().plusDays(14)));
+
+		assertThat(entityManagerFactory.getCache().contains(Book.class, otherBook.getBookId())).isTrue();
+		assertThat(entityManagerFactory.getCache().contains(Book.class, book.getBookId())).isFalse();
+		assertThat(bookRepository.findById(book.getBookId()).orElseThrow().getActiveLoansCount()).isEqualTo(1);
+	}
+
+	@Test
+	void editingBookKeepsLoanCounters() {
+		bookLoanService.saveLoan(new BookLoan(book, reader, librarian, LocalDate.now(), LocalDate.now().plusDays(14)));
+
+		Book edited = new Book("S-1", "Обломов (2-е изд.)", "Гончаров", 1862);
+		edited.setBookId(book.getBookId());
+		edited.setVersion(book.getVersion());
+		bookService.saveBook(edited);
+
+		Book stored = bookRepository.findById(book.getBookId()).orElseThrow();
+		assertThat(stored.getTitle()).isEqualTo("Обломов (2-е изд.)");
+		assertThat(stored.getActiveLoansCount()).isEqualTo(1);
+		assertThat(stored.getTotalLoansCount()).isEqualTo(1);
+	}
+}
@@ -0,0 +1,119 @@
+package com.library.library_system.service;
+
+import com.library.library_system.LibraryTestData;
+import com.library.library_system.config.CacheConfig;
+import com.library.library_system.entity.Book;
+import com.library.library_system.repository.BookLoanRepository;
+import com.library.library_system.repository.BookRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Задержка выдачи книги со сканера при постоянной нагрузке от нескольких пунктов выдачи.
+ * Каждый пункт сканирует книгу через равные промежутки времени; задержка считается от
+ * запланированного момента сканирования, поэтому ожидание в очереди тоже учитывается.
+ * Запускается отдельно: {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@Import(LibraryTestData.class)
+class BarcodeCheckoutBenchmarkTests {
+
+	private static final Logger log = LoggerFactory.getLogger(BarcodeCheckoutBenchmarkTests.class);
+
+	private static final int DESKS = 4;
+	private static final int CHECKOUTS_PER_DESK = 500;
+	private static final int WARM_UP_CHECKOUTS = 2000;
+	private static final long SCAN_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(40);
+
+	@Autowired
+	private BookLoanService bookLoanService;
+
+	@Autowired
+	private BookRepository bookRepository;
+
+	@Autowired
+	private BookLoanRepository bookLoanRepository;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@Autowired
+	private LibraryTestData testData;
+
+	@AfterEach
+	void tearDown() {
+		testData.deleteAll();
+	}
+
+	@Test
+	void p99LatencyUnderDeskLoadIsBelowTwentyMilliseconds() throws Exception {
+		CacheConfig.CACHE_NAMES.forEach(name -> cacheManager.getCache(name).clear());
+		List<Book> books = new ArrayList<>();
+		for (int i = 0; i < WARM_UP_CHECKOUTS + DESKS * CHECKOUTS_PER_DESK; i++) {
+			books.add(new Book("SB-" + i, "Книга " + i, "Автор", 2018));
+		}
+		bookRepository.saveAll(books);
+		for (int desk = 0; desk < DESKS; desk++) {
+			testData.reader("SBR-" + desk, "Читатель " + desk, "+7 900 300-00-" + desk);
+			testData.librarian("SBL-" + desk, "Библиотекарь " + desk);
+		}
+		for (int i = 0; i < WARM_UP_CHECKOUTS; i++) {
+			bookLoanService.checkoutByNumbers("SB-" + i, "SBR-0", "SBL-0", null);
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(DESKS);
+		List<Future<long[]>> desks = new ArrayList<>();
+		long started = System.nanoTime();
+		for (int desk = 0; desk < DESKS; desk++) {
+			int number = desk;
+			desks.add(executor.submit(() -> {
+				long[] nanos = new long[CHECKOUTS_PER_DESK];
+				long scheduled = System.nanoTime() + SCAN_INTERVAL_NANOS * number / DESKS;
+				for (int i = 0; i < CHECKOUTS_PER_DESK; i++) {
+					LockSupport.parkNanos(scheduled - System.nanoTime());
+					int book = WARM_UP_CHECKOUTS + i * DESKS + number;
+					bookLoanService.checkoutByNumbers("SB-" + book, "SBR-" + number, "SBL-" + number, null);
+					nanos[i] = System.nanoTime() - scheduled;
+					scheduled += SCAN_INTERVAL_NANOS;
+				}
+				return nanos;
+			}));
+		}
+		long[] latencies = new long[0];
+		for (Future<long[]> desk : desks) {
+			long[] nanos = desk.get();
+			long[] merged = Arrays.copyOf(latencies, latencies.length + nanos.length);
+			System.arraycopy(nanos, 0, merged, latencies.length, nanos.length);
+			latencies = merged;
+		}
+		long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+		executor.shutdown();
+
+		Arrays.sort(latencies);
+		long p50 = latencies[latencies.length / 2] / 1000;
+		long p99 = latencies[(int) Math.ceil(latencies.length * 0.99) - 1] / 1000;
+		log.info("Выдача со сканера: {} пунктов, {} выдач за {} мс, p50 {} мкс, p99 {} мкс",
+				DESKS, latencies.length, elapsedMillis, p50, p99);
+		assertThat(bookLoanRepository.count()).isEqualTo((long) WARM_UP_CHECKOUTS + DESKS * CHECKOUTS_PER_DESK);
+		assertThat(p99).isLessThan(20_000);
+	}
+}
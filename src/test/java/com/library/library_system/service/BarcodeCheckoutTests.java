@@ -0,0 +1,160 @@
+package com.library.library_system.service;
+
+import com.library.library_system.LibraryTestData;
+import com.library.library_system.config.CacheConfig;
+import com.library.library_system.entity.BookLoan;
+import com.library.library_system.entity.Librarian;
+import com.library.library_system.entity.Reader;
+import com.library.library_system.repository.BookLoanRepository;
+import com.library.library_system.repository.BookRepository;
+import com.library.library_system.repository.LibrarianRepository;
+import com.library.library_system.repository.ReaderRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+@Import(LibraryTestData.class)
+class BarcodeCheckoutTests {
+
+	@Autowired
+	private BookLoanService bookLoanService;
+
+	@Autowired
+	private BookRepository bookRepository;
+
+	@Autowired
+	private ReaderRepository readerRepository;
+
+	@Autowired
+	private LibrarianRepository librarianRepository;
+
+	@Autowired
+	private BookLoanRepository bookLoanRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private LibraryTestData testData;
+
+	private Reader reader;
+	private Librarian librarian;
+
+	@BeforeEach
+	void setUp() {
+		CacheConfig.CACHE_NAMES.forEach(name -> cacheManager.getCache(name).clear());
+		testData.books("S-", 3);
+		reader = testData.reader("SR-1", "Григорьева Нина", "+7 900 000-70-01");
+		librarian = testData.librarian("SL-1", "Федоров Олег");
+	}
+
+	@AfterEach
+	void tearDown() {
+		testData.deleteAll();
+	}
+
+	@Test
+	void checksOutByNumbersAndUpdatesCounters() {
+		BookLoan loan = bookLoanService.checkoutByNumbers(" S-0 ", "SR-1", "SL-1", null);
+
+		BookLoan stored = bookLoanService.getLoanById(loan.getLoanId());
+		assertThat(stored.getBook().getBookNumber()).isEqualTo("S-0");
+		assertThat(stored.getReader().getReaderId()).isEqualTo(reader.getReaderId());
+		assertThat(stored.getDueDate()).isEqualTo(LocalDate.now().plusDays(14));
+		assertThat(bookRepository.findByBookNumber("S-0").isAvailable()).isFalse();
+		assertThat(readerRepository.findById(reader.getReaderId()).orElseThrow().getActiveLoansCount()).isEqualTo(1);
+		assertThat(librarianRepository.findById(librarian.getLibrarianId()).orElseThrow().getLoansCount()).isEqualTo(1);
+	}
+
+	@Test
+	void loanedBookAndUnknownNumbersAreRejected() {
+		bookLoanService.checkoutByNumbers("S-1", "SR-1", "SL-1", null);
+
+		assertThatThrownBy(() -> bookLoanService.checkoutByNumbers("S-1", "SR-1", "SL-1", null))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("уже выдана");
+		assertThatThrownBy(() -> bookLoanService.checkoutByNumbers("S-404", "SR-1", "SL-1", null))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessage("Книга не найдена");
+		assertThatThrownBy(() -> bookLoanService.checkoutByNumbers("S-2", "SR-404", "SL-1", null))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessage("Читатель не найден");
+		assertThat(bookLoanRepository.count()).isEqualTo(1);
+		assertThat(readerRepository.findById(reader.getReaderId()).orElseThrow().getActiveLoansCount()).isEqualTo(1);
+	}
+
+	@Test
+	void otherIntegrityViolationsAreNotReportedAsLoanedBook() {
+		Librarian removed = testData.librarian("SL-2", "Зайцев Петр");
+		assertThat(librarianRepository.findIdByLibrarianNumber("SL-2")).isEqualTo(removed.getLibrarianId());
+		// Библиотекарь удален в обход сервиса, его идентификатор остался в кэше по табельному номеру
+		jdbcTemplate.update("delete from librarians where librarian_id = ?", removed.getLibrarianId());
+
+		assertThatThrownBy(() -> bookLoanService.checkoutByNumbers("S-0", "SR-1", "SL-2", null))
+				.isInstanceOf(DataIntegrityViolationException.class);
+		assertThat(bookRepository.findByBookNumber("S-0").isAvailable()).isTrue();
+	}
+
+	@Test
+	void warmCheckoutLoadsNoEntities() {
+		bookLoanService.checkoutByNumbers("S-0", "SR-1", "SL-1", null);
+		bookRepository.findIdByBookNumber("S-1");
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		bookLoanService.checkoutByNumbers("S-1", "SR-1", "SL-1", null);
+
+		// три обновления счетчиков, вставка выдачи и не больше одного запроса к последовательности
+		assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(5);
+		assertThat(statistics.getEntityLoadCount()).isZero();
+	}
+
+	@Test
+	void scanEndpointAnswersWithLoan() throws Exception {
+		mockMvc.perform(post("/loans/scan")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"bookNumber\": \"S-2\", \"ticketNumber\": \"SR-1\", \"librarianNumber\": \"SL-1\", " +
+								"\"dueDate\": \"" + LocalDate.now().plusDays(7) + "\"}"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.loanId").isNumber())
+				.andExpect(jsonPath("$.bookNumber").value("S-2"))
+				.andExpect(jsonPath("$.dueDate").value(LocalDate.now().plusDays(7).toString()));
+
+		mockMvc.perform(post("/loans/scan")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"bookNumber\": \"S-2\", \"ticketNumber\": \"SR-1\", \"librarianNumber\": \"SL-1\"}"))
+				.andExpect(status().isConflict())
+				.andExpect(jsonPath("$.error").exists());
+	}
+}
@@ -0,0 +1,183 @@
+package com.library.library_system.service;
+
+import com.library.library_system.LibraryTestData;
+import com.library.library_system.entity.Book;
+import com.library.library_system.entity.BookLoan;
+import com.library.library_system.entity.Librarian;
+import com.library.library_system.entity.Reader;
+import com.library.library_system.repository.BookLoanRepository;
+import com.library.library_system.repository.BookRepository;
+import com.library.library_system.repository.ReaderRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+		"spring.jpa.properties.hibernate.generate_statistics=true",
+		"library.return.max-items=30"
+})
+@Import(LibraryTestData.class)
+class BatchReturnTests {
+
+	@Autowired
+	private BookLoanService bookLoanService;
+
+	@Autowired
+	private BookRepository bookRepository;
+
+	@Autowired
+	private ReaderRepository readerRepository;
+
+	@Autowired
+	private BookLoanRepository bookLoanRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private LibraryTestData testData;
+
+	private final List<Book> books = new ArrayList<>();
+	private Reader firstReader;
+	private Reader secondReader;
+	private Librarian librarian;
+
+	@BeforeEach
+	void setUp() {
+		books.addAll(testData.books("R-", 24));
+		firstReader = testData.reader("RR-1", "Соколова Анна", "+7 900 000-50-01");
+		secondReader = testData.reader("RR-2", "Морозов Петр", "+7 900 000-50-02");
+		librarian = testData.librarian("RL-1", "Зайцева Елена");
+	}
+
+	@AfterEach
+	void tearDown() {
+		testData.deleteAll();
+	}
+
+	@Test
+	void returnsByBookNumbersWithResultPerItem() {
+		checkout(firstReader, books.subList(0, 2));
+		checkout(secondReader, books.subList(2, 3));
+		BookLoan returned = checkout(secondReader, books.subList(3, 4)).get(0);
+		bookLoanService.returnBook(returned.getLoanId());
+
+		List<ReturnResult> results = bookLoanService.returnBooks(
+				List.of("R-0", " R-2 ", "R-3", "R-404", "R-0", "R-1", "R-5"));
+
+		assertThat(results).extracting(ReturnResult::item)
+				.containsExactly("R-0", "R-2", "R-3", "R-404", "R-1", "R-5");
+		assertThat(results).extracting(ReturnResult::status).containsExactly(
+				ReturnResult.Status.RETURNED,
+				ReturnResult.Status.RETURNED,
+				ReturnResult.Status.ALREADY_RETURNED,
+				ReturnResult.Status.UNKNOWN,
+				ReturnResult.Status.RETURNED,
+				ReturnResult.Status.ALREADY_RETURNED);
+		assertThat(results.get(0).title()).isEqualTo("Книга 0");
+
+		assertThat(bookLoanRepository.findByReturnDateIsNull()).isEmpty();
+		assertThat(bookRepository.findAllById(ids(books.subList(0, 4))))
+				.allSatisfy(book -> assertThat(book.isAvailable()).isTrue());
+		assertThat(readerRepository.findById(firstReader.getReaderId()).orElseThrow().getActiveLoansCount()).isZero();
+		assertThat(readerRepository.findById(secondReader.getReaderId()).orElseThrow().getActiveLoansCount()).isZero();
+		assertThat(readerRepository.findById(secondReader.getReaderId()).orElseThrow().getTotalLoansCount()).isEqualTo(2);
+	}
+
+	@Test
+	void returnsByLoanIds() {
+		List<BookLoan> loans = checkout(firstReader, books.subList(0, 3));
+
+		List<ReturnResult> results = bookLoanService.returnLoans(
+				List.of(loans.get(0).getLoanId(), -1L, loans.get(2).getLoanId()));
+
+		assertThat(results).extracting(ReturnResult::status).containsExactly(
+				ReturnResult.Status.RETURNED, ReturnResult.Status.UNKNOWN, ReturnResult.Status.RETURNED);
+		assertThat(bookLoanRepository.findById(loans.get(0).getLoanId()).orElseThrow().getReturnDate())
+				.isEqualTo(LocalDate.now());
+		assertThat(bookLoanRepository.findById(loans.get(1).getLoanId()).orElseThrow().isReturned()).isFalse();
+		assertThat(readerRepository.findById(firstReader.getReaderId()).orElseThrow().getActiveLoansCount()).isEqualTo(1);
+
+		assertThat(bookLoanService.returnLoans(List.of(loans.get(0).getLoanId())))
+				.extracting(ReturnResult::status).containsExactly(ReturnResult.Status.ALREADY_RETURNED);
+	}
+
+	@Test
+	void rejectsEmptyAndOversizedBatches() {
+		assertThatThrownBy(() -> bookLoanService.returnBooks(List.of(" ", "")))
+				.isInstanceOf(IllegalArgumentException.class);
+		List<String> numbers = new ArrayList<>();
+		for (int i = 0; i < 31; i++) {
+			numbers.add("N-" + i);
+		}
+		assertThatThrownBy(() -> bookLoanService.returnBooks(numbers))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("30");
+	}
+
+	@Test
+	void statementCountDoesNotDependOnBatchSize() {
+		// блокировка выдач, закрытие выдач и счетчики книг и читателей
+		int expected = 4;
+		checkout(firstReader, books.subList(0, 10));
+		checkout(secondReader, books.subList(10, 24));
+
+		assertThat(countStatements(numbers(books.subList(0, 2)))).isEqualTo(expected);
+		assertThat(countStatements(numbers(books.subList(2, 24)))).isEqualTo(expected);
+	}
+
+	@Test
+	void singleReturnIsOneConditionalUpdateWithoutLoadingEntities() {
+		BookLoan loan = checkout(firstReader, books.subList(0, 1)).get(0);
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		ReturnResult result = bookLoanService.returnBook(loan.getLoanId());
+
+		// закрытие выдачи, чтение книги и читателя выдачи и счетчики книг и читателей
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(4);
+		assertThat(statistics.getEntityLoadCount()).isZero();
+		assertThat(result.title()).isEqualTo("Книга 0");
+		assertThat(bookRepository.findById(books.get(0).getBookId()).orElseThrow().isAvailable()).isTrue();
+		assertThat(readerRepository.findById(firstReader.getReaderId()).orElseThrow().getActiveLoansCount()).isZero();
+
+		assertThatThrownBy(() -> bookLoanService.returnBook(loan.getLoanId()))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("уже возвращена");
+		assertThatThrownBy(() -> bookLoanService.returnBook(-1L))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private long countStatements(List<String> numbers) {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		bookLoanService.returnBooks(numbers);
+		return statistics.getPrepareStatementCount();
+	}
+
+	private List<BookLoan> checkout(Reader reader, List<Book> cart) {
+		return bookLoanService.checkout(reader.getReaderId(), librarian.getLibrarianId(), ids(cart),
+				LocalDate.now().plusDays(14));
+	}
+
+	private static List<Long> ids(List<Book> books) {
+		return books.stream().map(Book::getBookId).toList();
+	}
+
+	private static List<String> numbers(List<Book> books) {
+		return books.stream().map(Book::getBookNumber).toList();
+	}
+}
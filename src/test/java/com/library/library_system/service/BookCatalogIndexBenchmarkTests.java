@@ -0,0 +1,91 @@
+package com.library.library_system.service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Замер памяти и времени ответа индекса каталога на 100 000 книг.
+ * Запускается отдельно: {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class BookCatalogIndexBenchmarkTests {
+
+	private static final Logger log = LoggerFactory.getLogger(BookCatalogIndexBenchmarkTests.class);
+
+	private static final int BOOKS = 100_000;
+	private static final int QUERIES = 10_000;
+
+	private static final String[] WORDS = {
+			"война", "мир", "преступление", "наказание", "мастер", "маргарита", "идиот", "братья",
+			"карамазовы", "отцы", "дети", "мертвые", "души", "герой", "нашего", "времени", "капитанская",
+			"дочка", "тихий", "дон", "белая", "гвардия", "собачье", "сердце", "история", "города",
+			"war", "peace", "crime", "punishment", "master", "history", "night", "garden", "river", "stone"
+	};
+
+	private static final String[] AUTHORS = {
+			"Толстой", "Достоевский", "Булгаков", "Гоголь", "Лермонтов", "Пушкин", "Шолохов", "Чехов",
+			"Тургенев", "Набоков", "Tolstoy", "Dickens", "Austen", "Orwell", "Hemingway"
+	};
+
+	@Test
+	void measuresHeapAndLatencyPer100kBooks() {
+		Random random = new Random(42);
+		MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+		long heapBefore = usedHeap(memory);
+
+		BookCatalogIndex index = new BookCatalogIndex();
+		long buildStarted = System.nanoTime();
+		for (long id = 1; id <= BOOKS; id++) {
+			String title = word(random) + " " + word(random) + " " + word(random) + " " + id % 997;
+			String author = AUTHORS[random.nextInt(AUTHORS.length)] + " " + (char) ('А' + random.nextInt(32)) + ".";
+			index.put(id, title, author);
+		}
+		long buildMillis = (System.nanoTime() - buildStarted) / 1_000_000;
+		long heapAfter = usedHeap(memory);
+
+		String[] queries = new String[QUERIES];
+		for (int i = 0; i < QUERIES; i++) {
+			String word = word(random);
+			queries[i] = random.nextBoolean()
+					? word.substring(0, Math.min(word.length(), 1 + random.nextInt(4)))
+					: word + " " + AUTHORS[random.nextInt(AUTHORS.length)].substring(0, 3);
+		}
+		for (String query : queries) {
+			index.search(query, 0, 50);
+		}
+		long searchStarted = System.nanoTime();
+		long found = 0;
+		for (String query : queries) {
+			found += index.search(query, 0, 50).length;
+		}
+		long averageMicros = (System.nanoTime() - searchStarted) / 1_000 / QUERIES;
+
+		log.info("Книг: {}, слов: {}", index.size(), index.termCount());
+		log.info("Куча: {} КБ измерено, {} КБ по оценке индекса",
+				(heapAfter - heapBefore) / 1024, index.estimatedBytes() / 1024);
+		log.info("Построение: {} мс, средний запрос: {} мкс (найдено {})",
+				buildMillis, averageMicros, found);
+
+		assertThat(index.size()).isEqualTo(BOOKS);
+		assertThat(index.estimatedBytes()).isLessThan(64L * 1024 * 1024);
+	}
+
+	private static String word(Random random) {
+		return WORDS[random.nextInt(WORDS.length)];
+	}
+
+	private static long usedHeap(MemoryMXBean memory) {
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return memory.getHeapMemoryUsage().getUsed();
+	}
+}
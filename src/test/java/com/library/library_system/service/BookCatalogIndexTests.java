@@ -0,0 +1,111 @@
+package com.library.library_system.service;
+
+import com.library.library_system.entity.Book;
+import com.library.library_system.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BookCatalogIndexTests {
+
+	private BookCatalogIndex index;
+
+	@BeforeEach
+	void setUp() {
+		index = new BookCatalogIndex();
+		index.put(1L, "Война и мир", "Лев Толстой");
+		index.put(2L, "Анна Каренина", "Лев Толстой");
+		index.put(3L, "Мирный атом", "Иванов");
+		index.put(4L, "Ёжик в тумане", "Козлов");
+	}
+
+	@Test
+	void findsBooksByWordPrefixes() {
+		assertThat(index.search("мир", 0, 10)).containsExactly(1L, 3L);
+		assertThat(index.search("толст", 0, 10)).containsExactly(1L, 2L);
+		assertThat(index.search("ир", 0, 10)).isEmpty();
+	}
+
+	@Test
+	void requiresEveryTermAndRanksExactWordsFirst() {
+		assertThat(index.search("лев толст мир", 0, 10)).containsExactly(1L);
+		assertThat(index.search("Мирн", 0, 10)).containsExactly(3L);
+		index.put(5L, "Мир", "Толстой");
+		assertThat(index.search("мир", 0, 10)).containsExactly(1L, 5L, 3L);
+		assertThat(index.search("мир", 1, 1)).containsExactly(5L);
+	}
+
+	@Test
+	void foldsCaseAndYo() {
+		assertThat(index.search("ЕЖИК", 0, 10)).containsExactly(4L);
+		assertThat(index.search("ёж", 0, 10)).containsExactly(4L);
+	}
+
+	@Test
+	void updatesAndRemovesBooks() {
+		index.put(3L, "Атом", "Иванов");
+		assertThat(index.search("мирн", 0, 10)).isEmpty();
+		assertThat(index.search("атом", 0, 10)).containsExactly(3L);
+
+		index.remove(1L);
+		assertThat(index.search("война", 0, 10)).isEmpty();
+		assertThat(index.search("толстой", 0, 10)).containsExactly(2L);
+		assertThat(index.size()).isEqualTo(3);
+	}
+
+	@Test
+	void estimatesMemoryIncrementally() {
+		long before = index.estimatedBytes();
+		index.put(10L, "Новая книга", "Новый автор");
+		assertThat(index.estimatedBytes()).isGreaterThan(before);
+		index.remove(10L);
+		assertThat(index.estimatedBytes()).isEqualTo(before);
+	}
+
+	@Test
+	void buildSkipsBooksRemovedAfterTheirChunkWasRead() {
+		BookCatalogIndex building = new BookCatalogIndex();
+		BookRepository bookRepository = mock(BookRepository.class);
+		ReflectionTestUtils.setField(building, "bookRepository", bookRepository);
+		Book removed = book(10L, "Удаленная книга");
+		Book kept = book(11L, "Оставленная книга");
+		when(bookRepository.findAllBy(any(), any(), any())).thenAnswer(invocation -> {
+			// Удаление фиксируется после чтения порции, но до ее добавления в индекс
+			building.removeAfterCommit(removed.getBookId());
+			return Window.from(List.of(removed, kept), i -> ScrollPosition.forward(Map.of("bookId", 10L + i)), false);
+		});
+
+		building.build();
+
+		assertThat(building.isReady()).isTrue();
+		assertThat(building.search("книга", 0, 10)).containsExactly(11L);
+	}
+
+	@Test
+	void putDoesNotRefillIndexDisabledByMemoryBudget() {
+		ReflectionTestUtils.setField(index, "memoryBudget", DataSize.ofBytes(1));
+		index.put(5L, "Мир", "Толстой");
+
+		assertThat(index.size()).isZero();
+		index.put(6L, "Атом", "Иванов");
+		assertThat(index.size()).isZero();
+		assertThat(index.search("атом", 0, 10)).isEmpty();
+	}
+
+	private static Book book(Long id, String title) {
+		Book book = new Book("B-" + id, title, "Автор", 2000);
+		book.setBookId(id);
+		return book;
+	}
+}
@@ -0,0 +1,92 @@
+package com.library.library_system.service;
+
+import com.library.library_system.LibraryTestData;
+import com.library.library_system.entity.Book;
+import com.library.library_system.entity.BookLoan;
+import com.library.library_system.entity.Librarian;
+import com.library.library_system.entity.Reader;
+import com.library.library_system.repository.BookLoanRepository;
+import com.library.library_system.repository.BookRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Сравнение выдачи корзины книг одной транзакцией с выдачей тех же книг по одной.
+ * Запускается отдельно: {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@Import(LibraryTestData.class)
+class CheckoutBenchmarkTests {
+
+	private static final Logger log = LoggerFactory.getLogger(CheckoutBenchmarkTests.class);
+
+	private static final int CART_SIZE = 20;
+	private static final int ROUNDS = 50;
+
+	@Autowired
+	private BookLoanService bookLoanService;
+
+	@Autowired
+	private BookRepository bookRepository;
+
+	@Autowired
+	private BookLoanRepository bookLoanRepository;
+
+	@Autowired
+	private LibraryTestData testData;
+
+	@AfterEach
+	void tearDown() {
+		testData.deleteAll();
+	}
+
+	@Test
+	void batchedCheckoutIsFasterThanSingleSaves() {
+		Librarian librarian = testData.librarian("BL-1", "Морозова Ирина");
+
+		long singleNanos = 0;
+		long cartNanos = 0;
+		for (int round = 0; round < ROUNDS; round++) {
+			Reader reader = testData.reader("BR-" + round, "Читатель " + round, "+7 900 100-00-" + round);
+			List<Book> single = createBooks("BS-" + round + "-");
+			List<Book> cart = createBooks("BC-" + round + "-");
+
+			long started = System.nanoTime();
+			for (Book book : single) {
+				bookLoanService.saveLoan(new BookLoan(book, reader, librarian, LocalDate.now(), LocalDate.now().plusDays(14)));
+			}
+			singleNanos += System.nanoTime() - started;
+
+			started = System.nanoTime();
+			bookLoanService.checkout(reader.getReaderId(), librarian.getLibrarianId(),
+					cart.stream().map(Book::getBookId).toList(), LocalDate.now().plusDays(14));
+			cartNanos += System.nanoTime() - started;
+		}
+
+		log.info("Выдача {} книг: по одной {} мкс, корзиной {} мкс (в среднем за {} повторов)",
+				CART_SIZE, singleNanos / ROUNDS / 1000, cartNanos / ROUNDS / 1000, ROUNDS);
+		assertThat(bookLoanRepository.count()).isEqualTo(2L * CART_SIZE * ROUNDS);
+		assertThat(cartNanos).isLessThan(singleNanos);
+	}
+
+	private List<Book> createBooks(String prefix) {
+		List<Book> books = new ArrayList<>();
+		for (int i = 0; i < CART_SIZE; i++) {
+			books.add(new Book(prefix + i, "Книга " + prefix + i, "Автор", 2015));
+		}
+		return bookRepository.saveAll(books);
+	}
+}
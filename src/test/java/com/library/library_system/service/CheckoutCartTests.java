@@ -0,0 +1,122 @@
+package com.library.library_system.service;
+
+import com.library.library_system.LibraryTestData;
+import com.library.library_system.entity.Book;
+import com.library.library_system.entity.BookLoan;
+import com.library.library_system.entity.Librarian;
+import com.library.library_system.entity.Reader;
+import com.library.library_system.repository.BookLoanRepository;
+import com.library.library_system.repository.BookRepository;
+import com.library.library_system.repository.LibrarianRepository;
+import com.library.library_system.repository.ReaderRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import(LibraryTestData.class)
+class CheckoutCartTests {
+
+	@Autowired
+	private BookLoanService bookLoanService;
+
+	@Autowired
+	private BookRepository bookRepository;
+
+	@Autowired
+	private ReaderRepository readerRepository;
+
+	@Autowired
+	private LibrarianRepository librarianRepository;
+
+	@Autowired
+	private BookLoanRepository bookLoanRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private LibraryTestData testData;
+
+	private final List<Book> books = new ArrayList<>();
+	private Reader reader;
+	private Librarian librarian;
+
+	@BeforeEach
+	void setUp() {
+		books.addAll(testData.books("C-", 16));
+		reader = testData.reader("CR-1", "Васильева Ольга", "+7 900 000-40-01");
+		librarian = testData.librarian("CL-1", "Кузнецов Иван");
+	}
+
+	@AfterEach
+	void tearDown() {
+		testData.deleteAll();
+	}
+
+	@Test
+	void checkoutCreatesLoanPerBookAndUpdatesCounters() {
+		List<BookLoan> loans = bookLoanService.checkout(reader.getReaderId(), librarian.getLibrarianId(),
+				ids(books.subList(0, 3)), LocalDate.now().plusDays(14));
+
+		assertThat(loans).extracting(loan -> loan.getBook().getBookId())
+				.containsExactlyElementsOf(ids(books.subList(0, 3)));
+		assertThat(loans).allSatisfy(loan -> assertThat(loan.getLoanId()).isNotNull());
+		assertThat(bookRepository.findAllById(ids(books.subList(0, 3))))
+				.allSatisfy(book -> assertThat(book.getActiveLoansCount()).isEqualTo(1));
+		Reader storedReader = readerRepository.findById(reader.getReaderId()).orElseThrow();
+		assertThat(storedReader.getActiveLoansCount()).isEqualTo(3);
+		assertThat(storedReader.getTotalLoansCount()).isEqualTo(3);
+		assertThat(librarianRepository.findById(librarian.getLibrarianId()).orElseThrow().getLoansCount()).isEqualTo(3);
+	}
+
+	@Test
+	void cartWithLoanedBookIsRejectedAsWhole() {
+		bookLoanService.checkout(reader.getReaderId(), librarian.getLibrarianId(),
+				List.of(books.get(1).getBookId()), LocalDate.now().plusDays(14));
+
+		assertThatThrownBy(() -> bookLoanService.checkout(reader.getReaderId(), librarian.getLibrarianId(),
+				ids(books.subList(0, 3)), LocalDate.now().plusDays(14)))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("уже выдана");
+
+		assertThat(bookLoanRepository.count()).isEqualTo(1);
+		assertThat(bookRepository.findById(books.get(0).getBookId()).orElseThrow().isAvailable()).isTrue();
+		assertThat(readerRepository.findById(reader.getReaderId()).orElseThrow().getActiveLoansCount()).isEqualTo(1);
+	}
+
+	@Test
+	void statementCountDoesNotDependOnCartSize() {
+		// читатель, библиотекарь и книги (3 запроса), счетчики (3), пакет выдач и не больше одного запроса к последовательности
+		int expected = 8;
+		bookLoanService.checkout(reader.getReaderId(), librarian.getLibrarianId(),
+				List.of(books.get(0).getBookId()), LocalDate.now().plusDays(14));
+
+		assertThat(countStatements(books.subList(1, 4))).isLessThanOrEqualTo(expected);
+		assertThat(countStatements(books.subList(4, 16))).isLessThanOrEqualTo(expected);
+	}
+
+	private long countStatements(List<Book> cart) {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		bookLoanService.checkout(reader.getReaderId(), librarian.getLibrarianId(), ids(cart), LocalDate.now().plusDays(14));
+		return statistics.getPrepareStatementCount();
+	}
+
+	private static List<Long> ids(List<Book> books) {
+		return books.stream().map(Book::getBookId).toList();
+	}
+}
@@ -0,0 +1,178 @@
+package com.library.library_system.service;
+
+import com.library.library_system.LibraryTestData;
+import com.library.library_system.entity.Book;
+import com.library.library_system.entity.BookLoan;
+import com.library.library_system.entity.Librarian;
+import com.library.library_system.entity.Reader;
+import com.library.library_system.repository.BookLoanRepository;
+import com.library.library_system.repository.BookRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@Import(LibraryTestData.class)
+class ConcurrentCheckoutTests {
+
+	private static final Logger log = LoggerFactory.getLogger(ConcurrentCheckoutTests.class);
+
+	private static final int BOOKS = 40;
+	private static final int DESKS_PER_BOOK = 10;
+	private static final int THREADS = 16;
+
+	@Autowired
+	private BookLoanService bookLoanService;
+
+	@Autowired
+	private BookService bookService;
+
+	@Autowired
+	private BookRepository bookRepository;
+
+	@Autowired
+	private BookLoanRepository bookLoanRepository;
+
+	@Autowired
+	private LibraryTestData testData;
+
+	private final List<Book> books = new ArrayList<>();
+	private final List<Reader> readers = new ArrayList<>();
+	private Librarian librarian;
+
+	@BeforeEach
+	void setUp() {
+		books.addAll(testData.books("K-", BOOKS));
+		for (int i = 0; i < DESKS_PER_BOOK; i++) {
+			readers.add(testData.reader("KR-" + i, "Читатель " + i, "+7 900 000-30-" + i));
+		}
+		librarian = testData.librarian("KL-1", "Соколова Анна");
+	}
+
+	@AfterEach
+	void tearDown() {
+		testData.deleteAll();
+	}
+
+	@Test
+	void parallelCheckoutsOfSameBookCreateOneOpenLoan() throws Exception {
+		List<Runnable> checkouts = new ArrayList<>();
+		for (Book book : books) {
+			for (Reader reader : readers) {
+				checkouts.add(() -> bookLoanService.saveLoan(
+						new BookLoan(book, reader, librarian, LocalDate.now(), LocalDate.now().plusDays(14))));
+			}
+		}
+		Collections.shuffle(checkouts);
+
+		AtomicInteger succeeded = new AtomicInteger();
+		AtomicInteger rejected = new AtomicInteger();
+		List<Throwable> unexpected = Collections.synchronizedList(new ArrayList<>());
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		List<Future<?>> futures = new ArrayList<>();
+		for (Runnable checkout : checkouts) {
+			futures.add(executor.submit(() -> {
+				start.await();
+				try {
+					checkout.run();
+					succeeded.incrementAndGet();
+				} catch (IllegalStateException e) {
+					assertThat(e).hasMessageContaining("уже выдана");
+					rejected.incrementAndGet();
+				} catch (RuntimeException e) {
+					unexpected.add(e);
+				}
+				return null;
+			}));
+		}
+
+		long started = System.nanoTime();
+		start.countDown();
+		for (Future<?> future : futures) {
+			future.get(1, TimeUnit.MINUTES);
+		}
+		long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+		executor.shutdown();
+		log.info("Параллельная выдача: {} попыток за {} мс ({} в секунду), выдано {}, отклонено {}",
+				checkouts.size(), elapsedMillis, checkouts.size() * 1000L / elapsedMillis,
+				succeeded.get(), rejected.get());
+
+		assertThat(unexpected).isEmpty();
+		assertThat(succeeded.get()).isEqualTo(BOOKS);
+		assertThat(rejected.get()).isEqualTo(BOOKS * (DESKS_PER_BOOK - 1));
+
+		Map<Long, Long> openLoansByBook = bookLoanRepository.findByReturnDateIsNull().stream()
+				.collect(Collectors.groupingBy(loan -> loan.getBook().getBookId(), Collectors.counting()));
+		assertThat(openLoansByBook).hasSize(BOOKS).allSatisfy((bookId, count) -> assertThat(count).isEqualTo(1));
+		Map<Long, Book> stored = bookRepository.findAllById(books.stream().map(Book::getBookId).toList()).stream()
+				.collect(Collectors.toMap(Book::getBookId, Function.identity()));
+		assertThat(stored.values()).allSatisfy(book -> {
+			assertThat(book.getActiveLoansCount()).isEqualTo(1);
+			assertThat(book.getTotalLoansCount()).isEqualTo(1);
+		});
+	}
+
+	@Test
+	void staleEditIsRejected() {
+		Book book = books.get(0);
+		Book first = copyOf(book);
+		Book second = copyOf(book);
+
+		first.setTitle("Первая правка");
+		bookService.saveBook(first);
+
+		second.setTitle("Вторая правка");
+		assertThatThrownBy(() -> bookService.saveBook(second))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("изменена другим пользователем");
+		assertThat(bookRepository.findById(book.getBookId()).orElseThrow().getTitle()).isEqualTo("Первая правка");
+	}
+
+	@Test
+	void secondReturnOfSameLoanIsRejected() {
+		BookLoan loan = new BookLoan(books.get(0), readers.get(0), librarian, LocalDate.now(), LocalDate.now().plusDays(14));
+		bookLoanService.saveLoan(loan);
+
+		BookLoan stale = bookLoanService.getLoanById(loan.getLoanId());
+		bookLoanService.returnBook(loan.getLoanId());
+		stale.setDueDate(LocalDate.now().plusDays(30));
+
+		assertThatThrownBy(() -> bookLoanService.saveLoan(stale))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("изменена другим пользователем");
+		assertThatThrownBy(() -> bookLoanService.returnBook(loan.getLoanId()))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("уже возвращена");
+		assertThat(bookRepository.findById(books.get(0).getBookId()).orElseThrow().getActiveLoansCount()).isZero();
+	}
+
+	private static Book copyOf(Book book) {
+		Book copy = new Book(book.getBookNumber(), book.getTitle(), book.getAuthor(), book.getPublicationYear());
+		copy.setBookId(book.getBookId());
+		copy.setVersion(book.getVersion());
+		return copy;
+	}
+}
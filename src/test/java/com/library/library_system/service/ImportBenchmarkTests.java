@@ -0,0 +1,92 @@
+package com.library.library_system.service;
+
+import com.library.library_system.repository.BookRepository;
+import com.library.library_system.repository.ReaderRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Скорость загрузки 100 000 книг и 100 000 читателей. Файл генерируется на лету,
+ * поэтому в памяти не хранится ни он, ни результат.
+ * Запускается отдельно: {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+class ImportBenchmarkTests {
+
+	private static final Logger log = LoggerFactory.getLogger(ImportBenchmarkTests.class);
+
+	private static final int ROWS = 100_000;
+	private static final long TARGET_ROWS_PER_MINUTE = 100_000;
+
+	@Autowired
+	private ImportService importService;
+
+	@Autowired
+	private BookRepository bookRepository;
+
+	@Autowired
+	private ReaderRepository readerRepository;
+
+	@AfterEach
+	void tearDown() {
+		bookRepository.deleteAllInBatch();
+		readerRepository.deleteAllInBatch();
+	}
+
+	@Test
+	void importsBooksFasterThanTarget() throws IOException {
+		ImportReport report = importService.importBooks(
+				generate("bookNumber,title,author,publicationYear", i -> "IB-" + i + ",Книга номер " + i + ",Автор " + i % 500 + "," + (1900 + i % 120)),
+				ImportService.BookFormat.CSV);
+
+		log.info("Загрузка книг: {} строк за {} мс ({} строк в минуту)",
+				report.getRowsRead(), report.getElapsedMillis(), report.getRowsPerMinute());
+		assertThat(report.getImported()).isEqualTo(ROWS);
+		assertThat(report.getRowsPerMinute()).isGreaterThan(TARGET_ROWS_PER_MINUTE);
+	}
+
+	@Test
+	void importsReadersFasterThanTarget() throws IOException {
+		ImportReport report = importService.importReaders(
+				generate("ticketNumber,fullName,phoneNumber", i -> "IR-" + i + ",Читатель " + i + ",+7 901 " + i));
+
+		log.info("Загрузка читателей: {} строк за {} мс ({} строк в минуту)",
+				report.getRowsRead(), report.getElapsedMillis(), report.getRowsPerMinute());
+		assertThat(report.getImported()).isEqualTo(ROWS);
+		assertThat(report.getRowsPerMinute()).isGreaterThan(TARGET_ROWS_PER_MINUTE);
+	}
+
+	private static InputStream generate(String header, IntFunction<String> line) {
+		return new SequenceInputStream(new Enumeration<>() {
+			private int row = -1;
+
+			@Override
+			public boolean hasMoreElements() {
+				return row < ROWS;
+			}
+
+			@Override
+			public InputStream nextElement() {
+				String text = row < 0 ? header : line.apply(row);
+				row++;
+				return new ByteArrayInputStream((text + "\n").getBytes(StandardCharsets.UTF_8));
+			}
+		});
+	}
+}
@@ -0,0 +1,159 @@
+package com.library.library_system.service;
+
+import com.library.library_system.LibraryTestData;
+import com.library.library_system.entity.Book;
+import com.library.library_system.entity.Librarian;
+import com.library.library_system.repository.BookRepository;
+import com.library.library_system.repository.LibrarianRepository;
+import com.library.library_system.repository.ReaderRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "library.import.chunk-size=3")
+@Import(LibraryTestData.class)
+class ImportServiceTests {
+
+	@Autowired
+	private ImportService importService;
+
+	@Autowired
+	private BookService bookService;
+
+	@Autowired
+	private BookCatalogIndex bookCatalogIndex;
+
+	@Autowired
+	private BookRepository bookRepository;
+
+	@Autowired
+	private ReaderRepository readerRepository;
+
+	@Autowired
+	private LibrarianRepository librarianRepository;
+
+	@Autowired
+	private LibraryTestData testData;
+
+	@AfterEach
+	void tearDown() {
+		testData.deleteAll();
+	}
+
+	@Test
+	void importsBooksFromCsvAndRejectsInvalidRows() throws IOException {
+		testData.book("I-1", "Уже в каталоге", "Автор", 2000);
+		assertThat(bookService.existsByBookNumber("I-4")).isFalse();
+
+		ImportReport report = importService.importBooks(input("""
+				\uFEFFbook_number;Title;author;publication year
+				I-1;Повтор из базы;Автор;2001
+				I-2;"Рассказы; повести";Чехов;1900
+				I-2;Повтор в пачке;Автор;2002
+				I-3;Без года;Автор;
+				I-4;"Записки ""охотника\""
+				в двух томах";Тургенев;1852
+				I-5;Старая книга;Автор;1400
+				I-4;Повтор из прошлой пачки;Автор;2003
+				I-6;Лишнее поле;Автор;2004;x
+				"""), ImportService.BookFormat.CSV);
+
+		assertThat(report.getRowsRead()).isEqualTo(8);
+		assertThat(report.getImported()).isEqualTo(2);
+		assertThat(report.getRejections()).extracting(ImportReport.Rejection::line).containsExactly(
+				2L, 4L, 5L, 8L, 9L, 10L);
+		assertThat(report.getRejections()).extracting(ImportReport.Rejection::reason).containsExactly(
+				"Книга с инвентарным номером 'I-1' уже существует",
+				"Инвентарный номер 'I-2' повторяется в строке 3",
+				"Год издания обязателен",
+				"Год издания должен быть не менее 1500",
+				"Книга с инвентарным номером 'I-4' уже существует",
+				"Ожидалось полей: 4, найдено: 5");
+
+		Book imported = bookRepository.findByBookNumber("I-4");
+		assertThat(imported.getTitle()).isEqualTo("Записки \"охотника\"\nв двух томах");
+		assertThat(imported.isAvailable()).isTrue();
+		assertThat(bookService.existsByBookNumber("I-4")).isTrue();
+		assertThat(bookCatalogIndex.search("тургенев", 0, 10)).containsExactly(imported.getBookId());
+	}
+
+	@Test
+	void importsBooksFromMarc() throws IOException {
+		ImportReport report = importService.importBooks(input("""
+				=LDR  00000nam  2200000 i 4500
+				=001  M-1
+				=100  1\\$aТолстой, Л. Н.,
+				=245  10$aВойна и мир /$cЛ. Н. Толстой.
+				=260  \\\\$aМосква :$bХудожественная литература,$c1869.
+
+				=LDR  00000nam  2200000 i 4500
+				=001  M-2
+				=245  10$aБез автора
+				=LDR  00000nam  2200000 i 4500
+				=001  M-3
+				=100  1\\$aDickens, Charles
+				=245  14$aThe {dollar}100 novel :$bstories
+				=264  \\1$c[1843]
+				"""), ImportService.BookFormat.MARC);
+
+		assertThat(report.getImported()).isEqualTo(2);
+		assertThat(report.getRejections()).singleElement()
+				.satisfies(rejection -> assertThat(rejection.line()).isEqualTo(7));
+		Book war = bookRepository.findByBookNumber("M-1");
+		assertThat(war.getTitle()).isEqualTo("Война и мир");
+		assertThat(war.getAuthor()).isEqualTo("Толстой, Л. Н");
+		assertThat(war.getPublicationYear()).isEqualTo(1869);
+		assertThat(bookRepository.findByBookNumber("M-3").getTitle()).isEqualTo("The $100 novel");
+	}
+
+	@Test
+	void importsReadersAndLibrarians() throws IOException {
+		testData.reader("T-1", "Уже записан", "+7 900 000-50-01");
+
+		ImportReport readers = importService.importReaders(input("""
+				ticketNumber,fullName,phoneNumber,registrationDate
+				T-2,Иванов Иван,+7 900 000-50-01,
+				T-3,Петров Петр,+7 900 000-50-02,2024-02-29
+				T-4,Сидоров Сидор,телефон,
+				T-5,Смирнова Анна,+7 900 000-50-05,вчера
+				"""));
+		assertThat(readers.getImported()).isEqualTo(1);
+		assertThat(readers.getRejections()).extracting(ImportReport.Rejection::reason).containsExactly(
+				"Читатель с номером телефона '+7 900 000-50-01' уже существует",
+				"Некорректный номер телефона",
+				"Столбец 'registrationDate': 'вчера' не является датой в формате ГГГГ-ММ-ДД");
+		assertThat(readerRepository.findByTicketNumber("T-3").getRegistrationDate()).isEqualTo(LocalDate.of(2024, 2, 29));
+
+		ImportReport librarians = importService.importLibrarians(input("""
+				librarianNumber,fullName
+				LI-1,Орлова Мария
+				LI-2,
+				"""));
+		assertThat(librarians.getImported()).isEqualTo(1);
+		Librarian librarian = librarianRepository.findAll().get(0);
+		assertThat(librarian.getPosition()).isEqualTo("Библиотекарь");
+		assertThat(librarian.getLoansCount()).isZero();
+	}
+
+	@Test
+	void rejectsFileWithoutRequiredColumn() {
+		assertThatThrownBy(() -> importService.importReaders(input("ticketNumber,fullName\nT-1,Иванов\n")))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessage("В файле нет столбца 'phoneNumber'");
+	}
+
+	private static InputStream input(String text) {
+		return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,96 @@
+package com.library.library_system.service;
+
+import com.library.library_system.config.CacheConfig;
+import com.library.library_system.config.DatabasePlatform;
+import com.library.library_system.entity.Book;
+import com.library.library_system.entity.BookLoan;
+import com.library.library_system.entity.Librarian;
+import com.library.library_system.entity.Reader;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@Import({CacheConfig.class, DatabasePlatform.class, BookLoanService.class, LoanCounterService.class, LoanCounterReconciler.class, LoanStatisticsService.class})
+class LoanCounterServiceTests {
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private BookLoanService bookLoanService;
+
+	@Autowired
+	private LoanCounterReconciler loanCounterReconciler;
+
+	private Book book;
+	private Reader reader;
+	private Librarian librarian;
+
+	@BeforeEach
+	void setUp() {
+		book = entityManager.persist(new Book("B-1", "Мастер и Маргарита", "Булгаков", 1967));
+		reader = entityManager.persist(new Reader("R-1", "Сидоров Петр", "+7 900 000-00-02"));
+		librarian = entityManager.persist(new Librarian("L-1", "Орлова Мария", "Библиотекарь"));
+		entityManager.flush();
+	}
+
+	@Test
+	void countersFollowLoanLifecycle() {
+		BookLoan loan = new BookLoan(book, reader, librarian, LocalDate.now(), LocalDate.now().plusDays(14));
+		bookLoanService.saveLoan(loan);
+		assertCounters(1, 1, 1, 1, 1);
+
+		bookLoanService.returnBook(loan.getLoanId());
+		assertCounters(0, 1, 0, 1, 1);
+
+		bookLoanService.deleteLoanById(loan.getLoanId());
+		assertCounters(0, 0, 0, 0, 0);
+	}
+
+	@Test
+	void rejectsLoanOfBookThatIsAlreadyOut() {
+		bookLoanService.saveLoan(new BookLoan(book, reader, librarian, LocalDate.now(), LocalDate.now().plusDays(14)));
+		entityManager.clear();
+
+		BookLoan second = new BookLoan(book, reader, librarian, LocalDate.now(), LocalDate.now().plusDays(7));
+		assertThatThrownBy(() -> bookLoanService.saveLoan(second))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("уже выдана");
+	}
+
+	@Test
+	void reconcilerRepairsDriftedCounters() {
+		entityManager.persist(new BookLoan(book, reader, librarian, LocalDate.now(), LocalDate.now().plusDays(14)));
+		entityManager.flush();
+		assertCounters(0, 0, 0, 0, 0);
+
+		assertThat(loanCounterReconciler.reconcile()).isEqualTo(3);
+		assertCounters(1, 1, 1, 1, 1);
+
+		assertThat(loanCounterReconciler.reconcile()).isZero();
+	}
+
+	private void assertCounters(int bookActive, int bookTotal, int readerActive, int readerTotal, int librarianTotal) {
+		entityManager.flush();
+		entityManager.clear();
+		Book storedBook = entityManager.find(Book.class, book.getBookId());
+		Reader storedReader = entityManager.find(Reader.class, reader.getReaderId());
+		Librarian storedLibrarian = entityManager.find(Librarian.class, librarian.getLibrarianId());
+
+		assertThat(storedBook.getActiveLoansCount()).isEqualTo(bookActive);
+		assertThat(storedBook.getTotalLoansCount()).isEqualTo(bookTotal);
+		assertThat(storedBook.isAvailable()).isEqualTo(bookActive == 0);
+		assertThat(storedReader.getActiveLoansCount()).isEqualTo(readerActive);
+		assertThat(storedReader.getTotalLoansCount()).isEqualTo(readerTotal);
+		assertThat(storedLibrarian.getLoansCount()).isEqualTo(librarianTotal);
+	}
+}
@@ -0,0 +1,116 @@
+package com.library.library_system.service;
+
+import com.library.library_system.config.DatabasePlatform;
+import com.library.library_system.entity.Book;
+import com.library.library_system.entity.BookLoan;
+import com.library.library_system.entity.Librarian;
+import com.library.library_system.entity.Reader;
+import com.library.library_system.repository.BookLoanRepository;
+import com.library.library_system.repository.LoanStatusCounts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import({DatabasePlatform.class, LoanStatisticsService.class})
+class LoanStatisticsServiceTests {
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private LoanStatisticsService loanStatisticsService;
+
+	@Autowired
+	private BookLoanRepository bookLoanRepository;
+
+	private Book loanedBook;
+	private Book returnedBook;
+	private Book unusedBook;
+	private Reader reader;
+	private Librarian librarian;
+
+	@BeforeEach
+	void setUp() {
+		loanedBook = entityManager.persist(new Book("B-1", "Война и мир", "Толстой", 1869));
+		returnedBook = entityManager.persist(new Book("B-2", "Анна Каренина", "Толстой", 1877));
+		unusedBook = entityManager.persist(new Book("B-3", "Воскресение", "Толстой", 1899));
+		reader = entityManager.persist(new Reader("R-1", "Иванов Иван", "+7 900 000-00-01"));
+		librarian = entityManager.persist(new Librarian("L-1", "Петрова Анна", "Библиотекарь"));
+
+		LocalDate today = LocalDate.now();
+		entityManager.persist(new BookLoan(loanedBook, reader, librarian, today, today.plusDays(14)));
+		BookLoan returned = new BookLoan(returnedBook, reader, librarian, today.minusDays(20), today.minusDays(6));
+		returned.setReturnDate(today.minusDays(7));
+		entityManager.persist(returned);
+		BookLoan returnedAgain = new BookLoan(loanedBook, reader, librarian, today.minusDays(40), today.minusDays(26));
+		returnedAgain.setReturnDate(today.minusDays(30));
+		entityManager.persist(returnedAgain);
+		entityManager.flush();
+		entityManager.clear();
+	}
+
+	@Test
+	void fillsBookStatisticsForWholeList() {
+		List<Book> books = List.of(loanedBook, returnedBook, unusedBook);
+
+		loanStatisticsService.fillBookStatistics(books);
+
+		assertThat(loanedBook.getActiveLoansCount()).isEqualTo(1);
+		assertThat(loanedBook.getTotalLoansCount()).isEqualTo(2);
+		assertThat(returnedBook.getActiveLoansCount()).isZero();
+		assertThat(returnedBook.getTotalLoansCount()).isEqualTo(1);
+		assertThat(unusedBook.getActiveLoansCount()).isZero();
+		assertThat(unusedBook.getTotalLoansCount()).isZero();
+	}
+
+	@Test
+	void fillsReaderAndLibrarianStatistics() {
+		loanStatisticsService.fillReaderStatistics(List.of(reader));
+		loanStatisticsService.fillLibrarianStatistics(List.of(librarian));
+
+		assertThat(reader.getActiveLoansCount()).isEqualTo(1);
+		assertThat(reader.getTotalLoansCount()).isEqualTo(3);
+		assertThat(librarian.getLoansCount()).isEqualTo(3);
+	}
+
+	@Test
+	void omitsIdsWithoutLoans() {
+		assertThat(loanStatisticsService.getBookStatistics(List.of(unusedBook.getBookId()))).isEmpty();
+		assertThat(loanStatisticsService.getBookStatistics(List.of(returnedBook.getBookId())))
+				.containsOnlyKeys(returnedBook.getBookId());
+	}
+
+	@Test
+	void countsLoansByStatusForEachFilter() {
+		LocalDate today = LocalDate.now();
+		entityManager.persist(new BookLoan(entityManager.find(Book.class, returnedBook.getBookId()),
+				entityManager.find(Reader.class, reader.getReaderId()),
+				entityManager.find(Librarian.class, librarian.getLibrarianId()),
+				today.minusDays(15), today.minusDays(1)));
+		entityManager.persist(new BookLoan(entityManager.find(Book.class, unusedBook.getBookId()),
+				entityManager.find(Reader.class, reader.getReaderId()),
+				entityManager.find(Librarian.class, librarian.getLibrarianId()),
+				today.minusDays(14), today));
+		entityManager.flush();
+
+		assertStatusCounts(bookLoanRepository.countLoansByStatus(today, false, false), 5, 3, 1, 1);
+		assertStatusCounts(bookLoanRepository.countLoansByStatus(today, true, false), 3, 3, 1, 1);
+		assertStatusCounts(bookLoanRepository.countLoansByStatus(today, false, true), 1, 1, 1, 0);
+	}
+
+	private static void assertStatusCounts(LoanStatusCounts counts, long total, long active, long overdue, long dueToday) {
+		assertThat(counts.getTotalCount()).isEqualTo(total);
+		assertThat(counts.getActiveCount()).isEqualTo(active);
+		assertThat(counts.getOverdueCount()).isEqualTo(overdue);
+		assertThat(counts.getDueTodayCount()).isEqualTo(dueToday);
+	}
+}
@@ -0,0 +1,204 @@
+package com.library.library_system.service;
+
+import com.library.library_system.LibraryTestData;
+import com.library.library_system.entity.Book;
+import com.library.library_system.entity.BookLoan;
+import com.library.library_system.entity.Librarian;
+import com.library.library_system.entity.Reader;
+import com.library.library_system.entity.ReminderRun;
+import com.library.library_system.repository.BookLoanRepository;
+import com.library.library_system.repository.ReminderRunRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+		"library.reminders.chunk-size=2",
+		"library.reminders.due-soon-days=2",
+		"library.reminders.rate-per-second=1000"
+})
+@Import(LibraryTestData.class)
+class OverdueReminderTests {
+
+	@Autowired
+	private OverdueReminderService overdueReminderService;
+
+	@Autowired
+	private RecordingGateway gateway;
+
+	@Autowired
+	private BookLoanRepository bookLoanRepository;
+
+	@Autowired
+	private ReminderRunRepository reminderRunRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private BookLoanService bookLoanService;
+
+	@Autowired
+	private LibraryTestData testData;
+
+	private final List<BookLoan> loans = new ArrayList<>();
+
+	private final LocalDate today = LocalDate.now();
+
+	@BeforeEach
+	void setUp() {
+		gateway.sent.clear();
+		gateway.failOn = -1;
+		gateway.onFailure = () -> {};
+		loans.clear();
+		Librarian librarian = testData.librarian("OL-1", "Смирнова Ольга");
+		int[] dueOffsets = {-5, -1, 0, 2, 3, -3};
+		for (int i = 0; i < dueOffsets.length; i++) {
+			Book book = testData.book("O-" + i, "Книга " + i, "Автор", 2000);
+			Reader reader = testData.reader("OR-" + i, "Читатель " + i, "+7 900 000-80-0" + i);
+			BookLoan loan = new BookLoan(book, reader, librarian, today.minusDays(20), today.plusDays(dueOffsets[i]));
+			if (i == dueOffsets.length - 1) {
+				loan.setReturnDate(today.minusDays(1));
+			}
+			loans.add(bookLoanRepository.save(loan));
+		}
+	}
+
+	@AfterEach
+	void tearDown() {
+		reminderRunRepository.deleteAll();
+		testData.deleteAll();
+	}
+
+	@Test
+	void sendsOverdueAndDueSoonRemindersOncePerDay() {
+		ReminderRun run = overdueReminderService.run(today);
+
+		assertThat(gateway.sent).extracting(Reminder::title)
+				.containsExactly("Книга 0", "Книга 1", "Книга 2", "Книга 3");
+		assertThat(gateway.sent).extracting(Reminder::kind).containsExactly(
+				Reminder.Kind.OVERDUE, Reminder.Kind.OVERDUE, Reminder.Kind.DUE_SOON, Reminder.Kind.DUE_SOON);
+		assertThat(gateway.sent).extracting(Reminder::days).containsExactly(5L, 1L, 0L, 2L);
+		assertThat(gateway.sent.get(0).phoneNumber()).isEqualTo("+7 900 000-80-00");
+		assertThat(run.isCompleted()).isTrue();
+		assertThat(run.getOverdueSent()).isEqualTo(2);
+		assertThat(run.getDueSoonSent()).isEqualTo(2);
+
+		overdueReminderService.run(today);
+		assertThat(gateway.sent).hasSize(4);
+	}
+
+	@Test
+	void consecutiveDaysSendOnlyRemindersDueByRules() {
+		overdueReminderService.run(today);
+		gateway.sent.clear();
+
+		ReminderRun nextDay = overdueReminderService.run(today.plusDays(1));
+
+		// Книга 2 стала просроченной, у книги 4 подошел срок; остальным напоминания уже отправлены
+		assertThat(gateway.sent).extracting(Reminder::title).containsExactly("Книга 2", "Книга 4");
+		assertThat(gateway.sent).extracting(Reminder::kind)
+				.containsExactly(Reminder.Kind.OVERDUE, Reminder.Kind.DUE_SOON);
+		assertThat(nextDay.getOverdueSent()).isEqualTo(1);
+		assertThat(nextDay.getDueSoonSent()).isEqualTo(1);
+		gateway.sent.clear();
+
+		overdueReminderService.run(today.plusDays(2));
+		assertThat(gateway.sent).isEmpty();
+
+		// Через неделю после первого напоминания о просрочке оно повторяется
+		overdueReminderService.run(today.plusDays(7));
+		assertThat(gateway.sent).extracting(Reminder::title)
+				.containsExactly("Книга 0", "Книга 1", "Книга 3", "Книга 4");
+		assertThat(gateway.sent).extracting(Reminder::kind).containsOnly(Reminder.Kind.OVERDUE);
+	}
+
+	@Test
+	void changedDueDateRestartsReminders() {
+		overdueReminderService.run(today);
+		gateway.sent.clear();
+
+		BookLoan loan = bookLoanRepository.findById(loans.get(3).getLoanId()).orElseThrow();
+		loan.setDueDate(today.plusDays(1));
+		bookLoanService.saveLoan(loan);
+		BookLoan untouched = bookLoanRepository.findById(loans.get(0).getLoanId()).orElseThrow();
+		bookLoanService.saveLoan(untouched);
+
+		overdueReminderService.run(today);
+		assertThat(gateway.sent).extracting(Reminder::title).containsExactly("Книга 3");
+		assertThat(gateway.sent.get(0).days()).isEqualTo(1L);
+	}
+
+	@Test
+	void interruptedRunResumesFromCheckpoint() {
+		gateway.failOn = 2;
+		assertThatThrownBy(() -> overdueReminderService.run(today)).isInstanceOf(IllegalStateException.class);
+
+		ReminderRun checkpoint = reminderRunRepository.findById(today).orElseThrow();
+		assertThat(checkpoint.isCompleted()).isFalse();
+		assertThat(checkpoint.getOverdueSent()).isEqualTo(2);
+		assertThat(gateway.sent).hasSize(2);
+
+		gateway.failOn = -1;
+		ReminderRun run = overdueReminderService.run(today);
+
+		assertThat(gateway.sent).extracting(Reminder::title)
+				.containsExactly("Книга 0", "Книга 1", "Книга 2", "Книга 3");
+		assertThat(run.isCompleted()).isTrue();
+		assertThat(run.getDueSoonSent()).isEqualTo(2);
+	}
+
+	@Test
+	void checkpointFailureDoesNotHideGatewayError() {
+		gateway.failOn = 2;
+		// Позиция рассылки изменена параллельно, поэтому сохранить ее не удастся
+		gateway.onFailure = () -> jdbcTemplate.update("update reminder_runs set version = version + 1");
+
+		assertThatThrownBy(() -> overdueReminderService.run(today))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessage("Канал доставки недоступен")
+				.satisfies(e -> assertThat(e.getSuppressed())
+						.singleElement().isInstanceOf(OptimisticLockingFailureException.class));
+	}
+
+	static class RecordingGateway implements ReminderGateway {
+
+		private final List<Reminder> sent = new ArrayList<>();
+		private int failOn = -1;
+		private Runnable onFailure = () -> {};
+
+		@Override
+		public void send(Reminder reminder) {
+			if (sent.size() == failOn) {
+				onFailure.run();
+				throw new IllegalStateException("Канал доставки недоступен");
+			}
+			sent.add(reminder);
+		}
+	}
+
+	@TestConfiguration
+	static class GatewayConfig {
+
+		@Bean
+		@Primary
+		RecordingGateway recordingGateway() {
+			return new RecordingGateway();
+		}
+	}
+}
@@ -0,0 +1,158 @@
+package com.library.library_system.service;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.library.library_system.LibraryTestData;
+import com.library.library_system.config.CacheConfig;
+import com.library.library_system.config.CacheStatisticsReporter;
+import com.library.library_system.entity.Book;
+import com.library.library_system.entity.BookLoan;
+import com.library.library_system.entity.Librarian;
+import com.library.library_system.entity.Reader;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@Import(LibraryTestData.class)
+class ReferenceCacheTests {
+
+	@Autowired
+	private BookService bookService;
+
+	@Autowired
+	private ReaderService readerService;
+
+	@Autowired
+	private BookLoanService bookLoanService;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@Autowired
+	private CacheStatisticsReporter cacheStatisticsReporter;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private LibraryTestData testData;
+
+	private Book book;
+	private Reader reader;
+	private Librarian librarian;
+
+	@BeforeEach
+	void setUp() {
+		CacheConfig.CACHE_NAMES.forEach(name -> cacheManager.getCache(name).clear());
+		book = testData.book("C-1", "Идиот", "Достоевский", 1869);
+		reader = testData.reader("CR-1", "Кузнецова Анна", "+7 900 000-10-01");
+		librarian = testData.librarian("CL-1", "Белова Ирина");
+	}
+
+	@AfterEach
+	void tearDown() {
+		testData.deleteAll();
+	}
+
+	@Test
+	void repeatedReadsAreServedFromCache() {
+		CacheStats before = stats(CacheConfig.BOOKS_BY_NUMBER);
+
+		assertThat(bookService.existsByBookNumber("C-1")).isTrue();
+		assertThat(bookService.existsByBookNumber("C-1")).isTrue();
+
+		CacheStats delta = stats(CacheConfig.BOOKS_BY_NUMBER).minus(before);
+		assertThat(delta.missCount()).isEqualTo(1);
+		assertThat(delta.hitCount()).isEqualTo(1);
+	}
+
+	@Test
+	void entitiesAreNotSharedBetweenCallers() {
+		Book first = bookService.getBookById(book.getBookId());
+		first.setTitle("Измененное название");
+		Book second = bookService.getBookById(book.getBookId());
+
+		assertThat(second).isNotSameAs(first);
+		assertThat(second.getTitle()).isEqualTo("Идиот");
+		assertThat(entityManagerFactory.getCache().contains(Book.class, book.getBookId())).isTrue();
+	}
+
+	@Test
+	void missingNaturalKeysAreNotCached() {
+		assertThat(bookService.existsByBookNumber("C-9")).isFalse();
+		assertThat(readerService.existsByTicketNumber("CR-9")).isFalse();
+
+		// Записи создаются в обход сервисов, как при импорте
+		testData.book("C-9", "Бесы", "Достоевский", 1872);
+		testData.reader("CR-9", "Орлова Мария", "+7 900 000-10-09");
+
+		assertThat(bookService.existsByBookNumber("C-9")).isTrue();
+		assertThat(readerService.existsByTicketNumber("CR-9")).isTrue();
+	}
+
+	@Test
+	void saveEvictsEntityAndNaturalKeys() {
+		assertThat(bookService.getBookById(book.getBookId()).getTitle()).isEqualTo("Идиот");
+		assertThat(bookService.existsByBookNumber("C-2")).isFalse();
+
+		Book changed = new Book("C-2", "Бесы", "Достоевский", 1872);
+		changed.setBookId(book.getBookId());
+		changed.setVersion(book.getVersion());
+		bookService.saveBook(changed);
+
+		assertThat(bookService.getBookById(book.getBookId()).getTitle()).isEqualTo("Бесы");
+		assertThat(bookService.existsByBookNumber("C-2")).isTrue();
+		assertThat(bookService.existsByBookNumber("C-1")).isFalse();
+	}
+
+	@Test
+	void rolledBackChangesDoNotReachCache() {
+		assertThat(readerService.existsByTicketNumber("CR-1")).isTrue();
+
+		assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status -> {
+			Reader changed = new Reader("CR-1", "Другое имя", "+7 900 000-10-01");
+			changed.setReaderId(reader.getReaderId());
+			changed.setVersion(reader.getVersion());
+			readerService.saveReader(changed);
+			throw new IllegalStateException("откат");
+		})).isInstanceOf(IllegalStateException.class);
+
+		assertThat(cacheManager.getCache(CacheConfig.READERS_BY_TICKET).get("CR-1")).isNotNull();
+		assertThat(readerService.getReaderById(reader.getReaderId()).getFullName()).isEqualTo("Кузнецова Анна");
+	}
+
+	@Test
+	void loanCountersAreNotServedStale() {
+		assertThat(bookService.getBookById(book.getBookId()).isAvailable()).isTrue();
+		assertThat(readerService.getReaderById(reader.getReaderId()).getActiveLoansCount()).isZero();
+
+		BookLoan loan = new BookLoan(book, reader, librarian, LocalDate.now(), LocalDate.now().plusDays(14));
+		bookLoanService.saveLoan(loan);
+
+		assertThat(bookService.getBookById(book.getBookId()).isAvailable()).isFalse();
+		assertThat(readerService.getReaderById(reader.getReaderId()).getActiveLoansCount()).isEqualTo(1);
+
+		bookLoanService.returnBook(loan.getLoanId());
+
+		assertThat(bookService.getBookById(book.getBookId()).isAvailable()).isTrue();
+		assertThat(bookService.canDeleteBook(book.getBookId())).isFalse();
+	}
+
+	private CacheStats stats(String cacheName) {
+		return cacheStatisticsReporter.getStatistics().get(cacheName);
+	}
+}
@@ -0,0 +1,110 @@
+package com.library.library_system.service;
+
+import com.library.library_system.LibraryTestData;
+import com.library.library_system.entity.Book;
+import com.library.library_system.entity.BookLoan;
+import com.library.library_system.entity.Librarian;
+import com.library.library_system.entity.Reader;
+import com.library.library_system.repository.BookLoanRepository;
+import com.library.library_system.repository.BookRepository;
+import com.library.library_system.repository.ReaderRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Сравнение возврата книги одним условным запросом с возвратом через редактирование выдачи
+ * (загрузка выдачи, установка даты возврата и сохранение с проверками).
+ * Запускается отдельно: {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@Import(LibraryTestData.class)
+class ReturnBenchmarkTests {
+
+	private static final Logger log = LoggerFactory.getLogger(ReturnBenchmarkTests.class);
+
+	private static final int LOANS = 1000;
+
+	@Autowired
+	private BookLoanService bookLoanService;
+
+	@Autowired
+	private BookRepository bookRepository;
+
+	@Autowired
+	private ReaderRepository readerRepository;
+
+	@Autowired
+	private BookLoanRepository bookLoanRepository;
+
+	@Autowired
+	private LibraryTestData testData;
+
+	@AfterEach
+	void tearDown() {
+		testData.deleteAll();
+	}
+
+	@Test
+	void singleStatementReturnIsFasterThanSavingLoan() {
+		Librarian librarian = testData.librarian("RBL-1", "Павлова Вера");
+		Reader reader = testData.reader("RBR-1", "Егоров Илья", "+7 900 200-00-01");
+		List<Long> saved = checkout(reader, librarian, "RBS-");
+		List<Long> fast = checkout(reader, librarian, "RBF-");
+
+		long[] savedNanos = new long[LOANS];
+		long[] fastNanos = new long[LOANS];
+		for (int i = 0; i < LOANS; i++) {
+			long started = System.nanoTime();
+			BookLoan loan = bookLoanService.getLoanById(saved.get(i));
+			loan.setReturnDate(LocalDate.now());
+			bookLoanService.saveLoan(loan);
+			savedNanos[i] = System.nanoTime() - started;
+
+			started = System.nanoTime();
+			bookLoanService.returnBook(fast.get(i));
+			fastNanos[i] = System.nanoTime() - started;
+		}
+
+		log.info("Возврат книги: через сохранение выдачи {}, одним запросом {} (среднее / p99, мкс, {} возвратов)",
+				summary(savedNanos), summary(fastNanos), LOANS);
+		assertThat(bookLoanRepository.findByReturnDateIsNull()).isEmpty();
+		assertThat(readerRepository.findById(reader.getReaderId()).orElseThrow().getActiveLoansCount()).isZero();
+		assertThat(Arrays.stream(fastNanos).sum()).isLessThan(Arrays.stream(savedNanos).sum());
+	}
+
+	private List<Long> checkout(Reader reader, Librarian librarian, String prefix) {
+		List<Book> books = new ArrayList<>();
+		for (int i = 0; i < LOANS; i++) {
+			books.add(new Book(prefix + i, "Книга " + prefix + i, "Автор", 2015));
+		}
+		List<Long> bookIds = bookRepository.saveAll(books).stream().map(Book::getBookId).toList();
+		List<Long> loanIds = new ArrayList<>();
+		for (int from = 0; from < LOANS; from += 20) {
+			bookLoanService.checkout(reader.getReaderId(), librarian.getLibrarianId(),
+					bookIds.subList(from, from + 20), LocalDate.now().plusDays(14))
+					.forEach(loan -> loanIds.add(loan.getLoanId()));
+		}
+		return loanIds;
+	}
+
+	private static String summary(long[] nanos) {
+		long[] sorted = nanos.clone();
+		Arrays.sort(sorted);
+		long p99 = sorted[(int) Math.ceil(sorted.length * 0.99) - 1];
+		return Arrays.stream(nanos).sum() / nanos.length / 1000 + " / " + p99 / 1000;
+	}
+}
@@ -0,0 +1,150 @@
+package com.library.library_system.service;
+
+import com.library.library_system.LibraryTestData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@Import(LibraryTestData.class)
+class SyntheticDataGeneratorTests {
+
+	private static final String HISTORY = "select b.book_number, r.ticket_number, l.loan_date, l.due_date, l.return_date "
+			+ "from book_loans l join books b on b.book_id = l.book_id join readers r on r.reader_id = l.reader_id "
+			+ "order by l.loan_id";
+
+	@Autowired
+	private SyntheticDataGenerator generator;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private LibraryTestData testData;
+
+	@Autowired
+	private BookService bookService;
+
+	@Autowired
+	private BookCatalogIndex bookCatalogIndex;
+
+	private final LocalDate today = LocalDate.of(2026, 3, 2);
+
+	@AfterEach
+	void tearDown() {
+		testData.deleteAll();
+	}
+
+	@Test
+	void generatesConsistentHistory() {
+		SyntheticDataGenerator.Summary summary = generator.generate(SyntheticDataset.ofLoans(20_000, 7), today);
+
+		assertThat(count("select count(*) from book_loans")).isEqualTo(20_000);
+		assertThat(count("select count(*) from books")).isEqualTo(summary.books());
+		assertThat(count("select count(*) from readers")).isEqualTo(summary.readers());
+		assertThat(count("select count(*) from librarians")).isEqualTo(summary.librarians());
+		assertThat(count("select count(*) from book_loans where return_date is null")).isEqualTo(summary.openLoans());
+		assertThat(count("select count(*) from book_loans where return_date is null and due_date < ?", today))
+				.isEqualTo(summary.overdueLoans())
+				.isPositive()
+				.isLessThan(summary.openLoans());
+
+		assertThat(count("select count(*) from (select book_id from book_loans where return_date is null "
+				+ "group by book_id having count(*) > 1) t")).as("книги с несколькими открытыми выдачами").isZero();
+		assertThat(count("select count(*) from book_loans l join readers r on r.reader_id = l.reader_id "
+				+ "where l.loan_date < r.registration_date")).as("выдачи до регистрации читателя").isZero();
+		assertThat(count("select count(*) from book_loans where loan_date > ? or loan_date <= ? "
+				+ "or return_date < loan_date or return_date > ?", today, today.minusYears(3), today)).isZero();
+
+		assertThat(count("select count(*) from books where active_loans_count <> (select count(*) from book_loans l "
+				+ "where l.book_id = books.book_id and l.return_date is null) or total_loans_count <> "
+				+ "(select count(*) from book_loans l where l.book_id = books.book_id)")).isZero();
+		assertThat(count("select count(*) from readers where active_loans_count <> (select count(*) from book_loans l "
+				+ "where l.reader_id = readers.reader_id and l.return_date is null) or total_loans_count <> "
+				+ "(select count(*) from book_loans l where l.reader_id = readers.reader_id)")).isZero();
+		assertThat(count("select count(*) from librarians where loans_count <> (select count(*) from book_loans l "
+				+ "where l.librarian_id = librarians.librarian_id)")).isZero();
+	}
+
+	@Test
+	void popularBooksAndReadersTakeMostLoans() {
+		SyntheticDataGenerator.Summary summary = generator.generate(SyntheticDataset.ofLoans(20_000, 7), today);
+
+		long topBooks = count("select coalesce(sum(total_loans_count), 0) from (select total_loans_count from books "
+				+ "order by total_loans_count desc fetch first " + summary.books() / 10 + " rows only) t");
+		long topReaders = count("select coalesce(sum(total_loans_count), 0) from (select total_loans_count from readers "
+				+ "order by total_loans_count desc fetch first " + summary.readers() / 10 + " rows only) t");
+		assertThat(topBooks).as("выдачи 10% самых популярных книг").isGreaterThan(summary.loans() / 3);
+		assertThat(topReaders).as("выдачи 10% самых активных читателей").isGreaterThan(summary.loans() / 3);
+	}
+
+	@Test
+	void sameSeedGivesSameRows() {
+		generator.generate(SyntheticDataset.ofLoans(5_000, 11), today);
+		List<List<Object>> first = history();
+		List<String> names = jdbcTemplate.queryForList("select full_name from readers order by ticket_number", String.class);
+		List<String> phones = jdbcTemplate.queryForList("select phone_number from readers order by ticket_number", String.class);
+		tearDown();
+
+		generator.generate(SyntheticDataset.ofLoans(5_000, 11), today);
+		assertThat(history()).isEqualTo(first);
+		assertThat(jdbcTemplate.queryForList("select full_name from readers order by ticket_number", String.class))
+				.isEqualTo(names);
+
+		assertThat(names).allMatch(name -> name.matches("[А-ЯЁ][а-яё]+ [А-ЯЁ][а-яё]+ [А-ЯЁ][а-яё]+"));
+		assertThat(phones).doesNotHaveDuplicates().allMatch(phone -> phone.matches("^\\+?[0-9\\s\\-\\(\\)]+$"));
+
+		tearDown();
+		generator.generate(SyntheticDataset.ofLoans(5_000, 12), today);
+		assertThat(history()).isNotEqualTo(first);
+	}
+
+	@Test
+	void generatedBooksAreSearchable() {
+		generator.generate(SyntheticDataset.ofLoans(5_000, 3), today);
+
+		assertThat(bookService.searchBooks("Толстой")).isNotEmpty()
+				.allMatch(book -> book.getAuthor().startsWith("Толстой"));
+		assertThat(bookCatalogIndex.search("Толстой", 0, 10)).isNotEmpty();
+	}
+
+	@Test
+	void rejectsSecondDatasetWithSamePrefix() {
+		generator.generate(SyntheticDataset.ofLoans(1_000, 1), today);
+
+		assertThatThrownBy(() -> generator.generate(SyntheticDataset.ofLoans(1_000, 2), today))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("уже создан");
+		SyntheticDataGenerator.Summary second = generator.generate(SyntheticDataset.ofLoans(1_000, 2).withPrefix("T"), today);
+		assertThat(count("select count(*) from book_loans")).isEqualTo(2_000);
+		assertThat(count("select count(*) from book_loans where loan_id < ?", second.firstLoanId())).isEqualTo(1_000);
+	}
+
+	@Test
+	void rejectsCatalogTooSmallForHistory() {
+		SyntheticDataset dataset = SyntheticDataset.ofLoans(1_000, 1).withBooks(1).withYears(1);
+
+		assertThatThrownBy(() -> generator.generate(dataset, today))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("не хватает");
+		assertThat(count("select count(*) from books")).isZero();
+	}
+
+	private List<List<Object>> history() {
+		return jdbcTemplate.query(HISTORY, (rs, row) -> List.of(rs.getString(1), rs.getString(2),
+				rs.getDate(3).toLocalDate(), rs.getDate(4).toLocalDate(), String.valueOf(rs.getDate(5))));
+	}
+
+	private long count(String sql, Object... args) {
+		return jdbcTemplate.queryForObject(sql, Long.class, args);
+	}
+}
@@ -0,0 +1,63 @@
+-- Схема, которую создавал spring.jpa.hibernate.ddl-auto=update до перехода на миграции:
+-- без счетчиков выдач и версий, идентификаторы выдач из identity.
+-- Индекс book_loans_return_due_idx появлялся, если приложение запускали с промежуточной версией сущности.
+
+create table books (
+    book_id bigint generated by default as identity,
+    author varchar(255) not null,
+    book_number varchar(255) not null unique,
+    publication_year integer not null check (publication_year >= 1500),
+    title varchar(255) not null,
+    primary key (book_id)
+);
+
+create table readers (
+    reader_id bigint generated by default as identity,
+    full_name varchar(255) not null,
+    phone_number varchar(255) not null unique,
+    registration_date date,
+    ticket_number varchar(255) not null unique,
+    primary key (reader_id)
+);
+
+create table librarians (
+    librarian_id bigint generated by default as identity,
+    full_name varchar(255) not null,
+    librarian_number varchar(255) not null unique,
+    position varchar(255) not null,
+    primary key (librarian_id)
+);
+
+create table book_loans (
+    loan_id bigint generated by default as identity,
+    due_date date not null,
+    loan_date date not null,
+    return_date date,
+    book_id bigint not null,
+    librarian_id bigint not null,
+    reader_id bigint not null,
+    primary key (loan_id)
+);
+
+alter table if exists book_loans add constraint fk_book_loans_book foreign key (book_id) references books;
+alter table if exists book_loans add constraint fk_book_loans_librarian foreign key (librarian_id) references librarians;
+alter table if exists book_loans add constraint fk_book_loans_reader foreign key (reader_id) references readers;
+
+create index book_loans_return_due_idx on book_loans (return_date, due_date, loan_id);
+
+insert into books (book_number, title, author, publication_year) values
+    ('B-1', 'Война и мир', 'Лев Толстой', 1869),
+    ('B-2', 'Анна Каренина', 'Лев Толстой', 1877),
+    ('B-3', 'Мастер и Маргарита', 'Михаил Булгаков', 1967);
+
+insert into readers (ticket_number, full_name, phone_number, registration_date) values
+    ('R-1', 'Иванов Иван', '+7 900 000-00-01', date '2020-01-10'),
+    ('R-2', 'Петров Петр', '+7 900 000-00-02', date '2021-05-20');
+
+insert into librarians (librarian_number, full_name, position) values
+    ('L-1', 'Сидорова Анна', 'Библиотекарь');
+
+insert into book_loans (book_id, reader_id, librarian_id, loan_date, due_date, return_date) values
+    (1, 1, 1, date '2024-01-10', date '2024-01-24', date '2024-01-20'),
+    (1, 2, 1, date '2024-02-01', date '2024-02-15', null),
+    (2, 1, 1, date '2024-03-01', date '2024-03-15', date '2024-03-10');